@@ -0,0 +1,45 @@
+#!/bin/bash
+# JMH microbenchmarks (src/jmh/java) with the GC profiler, and a regression
+# check against the stored baseline. See docs/benchmarks.md.
+#
+# Usage:
+#   ./bench_jmh.sh run      [regex]   run benchmarks, result in target/jmh-result.json
+#   ./bench_jmh.sh compare  [regex]   run, then compare with src/jmh/baseline.json
+#                                     (exit 1 on a regression beyond tolerance)
+#   ./bench_jmh.sh baseline [regex]   run and store the result as the new baseline
+# Env: TIME_TOLERANCE (%, default 10), ALLOC_TOLERANCE (%, default 5),
+#      JMH_EXTRA (more JMH options, e.g. "-wi 1 -i 2" for a quick look)
+
+set -euo pipefail
+
+CMD="${1:-run}"
+FILTER="${2:-}"
+RESULT="target/jmh-result.json"
+BASELINE="src/jmh/baseline.json"
+
+run_benchmarks() {
+  mkdir -p target
+  mvn -B -q -Pjmh test-compile exec:exec \
+    -Djmh.args="${FILTER} -f 1 -prof gc -rf json -rff ${RESULT} ${JMH_EXTRA:-}"
+}
+
+case "$CMD" in
+  run)
+    run_benchmarks
+    ;;
+  compare)
+    [ -f "$BASELINE" ] || { echo "No baseline at ${BASELINE}; create one with: $0 baseline"; exit 2; }
+    run_benchmarks
+    mvn -B -q -Pjmh exec:exec -Djmh.main=com.wd.custapi.JmhBaselineCheck \
+      -Djmh.args="${RESULT} ${BASELINE} ${TIME_TOLERANCE:-10} ${ALLOC_TOLERANCE:-5}"
+    ;;
+  baseline)
+    run_benchmarks
+    cp "$RESULT" "$BASELINE"
+    echo "Baseline written to ${BASELINE}; commit it together with the change it measures."
+    ;;
+  *)
+    echo "usage: $0 run|compare|baseline [benchmark-regex]"
+    exit 2
+    ;;
+esac
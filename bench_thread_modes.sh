@@ -0,0 +1,60 @@
+#!/bin/bash
+# Throughput / p99 comparison of platform-thread and virtual-thread mode.
+# See docs/virtual-threads.md.
+#
+# Starts the built jar once per mode against the same database, drives the
+# same endpoints with `hey` at the same concurrency, and prints requests/sec
+# and p99 latency per endpoint and mode.
+#
+# Usage:
+#   JWT_TOKEN=... PROJECT_UUID=... ./bench_thread_modes.sh [jar]
+# Env: CONCURRENCY (default 200), DURATION (default 60s), PORT (default 8089),
+#      plus the usual DB_URL / DB_USERNAME / DB_PASSWORD / JWT_SECRET.
+
+set -euo pipefail
+
+JAR="${1:-target/cust-api-0.0.1-SNAPSHOT.jar}"
+PORT="${PORT:-8089}"
+CONCURRENCY="${CONCURRENCY:-200}"
+DURATION="${DURATION:-60s}"
+BASE="http://localhost:${PORT}"
+
+: "${JWT_TOKEN:?JWT_TOKEN must be set}"
+: "${PROJECT_UUID:?PROJECT_UUID must be set}"
+command -v hey >/dev/null || { echo "hey is required (https://github.com/rakyll/hey)"; exit 1; }
+
+ENDPOINTS=(
+  "/api/dashboard"
+  "/api/notifications/badge"
+  "/api/projects/${PROJECT_UUID}/activities/combined/page?limit=50"
+)
+
+run_mode() {
+  local mode=$1 virtual=$2
+  VIRTUAL_THREADS_ENABLED=$virtual java -jar "$JAR" --server.port="$PORT" \
+      --app.throttle.enabled=false >"bench-${mode}.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' RETURN
+
+  for _ in $(seq 1 60); do
+    curl -fs "${BASE}/readyz" >/dev/null && break
+    sleep 2
+  done
+
+  for path in "${ENDPOINTS[@]}"; do
+    # Warm-up: JIT, caches, pool
+    hey -z 10s -c 20 -H "Authorization: Bearer ${JWT_TOKEN}" "${BASE}${path}" >/dev/null
+    local out rps p99 errors
+    out=$(hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer ${JWT_TOKEN}" "${BASE}${path}")
+    rps=$(awk '/Requests\/sec/ {print $2}' <<<"$out")
+    p99=$(awk '/99% in/ {print $3 * 1000 " ms"}' <<<"$out")
+    errors=$(awk '/\[[0-9]+\]/ && !/\[200\]/ {n += $2} END {print n + 0}' <<<"$out")
+    printf "%-9s %-60s %10s req/s  p99 %10s  non-200 %s\n" "$mode" "$path" "$rps" "$p99" "$errors"
+  done
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+run_mode platform false
+run_mode virtual true
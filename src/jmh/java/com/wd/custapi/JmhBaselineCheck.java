@@ -0,0 +1,127 @@
+package com.wd.custapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result ({@code -rf json}) with a stored baseline and
+ * exits non-zero if any benchmark regressed by more than the tolerance.
+ *
+ * <pre>
+ * JmhBaselineCheck &lt;result.json&gt; &lt;baseline.json&gt; [time-tolerance-%] [alloc-tolerance-%]
+ * </pre>
+ *
+ * Benchmarks are matched by name and parameters. Time is the primary score
+ * (lower is better except in throughput mode); allocation is
+ * {@code gc.alloc.rate.norm} (bytes per operation) from {@code -prof gc}.
+ * Allocation is compared with a tighter default because, unlike time, it
+ * barely varies between machines. Benchmarks missing from either file are
+ * listed but never fail the check.
+ */
+public final class JmhBaselineCheck {
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private record Score(String mode, double score, String unit, Double allocPerOp) {}
+
+    private JmhBaselineCheck() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: JmhBaselineCheck <result.json> <baseline.json> [time-tolerance-%] [alloc-tolerance-%]");
+            System.exit(2);
+        }
+        Map<String, Score> current = read(new File(args[0]));
+        Map<String, Score> baseline = read(new File(args[1]));
+        double timeTolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        double allocTolerance = args.length > 3 ? Double.parseDouble(args[3]) : 5.0;
+
+        int regressions = 0;
+        System.out.printf("%-72s %14s %14s %8s %12s %12s %8s%n",
+                "benchmark", "baseline", "current", "time", "B/op base", "B/op now", "alloc");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-72s %14s %14s%n", entry.getKey(), "(new)", format(now.score(), now.unit()));
+                continue;
+            }
+            double timeDelta = percent(base.score(), now.score());
+            boolean slower = now.mode().equals("thrpt") ? timeDelta < -timeTolerance : timeDelta > timeTolerance;
+            Double allocDelta = base.allocPerOp() != null && now.allocPerOp() != null
+                    ? percent(base.allocPerOp(), now.allocPerOp()) : null;
+            // Sub-100-byte allocations are noise from the measurement itself
+            boolean allocates = allocDelta != null && now.allocPerOp() - base.allocPerOp() > 100
+                    && allocDelta > allocTolerance;
+            if (slower || allocates) regressions++;
+
+            System.out.printf("%-72s %14s %14s %+7.1f%% %12s %12s %8s%s%n",
+                    entry.getKey(), format(base.score(), base.unit()), format(now.score(), now.unit()), timeDelta,
+                    bytes(base.allocPerOp()), bytes(now.allocPerOp()),
+                    allocDelta != null ? String.format("%+.1f%%", allocDelta) : "-",
+                    slower || allocates ? "  REGRESSION" : "");
+        }
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) System.out.printf("%-72s %14s%n", name, "(not run)");
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%n%d benchmark(s) regressed beyond %.0f%% time / %.0f%% allocation%n",
+                    regressions, timeTolerance, allocTolerance);
+            System.exit(1);
+        }
+        System.out.printf("%nNo regressions beyond %.0f%% time / %.0f%% allocation%n", timeTolerance, allocTolerance);
+    }
+
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            JsonNode primary = run.path("primaryMetric");
+            scores.put(key(run), new Score(run.path("mode").asText(), primary.path("score").asDouble(),
+                    primary.path("scoreUnit").asText(), allocPerOp(run.path("secondaryMetrics"))));
+        }
+        return scores;
+    }
+
+    /** {@code Benchmark.method[param=value,...]} with parameters in name order. */
+    private static String key(JsonNode run) {
+        String name = run.path("benchmark").asText().replaceFirst("^com\\.wd\\.custapi\\.", "");
+        Map<String, String> params = new TreeMap<>();
+        for (Map.Entry<String, JsonNode> param : run.path("params").properties()) {
+            params.put(param.getKey(), param.getValue().asText());
+        }
+        if (params.isEmpty()) return name;
+        StringBuilder key = new StringBuilder(name).append('[');
+        params.forEach((k, v) -> key.append(k).append('=').append(v).append(','));
+        key.setCharAt(key.length() - 1, ']');
+        return key.toString();
+    }
+
+    private static Double allocPerOp(JsonNode secondary) {
+        // Older JMH versions prefix profiler metrics with a middle dot
+        for (Map.Entry<String, JsonNode> metric : secondary.properties()) {
+            if (metric.getKey().replace("·", "").equals(ALLOC_METRIC)) {
+                return metric.getValue().path("score").asDouble();
+            }
+        }
+        return null;
+    }
+
+    private static double percent(double base, double now) {
+        return base == 0 ? 0 : (now - base) * 100.0 / base;
+    }
+
+    private static String format(double score, String unit) {
+        return String.format("%.3f %s", score, unit);
+    }
+
+    private static String bytes(Double perOp) {
+        return perOp != null ? String.format("%.0f", perOp) : "-";
+    }
+}
@@ -0,0 +1,125 @@
+package com.wd.custapi.controller;
+
+import com.wd.custapi.model.BoqDocument;
+import com.wd.custapi.model.PaymentStage;
+import com.wd.custapi.model.Project;
+import com.wd.custapi.model.Task;
+import com.wd.custapi.model.enums.BoqDocumentStatus;
+import com.wd.custapi.model.enums.PaymentStageStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code Map}-building response mappers in the controllers, which allocate
+ * a {@code LinkedHashMap} per row:
+ * <ul>
+ *   <li>{@link #gantt} — {@code ProjectModuleController.buildGanttResult} over {@code rows} tasks</li>
+ *   <li>{@link #paymentSchedule} — {@code CustomerBoqController.stageToMap} per payment stage</li>
+ *   <li>{@link #boqSummary} — the BOQ summary with its lean stage list</li>
+ * </ul>
+ * Controllers are built without collaborators; the mappers use none.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseMapperBenchmark {
+
+    private static final String[] TASK_STATUSES = {"PENDING", "IN_PROGRESS", "COMPLETED", "CANCELLED"};
+
+    @Param({"20", "500"})
+    public int rows;
+
+    private ProjectModuleController projectModule;
+    private CustomerBoqController boq;
+    private List<Task> tasks;
+    private List<PaymentStage> stages;
+    private BoqDocument document;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        projectModule = new ProjectModuleController(null, null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null, null);
+        boq = new CustomerBoqController(null, null, null, null, null, null);
+        today = LocalDate.of(2026, 6, 1);
+
+        Project project = new Project();
+        ReflectionTestUtils.setField(project, "id", 10L);
+        document = new BoqDocument();
+        ReflectionTestUtils.setField(document, "id", 1L);
+        ReflectionTestUtils.setField(document, "project", project);
+        ReflectionTestUtils.setField(document, "status", BoqDocumentStatus.APPROVED);
+        ReflectionTestUtils.setField(document, "revisionNumber", 3);
+        ReflectionTestUtils.setField(document, "totalValueExGst", new BigDecimal("4250000.00"));
+        ReflectionTestUtils.setField(document, "gstRate", new BigDecimal("18.00"));
+        ReflectionTestUtils.setField(document, "totalGstAmount", new BigDecimal("765000.00"));
+        ReflectionTestUtils.setField(document, "totalValueInclGst", new BigDecimal("5015000.00"));
+        ReflectionTestUtils.setField(document, "customerApprovedAt", LocalDateTime.of(2026, 2, 1, 10, 0));
+
+        tasks = new ArrayList<>(rows);
+        stages = new ArrayList<>(rows);
+        LocalDate start = LocalDate.of(2026, 1, 5);
+        for (int i = 0; i < rows; i++) {
+            Task task = new Task();
+            ReflectionTestUtils.setField(task, "id", (long) i);
+            ReflectionTestUtils.setField(task, "title", "Task " + i);
+            ReflectionTestUtils.setField(task, "status", TASK_STATUSES[i % TASK_STATUSES.length]);
+            ReflectionTestUtils.setField(task, "priority", "MEDIUM");
+            ReflectionTestUtils.setField(task, "startDate", start.plusDays(i));
+            ReflectionTestUtils.setField(task, "endDate", start.plusDays(i + 14L));
+            ReflectionTestUtils.setField(task, "dueDate", start.plusDays(i + 14L));
+            ReflectionTestUtils.setField(task, "progressPercent", (i * 7) % 101);
+            tasks.add(task);
+
+            BigDecimal amount = BigDecimal.valueOf(85_000L + i * 1_000L);
+            PaymentStage stage = new PaymentStage();
+            ReflectionTestUtils.setField(stage, "id", (long) i);
+            ReflectionTestUtils.setField(stage, "stageNumber", i + 1);
+            ReflectionTestUtils.setField(stage, "stageName", "Stage " + (i + 1));
+            ReflectionTestUtils.setField(stage, "stagePercentage", new BigDecimal("2.00"));
+            ReflectionTestUtils.setField(stage, "stageAmountExGst", amount);
+            ReflectionTestUtils.setField(stage, "gstAmount", amount.multiply(new BigDecimal("0.18")));
+            ReflectionTestUtils.setField(stage, "stageAmountInclGst", amount.multiply(new BigDecimal("1.18")));
+            ReflectionTestUtils.setField(stage, "status", i < rows / 2 ? PaymentStageStatus.PAID : PaymentStageStatus.UPCOMING);
+            ReflectionTestUtils.setField(stage, "dueDate", start.plusMonths(i % 24));
+            ReflectionTestUtils.setField(stage, "milestoneDescription", "Milestone " + (i + 1));
+            stages.add(stage);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> gantt() {
+        return projectModule.buildGanttResult(tasks, today);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> paymentSchedule() {
+        return stages.stream().map(boq::stageToMap).toList();
+    }
+
+    @Benchmark
+    public Map<String, Object> boqSummary() {
+        return boq.boqSummaryToMap(document, stages.stream().map(boq::stageSummaryToMap).toList());
+    }
+}
@@ -0,0 +1,60 @@
+package com.wd.custapi.logging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SensitiveDataMasker#mask} on the inputs it sees per request: a plain
+ * log message with nothing to mask (the common case), a JSON login body, a
+ * query string, and a 4 KB JSON payload with one secret near the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensitiveDataMaskerBenchmark {
+
+    @Param({"PLAIN", "JSON_LOGIN", "QUERY", "JSON_4K"})
+    public String input;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = switch (input) {
+            case "PLAIN" -> "GET /api/projects/3f2a9c1e-7d4b-4e8a-9b61-0c5d2e8f4a17/gallery completed 200 in 48ms";
+            case "JSON_LOGIN" -> "{\"email\":\"alice@example.com\",\"password\":\"Sup3r-Secret!\",\"rememberMe\":true}";
+            case "QUERY" -> "page=0&size=20&sort=createdAt,desc&token=eyJhbGciOiJIUzI1NiJ9.e30.sig&projectId=42";
+            case "JSON_4K" -> json4k();
+            default -> throw new IllegalArgumentException(input);
+        };
+    }
+
+    private static String json4k() {
+        StringBuilder sb = new StringBuilder("{\"items\":[");
+        for (int i = 0; sb.length() < 4000; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i).append(",\"title\":\"Site photo ").append(i)
+              .append("\",\"status\":\"APPROVED\"}");
+        }
+        return sb.append("],\"otp\":\"482913\"}").toString();
+    }
+
+    @Benchmark
+    public String mask() {
+        return SensitiveDataMasker.mask(text);
+    }
+}
@@ -0,0 +1,107 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.BoqDocument;
+import com.wd.custapi.model.BoqItem;
+import com.wd.custapi.model.Project;
+import com.wd.custapi.model.enums.BoqDocumentStatus;
+import com.wd.custapi.repository.BoqDocumentRepository;
+import com.wd.custapi.repository.BoqItemRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * {@link BoqDiffService#getDiff} between two synthetic revisions: the newer one
+ * drops 2% of the items, adds 2% and rewords 5%. Repositories are stub-only
+ * mocks (no invocation recording), so the score is the in-memory diff and map
+ * building, not data access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoqDiffBenchmark {
+
+    private static final long PROJECT_ID = 10L;
+
+    @Param({"500", "5000"})
+    public int items;
+
+    private BoqDiffService service;
+
+    @Setup
+    public void setUp() {
+        Project project = new Project();
+        ReflectionTestUtils.setField(project, "id", PROJECT_ID);
+
+        List<BoqItem> from = new ArrayList<>(items);
+        List<BoqItem> to = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            String code = "ITEM-" + i;
+            BoqItem item = item(code, "Brickwork in CM 1:6, course " + i, i);
+            from.add(item);
+            if (i % 50 == 0) continue;                                          // removed
+            to.add(i % 20 == 1 ? item(code, "Brickwork in CM 1:4, course " + i, i) : item); // reworded
+        }
+        for (int i = 0; i < items / 50; i++) {
+            to.add(item("NEW-" + i, "Additional plastering " + i, items + i));   // added
+        }
+
+        BoqDocumentRepository documents = mock(BoqDocumentRepository.class, withSettings().stubOnly());
+        BoqItemRepository boqItems = mock(BoqItemRepository.class, withSettings().stubOnly());
+        when(documents.findById(1L)).thenReturn(Optional.of(document(1L, 1, project)));
+        when(documents.findById(2L)).thenReturn(Optional.of(document(2L, 2, project)));
+        when(boqItems.findByBoqDocumentId(1L)).thenReturn(from);
+        when(boqItems.findByBoqDocumentId(2L)).thenReturn(to);
+        service = new BoqDiffService(documents, boqItems);
+    }
+
+    private static BoqDocument document(long id, int revision, Project project) {
+        BoqDocument doc = new BoqDocument();
+        ReflectionTestUtils.setField(doc, "id", id);
+        ReflectionTestUtils.setField(doc, "project", project);
+        ReflectionTestUtils.setField(doc, "revisionNumber", revision);
+        ReflectionTestUtils.setField(doc, "status", BoqDocumentStatus.APPROVED);
+        return doc;
+    }
+
+    private static BoqItem item(String code, String description, long id) {
+        BigDecimal quantity = BigDecimal.valueOf(10 + id % 90);
+        BigDecimal rate = BigDecimal.valueOf(450 + id % 300);
+        BoqItem item = new BoqItem();
+        ReflectionTestUtils.setField(item, "id", id);
+        ReflectionTestUtils.setField(item, "itemCode", code);
+        ReflectionTestUtils.setField(item, "description", description);
+        ReflectionTestUtils.setField(item, "quantity", quantity);
+        ReflectionTestUtils.setField(item, "rate", rate);
+        ReflectionTestUtils.setField(item, "amount", quantity.multiply(rate));
+        return item;
+    }
+
+    @Benchmark
+    public Map<String, Object> getDiff() {
+        return service.getDiff(PROJECT_ID, 1L, 2L);
+    }
+}
@@ -0,0 +1,59 @@
+package com.wd.custapi.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CctvStreamProxyService#rewriteHlsManifest} on a live playlist (a short
+ * sliding window, rewritten on every manifest-cache miss) and a one-hour
+ * recording (2-second segments), both with an EXT-X-KEY and EXT-X-MAP URI.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HlsManifestRewriteBenchmark {
+
+    @Param({"6", "1800"})
+    public int segments;
+
+    private CctvStreamProxyService service;
+    private URI manifestUrl;
+    private String manifest;
+
+    @Setup
+    public void setUp() {
+        service = new CctvStreamProxyService();
+        manifestUrl = URI.create("https://nvr.site.example/cam/7/live/index.m3u8");
+        StringBuilder m = new StringBuilder()
+                .append("#EXTM3U\n")
+                .append("#EXT-X-VERSION:7\n")
+                .append("#EXT-X-TARGETDURATION:2\n")
+                .append("#EXT-X-MEDIA-SEQUENCE:48213\n")
+                .append("#EXT-X-KEY:METHOD=AES-128,URI=\"keys/k1.bin\",IV=0x00000000000000000000000000000001\n")
+                .append("#EXT-X-MAP:URI=\"init.mp4\"\n");
+        for (int i = 0; i < segments; i++) {
+            m.append("#EXTINF:2.000,\n").append("seg/").append(48213 + i).append(".m4s\n");
+        }
+        manifest = m.toString();
+    }
+
+    @Benchmark
+    public String rewrite() {
+        return service.rewriteHlsManifest(manifest, manifestUrl);
+    }
+}
@@ -0,0 +1,55 @@
+package com.wd.custapi.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing tokens at login and refresh ({@link JwtService#generateAccessToken},
+ * {@link JwtService#generateRefreshToken}). RS256 signing is a private-key
+ * operation and dominates the login path; verification is in {@link JwtVerifyBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtIssueBenchmark {
+
+    @Param({"HS256", "RS256"})
+    public String algorithm;
+
+    private JwtService service;
+    private UserDetails user;
+
+    @Setup
+    public void setUp() throws Exception {
+        String pem = algorithm.equals("RS256") ? JwtVerifyBenchmark.toPem(JwtVerifyBenchmark.rsaKeyPair()) : "";
+        service = JwtVerifyBenchmark.newService(algorithm, pem, 0);
+        user = new User("alice@bench.test", "pw", Collections.emptyList());
+    }
+
+    @Benchmark
+    public String accessToken() {
+        return service.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String refreshToken() {
+        return service.generateRefreshToken(user);
+    }
+}
@@ -0,0 +1,61 @@
+package com.wd.custapi.service.wbs;
+
+import com.wd.custapi.service.wbs.ProgressRollupService.MilestoneInput;
+import com.wd.custapi.service.wbs.ProgressRollupService.TaskInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProgressRollupService} weighted roll-ups: tasks into a milestone and
+ * milestones (BigDecimal weights) into a project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgressRollupBenchmark {
+
+    @Param({"20", "500"})
+    public int size;
+
+    private final ProgressRollupService service = new ProgressRollupService();
+    private List<TaskInput> tasks;
+    private List<MilestoneInput> milestones;
+
+    @Setup
+    public void setUp() {
+        tasks = new ArrayList<>(size);
+        milestones = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(new TaskInput((i * 37) % 101, 1 + i % 5));
+            milestones.add(new MilestoneInput(BigDecimal.valueOf((i * 37) % 101),
+                    BigDecimal.valueOf(1 + i % 7, 1), "COMPUTED"));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal rollupMilestone() {
+        return service.rollupMilestone(tasks);
+    }
+
+    @Benchmark
+    public BigDecimal rollupProject() {
+        return service.rollupProject(milestones);
+    }
+}
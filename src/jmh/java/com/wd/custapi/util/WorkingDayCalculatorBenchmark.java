@@ -0,0 +1,68 @@
+package com.wd.custapi.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WorkingDayCalculator#workingDaysBetween} over a one-month task, a
+ * one-year milestone and a ten-year span (a bad date in portal data), and the
+ * same span on a {@link WorkingCalendar} with 15 holidays a year for 2020-2035.
+ * All should be flat in {@code days}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkingDayCalculatorBenchmark {
+
+    @Param({"30", "365", "3650"})
+    public int days;
+
+    private LocalDate start;
+    private LocalDate end;
+    private WorkingCalendar holidays;
+
+    @Setup
+    public void setUp() {
+        start = LocalDate.of(2026, 1, 7);
+        end = start.plusDays(days);
+        List<LocalDate> dates = new ArrayList<>();
+        for (int year = 2020; year <= 2035; year++) {
+            for (int i = 0; i < 15; i++) {
+                dates.add(LocalDate.of(year, 1 + i % 12, 1 + i));
+            }
+        }
+        holidays = new WorkingCalendar(dates);
+    }
+
+    @Benchmark
+    public int workingDaysBetween() {
+        return WorkingDayCalculator.workingDaysBetween(start, end);
+    }
+
+    @Benchmark
+    public int workingDaysBetweenWithHolidays() {
+        return holidays.workingDaysBetween(start, end);
+    }
+
+    @Benchmark
+    public LocalDate addWorkingDaysWithHolidays() {
+        return holidays.addWorkingDays(start, days);
+    }
+}
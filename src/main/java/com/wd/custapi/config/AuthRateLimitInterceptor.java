@@ -2,8 +2,13 @@ package com.wd.custapi.config;
 
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.servlet.HandlerInterceptor;
 
@@ -19,20 +24,33 @@ import java.time.Duration;
  *   POST /auth/reset-password   — 5 attempts  (token exhaustion prevention)
  *
  * Returns HTTP 429 with a Retry-After header on limit breach.
- * Token bucket state is in-memory — safe for single-instance; upgrade to Redis for scale.
+ * Buckets live in the configured {@link RateLimitBucketStore} (per node or
+ * shared, see {@link RateLimiterConfig}); if the store fails the request is let
+ * through — the auth endpoints need the same database anyway.
+ *
+ * Metrics: {@code auth.ratelimit.requests} (endpoint, result = allowed /
+ * rejected / error) and gauge {@code auth.ratelimit.buckets} (store).
  */
 public class AuthRateLimitInterceptor implements HandlerInterceptor {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthRateLimitInterceptor.class);
+
     private static final int LOGIN_CAPACITY           = 5;
     private static final int REFRESH_CAPACITY         = 20;
     private static final int PASSWORD_RESET_CAPACITY  = 5;
     private static final int REGISTER_CAPACITY        = 3;
     private static final Duration WINDOW = Duration.ofMinutes(1);
 
-    private final RateLimiterConfig rateLimiterConfig;
+    private final RateLimitBucketStore bucketStore;
+    private final MeterRegistry meterRegistry;
 
-    public AuthRateLimitInterceptor(RateLimiterConfig rateLimiterConfig) {
-        this.rateLimiterConfig = rateLimiterConfig;
+    public AuthRateLimitInterceptor(RateLimitBucketStore bucketStore, MeterRegistry meterRegistry) {
+        this.bucketStore = bucketStore;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("auth.ratelimit.buckets", bucketStore, RateLimitBucketStore::size)
+                .description("Rate-limit buckets held by the bucket store")
+                .tag("store", bucketStore.name())
+                .register(meterRegistry);
     }
 
     @Override
@@ -45,16 +63,27 @@ public class AuthRateLimitInterceptor implements HandlerInterceptor {
             return true; // Not a rate-limited endpoint
         }
 
+        String endpoint = uri.substring(uri.lastIndexOf('/') + 1);
         String ip = resolveClientIp(request);
         String bucketKey = "auth:" + uri + ":" + ip;
-        Bucket bucket = rateLimiterConfig.resolveBucket(bucketKey, capacity, WINDOW);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        ConsumptionProbe probe;
+        try {
+            Bucket bucket = bucketStore.resolve(bucketKey, capacity, WINDOW);
+            probe = bucket.tryConsumeAndReturnRemaining(1);
+        } catch (RuntimeException e) {
+            log.warn("Rate-limit store '{}' unavailable, allowing {}: {}", bucketStore.name(), uri, e.getMessage());
+            requests(endpoint, "error").increment();
+            return true;
+        }
 
         if (probe.isConsumed()) {
+            requests(endpoint, "allowed").increment();
             response.addHeader("X-Rate-Limit-Remaining", String.valueOf(probe.getRemainingTokens()));
             return true;
         }
 
+        requests(endpoint, "rejected").increment();
+
         long retryAfterSeconds = probe.getNanosToWaitForRefill() / 1_000_000_000L;
         response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
         response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
@@ -66,6 +95,14 @@ public class AuthRateLimitInterceptor implements HandlerInterceptor {
         return false;
     }
 
+    private Counter requests(String endpoint, String result) {
+        return Counter.builder("auth.ratelimit.requests")
+                .description("Requests to rate-limited auth endpoints")
+                .tag("endpoint", endpoint)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     private int resolveCapacity(String uri) {
         if (uri.endsWith("/auth/login")) {
             return LOGIN_CAPACITY;
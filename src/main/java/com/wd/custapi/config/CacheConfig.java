@@ -1,30 +1,78 @@
 package com.wd.custapi.config;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wd.custapi.security.AuthenticatedPrincipalCache;
+import com.wd.custapi.service.DashboardCache;
+import com.wd.custapi.service.ProjectAccessService;
+import com.wd.custapi.service.StorageOwnershipIndex;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Cache configuration using Caffeine for bounded in-memory caching.
  * All caches have a maximum size and TTL to prevent unbounded memory growth.
+ *
+ * Caches whose misses run a query (principals, project access, dashboards) are
+ * registered as async caches: a synchronous {@code get(key, loader)} then runs
+ * the loader on a virtual thread instead of inside the ConcurrentHashMap bin
+ * lock, which would pin a virtual request thread to its carrier for the whole
+ * query. Concurrent misses still share one load. An async cache drops a failed
+ * or null load when the future completes, which can be just after the caller
+ * has seen it, so owners invalidate such keys themselves before rethrowing.
+ *
+ * A load on another thread takes its own pooled connection. A caller already in
+ * a transaction holds one, so a miss would hold two connections for one request,
+ * and enough such callers could exhaust the pool waiting on each other's loads.
+ * Owners that can be called inside a transaction therefore go through
+ * {@link #get(Cache, Object, Function)}, which loads on the caller's thread there.
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    /** Runs cache loads (see class doc); a virtual thread per load. */
+    private static final Executor CACHE_LOADS =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cache-load-", 0).factory());
+
     /**
      * userProjects cache: Stores project lookup results per user.
      * - Max 5,000 entries (covers ~5k concurrent user sessions)
      * - Expires 5 minutes after last write
      * - Automatically evicts least-recently-used entries when full
+     *
+     * projectAccess / userRoles / userProjectIds caches: see {@link ProjectAccessService}.
+     * - Short TTL ({@code app.project-access.cache-ttl}, default 2 min) because
+     *   project membership is written by the portal API, not by this service
+     *
+     * authPrincipals cache: see {@link AuthenticatedPrincipalCache}.
+     * - Max 10,000 entries, TTL {@code app.auth.principal-cache-ttl} (default 60s)
+     *
+     * storagePathOwners cache: see {@link StorageOwnershipIndex}.
+     * - Max 50,000 paths, TTL {@code app.storage.ownership-cache-ttl} (default 10 min)
+     *
+     * dashboards cache: see {@link DashboardCache}.
+     * - Max 5,000 users, TTL {@code app.dashboard.cache-ttl} (default 60s); evicted on project events
+     * - adminProjectCounts shares that TTL: admin list totals per search term
      */
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(
+            @Value("${app.project-access.cache-ttl:PT2M}") Duration projectAccessTtl,
+            @Value("${app.auth.principal-cache-ttl:PT60S}") Duration principalTtl,
+            @Value("${app.storage.ownership-cache-ttl:PT10M}") Duration storageOwnershipTtl,
+            @Value("${app.dashboard.cache-ttl:PT60S}") Duration dashboardTtl) {
         // Caches share one Caffeine builder (5,000 max entries, 5min TTL).
         // - userProjects: dashboard's per-email project lookup
         // - expectedHandover: per-projectUuid expected-handover DTO
@@ -33,6 +81,63 @@ public class CacheConfig {
                 .maximumSize(5_000)
                 .expireAfterWrite(5, TimeUnit.MINUTES)
                 .recordStats()); // enables cache hit/miss metrics
+
+        // Custom caches are registered up front so Actuator binds their
+        // cache.gets{result=hit|miss} meters at startup.
+        manager.registerCustomCache(ProjectAccessService.PROJECT_ACCESS_CACHE, loading(Caffeine.newBuilder()
+                .maximumSize(20_000)
+                .expireAfterWrite(projectAccessTtl)
+                .recordStats()));
+        manager.registerCustomCache(ProjectAccessService.USER_ROLE_CACHE, loading(Caffeine.newBuilder()
+                .maximumSize(5_000)
+                .expireAfterWrite(projectAccessTtl)
+                .recordStats()));
+        manager.registerCustomCache(ProjectAccessService.USER_PROJECT_IDS_CACHE, loading(Caffeine.newBuilder()
+                .maximumSize(5_000)
+                .expireAfterWrite(projectAccessTtl)
+                .recordStats()));
+        manager.registerCustomCache(AuthenticatedPrincipalCache.CACHE_NAME, loading(Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(principalTtl)
+                .recordStats()));
+        manager.registerCustomCache(StorageOwnershipIndex.CACHE_NAME, Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterWrite(storageOwnershipTtl)
+                .recordStats()
+                .build());
+        manager.registerCustomCache(DashboardCache.CACHE_NAME, loading(Caffeine.newBuilder()
+                .maximumSize(5_000)
+                .expireAfterWrite(dashboardTtl)
+                .recordStats()));
+        manager.registerCustomCache(DashboardCache.ADMIN_COUNTS_CACHE_NAME, loading(Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(dashboardTtl)
+                .recordStats()));
         return manager;
     }
+
+    private static AsyncCache<Object, Object> loading(Caffeine<Object, Object> builder) {
+        return builder.executor(CACHE_LOADS).buildAsync();
+    }
+
+    /**
+     * {@code cache.get(key, loader)}, except that inside a transaction a miss is
+     * loaded on the caller's thread with the transaction's connection and then
+     * stored (a {@code null} result is not). Concurrent misses in transactions
+     * are not deduplicated.
+     */
+    public static Object get(Cache<Object, Object> cache, Object key, Function<Object, ?> loader) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return cache.get(key, loader);
+        }
+        Object cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        Object loaded = loader.apply(key);
+        if (loaded != null) {
+            cache.put(key, loaded);
+        }
+        return loaded;
+    }
 }
@@ -0,0 +1,46 @@
+package com.wd.custapi.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bucket;
+
+import java.time.Duration;
+
+/**
+ * Per-node bucket store: a Caffeine cache bounded by {@code max-buckets} and
+ * dropping buckets idle for {@code idle-expiry}, so a scan from many source
+ * IPs cannot grow the heap without bound. Limits are per node.
+ */
+public class CaffeineBucketStore implements RateLimitBucketStore {
+
+    private final Cache<String, Bucket> buckets;
+
+    public CaffeineBucketStore(long maxBuckets, Duration idleExpiry) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleExpiry)
+                .build();
+    }
+
+    @Override
+    public Bucket resolve(String key, int capacity, Duration refillPeriod) {
+        return buckets.get(key, k -> Bucket.builder()
+                .addLimit(RateLimitBucketStore.limit(capacity, refillPeriod))
+                .build());
+    }
+
+    @Override
+    public long size() {
+        return buckets.estimatedSize();
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    /** Runs pending evictions now; Caffeine otherwise does it asynchronously. */
+    void cleanUp() {
+        buckets.cleanUp();
+    }
+}
@@ -0,0 +1,34 @@
+package com.wd.custapi.config;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+
+import java.time.Duration;
+
+/**
+ * Where the auth rate limiter keeps its token buckets; chosen with
+ * {@code app.rate-limiting.store}, see {@link RateLimiterConfig}.
+ *
+ * <p>A bucket that has been idle for a full refill period is full again, so a
+ * store may drop idle buckets: a dropped key simply starts over with a full
+ * bucket.
+ */
+public interface RateLimitBucketStore {
+
+    /** The bucket for {@code key}, created full on first use. */
+    Bucket resolve(String key, int capacity, Duration refillPeriod);
+
+    /** Buckets currently held (an estimate for the in-memory store). */
+    long size();
+
+    /** Store name for the {@code store} metric tag. */
+    String name();
+
+    /** {@code capacity} tokens, all refilled at once every {@code refillPeriod}. */
+    static Bandwidth limit(int capacity, Duration refillPeriod) {
+        return Bandwidth.builder()
+                .capacity(capacity)
+                .refillIntervally(capacity, refillPeriod)
+                .build();
+    }
+}
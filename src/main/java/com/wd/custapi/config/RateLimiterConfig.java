@@ -1,43 +1,68 @@
 package com.wd.custapi.config;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import javax.sql.DataSource;
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * In-memory rate limiter using Bucket4j token-bucket algorithm.
- * Protects authentication endpoints from brute force and enumeration attacks.
+ * Token-bucket store for the Bucket4j rate limiter.
+ * Protects authentication endpoints from brute force and enumeration attacks;
+ * the limits themselves are in {@link AuthRateLimitInterceptor}.
  *
- * Limits (per IP, per minute):
- *   /auth/login             — 5 attempts
- *   /auth/refresh-token     — 20 attempts
- *   /auth/forgot-password   — 5 attempts
- *   /auth/reset-password    — 5 attempts
+ * {@code app.rate-limiting.store} selects where buckets live:
+ *   memory   — {@link CaffeineBucketStore} (default): bounded, idle buckets expire; limits are per node
+ *   postgres — {@link PostgresBucketStore}: one row per bucket; limits hold across nodes
  *
- * For distributed deployments, replace the ConcurrentHashMap cache with
- * a Redis-backed Bucket4j ProxyManager.
+ * {@code idle-expiry} must be at least the longest refill window (1 minute),
+ * so a dropped bucket would have been full anyway.
+ *
+ * The per-user throttle ({@link UserThrottleInterceptor}) has its own store,
+ * {@code app.throttle.store}, see {@link #throttleBucketStore}.
  */
 @Configuration
 public class RateLimiterConfig {
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "app.rate-limiting.store", havingValue = "memory", matchIfMissing = true)
+    public RateLimitBucketStore memoryBucketStore(
+            @Value("${app.rate-limiting.max-buckets:100000}") long maxBuckets,
+            @Value("${app.rate-limiting.idle-expiry:PT10M}") Duration idleExpiry) {
+        return new CaffeineBucketStore(maxBuckets, idleExpiry);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "app.rate-limiting.store", havingValue = "postgres")
+    public RateLimitBucketStore postgresBucketStore(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.rate-limiting.idle-expiry:PT10M}") Duration idleExpiry) {
+        return new PostgresBucketStore(dataSource, jdbcTemplate, idleExpiry);
+    }
 
     /**
-     * Return (or create) a rate-limit bucket for the given key.
-     * Each unique key gets its own independent token bucket.
+     * Buckets of the per-user throttle. The throttle charges every
+     * {@code @RequestCost} request, CCTV segments included, so {@code postgres}
+     * would take a pooled connection and lock the user's row before each of
+     * them. The default {@code memory} keeps budgets per node: with N nodes a
+     * user can spend up to N budgets per window.
      */
-    public Bucket resolveBucket(String key, int capacity, Duration refillDuration) {
-        return buckets.computeIfAbsent(key, k ->
-            Bucket.builder()
-                .addLimit(Bandwidth.builder()
-                    .capacity(capacity)
-                    .refillIntervally(capacity, refillDuration)
-                    .build())
-                .build()
-        );
+    @Bean
+    public RateLimitBucketStore throttleBucketStore(
+            ThrottleProperties properties,
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.rate-limiting.max-buckets:100000}") long maxBuckets,
+            @Value("${app.rate-limiting.idle-expiry:PT10M}") Duration idleExpiry) {
+        return "postgres".equalsIgnoreCase(properties.getStore())
+                ? new PostgresBucketStore(dataSource, jdbcTemplate, idleExpiry)
+                : new CaffeineBucketStore(maxBuckets, idleExpiry);
     }
 }
@@ -0,0 +1,23 @@
+package com.wd.custapi.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Weight of an expensive endpoint against the caller's per-user request budget,
+ * enforced by {@link UserThrottleInterceptor}. A plain request costs 1; heavier
+ * reads (large queries, exports, proxied streams) declare more. On a class it
+ * applies to every handler method that does not declare its own.
+ * Endpoints without it are not throttled.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RequestCost {
+
+    /** Tokens taken from the caller's budget per request. */
+    int value();
+}
@@ -1,7 +1,6 @@
 package com.wd.custapi.config;
 
 import com.wd.custapi.logging.LoggingConstants;
-import com.wd.custapi.logging.SensitiveDataMasker;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,7 +32,7 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
 
     /** Paths that don't need access logging (health checks, favicon, etc.) */
     private static final Set<String> EXCLUDED_PATHS = Set.of(
-            "/actuator/health", "/favicon.ico", "/actuator/info"
+            "/actuator/health", "/favicon.ico", "/actuator/info", "/livez", "/readyz"
     );
 
     @Override
@@ -86,8 +85,8 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
     private String resolveClientIp(HttpServletRequest request) {
         String forwarded = request.getHeader("X-Forwarded-For");
         if (forwarded != null && !forwarded.isBlank()) {
-            // Take only the first IP (rest are proxy hops)
-            return SensitiveDataMasker.mask(forwarded.split(",")[0].trim());
+            // Take only the first IP (rest are proxy hops); %msg masks anything smuggled in
+            return forwarded.split(",")[0].trim();
         }
         String realIp = request.getHeader("X-Real-IP");
         if (realIp != null && !realIp.isBlank()) {
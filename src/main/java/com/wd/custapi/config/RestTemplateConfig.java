@@ -2,12 +2,31 @@ package com.wd.custapi.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared {@link RestTemplate} for calls to the portal API.
+ * Backed by the JDK {@link HttpClient}, which blocks without pinning virtual
+ * threads; its internal async work runs on virtual threads too. Timeouts keep
+ * a stalled portal from holding request threads indefinitely.
+ */
 @Configuration
 public class RestTemplateConfig {
+
     @Bean
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("portal-http-", 0).factory()))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(client);
+        requestFactory.setReadTimeout(Duration.ofSeconds(30));
+        return new RestTemplate(requestFactory);
     }
 }
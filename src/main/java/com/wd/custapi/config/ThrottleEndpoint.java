@@ -0,0 +1,43 @@
+package com.wd.custapi.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint listing the users {@link UserThrottleInterceptor} is shedding.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/throttle} — the configured budgets and the 50
+ *       users shed most within {@code app.throttle.report-window}.</li>
+ * </ul>
+ * Per-endpoint counts are the {@code api.throttle.requests} metric.
+ * Restricted to internal IPs in {@code SecurityConfig}.
+ */
+@Component
+@Endpoint(id = "throttle")
+public class ThrottleEndpoint {
+
+    private static final int LIST_LIMIT = 50;
+
+    private final UserThrottleInterceptor interceptor;
+    private final ThrottleProperties properties;
+
+    public ThrottleEndpoint(UserThrottleInterceptor interceptor, ThrottleProperties properties) {
+        this.interceptor = interceptor;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Map<String, Object> throttle() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("window", properties.getWindow().toString());
+        body.put("defaultBudget", properties.getDefaultBudget());
+        body.put("budgets", properties.getBudgets());
+        body.put("shedUsers", interceptor.topShedUsers(LIST_LIMIT));
+        return body;
+    }
+}
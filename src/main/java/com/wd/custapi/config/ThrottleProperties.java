@@ -0,0 +1,82 @@
+package com.wd.custapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-user request budgets for {@link UserThrottleInterceptor} ({@code app.throttle.*}).
+ * A user gets the budget of their role — tokens per {@code window}, spent by
+ * {@link RequestCost} — or {@code default-budget} for a role not listed.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.throttle")
+public class ThrottleProperties {
+
+    private boolean enabled = true;
+    private Duration window = Duration.ofMinutes(1);
+    private int defaultBudget = 150;
+    private Map<String, Integer> budgets = new HashMap<>();
+    private Duration reportWindow = Duration.ofMinutes(15);
+    /** memory or postgres; see {@link RateLimiterConfig#throttleBucketStore}. */
+    private String store = "memory";
+
+    public int budgetFor(String role) {
+        if (role == null) return defaultBudget;
+        return budgets.getOrDefault(role.toUpperCase(Locale.ROOT), defaultBudget);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public int getDefaultBudget() {
+        return defaultBudget;
+    }
+
+    public void setDefaultBudget(int defaultBudget) {
+        this.defaultBudget = defaultBudget;
+    }
+
+    public Map<String, Integer> getBudgets() {
+        return budgets;
+    }
+
+    public void setBudgets(Map<String, Integer> budgets) {
+        Map<String, Integer> byRole = new HashMap<>();
+        budgets.forEach((role, budget) -> byRole.put(role.toUpperCase(Locale.ROOT), budget));
+        this.budgets = byRole;
+    }
+
+    public Duration getReportWindow() {
+        return reportWindow;
+    }
+
+    public void setReportWindow(Duration reportWindow) {
+        this.reportWindow = reportWindow;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+}
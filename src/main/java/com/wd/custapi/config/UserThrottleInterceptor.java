@@ -0,0 +1,162 @@
+package com.wd.custapi.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost-based per-user throttle for expensive endpoints.
+ *
+ * Each endpoint annotated with {@link RequestCost} takes that many tokens from
+ * the caller's bucket; the bucket holds the budget of the caller's role per
+ * window ({@link ThrottleProperties}) and lives in its own
+ * {@link RateLimitBucketStore} ({@code app.throttle.store}, per node by default),
+ * so a single client cannot monopolise the connection pool with exports, feed
+ * rebuilds or CCTV proxying.
+ *
+ * Throttled responses carry the IETF RateLimit headers
+ * ({@code RateLimit-Limit}, {@code RateLimit-Remaining}, {@code RateLimit-Reset},
+ * {@code RateLimit-Policy}); a request over budget gets 429 with Retry-After.
+ * Unauthenticated requests and async re-dispatches pass through untouched.
+ *
+ * Metrics: {@code api.throttle.requests} (endpoint, role, result = allowed /
+ * shed / error). Users being shed are listed by {@link ThrottleEndpoint}.
+ */
+@Component
+public class UserThrottleInterceptor implements HandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(UserThrottleInterceptor.class);
+
+    private final RateLimitBucketStore bucketStore;
+    private final ThrottleProperties properties;
+    private final MeterRegistry meterRegistry;
+    /** Shed requests per user, kept while the user keeps being shed. */
+    private final Cache<String, AtomicLong> shedByUser;
+
+    public UserThrottleInterceptor(@Qualifier("throttleBucketStore") RateLimitBucketStore bucketStore,
+                                   ThrottleProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.bucketStore = bucketStore;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.shedByUser = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(properties.getReportWindow())
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) return true; // charged on the original dispatch
+        if (!(handler instanceof HandlerMethod method)) return true;
+        RequestCost cost = method.getMethodAnnotation(RequestCost.class);
+        if (cost == null) cost = method.getBeanType().getAnnotation(RequestCost.class);
+        if (cost == null) return true;
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return true; // Spring Security rejects these where required
+        }
+
+        String role = role(auth);
+        int budget = properties.budgetFor(role);
+        long windowSeconds = properties.getWindow().toSeconds();
+        String endpoint = endpoint(request, method);
+        ConsumptionProbe probe;
+        try {
+            probe = bucketStore.resolve("throttle:" + role + ":" + auth.getName(), budget, properties.getWindow())
+                    .tryConsumeAndReturnRemaining(Math.min(cost.value(), budget));
+        } catch (RuntimeException e) {
+            log.warn("Throttle store '{}' unavailable, allowing {}: {}", bucketStore.name(), endpoint, e.getMessage());
+            requests(endpoint, role, "error").increment();
+            return true;
+        }
+
+        response.setHeader("RateLimit-Limit", String.valueOf(budget));
+        response.setHeader("RateLimit-Remaining", String.valueOf(probe.getRemainingTokens()));
+        response.setHeader("RateLimit-Reset", String.valueOf(seconds(probe.getNanosToWaitForReset())));
+        response.setHeader("RateLimit-Policy", budget + ";w=" + windowSeconds);
+
+        if (probe.isConsumed()) {
+            requests(endpoint, role, "allowed").increment();
+            return true;
+        }
+
+        requests(endpoint, role, "shed").increment();
+        long shed = shedByUser.get(auth.getName(), k -> new AtomicLong()).incrementAndGet();
+        if (shed == 1) {
+            log.warn("Throttling {} ({}) on {}: budget {} per {}s exhausted",
+                    auth.getName(), role, endpoint, budget, windowSeconds);
+        }
+
+        long retryAfterSeconds = seconds(probe.getNanosToWaitForRefill());
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType("application/json");
+        response.getWriter().write(String.format(
+            "{\"success\":false,\"message\":\"Too many requests. Retry after %d seconds.\"}",
+            retryAfterSeconds
+        ));
+        return false;
+    }
+
+    /** Users shed within the report window, most shed first. */
+    public List<Map<String, Object>> topShedUsers(int limit) {
+        return shedByUser.asMap().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, AtomicLong> e) -> e.getValue().get()).reversed())
+                .limit(limit)
+                .map(e -> Map.<String, Object>of("user", e.getKey(), "shed", e.getValue().get()))
+                .toList();
+    }
+
+    private Counter requests(String endpoint, String role, String result) {
+        return Counter.builder("api.throttle.requests")
+                .description("Requests to cost-throttled endpoints")
+                .tag("endpoint", endpoint)
+                .tag("role", role)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /** The route template (bounded cardinality), not the concrete URI. */
+    private static String endpoint(HttpServletRequest request, HandlerMethod method) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : method.getMethod().getName();
+    }
+
+    private static String role(Authentication auth) {
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith("ROLE_")) return name.substring("ROLE_".length());
+        }
+        return "NONE";
+    }
+
+    private static long seconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -1,5 +1,6 @@
 package com.wd.custapi.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -9,26 +10,42 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * MVC configuration — registers interceptors and handler mappings.
  *
  * The {@link AuthRateLimitInterceptor} is scoped to {@code /auth/**} only.
- * All other request paths bypass rate limiting.
  * Set {@code app.rate-limiting.enabled=false} to disable (e.g. in tests).
+ *
+ * The {@link UserThrottleInterceptor} covers {@code /api/**} but only charges
+ * endpoints annotated with {@link RequestCost}.
+ * Set {@code app.throttle.enabled=false} to disable.
  */
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
-    private final RateLimiterConfig rateLimiterConfig;
+    private final RateLimitBucketStore bucketStore;
+    private final MeterRegistry meterRegistry;
+    private final UserThrottleInterceptor userThrottleInterceptor;
+    private final ThrottleProperties throttleProperties;
 
     @Value("${app.rate-limiting.enabled:true}")
     private boolean rateLimitingEnabled;
 
-    public WebMvcConfig(RateLimiterConfig rateLimiterConfig) {
-        this.rateLimiterConfig = rateLimiterConfig;
+    public WebMvcConfig(RateLimitBucketStore bucketStore,
+                        MeterRegistry meterRegistry,
+                        UserThrottleInterceptor userThrottleInterceptor,
+                        ThrottleProperties throttleProperties) {
+        this.bucketStore = bucketStore;
+        this.meterRegistry = meterRegistry;
+        this.userThrottleInterceptor = userThrottleInterceptor;
+        this.throttleProperties = throttleProperties;
     }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         if (rateLimitingEnabled) {
-            registry.addInterceptor(new AuthRateLimitInterceptor(rateLimiterConfig))
+            registry.addInterceptor(new AuthRateLimitInterceptor(bucketStore, meterRegistry))
                     .addPathPatterns("/auth/**");
         }
+        if (throttleProperties.isEnabled()) {
+            registry.addInterceptor(userThrottleInterceptor)
+                    .addPathPatterns("/api/**");
+        }
     }
 }
@@ -407,7 +407,8 @@ public class CustomerBoqController {
         return m;
     }
 
-    private Map<String, Object> stageToMap(PaymentStage s) {
+    // Package-private for ResponseMapperBenchmark
+    Map<String, Object> stageToMap(PaymentStage s) {
         Map<String, Object> m = new LinkedHashMap<>();
         m.put("id", s.getId());
         m.put("stageNumber", s.getStageNumber());
@@ -448,8 +449,9 @@ public class CustomerBoqController {
 
     /**
      * Lean payment stage view for customer — excludes internal billing fields.
+     * Package-private for ResponseMapperBenchmark.
      */
-    private Map<String, Object> stageSummaryToMap(PaymentStage s) {
+    Map<String, Object> stageSummaryToMap(PaymentStage s) {
         Map<String, Object> m = new LinkedHashMap<>();
         m.put("stageNumber", s.getStageNumber());
         m.put("stageName", s.getStageName());
@@ -463,7 +465,8 @@ public class CustomerBoqController {
         return m;
     }
 
-    private Map<String, Object> boqSummaryToMap(BoqDocument doc, List<Map<String, Object>> stages) {
+    // Package-private for ResponseMapperBenchmark
+    Map<String, Object> boqSummaryToMap(BoqDocument doc, List<Map<String, Object>> stages) {
         boolean pendingAcknowledgement = com.wd.custapi.model.enums.BoqDocumentStatus.APPROVED == doc.getStatus()
                 && doc.getCustomerAcknowledgedAt() == null;
         Map<String, Object> m = new LinkedHashMap<>();
@@ -1,5 +1,6 @@
 package com.wd.custapi.controller;
 
+import com.wd.custapi.config.RequestCost;
 import com.wd.custapi.dto.CctvStreamDto;
 import com.wd.custapi.dto.CustomerCctvCameraDto;
 import com.wd.custapi.exception.ResourceNotFoundException;
@@ -17,6 +18,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
@@ -85,6 +87,7 @@ public class CustomerCctvController {
      * </ul>
      */
     @GetMapping("/{cameraId}/stream")
+    @RequestCost(2)
     public ResponseEntity<CctvStreamDto> getCameraStream(
             @PathVariable("projectId") String projectUuid,
             @PathVariable("cameraId") Long cameraId,
@@ -116,8 +119,11 @@ public class CustomerCctvController {
      * through {@link #getCameraStreamSegment}. The customer's player points here
      * and never sees the camera host or its credentials. Non-HTTP cameras (RTSP)
      * return 501 — they need a transcoder, which is out of scope for this proxy.
+     * The rewritten playlist is shared by all viewers of the camera for its
+     * cache lifetime (see {@link CctvStreamProxyService#manifest}).
      */
     @GetMapping(value = "/{cameraId}/stream.m3u8", produces = HLS_CONTENT_TYPE)
+    @RequestCost(1)
     public ResponseEntity<byte[]> getCameraHlsManifest(
             @PathVariable("projectId") String projectUuid,
             @PathVariable("cameraId") Long cameraId,
@@ -137,17 +143,16 @@ public class CustomerCctvController {
                             + "(requires a server-side transcoder).").getBytes(StandardCharsets.UTF_8));
         }
         try {
-            CctvStreamProxyService.UpstreamResponse up = streamProxy.fetch(baseUri, authHeaderFor(camera));
-            if (up.status() >= 400) {
-                logger.warn("Upstream camera {} manifest fetch returned {}", cameraId, up.status());
+            CctvStreamProxyService.ProxiedManifest manifest =
+                    streamProxy.manifest(cameraId, baseUri, authHeaderFor(camera));
+            if (manifest.status() >= 400) {
+                logger.warn("Upstream camera {} manifest fetch returned {}", cameraId, manifest.status());
                 return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
             }
-            String rewritten = streamProxy.rewriteHlsManifest(
-                    new String(up.body(), StandardCharsets.UTF_8), baseUri);
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_TYPE, HLS_CONTENT_TYPE)
                     .header(HttpHeaders.CACHE_CONTROL, "no-store")
-                    .body(rewritten.getBytes(StandardCharsets.UTF_8));
+                    .body(manifest.body());
         } catch (Exception e) {
             logger.error("CCTV manifest proxy failed for camera {}", cameraId, e);
             return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
@@ -158,10 +163,13 @@ public class CustomerCctvController {
      * Segment proxy. The {@code s} token encodes the absolute upstream URL; it is
      * resolved and SSRF-checked (must be the camera's own host over http(s))
      * before being fetched with credentials. A nested media playlist is rewritten
-     * too so its segments stay proxied; binary segments are relayed as-is.
+     * too so its segments stay proxied; binary segments are relayed as-is —
+     * shared between concurrent viewers when small, piped straight from the
+     * camera otherwise (see {@link CctvStreamProxyService#relaySegment}).
      */
     @GetMapping("/{cameraId}/segment")
-    public ResponseEntity<byte[]> getCameraStreamSegment(
+    @RequestCost(1)
+    public ResponseEntity<StreamingResponseBody> getCameraStreamSegment(
             @PathVariable("projectId") String projectUuid,
             @PathVariable("cameraId") Long cameraId,
             @RequestParam("s") String token,
@@ -175,24 +183,36 @@ public class CustomerCctvController {
             logger.warn("Blocked CCTV segment proxy (SSRF guard) for camera {}: {}", cameraId, e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        byte[] cachedPlaylist = streamProxy.cachedManifest(cameraId, upstream);
+        if (cachedPlaylist != null) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_TYPE, HLS_CONTENT_TYPE)
+                    .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                    .body(out -> out.write(cachedPlaylist));
+        }
+        CctvStreamProxyService.RelayedResponse up = null;
         try {
-            CctvStreamProxyService.UpstreamResponse up = streamProxy.fetch(upstream, authHeaderFor(camera));
+            up = streamProxy.relaySegment(cameraId, upstream, authHeaderFor(camera));
             if (up.status() >= 400) {
+                up.close();
                 return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
             }
-            if (streamProxy.isHlsManifest(up.contentType(), up.body())) {
-                String rewritten = streamProxy.rewriteHlsManifest(
-                        new String(up.body(), StandardCharsets.UTF_8), upstream);
+            if (up.isBuffered() && streamProxy.isHlsManifest(up.contentType(), up.head())) {
+                byte[] rewritten = streamProxy.rememberManifest(cameraId, upstream, up.head());
                 return ResponseEntity.ok()
                         .header(HttpHeaders.CONTENT_TYPE, HLS_CONTENT_TYPE)
                         .header(HttpHeaders.CACHE_CONTROL, "no-store")
-                        .body(rewritten.getBytes(StandardCharsets.UTF_8));
+                        .body(out -> out.write(rewritten));
             }
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_TYPE, up.contentType())
-                    .body(up.body());
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_TYPE, up.contentType());
+            if (up.contentLength() >= 0) {
+                ok.contentLength(up.contentLength());
+            }
+            return ok.body(up::writeTo);
         } catch (Exception e) {
             logger.error("CCTV segment proxy failed for camera {}", cameraId, e);
+            closeQuietly(up);
             return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
         }
     }
@@ -206,6 +226,15 @@ public class CustomerCctvController {
                 .orElseThrow(() -> new ResourceNotFoundException("CctvCamera", cameraId));
     }
 
+    private static void closeQuietly(CctvStreamProxyService.RelayedResponse up) {
+        if (up == null) return;
+        try {
+            up.close();
+        } catch (Exception ignored) {
+            // upstream connection is being abandoned
+        }
+    }
+
     /** Basic-auth from the camera's columns, falling back to userinfo in the stream URL. */
     private String authHeaderFor(CctvCamera camera) {
         String header = streamProxy.basicAuthHeader(camera.getUsername(), camera.getPassword());
@@ -189,6 +189,7 @@ public class DashboardController {
     /**
      * Paginated project list for admin — not subject to customer email filter.
      * GET /api/dashboard/admin/projects?page=0&size=20&q=searchTerm
+     * Pass {@code cursor} (the previous response's {@code nextCursor}) for keyset paging.
      */
     @GetMapping("/admin/projects")
     @PreAuthorize("hasRole('ADMIN')")
@@ -196,10 +197,13 @@ public class DashboardController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
             Authentication authentication) {
         try {
-            java.util.Map<String, Object> result = dashboardService.getAdminProjectsPaged(page, size, q);
+            java.util.Map<String, Object> result = dashboardService.getAdminProjectsPaged(page, size, q, cursor);
             return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(KEY_ERROR, e.getMessage()));
         } catch (Exception e) {
             logger.error("Failed to fetch admin projects for user {}: {}",
                     authentication.getName(), e.getMessage(), e);
@@ -1,5 +1,6 @@
 package com.wd.custapi.controller;
 
+import com.wd.custapi.config.RequestCost;
 import com.wd.custapi.model.PaymentSchedule;
 import com.wd.custapi.model.Project;
 import com.wd.custapi.repository.PaymentScheduleRepository;
@@ -41,6 +42,7 @@ public class ExportController {
      * Columns: Stage, Amount, Status, Due Date, Paid Date, Paid Amount
      */
     @GetMapping("/payments")
+    @RequestCost(20)
     public ResponseEntity<byte[]> exportPaymentsCsv(
             @PathVariable Long projectId,
             Authentication auth) {
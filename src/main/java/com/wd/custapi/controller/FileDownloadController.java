@@ -1,18 +1,12 @@
 package com.wd.custapi.controller;
 
-import com.wd.custapi.model.ProjectDocument;
-import com.wd.custapi.model.SiteReport;
-import com.wd.custapi.repository.ProjectDocumentRepository;
-import com.wd.custapi.repository.SiteReportRepository;
-import com.wd.custapi.service.DashboardService;
+import com.wd.custapi.service.FileStreamingService;
+import com.wd.custapi.service.ProjectAccessService;
+import com.wd.custapi.service.StorageOwnershipIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,15 +15,13 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
-import java.util.Optional;
 
 /**
  * Controller for serving files from storage
@@ -47,37 +39,37 @@ public class FileDownloadController {
     @Value("${storageBasePath}")
     private String storageBasePath;
 
-    private final ProjectDocumentRepository projectDocumentRepository;
+    private final StorageOwnershipIndex storageOwnershipIndex;
 
-    private final SiteReportRepository siteReportRepository;
+    private final ProjectAccessService projectAccessService;
 
-    private final DashboardService dashboardService;
+    private final FileStreamingService fileStreamingService;
 
-    public FileDownloadController(ProjectDocumentRepository projectDocumentRepository,
-                                  SiteReportRepository siteReportRepository,
-                                  DashboardService dashboardService) {
-        this.projectDocumentRepository = projectDocumentRepository;
-        this.siteReportRepository = siteReportRepository;
-        this.dashboardService = dashboardService;
+    public FileDownloadController(StorageOwnershipIndex storageOwnershipIndex,
+                                  ProjectAccessService projectAccessService,
+                                  FileStreamingService fileStreamingService) {
+        this.storageOwnershipIndex = storageOwnershipIndex;
+        this.projectAccessService = projectAccessService;
+        this.fileStreamingService = fileStreamingService;
     }
 
-    private static final java.util.regex.Pattern SITE_REPORT_PATH =
-            java.util.regex.Pattern.compile("^site-reports/(\\d+)/.+");
-
     /**
      * Serve files from storage path
      * GET /api/storage/projects/1/documents/file.pdf
-     * 
+     *
+     * Supports Range (single and multipart/byteranges), If-Range and
+     * conditional GET (ETag / Last-Modified → 304) — see {@link FileStreamingService}.
+     *
      * @param request - The HTTP request
+     * @param response - Written directly by {@link FileStreamingService} on success
      * @param download - Whether to force download
-     * @param rangeHeader - Range header for streaming
-     * @return File as Resource with appropriate content type
+     * @return {@code null} once the file has been streamed, or an error status
      */
     @GetMapping("/**")
     @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN', 'ARCHITECT', 'INTERIOR_DESIGNER', 'SITE_ENGINEER', 'VIEWER', 'CUSTOMER_ADMIN', 'CONTRACTOR', 'BUILDER')")
-    public ResponseEntity<Resource> serveFile(HttpServletRequest request,
-                                               @RequestParam(required = false) String download,
-                                               @RequestHeader(value = "Range", required = false) String rangeHeader) {
+    public ResponseEntity<Void> serveFile(HttpServletRequest request,
+                                          HttpServletResponse response,
+                                          @RequestParam(required = false) String download) {
         try {
             String requestURI = request.getRequestURI();
             String requestPath = resolveRequestPath(requestURI, request);
@@ -112,79 +104,21 @@ public class FileDownloadController {
             }
 
             // Check if file exists
-            Resource resource = new UrlResource(filePath.toUri());
-            if (!resource.exists() || !resource.isReadable()) {
+            if (!Files.isRegularFile(filePath) || !Files.isReadable(filePath)) {
                 logger.debug("File not found or not readable: {}", filePath);
                 return ResponseEntity.notFound().build();
             }
 
-            // Determine content type
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-            }
-
-            HttpHeaders headers = buildDownloadHeaders(resource, contentType, download);
+            fileStreamingService.serve(request, response, filePath, "true".equals(download));
+            return null; // response already written
 
-            // Handle range requests for video/audio streaming
-            if (rangeHeader != null && rangeHeader.startsWith("bytes=")) {
-                long fileSize = Files.size(filePath);
-                return handleRangeRequest(resource, rangeHeader, fileSize, contentType, requestPath);
-            }
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentLength(resource.contentLength())
-                    .body(resource);
-
-        } catch (MalformedURLException e) {
-            logger.error("Malformed URL for file request: {}", e.getMessage(), e);
-            return ResponseEntity.badRequest().build();
         } catch (IOException e) {
-            logger.error("IO error serving file: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            // Mostly clients aborting a video seek mid-transfer
+            logger.debug("IO error serving file: {}", e.getMessage());
+            return response.isCommitted() ? null : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         } catch (Exception e) {
             logger.error("Unexpected error serving file: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
-    }
-
-    /**
-     * Handle range requests for streaming (videos, large PDFs)
-     */
-    private ResponseEntity<Resource> handleRangeRequest(Resource resource, String rangeHeader, 
-                                                         long fileSize, String contentType, String fileName) {
-        try {
-            String[] ranges = rangeHeader.substring(6).split("-");
-            long start = Long.parseLong(ranges[0]);
-            long end = ranges.length > 1 && !ranges[1].isEmpty() 
-                    ? Long.parseLong(ranges[1]) 
-                    : fileSize - 1;
-
-            if (start >= fileSize || end >= fileSize) {
-                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
-                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
-                        .build();
-            }
-
-            long contentLength = end - start + 1;
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.add(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
-            headers.add(HttpHeaders.ACCEPT_RANGES, "bytes");
-            headers.setContentLength(contentLength);
-
-            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
-                    .headers(headers)
-                    .body(resource);
-
-        } catch (NumberFormatException e) {
-            logger.warn("Invalid range header format for file {}: {}", fileName, rangeHeader);
-            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
-        } catch (Exception e) {
-            logger.error("Range request failed for file {}: {}", fileName, e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return response.isCommitted() ? null : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
@@ -219,26 +153,6 @@ public class FileDownloadController {
         return normalizedFilePath.startsWith(basePath);
     }
 
-    /**
-     * Build the response headers for a (non-range) file download: content type,
-     * content disposition (attachment vs inline) and a private no-store cache policy.
-     */
-    private HttpHeaders buildDownloadHeaders(Resource resource, String contentType, String download) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(contentType));
-
-        // Handle download vs inline display
-        if ("true".equals(download)) {
-            headers.setContentDispositionFormData("attachment", resource.getFilename());
-        } else {
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"");
-        }
-
-        // Private files — prevent caching in proxies, CDNs, and shared environments
-        headers.setCacheControl("private, no-store, max-age=0");
-        return headers;
-    }
-
     /**
      * Fallback extraction of the request path from {@code pathInfo} when the URI
      * doesn't match the expected storage prefix. Strips a leading slash if present.
@@ -268,10 +182,15 @@ public class FileDownloadController {
     /**
      * Get file metadata without downloading
      * HEAD /api/storage/projects/1/documents/file.pdf
+     *
+     * Returns the same headers (ETag, Content-Range, Content-Length, …) a GET
+     * with the same request headers would.
      */
     @RequestMapping(value = "/**", method = RequestMethod.HEAD)
     @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN', 'ARCHITECT', 'INTERIOR_DESIGNER', 'SITE_ENGINEER', 'VIEWER', 'CUSTOMER_ADMIN', 'CONTRACTOR', 'BUILDER')")
-    public ResponseEntity<Void> getFileMetadata(HttpServletRequest request) {
+    public ResponseEntity<Void> getFileMetadata(HttpServletRequest request,
+                                                HttpServletResponse response,
+                                                @RequestParam(required = false) String download) {
         try {
             String requestURI = request.getRequestURI();
             String requestPath = resolveRequestPath(requestURI, request);
@@ -301,22 +220,12 @@ public class FileDownloadController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
-            Resource resource = new UrlResource(filePath.toUri());
-            if (!resource.exists() || !resource.isReadable()) {
+            if (!Files.isRegularFile(filePath) || !Files.isReadable(filePath)) {
                 return ResponseEntity.notFound().build();
             }
 
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-            }
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setContentLength(resource.contentLength());
-            headers.add(HttpHeaders.ACCEPT_RANGES, "bytes");
-
-            return ResponseEntity.ok().headers(headers).build();
+            fileStreamingService.serve(request, response, filePath, "true".equals(download));
+            return null; // headers already written
 
         } catch (Exception e) {
             logger.error("Error getting file metadata: {}", e.getMessage(), e);
@@ -324,22 +233,6 @@ public class FileDownloadController {
         }
     }
 
-    private Optional<ProjectDocument> resolveOwnedDocument(String requestPath, String authenticatedEmail) {
-        List<ProjectDocument> candidates = projectDocumentRepository.findByFilePath(requestPath);
-        for (ProjectDocument doc : candidates) {
-            if (!ProjectDocumentRepository.REFERENCE_TYPE_PROJECT.equals(doc.getReferenceType())) {
-                continue;
-            }
-            try {
-                dashboardService.getProjectByIdAndEmail(doc.getReferenceId(), authenticatedEmail);
-                return Optional.of(doc);
-            } catch (RuntimeException notOwned) {
-                // keep scanning — another candidate row might be owned by this user
-            }
-        }
-        return Optional.empty();
-    }
-
     /**
      * Unified ownership check used by GET and HEAD: a file is accessible if
      * either (a) it's tracked by a project_documents row whose project the
@@ -351,23 +244,14 @@ public class FileDownloadController {
      * the {@code site_report_photos} table. Without this branch the
      * customer app's report thumbnails 404 even though the customer is
      * authorized to see the report itself.
+     *
+     * Both halves are served from caches ({@link StorageOwnershipIndex} and the
+     * user's accessible-project-id set), so a warm check costs no queries.
      */
     private boolean isPathOwnedByCustomer(String requestPath, String authenticatedEmail) {
-        if (resolveOwnedDocument(requestPath, authenticatedEmail).isPresent()) {
-            return true;
-        }
-        java.util.regex.Matcher m = SITE_REPORT_PATH.matcher(requestPath);
-        if (m.matches()) {
-            try {
-                Long reportId = Long.parseLong(m.group(1));
-                Optional<SiteReport> report = siteReportRepository.findById(reportId);
-                if (report.isPresent() && report.get().getProject() != null) {
-                    dashboardService.getProjectByIdAndEmail(
-                            report.get().getProject().getId(), authenticatedEmail);
-                    return true;
-                }
-            } catch (RuntimeException notOwned) {
-                return false;
+        for (Long projectId : storageOwnershipIndex.ownerProjectIds(requestPath)) {
+            if (projectAccessService.canAccess(authenticatedEmail, projectId)) {
+                return true;
             }
         }
         return false;
@@ -2,11 +2,13 @@ package com.wd.custapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wd.custapi.dto.PortalWebhookEvent;
-import com.wd.custapi.service.WebhookIngestionService;
+import com.wd.custapi.service.WebhookQueue;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,6 +26,11 @@ import java.util.Map;
  * be configured at the load-balancer/firewall level in production.
  *
  * This endpoint is excluded from JWT authentication (SecurityConfig permits /internal/**).
+ *
+ * Accepted events are persisted to {@link WebhookQueue} before the response, so a
+ * 200 means the event is durable. When the queue is backed up the endpoint answers
+ * 429, and 503 when the event cannot be stored; both carry Retry-After so the
+ * portal re-sends later instead of the event being dropped.
  */
 @RestController
 @RequestMapping("/internal")
@@ -32,16 +39,17 @@ public class InternalWebhookController {
     private static final Logger log = LoggerFactory.getLogger(InternalWebhookController.class);
     private static final String HMAC_HEADER = "X-Portal-Signature";
     private static final String ALGORITHM = "HmacSHA256";
+    private static final String RETRY_AFTER_SECONDS = "30";
 
     @Value("${app.portal.webhook-secret:}")
     private String webhookSecret;
 
-    private final WebhookIngestionService ingestionService;
+    private final WebhookQueue webhookQueue;
     private final ObjectMapper objectMapper;
 
-    public InternalWebhookController(WebhookIngestionService ingestionService,
+    public InternalWebhookController(WebhookQueue webhookQueue,
                                       ObjectMapper objectMapper) {
-        this.ingestionService = ingestionService;
+        this.webhookQueue = webhookQueue;
         this.objectMapper = objectMapper;
     }
 
@@ -64,14 +72,31 @@ public class InternalWebhookController {
             }
         }
 
+        PortalWebhookEvent event;
         try {
-            PortalWebhookEvent event = objectMapper.readValue(rawBody, PortalWebhookEvent.class);
-            ingestionService.process(event); // Async — returns immediately
-            return ResponseEntity.ok(Map.of("status", "accepted"));
+            event = objectMapper.readValue(rawBody, PortalWebhookEvent.class);
         } catch (Exception e) {
             log.error("Failed to parse portal webhook event: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid payload: " + e.getMessage()));
         }
+
+        if (webhookQueue.isBacklogged()) {
+            webhookQueue.recordRejected();
+            log.warn("Webhook queue backlogged — asking portal to retry event type={}", event.eventType());
+            return ResponseEntity.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body(Map.of("error", "Webhook queue is full, retry later"));
+        }
+
+        try {
+            webhookQueue.enqueue(event); // Processed by queue workers — returns once persisted
+            return ResponseEntity.ok(Map.of("status", "accepted"));
+        } catch (DataAccessException e) {
+            log.error("Failed to queue portal webhook event type={}: {}", event.eventType(), e.getMessage());
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body(Map.of("error", "Webhook could not be stored, retry later"));
+        }
     }
 
     private boolean verifySignature(String payload, String signatureHeader) {
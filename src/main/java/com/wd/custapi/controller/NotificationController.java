@@ -1,24 +1,31 @@
 package com.wd.custapi.controller;
 
 import com.wd.custapi.dto.CustomerNotificationDto;
+import com.wd.custapi.dto.MarkNotificationsReadRequest;
 import com.wd.custapi.dto.ProjectModuleDtos.ApiResponse;
 import com.wd.custapi.model.CustomerNotification;
 import com.wd.custapi.model.CustomerUser;
+import jakarta.validation.Valid;
 
 import java.util.List;
+import com.wd.custapi.repository.CustomerNotificationCounterRepository;
+import com.wd.custapi.repository.CustomerNotificationCounterRepository.BadgeView;
 import com.wd.custapi.repository.CustomerNotificationRepository;
 import com.wd.custapi.repository.CustomerUserRepository;
+import com.wd.custapi.service.CustomerEventStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
@@ -26,6 +33,9 @@ import java.util.Map;
  * In-app notification endpoints for the customer app.
  * Notifications are created by portal-side actions (site reports, payments, BOQ approvals, etc.)
  * and consumed here by the customer app notification bell and screen.
+ *
+ * <p>Unread counts come from {@code customer_notification_counters}, which
+ * database triggers keep in step with every insert and read-state change.
  */
 @RestController
 @RequestMapping("/api/notifications")
@@ -35,13 +45,19 @@ public class NotificationController {
     private static final Logger logger = LoggerFactory.getLogger(NotificationController.class);
 
     private final CustomerNotificationRepository notificationRepository;
+    private final CustomerNotificationCounterRepository counterRepository;
     private final CustomerUserRepository customerUserRepository;
+    private final CustomerEventStream eventStream;
 
     public NotificationController(
             CustomerNotificationRepository notificationRepository,
-            CustomerUserRepository customerUserRepository) {
+            CustomerNotificationCounterRepository counterRepository,
+            CustomerUserRepository customerUserRepository,
+            CustomerEventStream eventStream) {
         this.notificationRepository = notificationRepository;
+        this.counterRepository = counterRepository;
         this.customerUserRepository = customerUserRepository;
+        this.eventStream = eventStream;
     }
 
     /**
@@ -59,7 +75,7 @@ public class NotificationController {
             Pageable pageable = PageRequest.of(page, Math.min(size, 50));
             Page<CustomerNotification> notifications =
                     notificationRepository.findByCustomerUser_IdOrderByCreatedAtDesc(user.getId(), pageable);
-            long unreadCount = notificationRepository.countByCustomerUser_IdAndReadFalse(user.getId());
+            long unreadCount = unreadCount(user.getId());
 
             List<CustomerNotificationDto> dtos = notifications.getContent().stream()
                     .map(CustomerNotificationDto::from)
@@ -80,6 +96,79 @@ public class NotificationController {
         }
     }
 
+    /**
+     * GET /api/notifications/badge
+     * Unread count only, for the app badge: one indexed lookup, no notification rows.
+     */
+    @GetMapping("/badge")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getBadge(Authentication auth) {
+        try {
+            BadgeView badge = counterRepository.findBadgeByEmail(auth.getName())
+                    .orElseThrow(() -> new RuntimeException("Customer user not found for email: " + auth.getName()));
+            long unreadCount = badge.getUnreadCount() != null ? badge.getUnreadCount() : 0;
+            return ResponseEntity.ok(new ApiResponse<>(true, "Badge retrieved", Map.of("unreadCount", unreadCount)));
+        } catch (Exception e) {
+            logger.error("Error fetching notification badge for {}: {}", auth.getName(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Failed to retrieve badge", null));
+        }
+    }
+
+    /**
+     * GET /api/notifications/stream
+     * Server-Sent Events: new notifications and project changes as they happen,
+     * replacing polling of the list and badge. Reconnect with the
+     * {@code Last-Event-ID} header to be replayed the notifications missed.
+     * 503 when this node has no room for another stream.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            Authentication auth) {
+        CustomerUser user = resolveUser(auth.getName());
+        SseEmitter emitter = eventStream.connect(user.getId(), user.getEmail(), lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").build();
+        }
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no") // reverse proxies must not buffer the stream
+                .body(emitter);
+    }
+
+    /**
+     * PUT /api/notifications/read
+     * Mark several notifications as read with one UPDATE: either {@code ids}, or
+     * everything up to and including {@code upToId}. Returns how many changed
+     * and the new unread count.
+     */
+    @PutMapping("/read")
+    @Transactional
+    public ResponseEntity<ApiResponse<Map<String, Object>>> markReadBatch(
+            @Valid @RequestBody MarkNotificationsReadRequest request,
+            Authentication auth) {
+        boolean byIds = request.ids() != null && !request.ids().isEmpty();
+        if (byIds == (request.upToId() != null)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, "Provide either ids or upToId", null));
+        }
+        try {
+            CustomerUser user = resolveUser(auth.getName());
+            int updated = byIds
+                    ? notificationRepository.markReadByIds(user.getId(), request.ids())
+                    : notificationRepository.markReadUpTo(user.getId(), request.upToId());
+            Map<String, Object> response = Map.of(
+                    "updated", updated,
+                    "unreadCount", unreadCount(user.getId())
+            );
+            return ResponseEntity.ok(new ApiResponse<>(true, updated + " notification(s) marked as read", response));
+        } catch (Exception e) {
+            logger.error("Error marking notifications as read for {}: {}", auth.getName(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Failed to mark notifications as read", null));
+        }
+    }
+
     /**
      * PUT /api/notifications/{id}/read
      * Mark a single notification as read.
@@ -132,6 +221,10 @@ public class NotificationController {
 
     // ─── Helper ───────────────────────────────────────────────────────────────
 
+    private long unreadCount(Long userId) {
+        return counterRepository.findUnreadCount(userId).orElse(0);
+    }
+
     private CustomerUser resolveUser(String email) {
         return customerUserRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Customer user not found for email: " + email));
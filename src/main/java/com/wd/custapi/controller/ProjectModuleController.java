@@ -1,5 +1,6 @@
 package com.wd.custapi.controller;
 
+import com.wd.custapi.config.RequestCost;
 import com.wd.custapi.dto.ProjectModuleDtos.*;
 import com.wd.custapi.model.BoqApproval;
 import com.wd.custapi.model.CustomerUser;
@@ -54,6 +55,7 @@ public class ProjectModuleController {
     private final CustomerUserRepository customerUserRepository;
     private final QualityCheckService qualityCheckService;
     private final ActivityFeedService activityFeedService;
+    private final ProjectTimelineService projectTimelineService;
     private final GalleryService galleryService;
     private final ObservationService observationService;
     private final CctvService cctvService;
@@ -74,6 +76,7 @@ public class ProjectModuleController {
                                    CustomerUserRepository customerUserRepository,
                                    QualityCheckService qualityCheckService,
                                    ActivityFeedService activityFeedService,
+                                   ProjectTimelineService projectTimelineService,
                                    GalleryService galleryService,
                                    ObservationService observationService,
                                    CctvService cctvService,
@@ -89,6 +92,7 @@ public class ProjectModuleController {
         this.customerUserRepository = customerUserRepository;
         this.qualityCheckService = qualityCheckService;
         this.activityFeedService = activityFeedService;
+        this.projectTimelineService = projectTimelineService;
         this.galleryService = galleryService;
         this.observationService = observationService;
         this.cctvService = cctvService;
@@ -123,8 +127,9 @@ public class ProjectModuleController {
     /**
      * Aggregate the ordered task list into the customer-facing Gantt payload:
      * per-task DTOs plus project date bounds, overall progress and overdue count.
+     * Package-private for {@code ResponseMapperBenchmark}.
      */
-    private Map<String, Object> buildGanttResult(List<Task> tasks, LocalDate today) {
+    Map<String, Object> buildGanttResult(List<Task> tasks, LocalDate today) {
         LocalDate projectStart = null;
         LocalDate projectEnd = null;
         int totalProgress = 0;
@@ -351,9 +356,11 @@ public class ProjectModuleController {
 
     /**
      * Combined activity feed with site reports and queries.
-     * Returns a chronological timeline for display.
+     * Returns a chronological timeline for display, read from the materialised
+     * project timeline (see {@link ProjectTimelineService}).
      */
     @GetMapping("/activities/combined")
+    @RequestCost(5)
     public ResponseEntity<ApiResponse<List<ActivityFeedService.CombinedActivityItem>>> getCombinedActivityFeed(
             @PathVariable("projectId") String projectUuid,
             @RequestParam(required = false) String type,
@@ -362,7 +369,7 @@ public class ProjectModuleController {
             String email = auth.getName();
             Project project = dashboardService.getProjectByUuidAndEmail(projectUuid, email);
             List<ActivityFeedService.CombinedActivityItem> activities =
-                activityFeedService.getCombinedActivityFeedByType(project.getId(), type);
+                projectTimelineService.getTimelineByType(project.getId(), type);
             return ResponseEntity.ok(new ApiResponse<>(true, "Combined activities retrieved successfully", activities));
         } catch (RuntimeException e) {
             logger.error("Runtime error fetching combined feed for project {}: {}", projectUuid, e.getMessage(), e);
@@ -375,10 +382,42 @@ public class ProjectModuleController {
         }
     }
 
+    /**
+     * Cursor-paged combined activity feed. Pass the previous page's
+     * {@code nextCursor} as {@code before} to continue; {@code limit} is capped at
+     * {@link ActivityFeedService#MAX_FEED_PAGE_SIZE}.
+     */
+    @GetMapping("/activities/combined/page")
+    @RequestCost(2)
+    public ResponseEntity<ApiResponse<ActivityFeedService.CombinedActivityPage>> getCombinedActivityPage(
+            @PathVariable("projectId") String projectUuid,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "50") int limit,
+            Authentication auth) {
+        try {
+            String email = auth.getName();
+            Project project = dashboardService.getProjectByUuidAndEmail(projectUuid, email);
+            ActivityFeedService.CombinedActivityPage page =
+                activityFeedService.getCombinedActivityPage(project.getId(), type, before, limit);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Combined activities retrieved successfully", page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (RuntimeException e) {
+            return handleRuntimeException(e, "get combined activity page", projectUuid, auth);
+        } catch (Exception e) {
+            logger.error("Error fetching combined feed page for project {}: {}", projectUuid, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>(false, "Failed to retrieve combined activities", null));
+        }
+    }
+
     /**
      * Combined activity feed grouped by date for timeline display.
      */
     @GetMapping("/activities/combined/grouped")
+    @RequestCost(5)
     public ResponseEntity<ApiResponse<java.util.Map<LocalDate, List<ActivityFeedService.CombinedActivityItem>>>> getCombinedActivityFeedGrouped(
             @PathVariable("projectId") String projectUuid,
             Authentication auth) {
@@ -386,7 +425,7 @@ public class ProjectModuleController {
             String email = auth.getName();
             Project project = dashboardService.getProjectByUuidAndEmail(projectUuid, email);
             java.util.Map<LocalDate, List<ActivityFeedService.CombinedActivityItem>> activities =
-                activityFeedService.getCombinedActivityFeedGroupedByDate(project.getId());
+                projectTimelineService.getTimelineGroupedByDate(project.getId());
             return ResponseEntity.ok(new ApiResponse<>(true, "Grouped activities retrieved successfully", activities));
         } catch (RuntimeException e) {
             logger.error("Runtime error fetching grouped feed for project {}: {}", projectUuid, e.getMessage(), e);
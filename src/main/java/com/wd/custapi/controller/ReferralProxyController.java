@@ -26,7 +26,11 @@ public class ReferralProxyController {
     @Value("${portal.api.url:http://localhost:8080}")
     private String portalApiUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+
+    public ReferralProxyController(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
 
     @PostMapping("/referral")
     public ResponseEntity<Map<String, Object>> proxyReferral(
@@ -0,0 +1,17 @@
+package com.wd.custapi.dto;
+
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Body of {@code PUT /api/notifications/read}: either the notification
+ * {@code ids} to mark, or {@code upToId} to mark everything up to and
+ * including that id (the newest one the app has shown).
+ */
+public record MarkNotificationsReadRequest(
+    @Size(max = 500, message = "At most 500 notification ids per request")
+    List<Long> ids,
+
+    Long upToId
+) {}
@@ -26,5 +26,15 @@ public enum PortalEventType {
      * "OVERDUE"), stageId, stageNumber, stageName, dueDate (ISO-8601),
      * netPayableAmount (plain BigDecimal string).
      */
-    PAYMENT_MILESTONE_DUE
+    PAYMENT_MILESTONE_DUE,
+    /**
+     * A customer user was added to, removed from, or re-roled on a project.
+     * Cache-invalidation signal only — no customer notification is created.
+     */
+    PROJECT_MEMBERSHIP_CHANGED,
+    /**
+     * A customer account was disabled, re-enabled, or re-roled by staff.
+     * {@code customerId} is required. Cache-invalidation signal only.
+     */
+    CUSTOMER_ACCOUNT_UPDATED
 }
@@ -2,7 +2,6 @@ package com.wd.custapi.exception;
 
 import com.wd.custapi.dto.ApiError;
 import com.wd.custapi.logging.LoggingConstants;
-import com.wd.custapi.logging.SensitiveDataMasker;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,8 +45,8 @@ public class GlobalExceptionHandler {
         String traceId = getTraceId();
         String userId = resolveUserId();
         String path = request.getRequestURI();
-        String safeMsg = SensitiveDataMasker.mask(ex.getMessage() != null ? ex.getMessage() : "null");
-        logger.warn("[{}] User:{} Path:{} - {}: {}", traceId, userId, path, message, safeMsg);
+        // The message is masked by the log encoder (MaskingMessageConverter / SensitiveValueMasker)
+        logger.warn("[{}] User:{} Path:{} - {}: {}", traceId, userId, path, message, ex.getMessage());
     }
 
     private void logError(String message, Exception ex, HttpServletRequest request) {
@@ -0,0 +1,137 @@
+package com.wd.custapi.filter;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for virtual-thread mode ({@code spring.threads.virtual.enabled=true}).
+ *
+ * With platform threads, Tomcat's {@code server.tomcat.threads.max} bounds how
+ * many requests compete for the Hikari pool. With virtual threads there is no
+ * such bound: a burst would park thousands of requests on
+ * {@code getConnection()}, each timing out after {@code connection-timeout}.
+ * This filter admits at most {@code requests-per-connection} × the pool's
+ * {@code maximumPoolSize} requests at once (or {@code max-concurrent-requests}
+ * if set); the rest wait up to {@code admission-timeout} and are then answered
+ * 503 with Retry-After, cheaply and before any work is done.
+ *
+ * Async dispatches, {@code /actuator/**} and the {@code /livez} / {@code /readyz}
+ * probes bypass it; an SSE or streamed
+ * response releases its permit when the handler returns.
+ *
+ * Metrics: gauge {@code http.admission.active}, timer {@code http.admission.wait},
+ * counter {@code http.admission.rejected}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class ConnectionPoolAdmissionFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolAdmissionFilter.class);
+
+    private static final int DEFAULT_POOL_SIZE = 10; // Hikari's default
+
+    private final Semaphore permits;
+    private final int limit;
+    private final Duration admissionTimeout;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    @Autowired
+    public ConnectionPoolAdmissionFilter(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.virtual-threads.max-concurrent-requests:0}") int maxConcurrentRequests,
+            @Value("${app.virtual-threads.requests-per-connection:4}") int requestsPerConnection,
+            @Value("${app.virtual-threads.admission-timeout:PT2S}") Duration admissionTimeout) {
+        this(maxConcurrentRequests > 0 ? maxConcurrentRequests : poolSize(dataSource) * requestsPerConnection,
+                admissionTimeout, meterRegistry);
+    }
+
+    ConnectionPoolAdmissionFilter(int limit, Duration admissionTimeout, MeterRegistry meterRegistry) {
+        this.limit = limit;
+        this.permits = new Semaphore(limit, true);
+        this.admissionTimeout = admissionTimeout;
+        this.waitTimer = Timer.builder("http.admission.wait")
+                .description("Time requests waited for admission")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("http.admission.rejected")
+                .description("Requests answered 503 because the node was at its concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("http.admission.active", permits, p -> this.limit - p.availablePermits())
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+        log.info("Request admission limit: {} concurrent requests", limit);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return uri.startsWith("/actuator") || uri.equals("/livez") || uri.equals("/readyz");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean admitted;
+        try {
+            admitted = permits.tryAcquire(admissionTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (!admitted) {
+            rejected.increment();
+            response.setHeader("Retry-After", "1");
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setContentType("application/json");
+            response.getWriter().write("{\"success\":false,\"message\":\"Server busy. Please retry.\"}");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read the connection pool size: {}", e.getMessage());
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
@@ -0,0 +1,18 @@
+package com.wd.custapi.logging;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Logback {@code %msg} with sensitive values masked by {@link SensitiveDataMasker}.
+ * Registered for the plain-text appenders in {@code logback-spring.xml}; runs
+ * only for events an appender actually writes, so disabled log statements
+ * cost nothing.
+ */
+public class MaskingMessageConverter extends ClassicConverter {
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return SensitiveDataMasker.mask(event.getFormattedMessage());
+    }
+}
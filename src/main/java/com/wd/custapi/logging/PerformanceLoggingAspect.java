@@ -1,5 +1,7 @@
 package com.wd.custapi.logging;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -7,57 +9,59 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
 /**
- * AOP aspect that measures execution time for all REST controller and service methods.
+ * AOP aspect that times REST controller and service methods.
+ *
+ * Every @Service method call is recorded in the {@code service.method} timer
+ * (tags: class, method, exception); its SLO buckets are configured under
+ * {@code management.metrics.distribution.slo}. Controllers are not timed here:
+ * {@code http.server.requests} already has a timer per endpoint.
  *
- * If execution time exceeds SLOW_API_THRESHOLD_MS (1000ms), logs to performance.log:
- *   SLOW_API | /api/payment | UserController.createPayment | 2400ms | traceId=REQ-abc123 | userId=5
+ * Calls slower than SLOW_API_THRESHOLD_MS (controllers) or
+ * SLOW_SERVICE_THRESHOLD_MS (services) are also logged to performance.log:
+ *   SLOW_API | CONTROLLER | /api/payment | UserController.createPayment | 2400ms | exception=false | traceId=REQ-abc123 | userId=5
  *
- * This is a non-invasive way to detect slow endpoints without modifying any controller code.
+ * The aspect is removed entirely with {@code app.metrics.service-timing.enabled=false}.
+ * Timers are looked up once per method, so a call costs two nanoTime reads and
+ * a map lookup.
  */
 @Aspect
 @Component
+@ConditionalOnProperty(name = "app.metrics.service-timing.enabled", havingValue = "true", matchIfMissing = true)
 public class PerformanceLoggingAspect {
 
+    static final String SERVICE_TIMER = "service.method";
+
     private static final Logger PERF_LOG = LoggerFactory.getLogger(LoggingConstants.PERFORMANCE_LOGGER);
 
-    /**
-     * Monitor all public methods in @RestController classes.
-     */
-    @Around("within(@org.springframework.web.bind.annotation.RestController *)")
-    public Object monitorControllers(ProceedingJoinPoint joinPoint) throws Throwable {
-        return measureAndLog(joinPoint, "CONTROLLER");
-    }
+    private static final long SLOW_API_NANOS = TimeUnit.MILLISECONDS.toNanos(LoggingConstants.SLOW_API_THRESHOLD_MS);
+    private static final long SLOW_SERVICE_NANOS = TimeUnit.MILLISECONDS.toNanos(LoggingConstants.SLOW_SERVICE_THRESHOLD_MS);
 
-    /**
-     * Monitor all public methods in @Service classes.
-     * Only logs if execution exceeds SLOW_SERVICE_THRESHOLD_MS to reduce noise.
-     */
-    @Around("within(@org.springframework.stereotype.Service *) " +
-            "&& !within(com.wd.custapi.logging..*)")
-    public Object monitorServices(ProceedingJoinPoint joinPoint) throws Throwable {
-        long start = System.currentTimeMillis();
-        Object result = joinPoint.proceed();
-        long duration = System.currentTimeMillis() - start;
+    private final MeterRegistry meterRegistry;
 
-        if (duration >= LoggingConstants.SLOW_SERVICE_THRESHOLD_MS) {
-            MethodSignature sig = (MethodSignature) joinPoint.getSignature();
-            String className = joinPoint.getTarget().getClass().getSimpleName();
-            String methodName = sig.getName();
+    /** Timers of successful calls by bean class and method; failures go through the registry. */
+    private final ConcurrentMap<MethodKey, Timer> successTimers = new ConcurrentHashMap<>();
 
-            PERF_LOG.warn("{} | SERVICE | {}.{} | {}ms | traceId={} | userId={}",
-                    LoggingConstants.PREFIX_SLOW_API,
-                    className, methodName,
-                    duration,
-                    getTraceId(), getUserId());
-        }
-        return result;
+    private record MethodKey(Class<?> type, Method method) {}
+
+    public PerformanceLoggingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
     }
 
-    private Object measureAndLog(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
-        long start = System.currentTimeMillis();
+    /**
+     * Monitor all public methods in @RestController classes (slow-call log only).
+     */
+    @Around("within(@org.springframework.web.bind.annotation.RestController *)")
+    public Object monitorControllers(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
         boolean hadException = false;
 
         try {
@@ -66,26 +70,65 @@ public class PerformanceLoggingAspect {
             hadException = true;
             throw ex;
         } finally {
-            long duration = System.currentTimeMillis() - start;
-
-            if (duration >= LoggingConstants.SLOW_API_THRESHOLD_MS) {
-                MethodSignature sig = (MethodSignature) joinPoint.getSignature();
-                String className  = joinPoint.getTarget().getClass().getSimpleName();
-                String methodName = sig.getName();
-                String path       = MDC.get(LoggingConstants.MDC_PATH);
-
-                PERF_LOG.warn("{} | {} | {} | {}.{} | {}ms | exception={} | traceId={} | userId={}",
+            long duration = System.nanoTime() - start;
+            if (duration >= SLOW_API_NANOS) {
+                String path = MDC.get(LoggingConstants.MDC_PATH);
+                PERF_LOG.warn("{} | CONTROLLER | {} | {}.{} | {}ms | exception={} | traceId={} | userId={}",
                         LoggingConstants.PREFIX_SLOW_API,
-                        layer,
                         path != null ? path : "unknown",
-                        className, methodName,
-                        duration,
+                        joinPoint.getTarget().getClass().getSimpleName(), joinPoint.getSignature().getName(),
+                        TimeUnit.NANOSECONDS.toMillis(duration),
                         hadException,
                         getTraceId(), getUserId());
             }
         }
     }
 
+    /**
+     * Monitor all public methods in @Service classes.
+     * Only logs if execution exceeds SLOW_SERVICE_THRESHOLD_MS to reduce noise.
+     */
+    @Around("within(@org.springframework.stereotype.Service *) " +
+            "&& !within(com.wd.custapi.logging..*)")
+    public Object monitorServices(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable ex) {
+            long duration = System.nanoTime() - start;
+            serviceTimer(joinPoint, ex.getClass().getSimpleName()).record(duration, TimeUnit.NANOSECONDS);
+            logSlowService(joinPoint, duration);
+            throw ex;
+        }
+        long duration = System.nanoTime() - start;
+        successTimers.computeIfAbsent(new MethodKey(joinPoint.getTarget().getClass(),
+                        ((MethodSignature) joinPoint.getSignature()).getMethod()),
+                key -> serviceTimer(joinPoint, "none"))
+                .record(duration, TimeUnit.NANOSECONDS);
+        logSlowService(joinPoint, duration);
+        return result;
+    }
+
+    private Timer serviceTimer(ProceedingJoinPoint joinPoint, String exception) {
+        return Timer.builder(SERVICE_TIMER)
+                .description("Execution time of @Service methods")
+                .tag("class", joinPoint.getTarget().getClass().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+
+    private void logSlowService(ProceedingJoinPoint joinPoint, long duration) {
+        if (duration >= SLOW_SERVICE_NANOS) {
+            PERF_LOG.warn("{} | SERVICE | {}.{} | {}ms | traceId={} | userId={}",
+                    LoggingConstants.PREFIX_SLOW_API,
+                    joinPoint.getTarget().getClass().getSimpleName(), joinPoint.getSignature().getName(),
+                    TimeUnit.NANOSECONDS.toMillis(duration),
+                    getTraceId(), getUserId());
+        }
+    }
+
     private String getTraceId() {
         String v = MDC.get(LoggingConstants.MDC_TRACE_ID);
         return v != null ? v : "NO-TRACE";
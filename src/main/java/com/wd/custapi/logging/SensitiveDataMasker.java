@@ -1,6 +1,8 @@
 package com.wd.custapi.logging;
 
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Utility class for masking sensitive data in log messages.
@@ -8,6 +10,17 @@ import java.util.regex.Pattern;
  *
  * Example input:  {"password":"mySecret123","email":"user@test.com"}
  * Example output: {"password":"****","email":"user@test.com"}
+ *
+ * Masks the value of every {@link LoggingConstants#SENSITIVE_FIELDS} entry
+ * (case-insensitive) in two shapes:
+ *   JSON        "field": "value"     — value up to the closing quote
+ *   param/form  ...field=value       — value up to &amp;, whitespace, comma, } or quote
+ *
+ * The input is scanned once: only {@code "} and {@code =} are inspected, and
+ * field names are looked up by their first (JSON) or last (param) character.
+ * Nothing is allocated unless a value is masked. Most callers go through
+ * {@link MaskingMessageConverter} / {@link SensitiveValueMasker}, which mask
+ * lazily when an event is written.
  */
 public final class SensitiveDataMasker {
 
@@ -15,44 +28,167 @@ public final class SensitiveDataMasker {
 
     private static final String MASK = "****";
 
-    // Matches JSON-style: "fieldName":"value" or "fieldName": "value"
-    private static final Pattern[] JSON_PATTERNS = buildJsonPatterns();
+    /** Lower-case field names by their first character, for {@code "field":}. */
+    private static final String[][] BY_FIRST_CHAR = index(true);
 
-    // Matches query-param / form style: fieldName=value
-    private static final Pattern[] PARAM_PATTERNS = buildParamPatterns();
+    /** Lower-case field names by their last character, for {@code field=}. */
+    private static final String[][] BY_LAST_CHAR = index(false);
 
-    private static Pattern[] buildJsonPatterns() {
-        return LoggingConstants.SENSITIVE_FIELDS.stream()
-                .map(field -> Pattern.compile(
-                        "(?i)(\"" + Pattern.quote(field) + "\"\\s*:\\s*\")([^\"]*)(\")",
-                        Pattern.CASE_INSENSITIVE))
-                .toArray(Pattern[]::new);
-    }
+    private static final long NO_MATCH = -1L;
 
-    private static Pattern[] buildParamPatterns() {
-        return LoggingConstants.SENSITIVE_FIELDS.stream()
-                .map(field -> Pattern.compile(
-                        "(?i)(" + Pattern.quote(field) + "=)([^&\\s,}]+)",
-                        Pattern.CASE_INSENSITIVE))
-                .toArray(Pattern[]::new);
+    private static String[][] index(boolean first) {
+        List<List<String>> buckets = new ArrayList<>(128);
+        for (int i = 0; i < 128; i++) buckets.add(new ArrayList<>());
+        for (String field : LoggingConstants.SENSITIVE_FIELDS) {
+            String lower = field.toLowerCase(Locale.ROOT);
+            buckets.get(first ? lower.charAt(0) : lower.charAt(lower.length() - 1)).add(lower);
+        }
+        String[][] table = new String[128][];
+        for (int i = 0; i < 128; i++) {
+            table[i] = buckets.get(i).isEmpty() ? null : buckets.get(i).toArray(String[]::new);
+        }
+        return table;
     }
 
     /**
      * Mask sensitive fields in any string (JSON body, query params, log messages).
+     * Returns {@code input} itself when there is nothing to mask.
      */
     public static String mask(String input) {
         if (input == null || input.isEmpty()) {
             return input;
         }
-        String result = input;
+        long secret = nextSecret(input, 0);
+        if (secret == NO_MATCH) {
+            return input;
+        }
+        StringBuilder out = new StringBuilder(input.length());
+        appendMasked(input, secret, out);
+        return out.toString();
+    }
+
+    /**
+     * Appends {@code input} to {@code out} with sensitive values masked, without
+     * an intermediate copy — for large bodies held in a buffer.
+     */
+    public static void mask(CharSequence input, StringBuilder out) {
+        if (input == null) {
+            out.append((String) null);
+            return;
+        }
+        long secret = nextSecret(input, 0);
+        if (secret == NO_MATCH) {
+            out.append(input);
+            return;
+        }
+        appendMasked(input, secret, out);
+    }
+
+    private static void appendMasked(CharSequence input, long secret, StringBuilder out) {
+        int copied = 0;
+        while (secret != NO_MATCH) {
+            int start = (int) (secret >>> 32);
+            int end = (int) secret;
+            out.append(input, copied, start).append(MASK);
+            copied = end;
+            secret = nextSecret(input, end);
+        }
+        out.append(input, copied, input.length());
+    }
+
+    /**
+     * Start and end (packed into a long) of the next value to mask at or after
+     * {@code from}, or {@link #NO_MATCH}.
+     */
+    private static long nextSecret(CharSequence s, int from) {
+        int length = s.length();
+        for (int i = from; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == '"') {
+                int valueStart = jsonValueStart(s, i);
+                if (valueStart >= 0) {
+                    int valueEnd = indexOf(s, '"', valueStart);
+                    if (valueEnd >= 0) return span(valueStart, valueEnd);
+                }
+            } else if (c == '=' && endsWithField(s, i)) {
+                int valueEnd = i + 1;
+                while (valueEnd < length && !isParamEnd(s.charAt(valueEnd))) valueEnd++;
+                if (valueEnd > i + 1) return span(i + 1, valueEnd);
+            }
+        }
+        return NO_MATCH;
+    }
 
-        for (Pattern p : JSON_PATTERNS) {
-            result = p.matcher(result).replaceAll("$1" + MASK + "$3");
+    /** If {@code "field"\s*:\s*"} starts at {@code quote}, the index after its last quote; else -1. */
+    private static int jsonValueStart(CharSequence s, int quote) {
+        int nameStart = quote + 1;
+        if (nameStart >= s.length()) return -1;
+        String[] candidates = lookup(BY_FIRST_CHAR, s.charAt(nameStart));
+        if (candidates == null) return -1;
+        for (String field : candidates) {
+            int nameEnd = nameStart + field.length();
+            if (nameEnd < s.length() && s.charAt(nameEnd) == '"' && regionMatches(s, nameStart, field)) {
+                int i = skipWhitespace(s, nameEnd + 1);
+                if (i >= s.length() || s.charAt(i) != ':') return -1;
+                i = skipWhitespace(s, i + 1);
+                return i < s.length() && s.charAt(i) == '"' ? i + 1 : -1;
+            }
         }
-        for (Pattern p : PARAM_PATTERNS) {
-            result = p.matcher(result).replaceAll("$1" + MASK);
+        return -1;
+    }
+
+    /** Whether the characters just before {@code equals} are a field name. */
+    private static boolean endsWithField(CharSequence s, int equals) {
+        if (equals == 0) return false;
+        String[] candidates = lookup(BY_LAST_CHAR, s.charAt(equals - 1));
+        if (candidates == null) return false;
+        for (String field : candidates) {
+            int start = equals - field.length();
+            if (start >= 0 && regionMatches(s, start, field)) return true;
         }
-        return result;
+        return false;
+    }
+
+    private static String[] lookup(String[][] table, char c) {
+        char lower = toLowerAscii(c);
+        return lower < 128 ? table[lower] : null;
+    }
+
+    /** ASCII case-insensitive match of {@code lowerField} at {@code offset}. */
+    private static boolean regionMatches(CharSequence s, int offset, String lowerField) {
+        for (int i = 0; i < lowerField.length(); i++) {
+            if (toLowerAscii(s.charAt(offset + i)) != lowerField.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static char toLowerAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static int skipWhitespace(CharSequence s, int i) {
+        while (i < s.length() && isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    /** Ends a param value. A quote ends it too, so a URL inside a JSON string stays valid JSON. */
+    private static boolean isParamEnd(char c) {
+        return c == '&' || c == ',' || c == '}' || c == '"' || isWhitespace(c);
+    }
+
+    private static int indexOf(CharSequence s, char c, int from) {
+        for (int i = from; i < s.length(); i++) {
+            if (s.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    private static long span(int start, int end) {
+        return ((long) start << 32) | end;
     }
 
     /** Convenience — mask a header value to show only scheme prefix */
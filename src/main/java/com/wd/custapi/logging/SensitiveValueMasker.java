@@ -0,0 +1,21 @@
+package com.wd.custapi.logging;
+
+import com.fasterxml.jackson.core.JsonStreamContext;
+import net.logstash.logback.mask.ValueMasker;
+
+/**
+ * The JSON (production) counterpart of {@link MaskingMessageConverter}: masks
+ * every string field the Logstash encoder writes — message, MDC values, stack
+ * trace — with {@link SensitiveDataMasker}.
+ */
+public class SensitiveValueMasker implements ValueMasker {
+
+    @Override
+    public Object mask(JsonStreamContext context, Object value) {
+        if (value instanceof String text) {
+            String masked = SensitiveDataMasker.mask(text);
+            return masked != text ? masked : null; // null = leave the value unchanged
+        }
+        return null;
+    }
+}
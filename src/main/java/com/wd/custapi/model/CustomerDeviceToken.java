@@ -0,0 +1,54 @@
+package com.wd.custapi.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An FCM registration token for one of a customer's devices. A token belongs to
+ * at most one customer; signing in as someone else on the same device moves it.
+ */
+@Entity
+@Table(name = "customer_device_tokens")
+public class CustomerDeviceToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_user_id", nullable = false)
+    private Long customerUserId;
+
+    @Column(name = "token", nullable = false, unique = true, length = 512)
+    private String token;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /** Last time the app registered this token; the oldest devices are dropped past the per-user cap. */
+    @Column(name = "last_seen_at", nullable = false)
+    private LocalDateTime lastSeenAt;
+
+    @PrePersist
+    protected void onCreate() {
+        LocalDateTime now = LocalDateTime.now();
+        if (createdAt == null) createdAt = now;
+        if (lastSeenAt == null) lastSeenAt = now;
+    }
+
+    // Getters and Setters
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getCustomerUserId() { return customerUserId; }
+    public void setCustomerUserId(Long customerUserId) { this.customerUserId = customerUserId; }
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getLastSeenAt() { return lastSeenAt; }
+    public void setLastSeenAt(LocalDateTime lastSeenAt) { this.lastSeenAt = lastSeenAt; }
+}
@@ -0,0 +1,35 @@
+package com.wd.custapi.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Unread notification count of one customer ({@code customer_notification_counters}).
+ * Maintained by database triggers on {@code customer_notifications} (see V1024),
+ * so it also counts notifications the portal inserts; read-only here.
+ */
+@Entity
+@Immutable
+@Table(name = "customer_notification_counters")
+public class CustomerNotificationCounter {
+
+    @Id
+    @Column(name = "customer_user_id")
+    private Long customerUserId;
+
+    @Column(name = "unread_count", nullable = false)
+    private int unreadCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Getters
+
+    public Long getCustomerUserId() { return customerUserId; }
+
+    public int getUnreadCount() { return unreadCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
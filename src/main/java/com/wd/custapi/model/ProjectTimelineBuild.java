@@ -0,0 +1,49 @@
+package com.wd.custapi.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a project whose timeline has been materialised into
+ * {@code project_timeline_entries}. Projects without a row are built on first
+ * read or by the backfill job; deleting the row forces a rebuild.
+ */
+@Entity
+@Table(name = "project_timeline_builds")
+public class ProjectTimelineBuild {
+
+    @Id
+    @Column(name = "project_id")
+    private Long projectId;
+
+    @Column(name = "built_at", nullable = false)
+    private LocalDateTime builtAt;
+
+    /** Bumped by database triggers on every write to the project's source rows. */
+    @Column(name = "source_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT DEFAULT 0")
+    private long sourceVersion;
+
+    /** {@code sourceVersion} as of the last build or consistency check; {@code null} until checked. */
+    @Column(name = "checked_version")
+    private Long checkedVersion;
+
+    protected ProjectTimelineBuild() {
+    }
+
+    public ProjectTimelineBuild(Long projectId, LocalDateTime builtAt) {
+        this.projectId = projectId;
+        this.builtAt = builtAt;
+    }
+
+    public Long getProjectId() { return projectId; }
+
+    public LocalDateTime getBuiltAt() { return builtAt; }
+    public void setBuiltAt(LocalDateTime builtAt) { this.builtAt = builtAt; }
+
+    public long getSourceVersion() { return sourceVersion; }
+
+    public Long getCheckedVersion() { return checkedVersion; }
+    public void setCheckedVersion(Long checkedVersion) { this.checkedVersion = checkedVersion; }
+}
@@ -8,9 +8,14 @@ import java.time.LocalDateTime;
 @Table(name = "received_webhook_events")
 public class ReceivedWebhookEvent {
 
+    /** Queued by the webhook endpoint, waiting for a worker. */
+    public static final String STATUS_PENDING    = "PENDING";
     public static final String STATUS_PROCESSING = "PROCESSING";
     public static final String STATUS_PROCESSED   = "PROCESSED";
+    /** Failed; retried at {@code nextAttemptAt}. */
     public static final String STATUS_FAILED      = "FAILED";
+    /** Dead letter — retries exhausted; replayed only by an operator. */
+    public static final String STATUS_DEAD        = "DEAD";
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,11 +39,18 @@ public class ReceivedWebhookEvent {
     @Column(name = "processed_at")
     private LocalDateTime processedAt;
 
-    /** Number of processing attempts — used by the retry scheduler. Not persisted as a separate column;
-     *  tracked in memory. The scheduler uses status=FAILED to identify candidates. */
-    @Transient
+    /** When a worker claimed the row; stale claims are returned to PENDING. */
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    /** Failed processing attempts so far — drives the retry backoff and the dead-letter cut-off. */
+    @Column(name = "attempt_count", nullable = false)
     private int attemptCount = 0;
 
+    /** When a FAILED event becomes due for its next attempt. */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
     @PrePersist
     protected void onCreate() {
         if (receivedAt == null) receivedAt = LocalDateTime.now();
@@ -66,6 +78,12 @@ public class ReceivedWebhookEvent {
     public LocalDateTime getProcessedAt() { return processedAt; }
     public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
 
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(LocalDateTime claimedAt) { this.claimedAt = claimedAt; }
+
     public int getAttemptCount() { return attemptCount; }
     public void setAttemptCount(int attemptCount) { this.attemptCount = attemptCount; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
 }
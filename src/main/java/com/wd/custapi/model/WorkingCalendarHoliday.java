@@ -0,0 +1,38 @@
+package com.wd.custapi.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+
+/**
+ * One public or festival holiday in a region's working calendar
+ * ({@code working_calendar_holidays}, V1027). Read into
+ * {@link com.wd.custapi.util.WorkingCalendar} by
+ * {@link com.wd.custapi.service.WorkingCalendarService}; maintained in the table.
+ */
+@Immutable
+@Entity
+@Table(name = "working_calendar_holidays",
+       uniqueConstraints = @UniqueConstraint(name = "uq_working_calendar_holidays_region_date",
+                                             columnNames = {"region", "holiday_date"}))
+public class WorkingCalendarHoliday {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String region;
+
+    @Column(name = "holiday_date", nullable = false)
+    private LocalDate holidayDate;
+
+    @Column(nullable = false)
+    private String name;
+
+    public Long getId() { return id; }
+    public String getRegion() { return region; }
+    public LocalDate getHolidayDate() { return holidayDate; }
+    public String getName() { return name; }
+}
@@ -18,12 +18,23 @@ public interface ActivityFeedRepository extends JpaRepository<ActivityFeed, Long
     List<ActivityFeed> findByProjectIdAndActivityTypeIdOrderByCreatedAtDesc(
         Long projectId, Long activityTypeId);
 
+    /** Dashboard "recent activity" row — type and project resolved in the same query. */
+    interface RecentActivityView {
+        String getActivityType();
+        String getTitle();
+        String getDescription();
+        LocalDateTime getCreatedAt();
+        Long getProjectId();
+        String getProjectName();
+    }
+
     // Bulk fetch across all projects in one query — eliminates N+1 loop
     @org.springframework.data.jpa.repository.Query(
-        "SELECT a FROM ActivityFeed a WHERE a.project.id IN :projectIds ORDER BY a.createdAt DESC")
-    List<ActivityFeed> findTop10ByProjectIdInOrderByCreatedAtDesc(
+        "SELECT t.name AS activityType, a.title AS title, a.description AS description, " +
+        "a.createdAt AS createdAt, p.id AS projectId, p.name AS projectName " +
+        "FROM ActivityFeed a JOIN a.project p LEFT JOIN a.activityType t " +
+        "WHERE p.id IN :projectIds ORDER BY a.createdAt DESC")
+    List<RecentActivityView> findRecentViewsByProjectIdIn(
         @org.springframework.data.repository.query.Param("projectIds") List<Long> projectIds,
         org.springframework.data.domain.Pageable pageable);
 }
-
-
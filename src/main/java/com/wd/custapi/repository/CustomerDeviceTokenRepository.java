@@ -0,0 +1,26 @@
+package com.wd.custapi.repository;
+
+import com.wd.custapi.model.CustomerDeviceToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CustomerDeviceTokenRepository extends JpaRepository<CustomerDeviceToken, Long> {
+
+    Optional<CustomerDeviceToken> findByToken(String token);
+
+    List<CustomerDeviceToken> findByCustomerUserIdOrderByLastSeenAtDesc(Long customerUserId);
+
+    List<CustomerDeviceToken> findByCustomerUserIdIn(Collection<Long> customerUserIds);
+
+    @Modifying
+    @Query("DELETE FROM CustomerDeviceToken d WHERE d.token IN :tokens")
+    int deleteByTokenIn(@Param("tokens") Collection<String> tokens);
+}
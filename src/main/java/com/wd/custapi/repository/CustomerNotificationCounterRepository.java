@@ -0,0 +1,35 @@
+package com.wd.custapi.repository;
+
+import com.wd.custapi.model.CustomerNotificationCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CustomerNotificationCounterRepository extends JpaRepository<CustomerNotificationCounter, Long> {
+
+    /** Unread count of a user; empty if they have never had a notification. */
+    @Query("SELECT c.unreadCount FROM CustomerNotificationCounter c WHERE c.customerUserId = :userId")
+    Optional<Integer> findUnreadCount(@Param("userId") Long userId);
+
+    /**
+     * Badge lookup by JWT subject: user id and unread count in one indexed
+     * query. Empty if no such user; {@code unreadCount} is null if the user has
+     * never had a notification.
+     */
+    @Query("""
+        SELECT u.id AS userId, c.unreadCount AS unreadCount
+        FROM CustomerUser u
+        LEFT JOIN CustomerNotificationCounter c ON c.customerUserId = u.id
+        WHERE u.email = :email
+        """)
+    Optional<BadgeView> findBadgeByEmail(@Param("email") String email);
+
+    interface BadgeView {
+        Long getUserId();
+        Integer getUnreadCount();
+    }
+}
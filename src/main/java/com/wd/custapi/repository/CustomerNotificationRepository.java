@@ -8,16 +8,36 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface CustomerNotificationRepository extends JpaRepository<CustomerNotification, Long> {
 
     /** Paginated list of notifications for a user, newest first. */
     Page<CustomerNotification> findByCustomerUser_IdOrderByCreatedAtDesc(Long customerUserId, Pageable pageable);
 
-    /** Count of unread notifications for a user (used for badge). */
-    long countByCustomerUser_IdAndReadFalse(Long customerUserId);
+    /** Notifications of a user after {@code afterId}, oldest first — event stream delivery and replay. */
+    List<CustomerNotification> findByCustomerUser_IdAndIdGreaterThanOrderByIdAsc(
+            Long customerUserId, Long afterId, Pageable pageable);
+
+    /** Newest notification id of a user, or null if they have none. */
+    @Query("SELECT MAX(n.id) FROM CustomerNotification n WHERE n.customerUser.id = :userId")
+    Long findMaxIdByUserId(@Param("userId") Long userId);
 
     /** Mark all notifications for a user as read (bulk update). */
     @Modifying
     @Query("UPDATE CustomerNotification n SET n.read = true WHERE n.customerUser.id = :userId AND n.read = false")
     int markAllReadByUserId(@Param("userId") Long userId);
+
+    /** Marks the given notifications of a user as read; ids of other users are ignored. */
+    @Modifying
+    @Query("UPDATE CustomerNotification n SET n.read = true "
+            + "WHERE n.customerUser.id = :userId AND n.read = false AND n.id IN :ids")
+    int markReadByIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    /** Marks every notification of a user up to and including {@code upToId} as read. */
+    @Modifying
+    @Query("UPDATE CustomerNotification n SET n.read = true "
+            + "WHERE n.customerUser.id = :userId AND n.read = false AND n.id <= :upToId")
+    int markReadUpTo(@Param("userId") Long userId, @Param("upToId") Long upToId);
 }
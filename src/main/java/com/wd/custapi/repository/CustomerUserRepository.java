@@ -2,10 +2,12 @@ package com.wd.custapi.repository;
 
 import com.wd.custapi.model.CustomerUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,5 +21,9 @@ public interface CustomerUserRepository extends JpaRepository<CustomerUser, Long
     @Query("SELECT u FROM CustomerUser u JOIN u.projects p " +
            "WHERE p.id = :projectId AND UPPER(u.role.name) IN ('CUSTOMER', 'CUSTOMER_ADMIN')")
     List<CustomerUser> findCustomersByProjectId(@Param("projectId") Long projectId);
-}
 
+    /** Clears the legacy single-device column where it holds a token FCM no longer accepts. */
+    @Modifying
+    @Query("UPDATE CustomerUser u SET u.fcmToken = NULL WHERE u.fcmToken IN :tokens")
+    int clearFcmTokens(@Param("tokens") Collection<String> tokens);
+}
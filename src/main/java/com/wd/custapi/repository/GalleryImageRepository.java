@@ -1,16 +1,32 @@
 package com.wd.custapi.repository;
 
 import com.wd.custapi.model.GalleryImage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface GalleryImageRepository extends JpaRepository<GalleryImage, Long> {
     
     List<GalleryImage> findByProjectIdOrderByTakenDateDesc(Long projectId);
+
+    /**
+     * Keyset page for the combined activity feed: images (by upload time) strictly before
+     * ({@code beforeTs}, {@code beforeId}), newest first. Backed by idx_gallery_images_feed_keyset.
+     */
+    @Query("SELECT g FROM GalleryImage g WHERE g.project.id = :projectId " +
+           "AND (g.uploadedAt < :beforeTs OR (g.uploadedAt = :beforeTs AND g.id < :beforeId)) " +
+           "ORDER BY g.uploadedAt DESC, g.id DESC")
+    List<GalleryImage> findFeedPageBefore(@Param("projectId") Long projectId,
+                                          @Param("beforeTs") LocalDateTime beforeTs,
+                                          @Param("beforeId") Long beforeId,
+                                          Pageable pageable);
     
     List<GalleryImage> findByProjectIdAndTakenDate(Long projectId, LocalDate takenDate);
     
@@ -2,9 +2,13 @@ package com.wd.custapi.repository;
 
 import com.wd.custapi.model.Observation;
 import com.wd.custapi.model.Observation.ObservationStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -14,6 +18,18 @@ public interface ObservationRepository extends JpaRepository<Observation, Long>
 
     List<Observation> findByProjectIdOrderByReportedDateDesc(Long projectId);
 
+    /**
+     * Keyset page for the combined activity feed: observations strictly before
+     * ({@code beforeTs}, {@code beforeId}), newest first. Backed by idx_observations_feed_keyset.
+     */
+    @Query("SELECT o FROM Observation o WHERE o.project.id = :projectId " +
+           "AND (o.reportedDate < :beforeTs OR (o.reportedDate = :beforeTs AND o.id < :beforeId)) " +
+           "ORDER BY o.reportedDate DESC, o.id DESC")
+    List<Observation> findFeedPageBefore(@Param("projectId") Long projectId,
+                                         @Param("beforeTs") LocalDateTime beforeTs,
+                                         @Param("beforeId") Long beforeId,
+                                         Pageable pageable);
+
     List<Observation> findByProjectIdAndStatusOrderByPriorityDescReportedDateDesc(
             Long projectId, ObservationStatus status);
 
@@ -15,6 +15,10 @@ public interface ProjectDocumentRepository extends JpaRepository<ProjectDocument
 
     List<ProjectDocument> findByFilePath(String filePath);
 
+    /** Project ids of every PROJECT-scoped document row stored at {@code filePath}. */
+    @Query("SELECT DISTINCT d.referenceId FROM ProjectDocument d WHERE d.filePath = :filePath AND d.referenceType = '" + REFERENCE_TYPE_PROJECT + "'")
+    List<Long> findProjectIdsByFilePath(@Param("filePath") String filePath);
+
     List<ProjectDocument> findByReferenceIdAndReferenceTypeAndIsActiveTrue(Long referenceId, String referenceType);
 
     List<ProjectDocument> findByReferenceIdAndReferenceTypeAndCategoryIdAndIsActiveTrue(
@@ -1,11 +1,16 @@
 package com.wd.custapi.repository;
 
 import com.wd.custapi.model.Project;
+import com.wd.custapi.model.enums.ProjectPhase;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
 
 public interface ProjectRepository extends JpaRepository<Project, Long> {
 
@@ -58,6 +63,15 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
                         "WHERE p.id = :projectId AND (c_mem.email = :email OR c_owner.email = :email) AND p.deleted_at IS NULL", nativeQuery = true)
         Project findByIdAndCustomerEmail(@Param("projectId") Long projectId, @Param("email") String email);
 
+        // Ids of every project a customer can open (membership or direct owner).
+        // Backs ProjectAccessService#canAccess, which caches the set per user.
+        @Query(value = "SELECT DISTINCT p.id FROM customer_projects p " +
+                        "LEFT JOIN project_members cpm ON p.id = cpm.project_id " +
+                        "LEFT JOIN customer_users c_mem ON cpm.customer_user_id = c_mem.id " +
+                        "LEFT JOIN customer_users c_owner ON p.customer_id = c_owner.id " +
+                        "WHERE (c_mem.email = :email OR c_owner.email = :email) AND p.deleted_at IS NULL", nativeQuery = true)
+        List<Long> findIdsByCustomerEmail(@Param("email") String email);
+
         // Get specific project by Project UUID for a customer
         @Query(value = "SELECT DISTINCT p.* FROM customer_projects p " +
                         "LEFT JOIN project_members cpm ON p.id = cpm.project_id " +
@@ -84,23 +98,61 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
         @Query(value = "SELECT p.* FROM customer_projects p WHERE p.project_uuid = :projectUuid", nativeQuery = true)
         Project findByProjectUuid(@Param("projectUuid") java.util.UUID projectUuid);
 
-        // --- Admin: paginated project list with optional search ---
-        @Query(value = "SELECT p.* FROM customer_projects p ORDER BY p.id DESC LIMIT :size OFFSET :offset", nativeQuery = true)
-        List<Project> findAllForAdminPaged(@Param("size") int size, @Param("offset") int offset);
-
-        @Query(value = "SELECT COUNT(*) FROM customer_projects p", nativeQuery = true)
-        long countAllForAdmin();
-
-        @Query(value = "SELECT p.* FROM customer_projects p WHERE " +
-                "(LOWER(p.name) LIKE LOWER(CONCAT('%', :q, '%')) " +
-                "OR LOWER(p.code) LIKE LOWER(CONCAT('%', :q, '%')) " +
-                "OR LOWER(p.location) LIKE LOWER(CONCAT('%', :q, '%'))) " +
-                "ORDER BY p.id DESC LIMIT :size OFFSET :offset", nativeQuery = true)
-        List<Project> searchForAdminPaged(@Param("q") String q, @Param("size") int size, @Param("offset") int offset);
-
-        @Query(value = "SELECT COUNT(*) FROM customer_projects p WHERE " +
-                "(LOWER(p.name) LIKE LOWER(CONCAT('%', :q, '%')) " +
-                "OR LOWER(p.code) LIKE LOWER(CONCAT('%', :q, '%')) " +
-                "OR LOWER(p.location) LIKE LOWER(CONCAT('%', :q, '%')))", nativeQuery = true)
-        long countForAdminSearch(@Param("q") String q);
+        /**
+         * Dashboard card columns only: no lazy associations and none of the
+         * budget / geo / permit columns the dashboard never shows.
+         */
+        interface DashboardProjectView {
+                Long getId();
+                UUID getProjectUuid();
+                String getName();
+                String getCode();
+                String getLocation();
+                LocalDate getStartDate();
+                LocalDate getEndDate();
+                BigDecimal getProgress();
+                ProjectPhase getProjectPhase();
+                String getProjectType();
+                String getDesignPackage();
+                Boolean getDesignAgreementSigned();
+        }
+
+        String DASHBOARD_VIEW_SELECT = "SELECT p.id AS id, p.projectUuid AS projectUuid, p.name AS name, " +
+                        "p.code AS code, p.location AS location, p.startDate AS startDate, p.endDate AS endDate, " +
+                        "p.progress AS progress, p.projectPhase AS projectPhase, p.projectType AS projectType, " +
+                        "p.designPackage AS designPackage, p.isDesignAgreementSigned AS designAgreementSigned ";
+
+        // Same expressions as the V1019 trigram indexes; :pattern is already lower-cased and %-wrapped
+        String ADMIN_SEARCH_FILTER = "(LOWER(p.name) LIKE :pattern OR LOWER(p.code) LIKE :pattern " +
+                        "OR LOWER(p.location) LIKE :pattern) ";
+
+        // Owner (customer_projects.customer_id) or project_members collaborator, newest first
+        @Query(DASHBOARD_VIEW_SELECT +
+                        "FROM Project p WHERE p.customerId IN (SELECT u.id FROM CustomerUser u WHERE u.email = :email) " +
+                        "OR p.id IN (SELECT m.projectId FROM ProjectMember m, CustomerUser u " +
+                        "WHERE m.customerUserId = u.id AND u.email = :email) " +
+                        "ORDER BY p.id DESC")
+        List<DashboardProjectView> findDashboardViewsByCustomerEmail(@Param("email") String email);
+
+        // --- Admin: project list, newest first, with optional search ---
+        // Keyset variants (…Before) continue below the last id of the previous page.
+
+        @Query(DASHBOARD_VIEW_SELECT + "FROM Project p ORDER BY p.id DESC")
+        List<DashboardProjectView> findRecentDashboardViewsForAdmin(Pageable pageable);
+
+        @Query(DASHBOARD_VIEW_SELECT + "FROM Project p WHERE p.id < :beforeId ORDER BY p.id DESC")
+        List<DashboardProjectView> findDashboardViewsForAdminBefore(@Param("beforeId") Long beforeId,
+                        Pageable pageable);
+
+        @Query(DASHBOARD_VIEW_SELECT + "FROM Project p WHERE " + ADMIN_SEARCH_FILTER + "ORDER BY p.id DESC")
+        List<DashboardProjectView> searchDashboardViewsForAdmin(@Param("pattern") String pattern,
+                        Pageable pageable);
+
+        @Query(DASHBOARD_VIEW_SELECT + "FROM Project p WHERE " + ADMIN_SEARCH_FILTER +
+                        "AND p.id < :beforeId ORDER BY p.id DESC")
+        List<DashboardProjectView> searchDashboardViewsForAdminBefore(@Param("pattern") String pattern,
+                        @Param("beforeId") Long beforeId, Pageable pageable);
+
+        @Query("SELECT COUNT(p) FROM Project p WHERE " + ADMIN_SEARCH_FILTER)
+        long countForAdminSearch(@Param("pattern") String pattern);
 }
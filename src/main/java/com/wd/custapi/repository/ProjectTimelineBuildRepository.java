@@ -0,0 +1,37 @@
+package com.wd.custapi.repository;
+
+import com.wd.custapi.model.ProjectTimelineBuild;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ProjectTimelineBuildRepository extends JpaRepository<ProjectTimelineBuild, Long> {
+
+    /**
+     * Built projects whose sources were written since their last build or
+     * consistency check — the only ones the drift check needs to look at.
+     */
+    @Query("SELECT b FROM ProjectTimelineBuild b " +
+           "WHERE b.checkedVersion IS NULL OR b.checkedVersion <> b.sourceVersion")
+    List<ProjectTimelineBuild> findChanged();
+
+    /** Records a clean consistency check, unless a rebuild has since recorded a later one. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProjectTimelineBuild b SET b.checkedVersion = :version " +
+           "WHERE b.projectId = :projectId AND (b.checkedVersion IS NULL OR b.checkedVersion < :version)")
+    int markChecked(@Param("projectId") Long projectId, @Param("version") long version);
+
+    /** Live projects whose timeline has never been materialised — the backfill work list. */
+    @Query(value = "SELECT p.id FROM customer_projects p " +
+                   "WHERE p.deleted_at IS NULL " +
+                   "AND NOT EXISTS (SELECT 1 FROM project_timeline_builds b WHERE b.project_id = p.id) " +
+                   "ORDER BY p.id LIMIT :limit", nativeQuery = true)
+    List<Long> findUnbuiltProjectIds(@Param("limit") int limit);
+}
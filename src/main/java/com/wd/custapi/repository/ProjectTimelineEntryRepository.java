@@ -0,0 +1,94 @@
+package com.wd.custapi.repository;
+
+import com.wd.custapi.model.ProjectTimelineEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProjectTimelineEntryRepository extends JpaRepository<ProjectTimelineEntry, Long> {
+
+    /** Whole timeline, newest first — a range scan on idx_project_timeline_feed. */
+    List<ProjectTimelineEntry> findByProjectIdOrderByOccurredAtDescSourceIdDesc(Long projectId);
+
+    List<ProjectTimelineEntry> findByProjectIdAndSourceTypeOrderByOccurredAtDescSourceIdDesc(
+        Long projectId, String sourceType);
+
+    Optional<ProjectTimelineEntry> findBySourceTypeAndSourceId(String sourceType, Long sourceId);
+
+    @Modifying
+    @Query("DELETE FROM ProjectTimelineEntry e WHERE e.sourceType = :sourceType AND e.sourceId = :sourceId")
+    int deleteBySource(@Param("sourceType") String sourceType, @Param("sourceId") Long sourceId);
+
+    @Modifying
+    @Query("DELETE FROM ProjectTimelineEntry e WHERE e.projectId = :projectId")
+    int deleteByProjectId(@Param("projectId") Long projectId);
+
+    /**
+     * (project_id, source_type, source_id, h): a hash of every row the timeline is
+     * projected from. The predicates mirror the entity restrictions and the feed's
+     * DRAFT exclusion. Hashing the whole row text catches an edit to any column.
+     */
+    String SOURCE_ROW_HASHES = """
+        SELECT r.project_id, 'SITE_REPORT' AS source_type, r.id AS source_id,
+               hashtextextended(CAST(r AS TEXT), 0) AS h
+          FROM site_reports r
+         WHERE r.deleted_at IS NULL AND (r.status IS NULL OR UPPER(r.status) <> 'DRAFT')
+        UNION ALL
+        SELECT o.project_id, 'OBSERVATION', o.id, hashtextextended(CAST(o AS TEXT), 0)
+          FROM observations o WHERE o.deleted_at IS NULL
+        UNION ALL
+        SELECT q.project_id, 'QUALITY_CHECK', q.id, hashtextextended(CAST(q AS TEXT), 0)
+          FROM quality_checks q
+        UNION ALL
+        SELECT g.project_id, 'GALLERY', g.id, hashtextextended(CAST(g AS TEXT), 0)
+          FROM gallery_images g WHERE g.deleted_at IS NULL
+        UNION ALL
+        SELECT v.project_id, 'SITE_VISIT', v.id, hashtextextended(CAST(v AS TEXT), 0)
+          FROM site_visits v
+        """;
+
+    interface SourceRowHash {
+        String getSourceType();
+        Long getSourceId();
+        Long getHash();
+    }
+
+    /** Current hashes of a project's source rows; the filter is pushed into each branch of the union. */
+    @Query(value = "SELECT s.source_type AS sourceType, s.source_id AS sourceId, s.h AS hash " +
+                   "FROM (" + SOURCE_ROW_HASHES + ") s WHERE s.project_id = :projectId",
+           nativeQuery = true)
+    List<SourceRowHash> findSourceRowHashes(@Param("projectId") Long projectId);
+
+    /** Current hash of one source row; {@code null} when it is gone or not part of the feed. */
+    @Query(value = "SELECT s.h FROM (" + SOURCE_ROW_HASHES + ") s " +
+                   "WHERE s.source_type = :sourceType AND s.source_id = :sourceId",
+           nativeQuery = true)
+    Long findSourceRowHash(@Param("sourceType") String sourceType, @Param("sourceId") Long sourceId);
+
+    /**
+     * Whether a project's timeline no longer matches its sources: a source row
+     * with no entry, an entry with no source row, or a row edited since its entry
+     * was written. Catches rows written straight to the shared DB (portal staff)
+     * without a webhook.
+     */
+    @Query(value = """
+        SELECT EXISTS (
+            SELECT 1
+              FROM (SELECT s.source_type, s.source_id, s.h
+                      FROM (""" + SOURCE_ROW_HASHES + """
+                           ) s
+                     WHERE s.project_id = :projectId) src
+              FULL OUTER JOIN (SELECT source_type, source_id, source_hash
+                                 FROM project_timeline_entries
+                                WHERE project_id = :projectId) tl
+                ON tl.source_type = src.source_type AND tl.source_id = src.source_id
+             WHERE src.h IS DISTINCT FROM tl.source_hash)
+        """, nativeQuery = true)
+    boolean hasDrifted(@Param("projectId") Long projectId);
+}
@@ -0,0 +1,44 @@
+package com.wd.custapi.repository;
+
+import com.wd.custapi.model.PushOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PushOutboxRepository extends JpaRepository<PushOutboxMessage, Long> {
+
+    long countByStatus(String status);
+
+    /**
+     * Locks up to {@code limit} of the oldest due PENDING pushes for the calling
+     * transaction, skipping rows another node's dispatcher already holds.
+     */
+    @Query(value = """
+            SELECT * FROM push_outbox
+            WHERE status = 'PENDING' AND next_attempt_at <= :now
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<PushOutboxMessage> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Returns IN_FLIGHT pushes claimed before {@code staleBefore} to PENDING —
+     * their dispatcher's node stopped before recording the outcome.
+     */
+    @Modifying
+    @Query("UPDATE PushOutboxMessage m SET m.status = 'PENDING', m.claimedAt = null "
+            + "WHERE m.status = 'IN_FLIGHT' AND m.claimedAt < :staleBefore")
+    int releaseStaleClaims(@Param("staleBefore") LocalDateTime staleBefore);
+
+    /** Drops rows older than the retention window, including pushes never delivered. */
+    @Modifying
+    @Query("DELETE FROM PushOutboxMessage m WHERE m.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
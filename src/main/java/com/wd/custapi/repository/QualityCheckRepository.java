@@ -1,9 +1,13 @@
 package com.wd.custapi.repository;
 
 import com.wd.custapi.model.QualityCheck;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,6 +16,18 @@ public interface QualityCheckRepository extends JpaRepository<QualityCheck, Long
     List<QualityCheck> findByProjectIdAndStatus(Long projectId, QualityCheck.QualityCheckStatus status);
     
     List<QualityCheck> findByProjectIdOrderByCreatedAtDesc(Long projectId);
+
+    /**
+     * Keyset page for the combined activity feed: quality checks strictly before
+     * ({@code beforeTs}, {@code beforeId}), newest first. Backed by idx_quality_checks_feed_keyset.
+     */
+    @Query("SELECT qc FROM QualityCheck qc WHERE qc.project.id = :projectId " +
+           "AND (qc.createdAt < :beforeTs OR (qc.createdAt = :beforeTs AND qc.id < :beforeId)) " +
+           "ORDER BY qc.createdAt DESC, qc.id DESC")
+    List<QualityCheck> findFeedPageBefore(@Param("projectId") Long projectId,
+                                          @Param("beforeTs") LocalDateTime beforeTs,
+                                          @Param("beforeId") Long beforeId,
+                                          Pageable pageable);
     
     List<QualityCheck> findByProjectIdAndStatusOrderByPriorityDescCreatedAtDesc(
         Long projectId, QualityCheck.QualityCheckStatus status);
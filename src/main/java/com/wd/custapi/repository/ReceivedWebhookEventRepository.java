@@ -1,13 +1,101 @@
 package com.wd.custapi.repository;
 
 import com.wd.custapi.model.ReceivedWebhookEvent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ReceivedWebhookEventRepository extends JpaRepository<ReceivedWebhookEvent, Long> {
 
     List<ReceivedWebhookEvent> findByStatus(String status);
+
+    List<ReceivedWebhookEvent> findByStatusOrderByIdDesc(String status, Pageable pageable);
+
+    long countByStatus(String status);
+
+    /** Backlog size and age of the oldest queued event, for metrics and backpressure. */
+    interface QueueStats {
+        long getPending();
+        LocalDateTime getOldestReceivedAt();
+    }
+
+    /**
+     * Locks up to {@code limit} of the oldest PENDING events for the calling
+     * transaction. Rows already locked by another node's claim are skipped rather
+     * than waited on, so workers on several instances never block each other.
+     */
+    @Query(value = """
+            SELECT * FROM received_webhook_events
+            WHERE status = 'PENDING'
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<ReceivedWebhookEvent> lockPendingBatch(@Param("limit") int limit);
+
+    /**
+     * Locks up to {@code limit} FAILED events whose retry is due, earliest first,
+     * skipping rows another node is already requeueing. At most {@code perType}
+     * of them are of one event type, so a type with thousands of due retries
+     * leaves room in the batch for the others.
+     */
+    @Query(value = """
+            SELECT * FROM received_webhook_events
+            WHERE id IN (
+                SELECT id FROM (
+                    SELECT id, ROW_NUMBER() OVER (PARTITION BY event_type ORDER BY next_attempt_at) AS rn
+                    FROM received_webhook_events
+                    WHERE status = 'FAILED' AND next_attempt_at <= :now
+                ) due
+                WHERE rn <= :perType
+            )
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<ReceivedWebhookEvent> lockDueRetries(@Param("now") LocalDateTime now, @Param("perType") int perType,
+                                              @Param("limit") int limit);
+
+    /** Retries currently queued or running, per event type. */
+    interface TypeCount {
+        String getEventType();
+        long getActive();
+    }
+
+    @Query("SELECT e.eventType AS eventType, COUNT(e) AS active FROM ReceivedWebhookEvent e "
+            + "WHERE e.attemptCount > 0 AND e.status IN ('PENDING', 'PROCESSING') GROUP BY e.eventType")
+    List<TypeCount> countActiveRetriesByType();
+
+    /** Puts one dead letter back on the queue with a fresh retry budget. */
+    @Modifying
+    @Query("UPDATE ReceivedWebhookEvent e SET e.status = 'PENDING', e.attemptCount = 0, "
+            + "e.nextAttemptAt = null, e.claimedAt = null WHERE e.status = 'DEAD' AND e.id = :id")
+    int replayDeadLetter(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE ReceivedWebhookEvent e SET e.status = 'PENDING', e.attemptCount = 0, "
+            + "e.nextAttemptAt = null, e.claimedAt = null WHERE e.status = 'DEAD'")
+    int replayAllDeadLetters();
+
+    @Query("SELECT COUNT(e) AS pending, MIN(e.receivedAt) AS oldestReceivedAt "
+            + "FROM ReceivedWebhookEvent e WHERE e.status = 'PENDING'")
+    QueueStats findQueueStats();
+
+    /**
+     * Returns PROCESSING events claimed before {@code staleBefore} to the queue —
+     * their worker's node stopped before finishing them. Rows without a claim
+     * time were set PROCESSING by a node older than the queue, which may still be
+     * working on them during a rolling deploy, so they are left alone.
+     */
+    @Modifying
+    @Query("UPDATE ReceivedWebhookEvent e SET e.status = 'PENDING', e.claimedAt = null "
+            + "WHERE e.status = 'PROCESSING' AND e.claimedAt IS NOT NULL AND e.claimedAt < :staleBefore")
+    int releaseStaleClaims(@Param("staleBefore") LocalDateTime staleBefore);
 }
@@ -17,6 +17,23 @@ public interface SiteReportRepository extends JpaRepository<SiteReport, Long> {
 
     List<SiteReport> findByProjectIdOrderByReportDateDesc(Long projectId);
 
+    /**
+     * Keyset page for the combined activity feed: non-draft reports strictly before
+     * ({@code beforeTs}, {@code beforeId}), newest first. Backed by idx_site_reports_feed_keyset.
+     */
+    @Query("SELECT sr FROM SiteReport sr WHERE sr.project.id = :projectId " +
+           "AND (sr.status IS NULL OR UPPER(sr.status) <> 'DRAFT') " +
+           "AND (sr.reportDate < :beforeTs OR (sr.reportDate = :beforeTs AND sr.id < :beforeId)) " +
+           "ORDER BY sr.reportDate DESC, sr.id DESC")
+    List<SiteReport> findFeedPageBefore(@Param("projectId") Long projectId,
+                                        @Param("beforeTs") LocalDateTime beforeTs,
+                                        @Param("beforeId") Long beforeId,
+                                        Pageable pageable);
+
+    /** Owning project of a report, without loading the report or its photos. */
+    @Query("SELECT sr.project.id FROM SiteReport sr WHERE sr.id = :reportId")
+    java.util.Optional<Long> findProjectIdById(@Param("reportId") Long reportId);
+
     List<SiteReport> findByProjectIdAndReportDateBetweenOrderByReportDateDesc(
         Long projectId, LocalDateTime startDate, LocalDateTime endDate);
 
@@ -1,11 +1,13 @@
 package com.wd.custapi.repository;
 
 import com.wd.custapi.model.SiteVisit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +16,18 @@ public interface SiteVisitRepository extends JpaRepository<SiteVisit, Long> {
 
     List<SiteVisit> findByProjectIdOrderByCheckInTimeDesc(Long projectId);
 
+    /**
+     * Keyset page for the combined activity feed: visits (by check-in) strictly before
+     * ({@code beforeTs}, {@code beforeId}), newest first. Backed by idx_site_visits_feed_keyset.
+     */
+    @Query("SELECT s FROM SiteVisit s WHERE s.project.id = :projectId " +
+           "AND (s.checkInTime < :beforeTs OR (s.checkInTime = :beforeTs AND s.id < :beforeId)) " +
+           "ORDER BY s.checkInTime DESC, s.id DESC")
+    List<SiteVisit> findFeedPageBefore(@Param("projectId") Long projectId,
+                                       @Param("beforeTs") LocalDateTime beforeTs,
+                                       @Param("beforeId") Long beforeId,
+                                       Pageable pageable);
+
     List<SiteVisit> findByProjectIdAndVisitorId(Long projectId, Long visitorId);
 
     Optional<SiteVisit> findTopByProjectIdAndVisitorIdAndCheckOutTimeIsNullOrderByCheckInTimeDesc(
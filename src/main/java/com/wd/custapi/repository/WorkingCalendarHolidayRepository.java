@@ -0,0 +1,9 @@
+package com.wd.custapi.repository;
+
+import com.wd.custapi.model.WorkingCalendarHoliday;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WorkingCalendarHolidayRepository extends JpaRepository<WorkingCalendarHoliday, Long> {
+}
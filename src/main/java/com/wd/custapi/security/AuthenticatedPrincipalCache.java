@@ -0,0 +1,96 @@
+package com.wd.custapi.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Short-lived cache of authenticated principals, keyed by JWT subject (email).
+ *
+ * <p>Without it {@link JwtAuthenticationFilter} ran {@code customer_users} + the
+ * EAGER role → permissions join on every authenticated request, including each
+ * HLS segment fetch. Cached values are immutable {@link User} snapshots whose
+ * authorities were resolved once at load time; the password hash is never cached.
+ *
+ * <p>Only the JWT filter reads from here. Username/password login still goes
+ * through {@link UserDetailsService} directly so a changed password takes
+ * effect immediately. Local account changes call {@link #evict(String)};
+ * changes made by the portal (e.g. disabling an account) are bounded by the
+ * TTL ({@code app.auth.principal-cache-ttl}) or arrive as a webhook.
+ */
+@Component
+public class AuthenticatedPrincipalCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthenticatedPrincipalCache.class);
+
+    public static final String CACHE_NAME = "authPrincipals";
+
+    private final UserDetailsService userDetailsService;
+    private final Cache<Object, Object> cache;
+
+    @SuppressWarnings("unchecked")
+    public AuthenticatedPrincipalCache(UserDetailsService userDetailsService, CacheManager cacheManager) {
+        this.userDetailsService = userDetailsService;
+        org.springframework.cache.Cache springCache = cacheManager.getCache(CACHE_NAME);
+        if (springCache == null || !(springCache.getNativeCache() instanceof Cache<?, ?>)) {
+            throw new IllegalStateException("Caffeine cache '" + CACHE_NAME + "' is not configured — see CacheConfig");
+        }
+        this.cache = (Cache<Object, Object>) springCache.getNativeCache();
+    }
+
+    /**
+     * Returns the principal for a token subject, loading and snapshotting it on a miss.
+     *
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException
+     *         if no such user exists (misses are not cached)
+     */
+    public UserDetails get(String email) {
+        try {
+            return (UserDetails) cache.get(email, key -> snapshot(userDetailsService.loadUserByUsername(email)));
+        } catch (RuntimeException e) {
+            cache.invalidate(email); // see CacheConfig: drop the failed load now, not on completion
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the cached principal. Inside a transaction the eviction is deferred
+     * to after commit so a concurrent request cannot re-cache the old row.
+     */
+    public void evict(String email) {
+        if (email == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(email);
+                }
+            });
+        } else {
+            cache.invalidate(email);
+        }
+        log.debug("Evicted cached principal for {}", email);
+    }
+
+    private static UserDetails snapshot(UserDetails loaded) {
+        List<GrantedAuthority> authorities = List.copyOf(loaded.getAuthorities());
+        return User.withUsername(loaded.getUsername())
+                .password("")
+                .authorities(authorities)
+                .disabled(!loaded.isEnabled())
+                .accountExpired(!loaded.isAccountNonExpired())
+                .accountLocked(!loaded.isAccountNonLocked())
+                .credentialsExpired(!loaded.isCredentialsNonExpired())
+                .build();
+    }
+}
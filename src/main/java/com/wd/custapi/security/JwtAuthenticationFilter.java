@@ -10,12 +10,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -24,11 +24,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
 
-    private final UserDetailsService userDetailsService;
+    private final AuthenticatedPrincipalCache principalCache;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, AuthenticatedPrincipalCache principalCache) {
         this.jwtService = jwtService;
-        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -47,8 +47,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String jwt = authHeader.substring(7);
 
-        // Validate token first
-        if (!Boolean.TRUE.equals(jwtService.validateToken(jwt))) {
+        // Verify once — signature, expiry and audience; later checks reuse the result
+        Optional<VerifiedToken> verified = jwtService.verify(jwt);
+        if (verified.isEmpty()) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -58,20 +59,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Extract subject
-        String actualSubject = jwtService.extractActualSubject(jwt);
-
         // All token types currently resolve to customer-user authentication.
-        handleCustomerAuthentication(jwt, actualSubject, request);
+        handleCustomerAuthentication(verified.get(), request);
 
         filterChain.doFilter(request, response);
     }
 
-    private void handleCustomerAuthentication(String jwt, String email, HttpServletRequest request) {
+    private void handleCustomerAuthentication(VerifiedToken token, HttpServletRequest request) {
+        String email = token.actualSubject();
         try {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
+            // Cached snapshot — authorities were resolved once when the principal was loaded.
+            UserDetails userDetails = principalCache.get(email);
+            if (!userDetails.isEnabled()) {
+                log.debug("Authentication skipped: account disabled for {}", email);
+                return;
+            }
 
-            if (Boolean.TRUE.equals(jwtService.validateToken(jwt, userDetails))) {
+            if (jwtService.isTokenValidFor(token, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
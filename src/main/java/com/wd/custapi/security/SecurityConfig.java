@@ -53,14 +53,26 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(auth -> {
+                // Async dispatches (an SSE stream completing or timing out) re-enter the chain
+                // without the stateless JWT context; the request was authorized when it started.
+                auth.dispatcherTypeMatchers(jakarta.servlet.DispatcherType.ASYNC).permitAll();
                 // Allow OPTIONS requests for CORS preflight
                 auth.requestMatchers(org.springframework.http.HttpMethod.OPTIONS, "/**").permitAll();
                 // Public endpoints
                 auth.requestMatchers("/api/storage/**").authenticated();
                 auth.requestMatchers("/auth/**").permitAll();
                 auth.requestMatchers("/api/public/**").permitAll();
-                // Actuator health/info — publicly accessible; show-details is controlled by management config
+                // Webhook dead letters expose event metadata and replay — same IP allowlist as /internal/**
+                auth.requestMatchers("/actuator/webhookdeadletters/**", "/actuator/webhookdeadletters")
+                        .access(internalIpAccessManager());
+                // Throttled-user report names customers — same allowlist
+                auth.requestMatchers("/actuator/throttle/**", "/actuator/throttle")
+                        .access(internalIpAccessManager());
+                // Remaining actuator endpoints (health, info, metrics, prometheus) are served on the
+                // loopback-bound management port; show-details is controlled by management config
                 auth.requestMatchers("/actuator/**").permitAll();
+                // Liveness/readiness probes on the application port
+                auth.requestMatchers("/livez", "/readyz").permitAll();
                 // Internal webhook endpoint — restricted to allowed IPs at the filter layer (InternalIpFilter);
                 // Spring Security still requires authentication so an unauthenticated call will be rejected
                 // unless the request has already been whitelisted by the IP filter.
@@ -0,0 +1,51 @@
+package com.wd.custapi.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * A JWT whose signature has been checked, parsed once by
+ * {@link com.wd.custapi.service.JwtService#verify(String)}.
+ *
+ * <p>Everything the authentication path needs is read out of the claims up front,
+ * so callers never re-parse the token string. Instances are shared through the
+ * verified-token cache; {@link #claims()} is JJWT's immutable claims map.
+ *
+ * @param subject       raw {@code sub} claim
+ * @param actualSubject subject with any legacy {@code "CUSTOMER_"}-style prefix stripped
+ * @param tokenType     signed {@code tokenType} claim, {@link JwtConstants#DEFAULT_TOKEN_TYPE} if absent
+ * @param audience      {@code aud} claim, empty if absent
+ * @param expiresAt     {@code exp} claim
+ * @param claims        all verified claims
+ */
+public record VerifiedToken(String subject,
+                            String actualSubject,
+                            String tokenType,
+                            Set<String> audience,
+                            Instant expiresAt,
+                            Claims claims) {
+
+    public static VerifiedToken from(Claims claims) {
+        String subject = claims.getSubject();
+        String actualSubject = subject;
+        if (subject != null && subject.contains("_")) {
+            // Legacy token: subject had prefix e.g. "CUSTOMER_user@email.com"
+            actualSubject = subject.substring(subject.indexOf("_") + 1);
+        }
+        Object tokenType = claims.get(JwtConstants.CLAIM_TOKEN_TYPE);
+        Set<String> audience = claims.getAudience();
+        return new VerifiedToken(
+                subject,
+                actualSubject,
+                tokenType != null ? tokenType.toString() : JwtConstants.DEFAULT_TOKEN_TYPE,
+                audience != null ? Set.copyOf(audience) : Set.of(),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                claims);
+    }
+
+    public boolean isExpired() {
+        return expiresAt == null || expiresAt.isBefore(Instant.now());
+    }
+}
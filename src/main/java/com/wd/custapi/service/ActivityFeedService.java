@@ -3,11 +3,14 @@ package com.wd.custapi.service;
 import com.wd.custapi.dto.ProjectModuleDtos.*;
 import com.wd.custapi.model.*;
 import com.wd.custapi.repository.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -22,6 +25,12 @@ public class ActivityFeedService {
 
     private static final String DEFAULT_STAFF_NAME = "Staff";
 
+    public static final int DEFAULT_FEED_PAGE_SIZE = 50;
+    public static final int MAX_FEED_PAGE_SIZE = 200;
+
+    /** Upper bound used for the first page, when there is no cursor yet. */
+    private static final LocalDateTime FEED_START = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final ActivityFeedRepository activityFeedRepository;
     private final ActivityTypeRepository activityTypeRepository;
     private final ProjectRepository projectRepository;
@@ -31,6 +40,7 @@ public class ActivityFeedService {
     private final QualityCheckRepository qualityCheckRepository;
     private final GalleryImageRepository galleryImageRepository;
     private final SiteVisitRepository siteVisitRepository;
+    private final DashboardCache dashboardCache;
     
     public ActivityFeedService(ActivityFeedRepository activityFeedRepository,
                                ActivityTypeRepository activityTypeRepository,
@@ -40,7 +50,8 @@ public class ActivityFeedService {
                                ObservationRepository observationRepository,
                                QualityCheckRepository qualityCheckRepository,
                                GalleryImageRepository galleryImageRepository,
-                               SiteVisitRepository siteVisitRepository) {
+                               SiteVisitRepository siteVisitRepository,
+                               DashboardCache dashboardCache) {
         this.activityFeedRepository = activityFeedRepository;
         this.activityTypeRepository = activityTypeRepository;
         this.projectRepository = projectRepository;
@@ -50,6 +61,7 @@ public class ActivityFeedService {
         this.qualityCheckRepository = qualityCheckRepository;
         this.galleryImageRepository = galleryImageRepository;
         this.siteVisitRepository = siteVisitRepository;
+        this.dashboardCache = dashboardCache;
     }
     
     @Transactional
@@ -73,6 +85,7 @@ public class ActivityFeedService {
             activity.setReferenceId(referenceId);
             activity.setCreatedBy(user);
             activity = activityFeedRepository.save(activity);
+            dashboardCache.evictProject(projectId);
             return toDto(activity);
         } catch (RuntimeException ex) {
             return null;
@@ -176,6 +189,135 @@ public class ActivityFeedService {
             .toList();
     }
     
+    /**
+     * A page of the combined feed. {@code nextCursor} is passed back as
+     * {@code before} to fetch the following page; it is {@code null} on the last page.
+     */
+    public record CombinedActivityPage(
+        List<CombinedActivityItem> items,
+        String nextCursor,
+        boolean hasMore
+    ) {}
+
+    /**
+     * Feed sources, in tie-break order: items with the same timestamp and id are
+     * ordered by source so the cursor gives a total order across all five tables.
+     */
+    private enum FeedSource { SITE_REPORT, OBSERVATION, QUALITY_CHECK, GALLERY, SITE_VISIT }
+
+    /**
+     * Position in the merged feed: {@code <timestamp>,<id>[,<type>]}, where the
+     * timestamp is ISO-8601. The type is optional for hand-written cursors; without
+     * it every source resumes strictly below {@code id}.
+     */
+    record FeedCursor(LocalDateTime timestamp, long id, FeedSource source) {
+
+        static FeedCursor parse(String value) {
+            String[] parts = value.split(",");
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Invalid feed cursor: " + value);
+            }
+            try {
+                FeedSource source = parts.length == 3 ? FeedSource.valueOf(parts[2].trim().toUpperCase()) : null;
+                return new FeedCursor(LocalDateTime.parse(parts[0].trim()), Long.parseLong(parts[1].trim()), source);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid feed cursor: " + value, e);
+            }
+        }
+
+        static FeedCursor of(CombinedActivityItem item) {
+            return new FeedCursor(item.timestamp(), item.id(), FeedSource.valueOf(item.type()));
+        }
+
+        /**
+         * Exclusive id bound for {@code source} at this cursor's timestamp. Sources
+         * that sort after the cursor's own source may still return the same id.
+         */
+        long idBoundFor(FeedSource other) {
+            boolean sortsAfter = source != null && other.ordinal() > source.ordinal();
+            return sortsAfter ? id + 1 : id;
+        }
+
+        String format() {
+            return timestamp + "," + id + "," + source.name();
+        }
+    }
+
+    /** Newest first; ties broken by id, then source — the order the keyset queries return. */
+    private static final Comparator<CombinedActivityItem> FEED_ORDER =
+        Comparator.comparing(CombinedActivityItem::timestamp)
+            .thenComparing(CombinedActivityItem::id)
+            .reversed()
+            .thenComparing(item -> FeedSource.valueOf(item.type()));
+
+    /**
+     * Cursor-paged combined feed. Each selected source is read with an indexed
+     * keyset query for at most {@code limit + 1} rows, and the sorted runs are
+     * k-way merged — work is proportional to the page size, not the project's
+     * history. A specific {@code type} queries only that source; an unknown type
+     * yields an empty page, matching {@link #getCombinedActivityFeedByType}.
+     *
+     * @param before cursor from a previous page's {@code nextCursor}, or {@code null}
+     * @throws IllegalArgumentException if {@code before} is malformed
+     */
+    public CombinedActivityPage getCombinedActivityPage(Long projectId, String type, String before, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        FeedCursor cursor = before == null || before.isBlank() ? null : FeedCursor.parse(before);
+
+        List<FeedSource> sources;
+        if (type == null || type.isEmpty() || type.equalsIgnoreCase("ALL")) {
+            sources = List.of(FeedSource.values());
+        } else {
+            sources = Arrays.stream(FeedSource.values())
+                .filter(source -> source.name().equalsIgnoreCase(type))
+                .toList();
+        }
+
+        Pageable window = PageRequest.of(0, pageSize + 1);
+        List<Iterator<CombinedActivityItem>> runs = new ArrayList<>(sources.size());
+        for (FeedSource source : sources) {
+            LocalDateTime beforeTs = cursor != null ? cursor.timestamp() : FEED_START;
+            long beforeId = cursor != null ? cursor.idBoundFor(source) : Long.MAX_VALUE;
+            runs.add(loadFeedRun(source, projectId, beforeTs, beforeId, window).iterator());
+        }
+
+        PriorityQueue<Map.Entry<CombinedActivityItem, Iterator<CombinedActivityItem>>> heads =
+            new PriorityQueue<>(Math.max(1, runs.size()), Map.Entry.comparingByKey(FEED_ORDER));
+        for (Iterator<CombinedActivityItem> run : runs) {
+            if (run.hasNext()) {
+                heads.add(Map.entry(run.next(), run));
+            }
+        }
+        List<CombinedActivityItem> page = new ArrayList<>(pageSize);
+        while (page.size() < pageSize && !heads.isEmpty()) {
+            Map.Entry<CombinedActivityItem, Iterator<CombinedActivityItem>> head = heads.poll();
+            page.add(head.getKey());
+            if (head.getValue().hasNext()) {
+                heads.add(Map.entry(head.getValue().next(), head.getValue()));
+            }
+        }
+
+        boolean hasMore = !heads.isEmpty();
+        String nextCursor = hasMore ? FeedCursor.of(page.get(page.size() - 1)).format() : null;
+        return new CombinedActivityPage(page, nextCursor, hasMore);
+    }
+
+    private List<CombinedActivityItem> loadFeedRun(FeedSource source, Long projectId,
+                                                   LocalDateTime beforeTs, long beforeId, Pageable window) {
+        return switch (source) {
+            case SITE_REPORT -> siteReportRepository.findFeedPageBefore(projectId, beforeTs, beforeId, window)
+                .stream().map(this::toActivityItem).toList();
+            case OBSERVATION -> observationRepository.findFeedPageBefore(projectId, beforeTs, beforeId, window)
+                .stream().map(this::toActivityItem).toList();
+            case QUALITY_CHECK -> qualityCheckRepository.findFeedPageBefore(projectId, beforeTs, beforeId, window)
+                .stream().map(this::toActivityItem).toList();
+            case GALLERY -> galleryImageRepository.findFeedPageBefore(projectId, beforeTs, beforeId, window)
+                .stream().map(this::toActivityItem).toList();
+            case SITE_VISIT -> siteVisitRepository.findFeedPageBefore(projectId, beforeTs, beforeId, window)
+                .stream().map(this::toActivityItem).toList();
+        };
+    }
+
     /**
      * Get combined activity feed grouped by date.
      */
@@ -217,7 +359,7 @@ public class ActivityFeedService {
         }
     }
 
-    private CombinedActivityItem toActivityItem(SiteReport report) {
+    CombinedActivityItem toActivityItem(SiteReport report) {
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("reportType", report.getReportType());
         metadata.put("status", report.getStatus());
@@ -248,7 +390,7 @@ public class ActivityFeedService {
         );
     }
     
-    private CombinedActivityItem toActivityItem(Observation obs) {
+    CombinedActivityItem toActivityItem(Observation obs) {
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("priority", obs.getPriority() != null ? obs.getPriority().name() : null);
         metadata.put("location", obs.getLocation());
@@ -271,7 +413,7 @@ public class ActivityFeedService {
         );
     }
     
-    private CombinedActivityItem toActivityItem(QualityCheck qc) {
+    CombinedActivityItem toActivityItem(QualityCheck qc) {
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("priority", qc.getPriority() != null ? qc.getPriority().name() : null);
         metadata.put("sopReference", qc.getSopReference());
@@ -294,7 +436,7 @@ public class ActivityFeedService {
         );
     }
     
-    private CombinedActivityItem toActivityItem(GalleryImage img) {
+    CombinedActivityItem toActivityItem(GalleryImage img) {
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("imagePath", img.getImagePath());
         metadata.put("locationTag", img.getLocationTag());
@@ -317,7 +459,7 @@ public class ActivityFeedService {
         );
     }
     
-    private CombinedActivityItem toActivityItem(SiteVisit visit) {
+    CombinedActivityItem toActivityItem(SiteVisit visit) {
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("purpose", visit.getPurpose());
         metadata.put("location", visit.getLocation());
@@ -13,6 +13,7 @@ import com.wd.custapi.repository.EmailVerificationTokenRepository;
 import com.wd.custapi.repository.PasswordResetTokenRepository;
 import com.wd.custapi.repository.RefreshTokenRepository;
 import com.wd.custapi.repository.RoleRepository;
+import com.wd.custapi.security.AuthenticatedPrincipalCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -60,6 +61,10 @@ public class AuthService {
 
     private final EmailService emailService;
 
+    private final AuthenticatedPrincipalCache principalCache;
+
+    private final DeviceTokenService deviceTokenService;
+
     @Value("${app.customer-portal-base-url:https://cust.walldotbuilders.com}")
     private String customerPortalBaseUrl;
 
@@ -76,7 +81,9 @@ public class AuthService {
                        PasswordResetTokenRepository passwordResetTokenRepository,
                        EmailVerificationTokenRepository emailVerificationTokenRepository,
                        PasswordEncoder passwordEncoder,
-                       EmailService emailService) {
+                       EmailService emailService,
+                       AuthenticatedPrincipalCache principalCache,
+                       DeviceTokenService deviceTokenService) {
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.customerUserRepository = customerUserRepository;
@@ -86,6 +93,8 @@ public class AuthService {
         this.emailVerificationTokenRepository = emailVerificationTokenRepository;
         this.passwordEncoder = passwordEncoder;
         this.emailService = emailService;
+        this.principalCache = principalCache;
+        this.deviceTokenService = deviceTokenService;
     }
 
     public LoginResponse login(LoginRequest loginRequest) {
@@ -193,6 +202,7 @@ public class AuthService {
         }
 
         customerUserRepository.save(user);
+        principalCache.evict(email);
         log.info("Profile updated for user: {}", email);
 
         return buildUserInfo(user);
@@ -222,13 +232,15 @@ public class AuthService {
 
         // Revoke all refresh tokens so user must re-authenticate on other devices
         refreshTokenRepository.deleteByUser_Id(user.getId());
+        principalCache.evict(email);
 
         log.info("Password changed for user: {}", email);
     }
 
     /**
      * Register or update a device FCM token for push notifications.
-     * One token per user — overwrites previous token on new device login.
+     * Each of the user's devices is kept in {@code customer_device_tokens};
+     * {@code customer_users.fcm_token} still holds the latest one for the portal API.
      */
     @Transactional
     public void registerFcmToken(String email, String fcmToken) {
@@ -239,6 +251,7 @@ public class AuthService {
                 .orElseThrow(() -> new CustomerApiException(CUSTOMER_USER_NOT_FOUND));
         user.setFcmToken(fcmToken);
         customerUserRepository.save(user);
+        deviceTokenService.register(user, fcmToken);
         log.info("FCM token registered for user: {}", email);
     }
 
@@ -417,6 +430,7 @@ public class AuthService {
 
         // Revoke existing sessions after password reset.
         refreshTokenRepository.deleteByUser_Id(user.getId());
+        principalCache.evict(normalizedEmail);
 
         log.info("Password reset successful.");
     }
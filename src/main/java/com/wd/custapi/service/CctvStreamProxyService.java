@@ -1,9 +1,24 @@
 package com.wd.custapi.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.wd.custapi.exception.CustomerApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -11,6 +26,14 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Server-side HLS reverse-proxy for customer CCTV playback.
@@ -28,18 +51,88 @@ import java.util.Base64;
  *
  * <p>RTSP and other non-HTTP cameras cannot be proxied here (browsers can't play
  * RTSP); those need a transcoder and are handled as 501 by the controller.
+ *
+ * <p>Segments go through {@link #relaySegment}: concurrent viewers of one camera
+ * share a single upstream fetch, and the bytes are kept for a few seconds
+ * ({@code app.cctv.segment-cache-ttl}) so staggered players hit memory instead of
+ * the camera. Bodies too large to share are streamed through without buffering.
+ *
+ * <p>Rewritten playlists are cached per camera by {@link #manifest}: live
+ * playlists for half their {@code EXT-X-TARGETDURATION}, so every viewer polling
+ * within that window is served from one upstream poll; VOD playlists
+ * ({@code EXT-X-ENDLIST}) for {@code app.cctv.vod-manifest-ttl}. Hit/miss counts,
+ * the hit ratio and upstream latency are published per camera under
+ * {@code cctv.manifest.*}.
  */
 @Service
 public class CctvStreamProxyService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CctvStreamProxyService.class);
+
     /** Relative path of the segment-proxy endpoint, as referenced from /stream.m3u8. */
     static final String SEGMENT_ENDPOINT = "segment";
 
+    private static final Duration UPSTREAM_TIMEOUT = Duration.ofSeconds(15);
+
+    /** Floor for live-playlist caching — also used when no target duration is declared. */
+    static final Duration MIN_LIVE_MANIFEST_TTL = Duration.ofSeconds(1);
+
+    private static final Pattern TARGET_DURATION = Pattern.compile("#EXT-X-TARGETDURATION:\\s*(\\d+)");
+
+    /** Upstream polls and the HttpClient's own async work run on virtual threads. */
+    private final Executor upstreamIo =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cctv-upstream-", 0).factory());
+
     private final HttpClient http = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(8))
             .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(upstreamIo)
             .build();
 
+    /** Cache key — scoped per camera so one camera's credentials never answer for another. */
+    private record UpstreamKey(Long cameraId, String url) {}
+
+    /** A cached playlist: rewritten body (or upstream error status) and how long it stays fresh. */
+    private record ManifestEntry(int status, byte[] body, Duration ttl) {}
+
+    private final Cache<UpstreamKey, UpstreamResponse> segmentCache;
+    private final ConcurrentMap<UpstreamKey, CompletableFuture<UpstreamResponse>> inFlight = new ConcurrentHashMap<>();
+    private final int maxSharedSegmentBytes;
+
+    private final Cache<UpstreamKey, ManifestEntry> manifestCache;
+    private final Duration vodManifestTtl;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Long, ManifestMeters> manifestMeters = new ConcurrentHashMap<>();
+
+    public CctvStreamProxyService() {
+        this(Duration.ofSeconds(30), 64L * 1024 * 1024, 8 * 1024 * 1024, Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public CctvStreamProxyService(
+            @Value("${app.cctv.segment-cache-ttl:PT30S}") Duration segmentCacheTtl,
+            @Value("${app.cctv.segment-cache-max-bytes:67108864}") long segmentCacheMaxBytes,
+            @Value("${app.cctv.max-shared-segment-bytes:8388608}") int maxSharedSegmentBytes,
+            @Value("${app.cctv.vod-manifest-ttl:PT1H}") Duration vodManifestTtl,
+            MeterRegistry meterRegistry) {
+        this.segmentCache = Caffeine.newBuilder()
+                .expireAfterWrite(segmentCacheTtl)
+                .maximumWeight(segmentCacheMaxBytes)
+                .weigher((UpstreamKey k, UpstreamResponse v) -> v.body().length)
+                .build();
+        this.maxSharedSegmentBytes = maxSharedSegmentBytes;
+        // Async so a miss polls the camera on a virtual thread rather than inside the
+        // cache's map lock, where it would pin the caller's carrier thread
+        this.manifestCache = Caffeine.newBuilder()
+                .maximumSize(2_000)
+                .expireAfter(Expiry.creating((UpstreamKey k, ManifestEntry v) -> v.ttl()))
+                .executor(upstreamIo)
+                .<UpstreamKey, ManifestEntry>buildAsync()
+                .synchronous();
+        this.vodManifestTtl = vodManifestTtl;
+        this.meterRegistry = meterRegistry;
+    }
+
     // ── Manifest rewriting ──────────────────────────────────────────────────
 
     /**
@@ -167,7 +260,7 @@ public class CctvStreamProxyService {
      */
     public UpstreamResponse fetch(URI url, String authHeader) {
         HttpRequest.Builder req = HttpRequest.newBuilder(url)
-                .timeout(Duration.ofSeconds(15))
+                .timeout(UPSTREAM_TIMEOUT)
                 .GET();
         if (authHeader != null) {
             req.header("Authorization", authHeader);
@@ -184,6 +277,243 @@ public class CctvStreamProxyService {
         }
     }
 
+    /**
+     * Upstream body handed to the controller: the first bytes already read
+     * ({@code head}) plus, for bodies too large to share, the still-open
+     * {@code remainder}. Must be closed if it is not written out.
+     */
+    public record RelayedResponse(int status, String contentType, long contentLength,
+                                  byte[] head, InputStream remainder) implements Closeable {
+
+        /** {@code true} when {@link #head} is the complete body. */
+        public boolean isBuffered() {
+            return remainder == null;
+        }
+
+        /** Writes the body to {@code out}, piping any remainder straight from upstream. */
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(head);
+            if (remainder != null) {
+                try (InputStream in = remainder) {
+                    in.transferTo(out);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (remainder != null) {
+                remainder.close();
+            }
+        }
+
+        static RelayedResponse of(UpstreamResponse r) {
+            return new RelayedResponse(r.status(), r.contentType(), r.body().length, r.body(), null);
+        }
+    }
+
+    /**
+     * Fetches a segment for a camera, sharing work between viewers: a cached copy is
+     * returned if present, concurrent misses for the same (camera, URL) wait for a
+     * single upstream fetch, and complete 200 responses up to
+     * {@code app.cctv.max-shared-segment-bytes} are cached. Larger or non-200 bodies
+     * are not shared — the caller streams them and waiters fetch their own.
+     */
+    public RelayedResponse relaySegment(Long cameraId, URI url, String authHeader) {
+        UpstreamKey key = new UpstreamKey(cameraId, url.toString());
+        UpstreamResponse cached = segmentCache.getIfPresent(key);
+        if (cached != null) {
+            return RelayedResponse.of(cached);
+        }
+
+        CompletableFuture<UpstreamResponse> mine = new CompletableFuture<>();
+        CompletableFuture<UpstreamResponse> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            UpstreamResponse shared = awaitShared(leader);
+            return shared != null ? RelayedResponse.of(shared) : open(url, authHeader);
+        }
+
+        UpstreamResponse shareable = null;
+        try {
+            RelayedResponse response = open(url, authHeader);
+            if (response.status() == 200 && response.isBuffered()) {
+                shareable = new UpstreamResponse(200, response.contentType(), response.head());
+                if (!isHlsManifest(response.contentType(), response.head())) {
+                    // Playlists are cached rewritten, with their own TTL (see rememberManifest)
+                    segmentCache.put(key, shareable);
+                }
+            }
+            return response;
+        } finally {
+            mine.complete(shareable);
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static UpstreamResponse awaitShared(CompletableFuture<UpstreamResponse> leader) {
+        try {
+            return leader.get(UPSTREAM_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null; // leader timed out — fetch independently
+        }
+    }
+
+    /**
+     * Opens an upstream URL and reads up to {@code maxSharedSegmentBytes + 1}
+     * bytes. If the body fits it is returned buffered and the connection released;
+     * otherwise the prefix and the open stream are returned so the caller can
+     * pipe the rest without holding it on the heap.
+     */
+    private RelayedResponse open(URI url, String authHeader) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(url)
+                .timeout(UPSTREAM_TIMEOUT)
+                .GET();
+        if (authHeader != null) {
+            req.header("Authorization", authHeader);
+        }
+        InputStream body = null;
+        try {
+            HttpResponse<InputStream> resp = http.send(req.build(), HttpResponse.BodyHandlers.ofInputStream());
+            body = resp.body();
+            String ct = resp.headers().firstValue("content-type").orElse("application/octet-stream");
+            long length = resp.headers().firstValueAsLong("content-length").orElse(-1L);
+            byte[] head = body.readNBytes(maxSharedSegmentBytes + 1);
+            if (head.length <= maxSharedSegmentBytes) {
+                body.close();
+                return new RelayedResponse(resp.statusCode(), ct, head.length, head, null);
+            }
+            logger.debug("Streaming unshared CCTV body ({} bytes+) from {}", head.length, url.getPath());
+            return new RelayedResponse(resp.statusCode(), ct, length, head, body);
+        } catch (IOException e) {
+            closeQuietly(body);
+            throw new CustomerApiException("Upstream CCTV fetch failed: " + url, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closeQuietly(body);
+            throw new CustomerApiException("Upstream CCTV fetch interrupted: " + url, e);
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in == null) return;
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // connection is being discarded anyway
+        }
+    }
+
+    // ── Manifest cache ──────────────────────────────────────────────────────
+
+    /** A rewritten playlist ready to serve ({@code body} is {@code null} when {@code status >= 400}). */
+    public record ProxiedManifest(int status, byte[] body) {}
+
+    /**
+     * Returns the camera's playlist at {@code url}, rewritten for the proxy.
+     * Concurrent misses wait on a single upstream poll; upstream errors are
+     * passed through but never cached.
+     */
+    public ProxiedManifest manifest(Long cameraId, URI url, String authHeader) {
+        ManifestMeters meters = metersFor(cameraId);
+        boolean[] loaded = {false};
+        UpstreamKey upstreamKey = new UpstreamKey(cameraId, url.toString());
+        ManifestEntry entry;
+        try {
+            entry = manifestCache.get(upstreamKey, key -> {
+                loaded[0] = true;
+                UpstreamResponse up = meters.upstream().record(() -> fetch(url, authHeader));
+                if (up.status() >= 400) {
+                    return new ManifestEntry(up.status(), null, Duration.ZERO);
+                }
+                String playlist = new String(up.body(), StandardCharsets.UTF_8);
+                return new ManifestEntry(up.status(),
+                        rewriteHlsManifest(playlist, url).getBytes(StandardCharsets.UTF_8), manifestTtl(playlist));
+            });
+        } catch (RuntimeException e) {
+            manifestCache.invalidate(upstreamKey); // the async cache would only drop it on completion
+            throw e;
+        }
+        (loaded[0] ? meters.misses() : meters.hits()).increment();
+        return new ProxiedManifest(entry.status(), entry.body());
+    }
+
+    /**
+     * Cached rewritten playlist for a nested (variant) playlist requested through
+     * the segment endpoint, or {@code null} if it has to be fetched.
+     */
+    public byte[] cachedManifest(Long cameraId, URI url) {
+        ManifestEntry entry = manifestCache.getIfPresent(new UpstreamKey(cameraId, url.toString()));
+        if (entry == null || entry.body() == null) {
+            return null;
+        }
+        metersFor(cameraId).hits().increment();
+        return entry.body();
+    }
+
+    /** Rewrites a freshly fetched nested playlist and caches it for {@link #cachedManifest}. */
+    public byte[] rememberManifest(Long cameraId, URI url, byte[] playlistBytes) {
+        String playlist = new String(playlistBytes, StandardCharsets.UTF_8);
+        byte[] rewritten = rewriteHlsManifest(playlist, url).getBytes(StandardCharsets.UTF_8);
+        manifestCache.put(new UpstreamKey(cameraId, url.toString()),
+                new ManifestEntry(200, rewritten, manifestTtl(playlist)));
+        metersFor(cameraId).misses().increment();
+        return rewritten;
+    }
+
+    /**
+     * How long a playlist may be served from cache. VOD ({@code EXT-X-ENDLIST})
+     * never changes; a live playlist is refreshed after half its target duration,
+     * the same cadence RFC 8216 asks of a client that saw no change, so a viewer
+     * is never more than one segment behind the camera.
+     */
+    Duration manifestTtl(String playlist) {
+        if (playlist.contains("#EXT-X-ENDLIST")) {
+            return vodManifestTtl;
+        }
+        Matcher m = TARGET_DURATION.matcher(playlist);
+        if (!m.find()) {
+            return MIN_LIVE_MANIFEST_TTL;
+        }
+        try {
+            Duration half = Duration.ofSeconds(Long.parseLong(m.group(1))).dividedBy(2);
+            return half.compareTo(MIN_LIVE_MANIFEST_TTL) < 0 ? MIN_LIVE_MANIFEST_TTL : half;
+        } catch (NumberFormatException e) {
+            return MIN_LIVE_MANIFEST_TTL;
+        }
+    }
+
+    /** Per-camera manifest meters, registered on first use. */
+    private record ManifestMeters(Counter hits, Counter misses, Timer upstream) {}
+
+    private ManifestMeters metersFor(Long cameraId) {
+        return manifestMeters.computeIfAbsent(cameraId, id -> {
+            String camera = String.valueOf(id);
+            Counter hits = Counter.builder("cctv.manifest.requests")
+                    .description("Proxied HLS playlist requests")
+                    .tag("camera", camera).tag("result", "hit")
+                    .register(meterRegistry);
+            Counter misses = Counter.builder("cctv.manifest.requests")
+                    .description("Proxied HLS playlist requests")
+                    .tag("camera", camera).tag("result", "miss")
+                    .register(meterRegistry);
+            Gauge.builder("cctv.manifest.hit.ratio", () -> {
+                        double total = hits.count() + misses.count();
+                        return total == 0 ? 0 : hits.count() / total;
+                    })
+                    .description("Share of playlist requests served without an upstream poll")
+                    .tag("camera", camera)
+                    .register(meterRegistry);
+            Timer upstream = Timer.builder("cctv.manifest.upstream")
+                    .description("Upstream camera playlist fetch latency")
+                    .tag("camera", camera)
+                    .register(meterRegistry);
+            return new ManifestMeters(hits, misses, upstream);
+        });
+    }
+
     /** Heuristic: does this content look like an HLS manifest (so it needs rewriting)? */
     public boolean isHlsManifest(String contentType, byte[] body) {
         if (contentType != null
@@ -0,0 +1,223 @@
+package com.wd.custapi.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Carries change signals from the write paths ({@link NotificationFanoutService},
+ * {@link NotificationTriggerService}, {@link WebhookIngestionService}) to the
+ * {@link CustomerEventStream} of every node.
+ *
+ * <p>With {@code app.stream.cross-node=true} (the default) a signal is sent with
+ * {@code pg_notify} inside the caller's transaction: PostgreSQL delivers it at
+ * commit, to every node, and never for a rolled-back write. The NOTIFY runs in a
+ * savepoint: when it fails (notify queue full), PostgreSQL would otherwise abort
+ * the caller's transaction, and the write it signals with it. Each node listens
+ * on a dedicated connection outside the Hikari pool — a LISTEN session lives
+ * forever, which the pool's max-lifetime and leak detection would fight. After
+ * the listener reconnects, local streams are told to resync.
+ *
+ * <p>With {@code cross-node=false} (single node, tests) signals go to the local
+ * stream after commit.
+ */
+@Component
+public class CustomerEventBus implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerEventBus.class);
+
+    static final String CHANNEL = "customer_events";
+    /** Keeps a NOTIFY payload well under PostgreSQL's 8000-byte limit. */
+    static final int MAX_USER_IDS_PER_SIGNAL = 400;
+    private static final int POLL_TIMEOUT_MS = 10_000;
+    private static final long RECONNECT_DELAY_MS = 5_000;
+
+    /** New notifications for {@code userIds}, or a change to {@code projectId}. */
+    public record Signal(Set<Long> userIds, Long projectId, String eventType) {
+        public Signal {
+            userIds = userIds == null ? Set.of() : Set.copyOf(userIds);
+        }
+
+        public static Signal notifications(Collection<Long> userIds) {
+            return new Signal(Set.copyOf(userIds), null, null);
+        }
+
+        public static Signal projectChanged(Long projectId, String eventType) {
+            return new Signal(Set.of(), projectId, eventType);
+        }
+
+        @JsonIgnore
+        public boolean isNotification() {
+            return !userIds.isEmpty();
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final CustomerEventStream stream;
+    private final ObjectMapper objectMapper;
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean crossNode;
+
+    private volatile boolean running;
+    private volatile Thread listener;
+
+    public CustomerEventBus(JdbcTemplate jdbc,
+                            CustomerEventStream stream,
+                            ObjectMapper objectMapper,
+                            DataSourceProperties dataSourceProperties,
+                            @Value("${app.stream.cross-node:true}") boolean crossNode) {
+        this.jdbc = jdbc;
+        this.stream = stream;
+        this.objectMapper = objectMapper;
+        this.dataSourceProperties = dataSourceProperties;
+        this.crossNode = crossNode;
+    }
+
+    /** Signals that {@code userIds} have new notifications once the current transaction commits. */
+    public void notificationsAdded(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return;
+        List<Long> ids = new ArrayList<>(Set.copyOf(userIds));
+        for (int from = 0; from < ids.size(); from += MAX_USER_IDS_PER_SIGNAL) {
+            publish(Signal.notifications(ids.subList(from, Math.min(from + MAX_USER_IDS_PER_SIGNAL, ids.size()))));
+        }
+    }
+
+    /** Signals a change to a project once the current transaction commits. */
+    public void projectChanged(Long projectId, String eventType) {
+        if (projectId == null) return;
+        publish(Signal.projectChanged(projectId, eventType));
+    }
+
+    /**
+     * Never throws, and never fails the caller's transaction: a lost signal only
+     * delays the update until the next one or a reconnect.
+     */
+    void publish(Signal signal) {
+        try {
+            if (crossNode) {
+                notifyInSavepoint(objectMapper.writeValueAsString(signal));
+            } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        stream.deliver(signal);
+                    }
+                });
+            } else {
+                stream.deliver(signal);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Could not publish stream signal {}: {}", signal, e.getMessage());
+        }
+    }
+
+    /**
+     * Sends the NOTIFY on the caller's transactional connection, if any, inside
+     * a savepoint that is rolled back when the NOTIFY fails.
+     */
+    private void notifyInSavepoint(String payload) {
+        jdbc.execute((ConnectionCallback<Void>) conn -> {
+            Savepoint savepoint = conn.getAutoCommit() ? null : conn.setSavepoint();
+            try (PreparedStatement ps = conn.prepareStatement("SELECT pg_notify(?, ?)")) {
+                ps.setString(1, CHANNEL);
+                ps.setString(2, payload);
+                ps.execute();
+            } catch (SQLException e) {
+                if (savepoint != null) conn.rollback(savepoint);
+                throw e;
+            }
+            if (savepoint != null) conn.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+
+    // ── Listener (cross-node) ────────────────────────────────────────────────
+
+    @Override
+    public void start() {
+        if (!crossNode) return;
+        running = true;
+        listener = Thread.ofPlatform().name("customer-events-listener").daemon().start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = listener;
+        if (t != null) t.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnect) stream.resyncAll();
+                log.info("Listening for customer event signals on channel {}", CHANNEL);
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null || notifications.length == 0) {
+                        // Idle: a round trip keeps the session from being closed as idle
+                        try (Statement st = conn.createStatement()) {
+                            st.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification n : notifications) {
+                        dispatch(n.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Customer event listener lost its connection, reconnecting: {}", e.getMessage());
+                reconnect = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        try {
+            stream.deliver(objectMapper.readValue(payload, Signal.class));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Dropping malformed stream signal '{}': {}", payload, e.getMessage());
+        }
+    }
+}
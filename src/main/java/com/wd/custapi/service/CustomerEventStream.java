@@ -0,0 +1,434 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.dto.CustomerNotificationDto;
+import com.wd.custapi.dto.PortalEventType;
+import com.wd.custapi.model.CustomerNotification;
+import com.wd.custapi.repository.CustomerNotificationRepository;
+import com.wd.custapi.service.CustomerEventBus.Signal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Server-Sent Events channel of the customer app ({@code GET /api/notifications/stream}).
+ *
+ * <p>Events:
+ * <ul>
+ *   <li>{@code notification} — a new {@code customer_notifications} row, as
+ *       {@link CustomerNotificationDto}. The event id is the notification id.</li>
+ *   <li>{@code project} — something changed on a project the user can open
+ *       ({@code {projectId, eventType}}); the app refreshes that project's screens.</li>
+ *   <li>{@code resync} — signals may have been missed (resume past the replay
+ *       limit, a reconnect of the cross-node listener); refresh everything once.</li>
+ *   <li>{@code ready} on connect, and a comment line every {@code heartbeat-interval-ms}.</li>
+ * </ul>
+ * Every event carries the newest notification id delivered on the connection,
+ * so a client reconnecting with {@code Last-Event-ID} is replayed the
+ * notifications it missed (up to {@code replay-limit}) from the table.
+ *
+ * <p>Connections are servlet async requests: an idle client holds no Tomcat
+ * thread. Signals from {@link CustomerEventBus} are queued per connection in a
+ * buffer of {@code buffer-size} events and written by a virtual thread, one at
+ * a time per connection, so a slow client never blocks the publisher; a client
+ * whose buffer overflows is disconnected and resumes via {@code Last-Event-ID}.
+ * A user keeps at most {@code max-connections-per-user} streams (the oldest is
+ * closed), a node at most {@code max-connections}.
+ *
+ * <p>Project signals arrive on the single listener thread of
+ * {@link CustomerEventBus}, so they must not query. A connection's project ids
+ * are resolved when it opens and indexed by project id; a project signal is an
+ * index lookup. A membership change re-resolves every connected user, one at a
+ * time on a writer thread, before the signal is delivered.
+ *
+ * <p>A notification signal for many users wakes one writer per connection, and
+ * each writer queries for its user's new rows. At most
+ * {@code max-concurrent-fetches} of those queries run at once, so a
+ * project-wide fan-out queues writers instead of draining the connection pool.
+ *
+ * <p>Metrics: gauge {@code notification.stream.connections} and
+ * {@code notification.stream.disconnects} (reason = overflow / replaced /
+ * error / expired).
+ */
+@Component
+public class CustomerEventStream {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerEventStream.class);
+
+    private final CustomerNotificationRepository notificationRepository;
+    private final ProjectAccessService projectAccessService;
+    private final int maxConnections;
+    private final int maxConnectionsPerUser;
+    private final int bufferSize;
+    private final int replayLimit;
+    private final Duration maxConnectionAge;
+    private final Executor writers;
+    /** Notification queries of writers in flight; bounded below the pool size. */
+    private final Semaphore fetchPermits;
+
+    private final Map<Long, ConcurrentLinkedDeque<Connection>> byUser = new ConcurrentHashMap<>();
+    /** Open connections by the project ids of their user; admins are in {@link #admins} instead. */
+    private final Map<Long, Set<Connection>> byProject = new ConcurrentHashMap<>();
+    private final Set<Connection> admins = ConcurrentHashMap.newKeySet();
+    /** One membership re-resolve at a time; it runs one query per user. */
+    private final ReentrantLock reindexLock = new ReentrantLock();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public CustomerEventStream(CustomerNotificationRepository notificationRepository,
+                               ProjectAccessService projectAccessService,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.stream.max-connections:5000}") int maxConnections,
+                               @Value("${app.stream.max-connections-per-user:3}") int maxConnectionsPerUser,
+                               @Value("${app.stream.buffer-size:64}") int bufferSize,
+                               @Value("${app.stream.replay-limit:50}") int replayLimit,
+                               @Value("${app.stream.max-connection-age:PT30M}") Duration maxConnectionAge,
+                               @Value("${app.stream.max-concurrent-fetches:4}") int maxConcurrentFetches) {
+        this(notificationRepository, projectAccessService, meterRegistry, maxConnections, maxConnectionsPerUser,
+                bufferSize, replayLimit, maxConnectionAge, maxConcurrentFetches,
+                Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    CustomerEventStream(CustomerNotificationRepository notificationRepository,
+                        ProjectAccessService projectAccessService,
+                        MeterRegistry meterRegistry,
+                        int maxConnections,
+                        int maxConnectionsPerUser,
+                        int bufferSize,
+                        int replayLimit,
+                        Duration maxConnectionAge,
+                        int maxConcurrentFetches,
+                        Executor writers) {
+        this.writers = writers;
+        this.fetchPermits = new Semaphore(maxConcurrentFetches);
+        this.notificationRepository = notificationRepository;
+        this.projectAccessService = projectAccessService;
+        this.meterRegistry = meterRegistry;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.bufferSize = bufferSize;
+        this.replayLimit = replayLimit;
+        this.maxConnectionAge = maxConnectionAge;
+        Gauge.builder("notification.stream.connections", connectionCount, AtomicInteger::get)
+                .description("Open customer event streams on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for a user. With a numeric {@code lastEventId} the
+     * notifications after it are replayed first.
+     *
+     * @return the emitter, or {@code null} if this node is at {@code max-connections}
+     */
+    public SseEmitter connect(Long userId, String email, String lastEventId) {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            return null;
+        }
+
+        Connection c;
+        try {
+            Long resumeFrom = parseEventId(lastEventId);
+            long watermark = resumeFrom != null ? resumeFrom : latestNotificationId(userId);
+            c = new Connection(userId, email, newEmitter(maxConnectionAge.toMillis()), watermark, resumeFrom != null);
+            index(c, projectAccessService.isAdmin(email), projectAccessService.memberProjectIds(email));
+        } catch (RuntimeException e) {
+            connectionCount.decrementAndGet();
+            throw e;
+        }
+        c.emitter.onCompletion(() -> remove(c));
+        c.emitter.onTimeout(() -> close(c, "expired"));
+        c.emitter.onError(e -> close(c, "error"));
+
+        ConcurrentLinkedDeque<Connection> mine = byUser.computeIfAbsent(userId, k -> new ConcurrentLinkedDeque<>());
+        mine.addLast(c);
+        while (mine.size() > maxConnectionsPerUser) {
+            Connection oldest = mine.peekFirst();
+            if (oldest == null || oldest == c) break;
+            close(oldest, "replaced");
+        }
+
+        c.offer(Ready.INSTANCE);
+        if (c.resumed) c.offerNotifications();
+        return c.emitter;
+    }
+
+    /** Queues a signal for every matching connection on this node. */
+    public void deliver(Signal signal) {
+        if (signal.isNotification()) {
+            for (Long userId : signal.userIds()) {
+                ConcurrentLinkedDeque<Connection> mine = byUser.get(userId);
+                if (mine != null) mine.forEach(Connection::offerNotifications);
+            }
+        } else if (signal.projectId() != null) {
+            ProjectChanged event = new ProjectChanged(signal.projectId(), signal.eventType());
+            if (PortalEventType.PROJECT_MEMBERSHIP_CHANGED.name().equals(signal.eventType())) {
+                writers.execute(() -> {
+                    reindexAll(signal.projectId());
+                    offerProjectChanged(event);
+                });
+            } else {
+                offerProjectChanged(event);
+            }
+        }
+    }
+
+    private void offerProjectChanged(ProjectChanged event) {
+        byProject.getOrDefault(event.projectId(), Set.of()).forEach(c -> c.offer(event));
+        admins.forEach(c -> c.offer(event));
+    }
+
+    /**
+     * Re-resolves the project ids of every connected user after a membership
+     * change of {@code projectId}. The grants may have been cached on this node
+     * before the change, so they are dropped first.
+     */
+    private void reindexAll(Long projectId) {
+        reindexLock.lock();
+        try {
+            projectAccessService.evictMembership(projectId);
+            for (ConcurrentLinkedDeque<Connection> mine : byUser.values()) {
+                Connection first = mine.peekFirst();
+                if (first == null) continue;
+                try {
+                    boolean admin = projectAccessService.isAdmin(first.email);
+                    Set<Long> projectIds = projectAccessService.memberProjectIds(first.email);
+                    mine.forEach(c -> index(c, admin, projectIds));
+                } catch (RuntimeException e) {
+                    log.warn("Could not refresh stream projects of user {}: {}", first.userId, e.getMessage());
+                }
+            }
+        } finally {
+            reindexLock.unlock();
+        }
+    }
+
+    /** Files {@code c} under its projects (or as an admin), replacing its previous entries. */
+    private void index(Connection c, boolean admin, Set<Long> projectIds) {
+        Set<Long> previous = c.projectIds;
+        c.projectIds = admin ? Set.of() : projectIds;
+        for (Long id : previous) {
+            if (!c.projectIds.contains(id)) unindex(c, id);
+        }
+        for (Long id : c.projectIds) {
+            byProject.compute(id, (k, set) -> {
+                Set<Connection> connections = set != null ? set : ConcurrentHashMap.newKeySet();
+                connections.add(c);
+                return connections;
+            });
+        }
+        if (admin) admins.add(c); else admins.remove(c);
+        // Closed while indexing: remove() may already have run
+        if (c.closed.get()) unindexAll(c);
+    }
+
+    private void unindex(Connection c, Long projectId) {
+        byProject.computeIfPresent(projectId, (k, set) -> {
+            set.remove(c);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private void unindexAll(Connection c) {
+        c.projectIds.forEach(id -> unindex(c, id));
+        admins.remove(c);
+    }
+
+    /** Tells every connection on this node to refresh; signals may have been lost. */
+    public void resyncAll() {
+        byUser.values().forEach(mine -> mine.forEach(c -> c.offer(Resync.INSTANCE)));
+    }
+
+    @Scheduled(initialDelayString = "${app.stream.heartbeat-interval-ms:20000}",
+               fixedDelayString = "${app.stream.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        byUser.values().forEach(mine -> mine.forEach(c -> c.offer(Heartbeat.INSTANCE)));
+    }
+
+    int connectionCount() {
+        return connectionCount.get();
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        byUser.values().forEach(mine -> mine.forEach(c -> c.emitter.complete()));
+        if (writers instanceof ExecutorService pool) pool.shutdown();
+    }
+
+    // ── Connection ───────────────────────────────────────────────────────────
+
+    private sealed interface Pending permits Ready, NotificationsChanged, ProjectChanged, Resync, Heartbeat {}
+    private enum Ready implements Pending { INSTANCE }
+    private enum NotificationsChanged implements Pending { INSTANCE }
+    private record ProjectChanged(Long projectId, String eventType) implements Pending {}
+    private enum Resync implements Pending { INSTANCE }
+    private enum Heartbeat implements Pending { INSTANCE }
+
+    private final class Connection {
+        final Long userId;
+        final String email;
+        final SseEmitter emitter;
+        final AtomicLong watermark;
+        final BlockingQueue<Pending> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean notificationsQueued = new AtomicBoolean();
+        final AtomicBoolean writing = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final boolean resumed;
+        /** Member project ids this connection is indexed under; see {@link #index}. */
+        volatile Set<Long> projectIds = Set.of();
+
+        Connection(Long userId, String email, SseEmitter emitter, long watermark, boolean resumed) {
+            this.userId = userId;
+            this.email = email;
+            this.emitter = emitter;
+            this.watermark = new AtomicLong(watermark);
+            this.resumed = resumed;
+        }
+
+        /** Bursts of new notifications coalesce into one fetch. */
+        void offerNotifications() {
+            if (notificationsQueued.compareAndSet(false, true)) offer(NotificationsChanged.INSTANCE);
+        }
+
+        void offer(Pending event) {
+            if (closed.get()) return;
+            if (!buffer.offer(event)) {
+                close(this, "overflow");
+                return;
+            }
+            if (writing.compareAndSet(false, true)) writers.execute(this::drain);
+        }
+
+        private void drain() {
+            try {
+                Pending event;
+                while (!closed.get() && (event = buffer.poll()) != null) {
+                    write(event);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Event stream of user {} closed: {}", userId, e.getMessage());
+                close(this, "error");
+            } finally {
+                writing.set(false);
+                if (!closed.get() && !buffer.isEmpty() && writing.compareAndSet(false, true)) {
+                    writers.execute(this::drain);
+                }
+            }
+        }
+
+        private void write(Pending event) throws IOException {
+            switch (event) {
+                case Ready r -> emitter.send(SseEmitter.event().name("ready").id(eventId()).data(Map.of()));
+                case NotificationsChanged n -> {
+                    notificationsQueued.set(false);
+                    writeNewNotifications();
+                }
+                case ProjectChanged p -> emitter.send(SseEmitter.event().name("project").id(eventId())
+                        .data(Map.of("projectId", p.projectId(), "eventType", String.valueOf(p.eventType()))));
+                case Resync r -> emitter.send(SseEmitter.event().name("resync").id(eventId()).data(Map.of()));
+                case Heartbeat h -> emitter.send(SseEmitter.event().comment("hb"));
+            }
+        }
+
+        private void writeNewNotifications() throws IOException {
+            List<CustomerNotification> fresh;
+            Long newest = null;
+            // The permit covers the queries only, not the writes to a possibly slow client
+            fetchPermits.acquireUninterruptibly();
+            try {
+                fresh = notificationRepository.findByCustomerUser_IdAndIdGreaterThanOrderByIdAsc(
+                        userId, watermark.get(), PageRequest.of(0, replayLimit));
+                if (fresh.size() == replayLimit) newest = latestNotificationId(userId);
+            } finally {
+                fetchPermits.release();
+            }
+            for (CustomerNotification n : fresh) {
+                watermark.set(n.getId());
+                emitter.send(SseEmitter.event().name("notification").id(eventId())
+                        .data(CustomerNotificationDto.from(n)));
+            }
+            if (newest != null) {
+                // More than a page behind: jump to the newest and let the app reload its list
+                watermark.set(newest);
+                emitter.send(SseEmitter.event().name("resync").id(eventId()).data(Map.of()));
+            }
+        }
+
+        private String eventId() {
+            return Long.toString(watermark.get());
+        }
+    }
+
+    private void close(Connection c, String reason) {
+        if (!c.closed.compareAndSet(false, true)) return;
+        disconnects(reason).increment();
+        remove(c);
+        try {
+            c.emitter.complete();
+        } catch (RuntimeException e) {
+            // The response is already gone
+        }
+    }
+
+    private void remove(Connection c) {
+        c.closed.set(true);
+        unindexAll(c);
+        ConcurrentLinkedDeque<Connection> mine = byUser.get(c.userId);
+        if (mine != null && mine.remove(c)) {
+            connectionCount.decrementAndGet();
+            byUser.computeIfPresent(c.userId, (k, v) -> v.isEmpty() ? null : v);
+        }
+    }
+
+    private Counter disconnects(String reason) {
+        return Counter.builder("notification.stream.disconnects")
+                .description("Customer event streams closed by the server")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private long latestNotificationId(Long userId) {
+        Long latest = notificationRepository.findMaxIdByUserId(userId);
+        return latest != null ? latest : 0L;
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return null;
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
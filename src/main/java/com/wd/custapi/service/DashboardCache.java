@@ -0,0 +1,143 @@
+package com.wd.custapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.wd.custapi.config.CacheConfig;
+import com.wd.custapi.dto.DashboardDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Per-user cache of the assembled {@link DashboardDto} behind {@code GET /api/dashboard}.
+ *
+ * <p>The dashboard is the app's landing screen and is re-requested on every
+ * resume, while the data behind it changes a few times a day. Each entry remembers
+ * which projects it was built from, so a change to one project drops exactly the
+ * dashboards that show it:
+ * <ul>
+ *   <li>portal webhooks — project-scoped events, membership and account changes;</li>
+ *   <li>local writes — design-package updates and new activity-feed rows.</li>
+ * </ul>
+ * Evictions inside a transaction are deferred to after commit so a concurrent
+ * request cannot re-cache the old state. The TTL ({@code app.dashboard.cache-ttl})
+ * bounds anything that does not send an event.
+ *
+ * <p>Cached DTOs are shared between requests — callers must treat them as read-only.
+ *
+ * <p>Also holds the admin project-list totals ({@link #adminProjectCount}), which
+ * only feed {@code totalElements} / {@code totalPages} and may lag by one TTL.
+ */
+@Service
+public class DashboardCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardCache.class);
+
+    public static final String CACHE_NAME = "dashboards";
+    public static final String ADMIN_COUNTS_CACHE_NAME = "adminProjectCounts";
+
+    /**
+     * One cached dashboard. Admin dashboards list the most recent projects of all
+     * customers, so they are dropped on any project change. A {@code degraded}
+     * dashboard has at least one section's fallback in it.
+     */
+    public record Entry(DashboardDto dashboard, Set<Long> projectIds, boolean admin, boolean degraded) {}
+
+    private final Cache<Object, Object> cache;
+    private final Cache<Object, Object> adminCounts;
+
+    public DashboardCache(CacheManager cacheManager) {
+        this.cache = nativeCache(cacheManager, CACHE_NAME);
+        this.adminCounts = nativeCache(cacheManager, ADMIN_COUNTS_CACHE_NAME);
+    }
+
+    /**
+     * Cached dashboard for {@code email}, building it with {@code loader} on a miss.
+     * Concurrent misses for the same user share one build. A failed build is not
+     * cached, and neither is a degraded one: it is served to the requests that
+     * waited for it, and the next request builds again. Otherwise a timed-out
+     * project query would cache a dashboard without projects, which no project
+     * eviction could reach.
+     */
+    public DashboardDto get(String email, Function<String, Entry> loader) {
+        Entry entry;
+        try {
+            entry = (Entry) CacheConfig.get(cache, email, key -> loader.apply(email));
+        } catch (RuntimeException e) {
+            cache.invalidate(email); // see CacheConfig: drop the failed build now, not on completion
+            throw e;
+        }
+        if (entry.degraded()) {
+            cache.asMap().remove(email, entry);
+        }
+        return entry.dashboard();
+    }
+
+    /**
+     * Number of admin-visible projects matching {@code searchPattern}
+     * ({@code null} for all), counted with {@code counter} at most once per TTL.
+     */
+    public long adminProjectCount(String searchPattern, Supplier<Long> counter) {
+        String key = searchPattern != null ? searchPattern : "";
+        try {
+            return (Long) CacheConfig.get(adminCounts, key, k -> counter.get());
+        } catch (RuntimeException e) {
+            adminCounts.invalidate(key);
+            throw e;
+        }
+    }
+
+    /** Drops one user's dashboard, e.g. after their account or role changed. */
+    public void evictUser(String email) {
+        if (email == null) return;
+        afterCommit(() -> cache.invalidate(email));
+    }
+
+    /** Drops every dashboard built from this project, plus all admin dashboards. */
+    public void evictProject(Long projectId) {
+        if (projectId == null) return;
+        afterCommit(() -> {
+            boolean removed = cache.asMap().values()
+                    .removeIf(v -> v instanceof Entry e && (e.admin() || e.projectIds().contains(projectId)));
+            if (removed) {
+                logger.debug("Evicted cached dashboards for project {}", projectId);
+            }
+        });
+    }
+
+    /**
+     * Membership changed: a user who just <em>gained</em> the project has a
+     * dashboard without it, and the event does not say which user that is.
+     */
+    public void evictAll() {
+        afterCommit(cache::invalidateAll);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        org.springframework.cache.Cache springCache = cacheManager.getCache(name);
+        if (springCache == null || !(springCache.getNativeCache() instanceof Cache<?, ?>)) {
+            throw new IllegalStateException("Caffeine cache '" + name + "' is not configured — see CacheConfig");
+        }
+        return (Cache<Object, Object>) springCache.getNativeCache();
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
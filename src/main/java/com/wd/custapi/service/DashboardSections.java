@@ -0,0 +1,112 @@
+package com.wd.custapi.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for the independent queries behind one dashboard.
+ *
+ * <p>Each section is started with {@link #start} and collected with
+ * {@link #await}, which waits at most {@code app.dashboard.section-timeout}
+ * from the section's start and falls back to the caller's default on timeout
+ * or failure — a slow payment aggregate degrades to zeroed stats instead of
+ * failing the whole dashboard. When every worker is busy and the queue is full
+ * the section runs on the calling thread, so saturation slows requests down
+ * rather than dropping sections.
+ *
+ * <p>Sections only call repository methods, which open their own read-only
+ * transactions; they must not touch lazy associations of the caller's entities.
+ */
+@Component
+public class DashboardSections {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardSections.class);
+
+    /** A started section and the instant its timeout runs out. */
+    public record Section<T>(String name, CompletableFuture<T> result, long deadlineNanos) {
+
+        /** After {@link #await}: whether the fallback was served (failure or timeout). */
+        public boolean degraded() {
+            return result.isCompletedExceptionally();
+        }
+    }
+
+    private final Executor executor;
+    private final ExecutorService ownedPool;
+    private final Duration sectionTimeout;
+
+    @Autowired
+    public DashboardSections(@Value("${app.dashboard.section-threads:8}") int threads,
+                             @Value("${app.dashboard.section-queue:64}") int queueCapacity,
+                             @Value("${app.dashboard.section-timeout:PT2S}") Duration sectionTimeout) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "dashboard-section-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        this.ownedPool = pool;
+        this.sectionTimeout = sectionTimeout;
+    }
+
+    /** Runs sections on {@code executor}, e.g. {@code Runnable::run} in unit tests. */
+    DashboardSections(Executor executor, Duration sectionTimeout) {
+        this.executor = executor;
+        this.ownedPool = null;
+        this.sectionTimeout = sectionTimeout;
+    }
+
+    public <T> Section<T> start(String name, Supplier<T> loader) {
+        long deadline = System.nanoTime() + sectionTimeout.toNanos();
+        return new Section<>(name, CompletableFuture.supplyAsync(loader, executor), deadline);
+    }
+
+    /**
+     * The section's result, or {@code fallback} if it failed or did not finish
+     * within its timeout.
+     */
+    public <T> T await(Section<T> section, T fallback) {
+        try {
+            long remaining = Math.max(0, section.deadlineNanos() - System.nanoTime());
+            return section.result().get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            section.result().cancel(true);
+            logger.warn("Dashboard section '{}' exceeded {} — serving fallback", section.name(), sectionTimeout);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warn("Dashboard section '{}' failed: {}", section.name(), cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            section.result().cancel(true);
+        }
+        return fallback;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (ownedPool != null) {
+            ownedPool.shutdownNow();
+        }
+    }
+}
@@ -5,9 +5,11 @@ import com.wd.custapi.exception.CustomerApiException;
 import com.wd.custapi.model.CustomerUser;
 import com.wd.custapi.model.Project;
 import com.wd.custapi.model.ProjectDocument;
+import com.wd.custapi.repository.ActivityFeedRepository;
 import com.wd.custapi.repository.CustomerUserRepository;
 import com.wd.custapi.repository.ProjectDocumentRepository;
 import com.wd.custapi.repository.ProjectRepository;
+import com.wd.custapi.repository.ProjectRepository.DashboardProjectView;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +21,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +34,9 @@ public class DashboardService {
     private static final String ROLE_VIEWER = "VIEWER";
     private static final String ROLE_ADMIN = "ADMIN";
 
+    private static final int RECENT_PROJECT_CARDS = 5;
+    private static final int ADMIN_DASHBOARD_PROJECTS = 20;
+
     private final CustomerUserRepository customerUserRepository;
 
     private final ProjectRepository projectRepository;
@@ -39,12 +45,18 @@ public class DashboardService {
 
     private final com.wd.custapi.repository.ProjectDesignStepRepository projectDesignStepRepository;
 
-    private final com.wd.custapi.repository.ActivityFeedRepository activityFeedRepository;
+    private final ActivityFeedRepository activityFeedRepository;
 
     private final com.wd.custapi.repository.PaymentScheduleRepository paymentScheduleRepository;
 
     private final com.wd.custapi.repository.ProjectMilestoneRepository projectMilestoneRepository;
 
+    private final ProjectAccessService projectAccessService;
+
+    private final DashboardCache dashboardCache;
+
+    private final DashboardSections sections;
+
     @org.springframework.beans.factory.annotation.Autowired
     @org.springframework.context.annotation.Lazy
     @SuppressWarnings("java:S6813")   // self-injection requires field injection (constructor would cycle)
@@ -54,9 +66,12 @@ public class DashboardService {
                             ProjectRepository projectRepository,
                             ProjectDocumentRepository projectDocumentRepository,
                             com.wd.custapi.repository.ProjectDesignStepRepository projectDesignStepRepository,
-                            com.wd.custapi.repository.ActivityFeedRepository activityFeedRepository,
+                            ActivityFeedRepository activityFeedRepository,
                             com.wd.custapi.repository.PaymentScheduleRepository paymentScheduleRepository,
-                            com.wd.custapi.repository.ProjectMilestoneRepository projectMilestoneRepository) {
+                            com.wd.custapi.repository.ProjectMilestoneRepository projectMilestoneRepository,
+                            ProjectAccessService projectAccessService,
+                            DashboardCache dashboardCache,
+                            DashboardSections sections) {
         this.customerUserRepository = customerUserRepository;
         this.projectRepository = projectRepository;
         this.projectDocumentRepository = projectDocumentRepository;
@@ -64,6 +79,9 @@ public class DashboardService {
         this.activityFeedRepository = activityFeedRepository;
         this.paymentScheduleRepository = paymentScheduleRepository;
         this.projectMilestoneRepository = projectMilestoneRepository;
+        this.projectAccessService = projectAccessService;
+        this.dashboardCache = dashboardCache;
+        this.sections = sections;
     }
 
     // ... existing code ...
@@ -71,44 +89,26 @@ public class DashboardService {
     /**
      * Returns the business role name for a customer user (e.g. "CUSTOMER", "ARCHITECT", "VIEWER").
      * Falls back to "VIEWER" if the user or role is not found.
+     * Served from the {@link ProjectAccessService} role cache.
      */
     public String getUserRole(String email) {
-        return customerUserRepository.findByEmail(email)
-                .map(u -> u.getRole() != null ? u.getRole().getName() : ROLE_VIEWER)
-                .orElse(ROLE_VIEWER);
+        return projectAccessService.roleOf(email);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Landing-screen dashboard, served from {@link DashboardCache}.
+     *
+     * <p>A miss costs two round-trip stages instead of five serial queries: the
+     * user row and the project-card projections load together, then design
+     * progress, recent activity and payment totals load concurrently on
+     * {@link DashboardSections}. Every section except the user lookup degrades
+     * to an empty / zeroed value instead of failing the dashboard; such a
+     * dashboard is not cached. Not transactional, so no pooled connection is
+     * held while sections run.
+     */
     public DashboardDto getCustomerDashboard(String email) {
         try {
-            CustomerUser user = customerUserRepository.findByEmail(email)
-                    .orElseThrow(() -> new CustomerApiException("Customer user not found"));
-
-            boolean isAdmin = user.getRole() != null && ROLE_ADMIN.equalsIgnoreCase(user.getRole().getName());
-            List<Project> userProjects = loadDashboardProjects(isAdmin, email);
-
-            // Build dashboard data
-            DashboardDto.UserSummary userSummary = new DashboardDto.UserSummary(
-                    user.getId(),
-                    user.getEmail(),
-                    user.getFirstName(),
-                    user.getLastName(),
-                    user.getRole() != null ? user.getRole().getName() : "UNKNOWN");
-
-            DashboardDto.ProjectSummary projectSummary = buildProjectSummary(userProjects);
-            List<DashboardDto.RecentActivity> recentActivities = buildRecentActivities(userProjects);
-
-            // Financial stats (payment totals) are only shown to primary CUSTOMER and ADMIN roles.
-            // ARCHITECT, INTERIOR_DESIGNER, SITE_ENGINEER, VIEWER see zeroed-out stats.
-            String userRole = user.getRole() != null ? user.getRole().getName() : ROLE_VIEWER;
-            DashboardDto.QuickStats quickStats;
-            if ("CUSTOMER".equalsIgnoreCase(userRole) || ROLE_ADMIN.equalsIgnoreCase(userRole)) {
-                quickStats = buildQuickStats(userProjects);
-            } else {
-                quickStats = new DashboardDto.QuickStats(0L, 0L, 0L, 0.0, 0.0);
-            }
-
-            return new DashboardDto(userSummary, projectSummary, recentActivities, quickStats);
+            return dashboardCache.get(email, this::buildCustomerDashboard);
         } catch (Exception e) {
             // Log full detail internally but do NOT expose it to the caller
             logger.error("Error building dashboard for user: {}", email, e);
@@ -116,46 +116,103 @@ public class DashboardService {
         }
     }
 
-    /**
-     * Loads the projects shown on the dashboard. Tolerant of fetch failures —
-     * returns an empty list (rather than failing the whole dashboard) if the
-     * project query throws.
-     */
-    private List<Project> loadDashboardProjects(boolean isAdmin, String email) {
-        try {
-            if (isAdmin) {
-                // Dashboard only shows 5 recent project cards — load 20 max.
-                // Previously loaded 50 full entities; reduced to 20 to limit heap pressure.
-                // Future improvement: replace with a ProjectSummaryProjection (id, name, code,
-                // progress, projectPhase) once the projection interface is wired to the repo.
-                // Admin browsing beyond 20 should use GET /api/dashboard/admin/projects (paginated).
-                List<Project> userProjects = projectRepository.findRecentForAdmin(20);
-                logger.info("Admin user {}: loaded {} recent projects for dashboard", email, userProjects.size());
-                return userProjects;
-            } else {
-                List<Project> userProjects = projectRepository.findAllByCustomerEmail(email);
-                logger.info("Found {} projects for user: {}", userProjects.size(), email);
-                return userProjects;
+    private DashboardCache.Entry buildCustomerDashboard(String email) {
+        // Started before the user lookup; discarded if the user turns out to be an admin
+        DashboardSections.Section<List<DashboardProjectView>> memberProjects = sections.start("projects",
+                () -> projectRepository.findDashboardViewsByCustomerEmail(email));
+
+        CustomerUser user = customerUserRepository.findByEmail(email)
+                .orElseThrow(() -> new CustomerApiException("Customer user not found"));
+
+        boolean isAdmin = user.getRole() != null && ROLE_ADMIN.equalsIgnoreCase(user.getRole().getName());
+        DashboardSections.Section<List<DashboardProjectView>> projectsSection = isAdmin
+                ? sections.start("adminProjects", () -> loadAdminDashboardProjects(email))
+                : memberProjects;
+        List<DashboardProjectView> projects = sections.await(projectsSection, List.of());
+        boolean degraded = projectsSection.degraded();
+        if (!isAdmin) {
+            logger.info("Found {} projects for user: {}", projects.size(), email);
+        }
+
+        DashboardDto.UserSummary userSummary = new DashboardDto.UserSummary(
+                user.getId(),
+                user.getEmail(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getRole() != null ? user.getRole().getName() : "UNKNOWN");
+
+        // Financial stats (payment totals) are only shown to primary CUSTOMER and ADMIN roles.
+        // ARCHITECT, INTERIOR_DESIGNER, SITE_ENGINEER, VIEWER see zeroed-out stats.
+        String userRole = user.getRole() != null ? user.getRole().getName() : ROLE_VIEWER;
+        boolean showFinancials = "CUSTOMER".equalsIgnoreCase(userRole) || ROLE_ADMIN.equalsIgnoreCase(userRole);
+
+        List<Long> projectIds = projects.stream().map(DashboardProjectView::getId).toList();
+        List<DashboardProjectView> recent = projects.stream().limit(RECENT_PROJECT_CARDS).toList();
+
+        Map<Long, Double> designProgress = Map.of();
+        List<DashboardDto.RecentActivity> recentActivities = List.of();
+        DashboardDto.QuickStats quickStats = emptyQuickStats();
+        if (!projectIds.isEmpty()) {
+            List<Long> recentIds = recent.stream().map(DashboardProjectView::getId).toList();
+            var progressSection = sections.start("designProgress", () -> loadDesignProgress(recentIds));
+            var activitySection = sections.start("recentActivity", () -> loadRecentActivities(projectIds));
+            var statsSection = showFinancials
+                    ? sections.start("paymentSummary", () -> loadQuickStats(projectIds))
+                    : null;
+
+            designProgress = sections.await(progressSection, Map.of());
+            recentActivities = sections.await(activitySection, List.of());
+            degraded |= progressSection.degraded() || activitySection.degraded();
+            if (statsSection != null) {
+                quickStats = sections.await(statsSection, emptyQuickStats());
+                degraded |= statsSection.degraded();
             }
-        } catch (Exception e) {
-            logger.error("Error fetching projects for {}: {}", email, e.getMessage());
-            return new ArrayList<>();
         }
+
+        DashboardDto dashboard = new DashboardDto(userSummary,
+                buildProjectSummary(projects, recent, designProgress), recentActivities, quickStats);
+        return new DashboardCache.Entry(dashboard, Set.copyOf(projectIds), isAdmin, degraded);
     }
 
-    private DashboardDto.ProjectSummary buildProjectSummary(List<Project> projects) {
+    /**
+     * Admin dashboards show the most recent project cards across all customers.
+     * Runs as a dashboard section, so a failure degrades to an empty list.
+     * Admin browsing beyond these should use GET /api/dashboard/admin/projects (paginated).
+     */
+    private List<DashboardProjectView> loadAdminDashboardProjects(String email) {
+        List<DashboardProjectView> projects = projectRepository.findRecentDashboardViewsForAdmin(
+                org.springframework.data.domain.PageRequest.of(0, ADMIN_DASHBOARD_PROJECTS));
+        logger.info("Admin user {}: loaded {} recent projects for dashboard", email, projects.size());
+        return projects;
+    }
+
+    private DashboardDto.ProjectSummary buildProjectSummary(List<DashboardProjectView> projects,
+                                                            List<DashboardProjectView> recent,
+                                                            Map<Long, Double> designProgress) {
         long totalProjects = projects.size();
         long activeProjects = projects.stream()
                 .filter(p -> p.getEndDate() == null || p.getEndDate().isAfter(LocalDate.now()))
                 .count();
         long completedProjects = totalProjects - activeProjects;
 
-        List<Project> recent = projects.stream().limit(5).toList();
-        List<DashboardDto.ProjectCard> recentProjects = toProjectCards(recent);
+        List<DashboardDto.ProjectCard> recentProjects = recent.stream()
+                .map(p -> toProjectCard(p, designProgress.getOrDefault(p.getId(), 0.0)))
+                .toList();
 
         return new DashboardDto.ProjectSummary(totalProjects, activeProjects, completedProjects, recentProjects);
     }
 
+    /** One query for all cards' design progress; projects without steps are absent (0%). */
+    private Map<Long, Double> loadDesignProgress(List<Long> projectIds) {
+        Map<Long, Double> progressMap = new HashMap<>();
+        for (Object[] row : projectDesignStepRepository.calculateDesignProgressBatch(projectIds)) {
+            Long pid = ((Number) row[0]).longValue();
+            Double prog = row[1] != null ? ((Number) row[1]).doubleValue() : 0.0;
+            progressMap.put(pid, prog);
+        }
+        return progressMap;
+    }
+
     /**
      * Converts a list of projects to ProjectCard DTOs in a single batch.
      * One query fetches design-progress for all projects; avoids N+1 per card.
@@ -164,25 +221,21 @@ public class DashboardService {
         if (projects.isEmpty()) return Collections.emptyList();
 
         List<Long> ids = projects.stream().map(Project::getId).toList();
-        Map<Long, Double> progressMap = new HashMap<>();
+        Map<Long, Double> progressMap = Map.of();
         try {
-            List<Object[]> rows = projectDesignStepRepository.calculateDesignProgressBatch(ids);
-            for (Object[] row : rows) {
-                Long pid = ((Number) row[0]).longValue();
-                Double prog = row[1] != null ? ((Number) row[1]).doubleValue() : 0.0;
-                progressMap.put(pid, prog);
-            }
+            progressMap = loadDesignProgress(ids);
         } catch (Exception e) {
             logger.warn("Could not batch-load design progress: {}", e.getMessage());
         }
 
+        Map<Long, Double> progress = progressMap;
         return projects.stream()
-                .map(p -> toProjectCard(p, progressMap.getOrDefault(p.getId(), 0.0)))
+                .map(p -> toProjectCard(p, progress.getOrDefault(p.getId(), 0.0)))
                 .toList();
     }
 
     private DashboardDto.ProjectCard toProjectCard(Project project, double designProgress) {
-        String status = determineProjectStatus(project);
+        String status = determineProjectStatus(project.getEndDate());
 
         return new DashboardDto.ProjectCard(
                 project.getId(),
@@ -201,122 +254,186 @@ public class DashboardService {
                 designProgress);
     }
 
-    private String determineProjectStatus(Project project) {
-        if (project.getEndDate() == null) {
+    private DashboardDto.ProjectCard toProjectCard(DashboardProjectView project, double designProgress) {
+        return new DashboardDto.ProjectCard(
+                project.getId(),
+                project.getProjectUuid().toString(),
+                project.getName(),
+                project.getCode(),
+                project.getLocation(),
+                project.getStartDate(),
+                project.getEndDate(),
+                determineProjectStatus(project.getEndDate()),
+                project.getProgress() != null ? project.getProgress().doubleValue() : 0.0,
+                project.getProjectPhase() != null ? project.getProjectPhase().name() : null,
+                project.getProjectType(),
+                project.getDesignPackage(),
+                Boolean.TRUE.equals(project.getDesignAgreementSigned()),
+                designProgress);
+    }
+
+    private String determineProjectStatus(LocalDate endDate) {
+        if (endDate == null) {
             return "ACTIVE";
-        } else if (project.getEndDate().isBefore(LocalDate.now())) {
+        } else if (endDate.isBefore(LocalDate.now())) {
             return "COMPLETED";
         } else {
             return "ACTIVE";
         }
     }
 
-    private List<DashboardDto.RecentActivity> buildRecentActivities(List<Project> projects) {
-        List<DashboardDto.RecentActivity> activities = new ArrayList<>();
-
-        if (projects.isEmpty()) {
-            return activities;
+    /** Ten most recent activity-feed rows across the projects, type and project name included. */
+    private List<DashboardDto.RecentActivity> loadRecentActivities(List<Long> projectIds) {
+        List<ActivityFeedRepository.RecentActivityView> rows = activityFeedRepository
+                .findRecentViewsByProjectIdIn(projectIds, org.springframework.data.domain.PageRequest.of(0, 10));
+
+        List<DashboardDto.RecentActivity> activities = new ArrayList<>(rows.size());
+        for (ActivityFeedRepository.RecentActivityView row : rows) {
+            String activityType = row.getActivityType() != null ? row.getActivityType() : "ACTIVITY";
+            String description = row.getDescription() != null ? row.getDescription() : row.getTitle();
+            String timestamp = row.getCreatedAt().toLocalDate().format(DateTimeFormatter.ISO_LOCAL_DATE);
+            activities.add(new DashboardDto.RecentActivity(
+                    activityType,
+                    description,
+                    timestamp,
+                    row.getProjectId(),
+                    row.getProjectName()));
         }
-
-        try {
-            List<Long> projectIds = projects.stream()
-                    .map(Project::getId)
-                    .toList();
-
-            // Single bulk DB query — replaces old per-project N+1 loop
-            org.springframework.data.domain.Pageable top10 =
-                    org.springframework.data.domain.PageRequest.of(0, 10);
-            List<com.wd.custapi.model.ActivityFeed> activityFeeds =
-                    activityFeedRepository.findTop10ByProjectIdInOrderByCreatedAtDesc(projectIds, top10);
-
-            for (com.wd.custapi.model.ActivityFeed feed : activityFeeds) {
-                String activityType = feed.getActivityType() != null
-                        ? feed.getActivityType().getName()
-                        : "ACTIVITY";
-                String description = feed.getDescription() != null
-                        ? feed.getDescription()
-                        : feed.getTitle();
-                String timestamp = feed.getCreatedAt().toLocalDate()
-                        .format(DateTimeFormatter.ISO_LOCAL_DATE);
-                Long projectId = feed.getProject() != null ? feed.getProject().getId() : null;
-                String projectName = feed.getProject() != null ? feed.getProject().getName() : "Unknown";
-
-                activities.add(new DashboardDto.RecentActivity(
-                        activityType,
-                        description,
-                        timestamp,
-                        projectId,
-                        projectName));
-            }
-        } catch (Exception e) {
-            logger.warn("Error fetching recent activities: {}", e.getMessage());
-        }
-
         return activities;
     }
 
-    /**
-     * Uses DB-side aggregation instead of loading all payment rows into memory.
-     * Accepts the already-resolved user and projects to avoid redundant DB hits.
-     */
-    private DashboardDto.QuickStats buildQuickStats(List<Project> userProjects) {
-        try {
-            if (userProjects.isEmpty()) {
-                return new DashboardDto.QuickStats(0L, 0L, 0L, 0.0, 0.0);
-            }
-
-            List<Long> projectIds = userProjects.stream()
-                    .map(Project::getId)
-                    .toList();
+    /** Uses DB-side aggregation instead of loading all payment rows into memory. */
+    private DashboardDto.QuickStats loadQuickStats(List<Long> projectIds) {
+        Object[] row = paymentScheduleRepository.getPaymentSummaryForProjects(projectIds);
+        if (row == null || row[0] == null) {
+            return emptyQuickStats();
+        }
 
-            // Single DB aggregate query — no full row loading
-            Object[] row = paymentScheduleRepository.getPaymentSummaryForProjects(projectIds);
-            if (row == null || row[0] == null) {
-                return new DashboardDto.QuickStats(0L, 0L, 0L, 0.0, 0.0);
-            }
+        long totalBills   = ((Number) row[0]).longValue();
+        long pendingBills = ((Number) row[1]).longValue();
+        long paidBills    = ((Number) row[2]).longValue();
+        double totalAmount   = ((Number) row[3]).doubleValue();
+        double pendingAmount = ((Number) row[4]).doubleValue();
 
-            long totalBills   = ((Number) row[0]).longValue();
-            long pendingBills = ((Number) row[1]).longValue();
-            long paidBills    = ((Number) row[2]).longValue();
-            double totalAmount   = ((Number) row[3]).doubleValue();
-            double pendingAmount = ((Number) row[4]).doubleValue();
+        return new DashboardDto.QuickStats(totalBills, pendingBills, paidBills, totalAmount, pendingAmount);
+    }
 
-            return new DashboardDto.QuickStats(totalBills, pendingBills, paidBills, totalAmount, pendingAmount);
-        } catch (Exception e) {
-            logger.warn("Error fetching payment statistics: {}", e.getMessage());
-            return new DashboardDto.QuickStats(0L, 0L, 0L, 0.0, 0.0);
-        }
+    private static DashboardDto.QuickStats emptyQuickStats() {
+        return new DashboardDto.QuickStats(0L, 0L, 0L, 0.0, 0.0);
     }
 
     /**
-     * Paginated project list for admin users. Supports optional full-text search.
+     * Admin project list, newest first, with optional search on name / code / location.
+     *
+     * <p>Pass the previous response's {@code nextCursor} to continue with a keyset
+     * page ({@code id < last id}), which costs the same on page 500 as on page 1.
+     * Requests without a cursor keep the legacy {@code page} semantics (page 0 is
+     * the keyset first page; later pages fall back to OFFSET), so existing clients
+     * are unaffected. Rows are card projections, never full entities; search is
+     * served by the V1019 trigram indexes; {@code totalElements} comes from a
+     * short-lived cached count ({@link DashboardCache#adminProjectCount}).
+     *
+     * @throws IllegalArgumentException if {@code cursor} is not one this method issued
      */
     @Transactional(readOnly = true)
-    public java.util.Map<String, Object> getAdminProjectsPaged(int page, int size, String search) {
+    public java.util.Map<String, Object> getAdminProjectsPaged(int page, int size, String search, String cursor) {
         int safeSize = Math.clamp(size, 1, 100);
-        int offset = Math.max(page, 0) * safeSize;
+        int safePage = Math.max(page, 0);
         boolean hasSearch = search != null && !search.trim().isEmpty();
-        String q = hasSearch ? search.trim() : null;
-
-        List<Project> projects = hasSearch
-                ? projectRepository.searchForAdminPaged(q, safeSize, offset)
-                : projectRepository.findAllForAdminPaged(safeSize, offset);
-        long total = hasSearch
-                ? projectRepository.countForAdminSearch(q)
-                : projectRepository.countAllForAdmin();
+        String pattern = hasSearch ? containsPattern(search.trim()) : null;
+        Long beforeId = cursor != null && !cursor.isBlank() ? decodeAdminCursor(cursor) : null;
+
+        List<DashboardProjectView> rows;
+        boolean hasNext;
+        if (beforeId != null || safePage == 0) {
+            // One extra row tells us whether another page exists without counting
+            org.springframework.data.domain.Pageable window =
+                    org.springframework.data.domain.PageRequest.of(0, safeSize + 1);
+            if (beforeId != null) {
+                rows = hasSearch
+                        ? projectRepository.searchDashboardViewsForAdminBefore(pattern, beforeId, window)
+                        : projectRepository.findDashboardViewsForAdminBefore(beforeId, window);
+            } else {
+                rows = hasSearch
+                        ? projectRepository.searchDashboardViewsForAdmin(pattern, window)
+                        : projectRepository.findRecentDashboardViewsForAdmin(window);
+            }
+            hasNext = rows.size() > safeSize;
+            if (hasNext) {
+                rows = rows.subList(0, safeSize);
+            }
+        } else {
+            org.springframework.data.domain.Pageable window =
+                    org.springframework.data.domain.PageRequest.of(safePage, safeSize);
+            rows = hasSearch
+                    ? projectRepository.searchDashboardViewsForAdmin(pattern, window)
+                    : projectRepository.findRecentDashboardViewsForAdmin(window);
+            hasNext = rows.size() == safeSize
+                    && (long) safePage * safeSize + safeSize < adminProjectCount(pattern);
+        }
 
-        List<DashboardDto.ProjectCard> cards = toProjectCards(projects);
+        long total = adminProjectCount(pattern);
 
         java.util.Map<String, Object> result = new java.util.LinkedHashMap<>();
-        result.put("content", cards);
+        result.put("content", toProjectCardsFromViews(rows));
         result.put("page", page);
         result.put("size", safeSize);
         result.put("totalElements", total);
         result.put("totalPages", (int) Math.ceil((double) total / safeSize));
-        result.put("hasNext", offset + safeSize < total);
+        result.put("hasNext", hasNext);
+        result.put("nextCursor", hasNext ? encodeAdminCursor(rows.get(rows.size() - 1).getId()) : null);
         return result;
     }
 
+    private long adminProjectCount(String pattern) {
+        return dashboardCache.adminProjectCount(pattern, () -> pattern != null
+                ? projectRepository.countForAdminSearch(pattern)
+                : projectRepository.count());
+    }
+
+    /** {@code %term%}, lower-cased, with LIKE wildcards in the term matched literally. */
+    static String containsPattern(String term) {
+        String escaped = term.toLowerCase(java.util.Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    static String encodeAdminCursor(Long lastId) {
+        return java.util.Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("p" + lastId).getBytes(java.nio.charset.StandardCharsets.US_ASCII));
+    }
+
+    static Long decodeAdminCursor(String cursor) {
+        try {
+            String raw = new String(java.util.Base64.getUrlDecoder().decode(cursor),
+                    java.nio.charset.StandardCharsets.US_ASCII);
+            if (raw.startsWith("p")) {
+                return Long.parseLong(raw.substring(1));
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and malformed Base64 both land here
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+
+    private List<DashboardDto.ProjectCard> toProjectCardsFromViews(List<DashboardProjectView> projects) {
+        if (projects.isEmpty()) return Collections.emptyList();
+
+        Map<Long, Double> progressMap = Map.of();
+        try {
+            progressMap = loadDesignProgress(projects.stream().map(DashboardProjectView::getId).toList());
+        } catch (Exception e) {
+            logger.warn("Could not batch-load design progress: {}", e.getMessage());
+        }
+
+        Map<Long, Double> progress = progressMap;
+        return projects.stream()
+                .map(p -> toProjectCard(p, progress.getOrDefault(p.getId(), 0.0)))
+                .toList();
+    }
+
     private boolean isAdminByEmail(String email) {
         return customerUserRepository.findByEmail(email)
                 .map(u -> u.getRole() != null && ROLE_ADMIN.equalsIgnoreCase(u.getRole().getName()))
@@ -344,22 +461,11 @@ public class DashboardService {
     /**
      * Resolve project by UUID and current user email (with admin bypass).
      * Used by project module endpoints that accept projectUuid in the path.
+     * Not transactional: a warm {@link ProjectAccessService} hit must not
+     * borrow a pooled connection.
      */
-    @Transactional(readOnly = true)
     public Project getProjectByUuidAndEmail(String projectUuidStr, String email) {
-        java.util.UUID projectUuid;
-        try {
-            projectUuid = java.util.UUID.fromString(projectUuidStr);
-        } catch (IllegalArgumentException e) {
-            throw new CustomerApiException("Invalid project UUID format: " + projectUuidStr);
-        }
-        Project project = isAdminByEmail(email)
-                ? projectRepository.findByProjectUuid(projectUuid)
-                : projectRepository.findByProjectUuidAndCustomerEmail(projectUuid, email);
-        if (project == null) {
-            throw new CustomerApiException("Project not found or access denied");
-        }
-        return project;
+        return projectAccessService.resolve(projectUuidStr, email).project();
     }
 
     @Transactional(readOnly = true)
@@ -427,7 +533,7 @@ public class DashboardService {
         details.setStartDate(project.getStartDate());
         details.setEndDate(project.getEndDate());
         details.setProgress(project.getProgress() != null ? project.getProgress().doubleValue() : 0.0);
-        details.setStatus(determineProjectStatus(project));
+        details.setStatus(determineProjectStatus(project.getEndDate()));
         details.setPhase(project.getProjectPhase() != null ? project.getProjectPhase().name() : null);
         details.setProjectType(project.getProjectType());
         details.setDesignPackage(project.getDesignPackage());
@@ -501,6 +607,8 @@ public class DashboardService {
         // Update design package
         project.setDesignPackage(normalizedPackage);
         projectRepository.save(project);
+        projectAccessService.evictProject(project.getId());
+        dashboardCache.evictProject(project.getId());
 
         // Return updated project details
         return (self != null ? self : this).getProjectDetails(projectUuidStr, email);
@@ -0,0 +1,84 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.CustomerDeviceToken;
+import com.wd.custapi.model.CustomerUser;
+import com.wd.custapi.repository.CustomerDeviceTokenRepository;
+import com.wd.custapi.repository.CustomerUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of customers' FCM device tokens ({@code customer_device_tokens}).
+ * A customer may have several devices; the least recently registered are
+ * dropped beyond {@code app.push.max-devices-per-user}.
+ */
+@Service
+public class DeviceTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceTokenService.class);
+
+    private final CustomerDeviceTokenRepository deviceTokenRepository;
+    private final CustomerUserRepository customerUserRepository;
+    private final int maxDevicesPerUser;
+
+    public DeviceTokenService(CustomerDeviceTokenRepository deviceTokenRepository,
+                              CustomerUserRepository customerUserRepository,
+                              @Value("${app.push.max-devices-per-user:10}") int maxDevicesPerUser) {
+        this.deviceTokenRepository = deviceTokenRepository;
+        this.customerUserRepository = customerUserRepository;
+        this.maxDevicesPerUser = maxDevicesPerUser;
+    }
+
+    /**
+     * Records {@code token} as one of {@code user}'s devices. A token already
+     * registered to another customer (shared device, new sign-in) moves to this one.
+     */
+    @Transactional
+    public void register(CustomerUser user, String token) {
+        CustomerDeviceToken device = deviceTokenRepository.findByToken(token).orElseGet(() -> {
+            CustomerDeviceToken created = new CustomerDeviceToken();
+            created.setToken(token);
+            return created;
+        });
+        device.setCustomerUserId(user.getId());
+        device.setLastSeenAt(LocalDateTime.now());
+        deviceTokenRepository.save(device);
+
+        List<CustomerDeviceToken> devices =
+                deviceTokenRepository.findByCustomerUserIdOrderByLastSeenAtDesc(user.getId());
+        if (devices.size() > maxDevicesPerUser) {
+            deviceTokenRepository.deleteAll(devices.subList(maxDevicesPerUser, devices.size()));
+        }
+    }
+
+    /** Device tokens of each of {@code userIds} that has any. */
+    @Transactional(readOnly = true)
+    public Map<Long, List<String>> tokensByUser(Collection<Long> userIds) {
+        Map<Long, List<String>> tokens = new HashMap<>();
+        if (userIds.isEmpty()) return tokens;
+        for (CustomerDeviceToken device : deviceTokenRepository.findByCustomerUserIdIn(userIds)) {
+            tokens.computeIfAbsent(device.getCustomerUserId(), k -> new ArrayList<>()).add(device.getToken());
+        }
+        return tokens;
+    }
+
+    /** Forgets tokens FCM has rejected for good, including the legacy {@code customer_users.fcm_token}. */
+    @Transactional
+    public int prune(Collection<String> tokens) {
+        if (tokens.isEmpty()) return 0;
+        int removed = deviceTokenRepository.deleteByTokenIn(tokens);
+        customerUserRepository.clearFcmTokens(tokens);
+        log.info("Pruned {} stale FCM device token(s)", removed);
+        return removed;
+    }
+}
@@ -1,5 +1,7 @@
 package com.wd.custapi.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,12 +9,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.MailException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Service
 public class EmailService {
 
@@ -20,29 +25,43 @@ public class EmailService {
 
     private final JavaMailSender mailSender;
 
+    /**
+     * Emails are sent asynchronously on these platform threads rather than via
+     * {@code @Async}: JavaMail's SMTP transport is {@code synchronized}, so a send
+     * on a virtual thread would pin its carrier for the whole SMTP exchange.
+     */
+    private final ExecutorService smtpThreads;
+
     @Value("${app.email.enabled:false}")
     private boolean emailEnabled;
 
     @Value("${spring.mail.username:noreply@walldotbuilders.com}")
     private String fromEmail;
 
-    public EmailService(@Autowired(required = false) JavaMailSender mailSender) {
+    public EmailService(@Autowired(required = false) JavaMailSender mailSender, MeterRegistry meterRegistry) {
         this.mailSender = mailSender;
+        this.smtpThreads = ExecutorServiceMetrics.monitor(meterRegistry,
+                Executors.newFixedThreadPool(2, Thread.ofPlatform().name("mail-", 0).daemon().factory()),
+                "mailSender");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        smtpThreads.shutdown();
     }
 
     /**
      * Sends a branded HTML password reset email containing a secure link.
      * Falls back to log simulation when email is disabled or mail sender is unavailable.
      */
-    @Async
     public void sendPasswordResetEmail(String to, String firstName, String resetLink) {
-        dispatchEmail(
+        smtpThreads.execute(() -> dispatchEmail(
                 to,
                 "Reset Your Walldot Password",
                 buildPasswordResetHtml(firstName, resetLink),
                 "Password reset email sent successfully to {}",
                 "Failed to send password reset email to {}. Falling back to simulation.",
-                () -> logEmailSimulation(to, firstName));
+                () -> logEmailSimulation(to, firstName)));
     }
 
     /**
@@ -187,15 +206,14 @@ public class EmailService {
      * Sends a branded HTML email verification email containing a secure link.
      * Falls back to log simulation when email is disabled or mail sender is unavailable.
      */
-    @Async
     public void sendVerificationEmail(String to, String firstName, String verificationLink) {
-        dispatchEmail(
+        smtpThreads.execute(() -> dispatchEmail(
                 to,
                 "Verify Your Walldot Email Address",
                 buildVerificationEmailHtml(firstName, verificationLink),
                 "Verification email sent successfully to {}",
                 "Failed to send verification email to {}. Falling back to simulation.",
-                () -> logVerificationEmailSimulation(to, firstName));
+                () -> logVerificationEmailSimulation(to, firstName)));
     }
 
     private String buildVerificationEmailHtml(String firstName, String verificationLink) {
@@ -6,7 +6,6 @@ import com.wd.custapi.model.ProjectBaseline;
 import com.wd.custapi.repository.DelayLogRepository;
 import com.wd.custapi.repository.ProjectBaselineRepository;
 import com.wd.custapi.repository.TaskRepository;
-import com.wd.custapi.util.WorkingDayCalculator;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,7 +22,8 @@ import java.time.LocalDate;
  *       if the project has an approved baseline.</li>
  *   <li>{@code hasMaterialDelay} — true iff the LATEST customer-visible delay
  *       log row has {@code impact_on_handover='MATERIAL'}.</li>
- *   <li>{@code weeksRemaining} — Mon-Sat working days from "today" to
+ *   <li>{@code weeksRemaining} — Mon-Sat working days, less holidays of the
+ *       configured region ({@link WorkingCalendarService}), from "today" to
  *       {@code projectFinishDate}, divided by 5 and rounded.</li>
  * </ul>
  *
@@ -48,6 +48,7 @@ public class ExpectedHandoverService {
     private final TaskRepository taskRepository;
     private final ProjectBaselineRepository projectBaselineRepository;
     private final DelayLogRepository delayLogRepository;
+    private final WorkingCalendarService workingCalendarService;
 
     @org.springframework.beans.factory.annotation.Autowired
     @org.springframework.context.annotation.Lazy
@@ -57,10 +58,12 @@ public class ExpectedHandoverService {
     public ExpectedHandoverService(
             TaskRepository taskRepository,
             ProjectBaselineRepository projectBaselineRepository,
-            DelayLogRepository delayLogRepository) {
+            DelayLogRepository delayLogRepository,
+            WorkingCalendarService workingCalendarService) {
         this.taskRepository = taskRepository;
         this.projectBaselineRepository = projectBaselineRepository;
         this.delayLogRepository = delayLogRepository;
+        this.workingCalendarService = workingCalendarService;
     }
 
     @Transactional(readOnly = true)
@@ -100,7 +103,7 @@ public class ExpectedHandoverService {
 
         Integer weeksRemaining = null;
         if (projectFinishDate != null) {
-            int days = WorkingDayCalculator.workingDaysBetween(today, projectFinishDate);
+            int days = workingCalendarService.calendar().workingDaysBetween(today, projectFinishDate);
             weeksRemaining = (int) Math.round(days / 5.0);
         }
 
@@ -0,0 +1,329 @@
+package com.wd.custapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes a stored file to the servlet response with HTTP range and
+ * conditional-request support (RFC 9110 §13–14).
+ *
+ * <ul>
+ *   <li>ETag ({@code "<size>-<mtime>"}, strong) and Last-Modified on every response;
+ *       {@code If-None-Match} / {@code If-Modified-Since} answer 304.</li>
+ *   <li>{@code Range: bytes=…} — one range → 206 with Content-Range, several →
+ *       206 {@code multipart/byteranges}, none satisfiable → 416.
+ *       {@code If-Range} that no longer matches falls back to a full 200.</li>
+ *   <li>HEAD returns exactly the headers GET would, without a body.</li>
+ * </ul>
+ *
+ * <p>Single-part bodies are handed to Tomcat's sendfile when the connector
+ * supports it, so the kernel copies file → socket and the worker thread is
+ * released immediately (production caps Tomcat at 40 threads). Otherwise —
+ * and for multipart bodies — bytes are moved with {@link FileChannel#transferTo}.
+ *
+ * <p>Access control is the caller's job; this class only streams a path it is given.
+ */
+@Service
+public class FileStreamingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileStreamingService.class);
+
+    static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /** Below this size a plain copy is cheaper than setting up sendfile (Tomcat's own default). */
+    private static final long SENDFILE_THRESHOLD = 48 * 1024L;
+
+    private static final String DEFAULT_CONTENT_TYPE = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+
+    /** Private files: never stored by proxies/CDNs; the client must revalidate (and re-authorize) every use. */
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+    /**
+     * {@link Files#probeContentType} result per lower-case file extension. The JDK
+     * detector on Linux resolves by extension only, so the key is exact; the set of
+     * extensions in storage is small, the bound is just a safety net.
+     */
+    private final Cache<String, String> contentTypeByExtension = Caffeine.newBuilder()
+            .maximumSize(512)
+            .build();
+
+    /**
+     * Serves {@code file} for a GET or HEAD request.
+     *
+     * @param asAttachment {@code true} for {@code Content-Disposition: attachment}, else inline
+     * @throws IOException if the file cannot be read or the client disconnects
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response,
+                      Path file, boolean asAttachment) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long fileSize = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis() / 1000 * 1000; // HTTP dates have 1s precision
+        String etag = "\"" + Long.toHexString(fileSize) + "-" + Long.toHexString(lastModified) + "\"";
+        String contentType = contentTypeOf(file);
+        boolean head = HttpMethod.HEAD.matches(request.getMethod());
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String fileName = file.getFileName().toString();
+        ContentDisposition disposition = (asAttachment ? ContentDisposition.attachment() : ContentDisposition.inline())
+                .filename(fileName)
+                .build();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeMatches(request, etag, lastModified)) {
+            writeFull(request, response, file, fileSize, contentType, head);
+            return;
+        }
+
+        List<long[]> ranges = parseRanges(rangeHeader, fileSize);
+        if (ranges == null) {
+            // Syntactically invalid Range headers are ignored (RFC 9110 §14.2)
+            writeFull(request, response, file, fileSize, contentType, head);
+        } else if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+        } else if (ranges.size() == 1) {
+            long[] r = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + r[0] + "-" + r[1] + "/" + fileSize);
+            response.setContentLengthLong(r[1] - r[0] + 1);
+            if (!head) {
+                writeRegion(request, response, file, r[0], r[1] - r[0] + 1);
+            }
+        } else {
+            writeMultipart(response, file, fileSize, contentType, ranges, head);
+        }
+    }
+
+    /** Cached {@link Files#probeContentType}, falling back to {@code application/octet-stream}. */
+    public String contentTypeOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot < 0 || dot == name.length() - 1) {
+            return probe(file);
+        }
+        return contentTypeByExtension.get(name.substring(dot + 1).toLowerCase(Locale.ROOT), ext -> probe(file));
+    }
+
+    private static String probe(Path file) {
+        try {
+            String type = Files.probeContentType(file);
+            return type != null ? type : DEFAULT_CONTENT_TYPE;
+        } catch (IOException e) {
+            return DEFAULT_CONTENT_TYPE;
+        }
+    }
+
+    // ── Conditional requests ────────────────────────────────────────────────
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // If-None-Match takes precedence; If-Modified-Since is then ignored
+            return etagListMatches(ifNoneMatch, etag, true);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /** {@code true} when there is no If-Range, or it still identifies the current representation. */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etagListMatches(ifRange, etag, false);
+        }
+        long date = parseHttpDate(ifRange);
+        return date >= 0 && date == lastModified;
+    }
+
+    /** Compares a comma-separated entity-tag list; weak comparison ignores the {@code W/} prefix. */
+    private static boolean etagListMatches(String header, String etag, boolean weak) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if ("*".equals(tag)) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                if (!weak) {
+                    continue;
+                }
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        String value = request.getHeader(name);
+        return value != null ? parseHttpDate(value) : -1;
+    }
+
+    private static long parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value.trim(), HTTP_DATE).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    // ── Ranges ──────────────────────────────────────────────────────────────
+
+    /**
+     * Resolves a Range header to inclusive {@code [start, end]} pairs.
+     *
+     * @return {@code null} if the header is malformed or not a byte range (ignore it),
+     *         an empty list if no range is satisfiable (416)
+     */
+    private static List<long[]> parseRanges(String rangeHeader, long fileSize) {
+        List<HttpRange> parsed;
+        try {
+            parsed = HttpRange.parseRanges(rangeHeader); // also caps the number of ranges
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring invalid Range header '{}': {}", rangeHeader, e.getMessage());
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<>(parsed.size());
+        long total = 0;
+        for (HttpRange range : parsed) {
+            try {
+                long start = range.getRangeStart(fileSize);
+                long end = range.getRangeEnd(fileSize);
+                if (start > end) {
+                    continue; // "bytes=-0"
+                }
+                ranges.add(new long[] {start, end});
+                total += end - start + 1;
+            } catch (IllegalArgumentException unsatisfiable) {
+                // e.g. first-byte-pos beyond EOF — skip this range only
+            }
+        }
+        if (total > fileSize) {
+            // Overlapping ranges that add up to more than the file: serve it once instead
+            return null;
+        }
+        return ranges;
+    }
+
+    // ── Body writing ────────────────────────────────────────────────────────
+
+    private static void writeFull(HttpServletRequest request, HttpServletResponse response, Path file,
+                                  long fileSize, String contentType, boolean head) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(contentType);
+        response.setContentLengthLong(fileSize);
+        if (!head) {
+            writeRegion(request, response, file, 0, fileSize);
+        }
+    }
+
+    private static void writeRegion(HttpServletRequest request, HttpServletResponse response,
+                                    Path file, long start, long length) throws IOException {
+        if (length >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            // Tomcat performs the transfer after the handler returns (end offset is exclusive)
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, length, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private static void writeMultipart(HttpServletResponse response, Path file, long fileSize,
+                                       String contentType, List<long[]> ranges, boolean head) throws IOException {
+        String boundary = new String(MimeTypeUtils.generateMultipartBoundary(), StandardCharsets.US_ASCII);
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (long[] r : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + r[0] + "-" + r[1] + "/" + fileSize + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + (r[1] - r[0] + 1);
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) {
+            return;
+        }
+
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] r = ranges.get(i);
+                out.write(partHeaders.get(i));
+                transfer(channel, r[0], r[1] - r[0] + 1, target);
+            }
+        }
+        out.write(closing);
+    }
+
+    private static void transfer(FileChannel channel, long position, long count,
+                                 WritableByteChannel target) throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                throw new IOException("File truncated while streaming");
+            }
+            position += sent;
+        }
+    }
+}
@@ -25,17 +25,20 @@ public class GalleryService {
     private final CustomerUserRepository userRepository;
     private final SiteReportRepository siteReportRepository;
     private final FileStorageService fileStorageService;
+    private final ProjectTimelineService projectTimelineService;
     
     public GalleryService(GalleryImageRepository galleryImageRepository,
                           ProjectRepository projectRepository,
                           CustomerUserRepository userRepository,
                           SiteReportRepository siteReportRepository,
-                          FileStorageService fileStorageService) {
+                          FileStorageService fileStorageService,
+                          ProjectTimelineService projectTimelineService) {
         this.galleryImageRepository = galleryImageRepository;
         this.projectRepository = projectRepository;
         this.userRepository = userRepository;
         this.siteReportRepository = siteReportRepository;
         this.fileStorageService = fileStorageService;
+        this.projectTimelineService = projectTimelineService;
     }
     
     @Transactional
@@ -69,6 +72,7 @@ public class GalleryService {
         }
         
         image = galleryImageRepository.save(image);
+        projectTimelineService.record(image);
         return toDto(image);
     }
     
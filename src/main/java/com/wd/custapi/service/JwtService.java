@@ -1,10 +1,17 @@
 package com.wd.custapi.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.wd.custapi.security.JwtConstants;
+import com.wd.custapi.security.VerifiedToken;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
@@ -16,9 +23,16 @@ import org.springframework.stereotype.Service;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Service
@@ -47,6 +61,10 @@ public class JwtService {
     @Value("${jwt.aud.enforce}")
     private boolean audEnforce;
 
+    /** Max verified tokens remembered; 0 disables the cache. */
+    @Value("${jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize = 10_000;
+
     /**
      * Always-initialized HMAC key — used for signing in HS256 mode and for
      * backward-compatible verification of old tokens when running in RS256 mode.
@@ -65,6 +83,20 @@ public class JwtService {
     /** True when RS256 is configured and a valid private key was loaded. */
     private boolean useRsa = false;
 
+    /** {@code kid} header stamped on HS256 / RS256 tokens — a fingerprint of the verification key. */
+    private String hmacKeyId;
+    private String rsaKeyId;
+
+    /** Single immutable, thread-safe parser; picks the key per token via {@link #locateKey}. */
+    private JwtParser parser;
+
+    /**
+     * Tokens whose signature already verified, keyed by SHA-256 of the compact
+     * token and kept until their {@code exp}. A hit means byte-identical input,
+     * so skipping the signature check is safe; failures are never cached.
+     */
+    private Cache<String, VerifiedToken> verifiedTokens;
+
     @PostConstruct
     private void initSigningKey() {
         // Always build the HMAC key — needed for backward-compat fallback verification.
@@ -81,6 +113,43 @@ public class JwtService {
             this.useRsa = false;
             logger.info("JWT signing initialized with HS256 (HMAC)");
         }
+
+        this.hmacKeyId = "hs-" + fingerprint(hmacKey.getEncoded());
+        this.rsaKeyId = useRsa ? "rs-" + fingerprint(rsaPublicKey.getEncoded()) : null;
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return locateKey(header);
+                    }
+                })
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, verifiedCacheSize))
+                .expireAfter(Expiry.creating((String key, VerifiedToken token) ->
+                        Duration.between(Instant.now(), token.expiresAt())))
+                .build();
+    }
+
+    /**
+     * Verification key for one token. Tokens issued by this service carry a
+     * {@code kid} naming their key; tokens without one (issued before kids were
+     * stamped, or by the portal) are routed by their {@code alg} header, so a
+     * legacy HS256 token in RS256 mode goes straight to the HMAC key instead of
+     * failing an RSA check first. A key that does not fit {@code alg} is rejected
+     * by JJWT.
+     */
+    private Key locateKey(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid != null) {
+            if (kid.equals(hmacKeyId)) return hmacKey;
+            if (rsaKeyId != null && kid.equals(rsaKeyId)) return rsaPublicKey;
+        }
+        String alg = header.getAlgorithm();
+        if (useRsa && alg != null && alg.startsWith("RS")) {
+            return rsaPublicKey;
+        }
+        return hmacKey;
     }
 
     private Key getSigningKey() {
@@ -114,58 +183,73 @@ public class JwtService {
         }
     }
 
+    /** Short, non-reversible key id: first 8 bytes of SHA-256 over the key bytes. */
+    private static String fingerprint(byte[] keyBytes) {
+        byte[] digest = sha256(keyBytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 8));
+    }
+
+    private static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     // ── Claims extraction ────────────────────────────────────────────────────
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parse(token).subject();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return parse(token).claims().getExpiration();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(parse(token).claims());
     }
 
     /**
-     * Parse and verify a JWT.
-     * <p>
-     * When running in RS256 mode: tries the RSA public key first, then falls back
-     * to the HMAC key so that tokens issued before the migration are still accepted
-     * during the transition window.
+     * Verify a JWT once and return what the authentication path needs, or empty
+     * when the signature, expiry or audience policy rejects it.
      * <p>
-     * When running in HS256 mode: verifies with the HMAC key only.
+     * The audience check runs on every call (not only on cache misses) so that
+     * {@code jwt.aud.enforce} and the rollout warning apply to every request.
      */
-    private Claims extractAllClaims(String token) {
-        if (useRsa) {
-            try {
-                return Jwts.parser()
-                        .verifyWith(rsaPublicKey)
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload();
-            } catch (io.jsonwebtoken.security.SignatureException e) {
-                // RS256 signature check failed — token may have been signed with the old
-                // HS256 key before migration. Try HMAC as a backward-compat fallback.
-                logger.debug("RS256 verification failed, attempting HS256 fallback for backward compatibility");
-                return Jwts.parser()
-                        .verifyWith(hmacKey)
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload();
-            }
+    public Optional<VerifiedToken> verify(String token) {
+        try {
+            VerifiedToken verified = parse(token);
+            return audienceAccepted(verified) ? Optional.of(verified) : Optional.empty();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
         }
-        return Jwts.parser()
-                .verifyWith(hmacKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Parse and verify a JWT, or return the cached result for the same token.
+     * <p>
+     * The signing key is chosen by {@link #locateKey}: RSA public key for RS256
+     * tokens when running in RS256 mode, the HMAC key otherwise — tokens issued
+     * before the RS256 migration are still accepted during the transition window.
+     *
+     * @throws JwtException if the token is malformed, expired or badly signed
+     */
+    private VerifiedToken parse(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("JWT must not be blank");
+        }
+        String key = Base64.getEncoder().encodeToString(sha256(token.getBytes(StandardCharsets.US_ASCII)));
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        VerifiedToken verified = VerifiedToken.from(parser.parseSignedClaims(token).getPayload());
+        if (!verified.isExpired()) {
+            verifiedTokens.put(key, verified);
+        }
+        return verified;
     }
 
     // ── Token generation ─────────────────────────────────────────────────────
@@ -200,11 +284,7 @@ public class JwtService {
      * Backward-compatible: if claim is missing, returns "CUSTOMER" as safe default.
      */
     public String extractTokenType(String token) {
-        Object tokenType = extractAllClaims(token).get(JwtConstants.CLAIM_TOKEN_TYPE);
-        if (tokenType != null) {
-            return tokenType.toString();
-        }
-        return JwtConstants.DEFAULT_TOKEN_TYPE; // safe default for legacy tokens issued before this fix
+        return parse(token).tokenType(); // DEFAULT_TOKEN_TYPE for legacy tokens issued before this fix
     }
 
     /**
@@ -213,16 +293,12 @@ public class JwtService {
      * Backward-compatible: strips legacy prefix for tokens issued before this fix.
      */
     public String extractActualSubject(String token) {
-        String subject = extractUsername(token);
-        if (subject != null && subject.contains("_")) {
-            // Legacy token: subject had prefix e.g. "CUSTOMER_user@email.com"
-            return subject.substring(subject.indexOf("_") + 1);
-        }
-        return subject;
+        return parse(token).actualSubject();
     }
 
     private String createToken(Map<String, Object> claims, String subject, Long expiration) {
         JwtBuilder builder = Jwts.builder()
+                .header().keyId(useRsa ? rsaKeyId : hmacKeyId).and()
                 .claims(claims)
                 .subject(subject)
                 .audience().add(audValue).and()
@@ -240,32 +316,32 @@ public class JwtService {
     // ── Validation ───────────────────────────────────────────────────────────
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        if (!Boolean.TRUE.equals(validateToken(token))) {
-            return false;
-        }
-        final String actualSubject = extractActualSubject(token);
-        return actualSubject.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return verify(token).map(verified -> isTokenValidFor(verified, userDetails)).orElse(false);
+    }
+
+    /** Subject/expiry check for a token already returned by {@link #verify(String)} — no re-parse. */
+    public boolean isTokenValidFor(VerifiedToken token, UserDetails userDetails) {
+        return token.actualSubject() != null
+                && token.actualSubject().equals(userDetails.getUsername())
+                && !token.isExpired();
     }
 
     public Boolean validateToken(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-
-            java.util.Set<String> tokenAud = claims.getAudience();
-            boolean audMatches = tokenAud != null && tokenAud.contains(audValue);
-
-            if (!audMatches) {
-                if (audEnforce) {
-                    return false;
-                }
-                logger.warn("JWT missing or mismatched aud claim (token audience={}, expected={}). "
-                        + "This should only occur during the phased aud rollout — investigate if seen post-rollout.",
-                        tokenAud, audValue);
-            }
+        return verify(token).isPresent();
+    }
+
+    private boolean audienceAccepted(VerifiedToken token) {
+        java.util.Set<String> tokenAud = token.audience();
+        if (tokenAud.contains(audValue)) {
             return true;
-        } catch (JwtException | IllegalArgumentException e) {
+        }
+        if (audEnforce) {
             return false;
         }
+        logger.warn("JWT missing or mismatched aud claim (token audience={}, expected={}). "
+                + "This should only occur during the phased aud rollout — investigate if seen post-rollout.",
+                tokenAud, audValue);
+        return true;
     }
 
     public Long getAccessTokenExpiration() {
@@ -0,0 +1,99 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.CustomerUser;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers one notification to many customers: the {@code customer_notifications}
+ * rows and the push to their devices.
+ *
+ * <ul>
+ *   <li>Rows are written with one JDBC batch insert rather than a JPA
+ *       {@code save} per recipient — {@code CustomerNotification} uses an
+ *       IDENTITY id, which stops Hibernate from batching its inserts. With
+ *       {@code reWriteBatchedInserts} (production datasource) pgjdbc folds each
+ *       batch into multi-row INSERTs.</li>
+ *   <li>Pushes are queued in {@link PushOutbox} with a second batch insert;
+ *       its dispatcher multicasts each distinct payload to all recipients'
+ *       devices after the caller commits.</li>
+ *   <li>Recipients' open event streams are signalled through
+ *       {@link CustomerEventBus}, also on commit.</li>
+ * </ul>
+ * Both inserts join the caller's transaction.
+ */
+@Service
+public class NotificationFanoutService {
+
+    static final int INSERT_BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO customer_notifications
+                (customer_user_id, project_id, title, body, notification_type, reference_id, is_read, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, false, ?)
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final PushOutbox pushOutbox;
+    private final CustomerEventBus eventBus;
+
+    public NotificationFanoutService(JdbcTemplate jdbc, PushOutbox pushOutbox, CustomerEventBus eventBus) {
+        this.jdbc = jdbc;
+        this.pushOutbox = pushOutbox;
+        this.eventBus = eventBus;
+    }
+
+    /** What a recipient sees: the stored notification and the push sent for it. */
+    public record NotificationPayload(Long projectId, Long referenceId, String title, String body,
+                                      String notificationType, Map<String, String> data) {
+        public NotificationPayload {
+            data = data == null ? Map.of() : Map.copyOf(data);
+        }
+    }
+
+    /** One recipient ({@code customer_users.id}) of one payload. */
+    public record Delivery(Long customerUserId, NotificationPayload payload) {}
+
+    /** Sends the same {@code payload} to every recipient. */
+    public int fanOut(List<CustomerUser> recipients, NotificationPayload payload) {
+        List<Delivery> deliveries = new ArrayList<>(recipients.size());
+        for (CustomerUser recipient : recipients) {
+            deliveries.add(new Delivery(recipient.getId(), payload));
+        }
+        return fanOut(deliveries);
+    }
+
+    /**
+     * Stores a notification row per delivery and queues its push.
+     *
+     * @return the number of notification rows written
+     */
+    public int fanOut(List<Delivery> deliveries) {
+        if (deliveries.isEmpty()) return 0;
+        insertAll(deliveries);
+        pushOutbox.enqueue(deliveries);
+        eventBus.notificationsAdded(deliveries.stream().map(Delivery::customerUserId).toList());
+        return deliveries.size();
+    }
+
+    private void insertAll(List<Delivery> deliveries) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbc.batchUpdate(INSERT_SQL, deliveries, INSERT_BATCH_SIZE, (ps, d) -> {
+            NotificationPayload p = d.payload();
+            ps.setLong(1, d.customerUserId());
+            ps.setObject(2, p.projectId(), Types.BIGINT);
+            ps.setString(3, p.title());
+            ps.setString(4, p.body());
+            ps.setString(5, p.notificationType());
+            ps.setObject(6, p.referenceId(), Types.BIGINT);
+            ps.setTimestamp(7, now);
+        });
+    }
+}
@@ -5,25 +5,27 @@ import com.wd.custapi.model.CustomerUser;
 import com.wd.custapi.model.Project;
 import com.wd.custapi.repository.CustomerNotificationRepository;
 import com.wd.custapi.repository.CustomerUserRepository;
-import com.wd.custapi.repository.PaymentScheduleRepository;
+import com.wd.custapi.service.NotificationFanoutService.NotificationPayload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Event-driven notification triggers for key customer milestones.
  *
  * <ul>
- *   <li>Payment due 3-day reminder (scheduled daily job)</li>
+ *   <li>Query replied</li>
  *   <li>Observation resolved (called by ObservationService)</li>
+ *   <li>BOQ approval / change request</li>
  * </ul>
+ * Payment-due reminders are sent by {@link PaymentReminderJob}.
  *
- * Each trigger writes an in-app notification to {@code customer_notifications}
- * and fires a Firebase FCM push (fire-and-forget — silently skipped if no FCM token).
+ * Each trigger writes an in-app notification to {@code customer_notifications},
+ * queues a push to the customer's devices in {@link PushOutbox} and signals
+ * their open event streams through {@link CustomerEventBus}.
  * Failures in this service must NEVER propagate to the calling business operation.
  */
 @Service
@@ -33,59 +35,17 @@ public class NotificationTriggerService {
 
     private final CustomerNotificationRepository notificationRepository;
     private final CustomerUserRepository customerUserRepository;
-    private final PaymentScheduleRepository paymentScheduleRepository;
-    private final PushNotificationService pushNotificationService;
+    private final PushOutbox pushOutbox;
+    private final CustomerEventBus eventBus;
 
     public NotificationTriggerService(CustomerNotificationRepository notificationRepository,
             CustomerUserRepository customerUserRepository,
-            PaymentScheduleRepository paymentScheduleRepository,
-            PushNotificationService pushNotificationService) {
+            PushOutbox pushOutbox,
+            CustomerEventBus eventBus) {
         this.notificationRepository = notificationRepository;
         this.customerUserRepository = customerUserRepository;
-        this.paymentScheduleRepository = paymentScheduleRepository;
-        this.pushNotificationService = pushNotificationService;
-    }
-
-    // ─── Scheduled: Payment Due Reminders ────────────────────────────────────────
-
-    /**
-     * Daily job at 08:00 IST — sends payment-due reminders for schedules
-     * where due_date = today + 3 days and status is still PENDING or UPCOMING.
-     */
-    @Scheduled(cron = "0 0 8 * * *", zone = "Asia/Kolkata")
-    public void sendPaymentDueReminders() {
-        LocalDate target = LocalDate.now().plusDays(3);
-        logger.info("NotificationTriggerService: scanning payment schedules due on {}", target);
-        try {
-            List<Object[]> upcoming = paymentScheduleRepository.findDueOn(target);
-            for (Object[] row : upcoming) {
-                sendPaymentDueReminderForRow(row);
-            }
-        } catch (Exception e) {
-            logger.error("PaymentDueReminder job failed: {}", e.getMessage(), e);
-        }
-    }
-
-    /**
-     * Sends a single payment-due reminder for one query row. Never throws —
-     * a failure on one row must not abort the rest of the batch.
-     */
-    private void sendPaymentDueReminderForRow(Object[] row) {
-        try {
-            Long customerId = ((Number) row[0]).longValue();
-            Long scheduleId = ((Number) row[1]).longValue();
-            String description = (String) row[2];
-            java.math.BigDecimal amount = (java.math.BigDecimal) row[3];
-            Long projectId = row[4] != null ? ((Number) row[4]).longValue() : null;
-
-            customerUserRepository.findById(customerId).ifPresent(user -> {
-                String title = "Payment Due in 3 Days";
-                String body = String.format("₹%.0f due for: %s", amount, description);
-                saveAndPush(user, projectId, scheduleId, "PAYMENT_DUE", title, body);
-            });
-        } catch (Exception e) {
-            logger.warn("Failed to send payment-due reminder for row: {}", e.getMessage());
-        }
+        this.pushOutbox = pushOutbox;
+        this.eventBus = eventBus;
     }
 
     // ─── Triggered: Query Replied ─────────────────────────────────────────────────
@@ -165,13 +125,14 @@ public class NotificationTriggerService {
         notification.setReferenceId(referenceId);
         notificationRepository.save(notification);
 
-        // 2. Fire-and-forget FCM push (skip silently if no token)
-        if (user.getFcmToken() != null && !user.getFcmToken().isBlank()) {
-            pushNotificationService.sendToToken(user.getFcmToken(), title, body,
-                    java.util.Map.of("notificationType", notificationType));
-        }
+        // 2. Queue the push; the outbox resolves the user's devices (none → skipped)
+        pushOutbox.enqueue(user.getId(), new NotificationPayload(projectId, referenceId, title, body,
+                notificationType, Map.of("notificationType", notificationType)));
+
+        // 3. Wake the user's open event streams
+        eventBus.notificationsAdded(List.of(user.getId()));
 
-        logger.debug("Notification [{}] sent to user {} (project {})", notificationType,
+        logger.debug("Notification [{}] queued for user {} (project {})", notificationType,
                 user.getId(), projectId);
     }
 }
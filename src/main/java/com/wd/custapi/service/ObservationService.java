@@ -22,6 +22,7 @@ public class ObservationService {
         private final FileStorageService fileStorageService;
         private final ActivityFeedService activityFeedService;
         private final NotificationTriggerService notificationTriggerService;
+        private final ProjectTimelineService projectTimelineService;
 
         public ObservationService(ObservationRepository observationRepository,
                         ProjectRepository projectRepository,
@@ -29,7 +30,8 @@ public class ObservationService {
                         StaffRoleRepository staffRoleRepository,
                         FileStorageService fileStorageService,
                         ActivityFeedService activityFeedService,
-                        NotificationTriggerService notificationTriggerService) {
+                        NotificationTriggerService notificationTriggerService,
+                        ProjectTimelineService projectTimelineService) {
                 this.observationRepository = observationRepository;
                 this.projectRepository = projectRepository;
                 this.userRepository = userRepository;
@@ -37,6 +39,7 @@ public class ObservationService {
                 this.fileStorageService = fileStorageService;
                 this.activityFeedService = activityFeedService;
                 this.notificationTriggerService = notificationTriggerService;
+                this.projectTimelineService = projectTimelineService;
         }
 
         @Transactional
@@ -73,6 +76,7 @@ public class ObservationService {
                 // Create activity feed
                 activityFeedService.createActivity(projectId, "OBSERVATION_ADDED",
                                 "Observation added: " + request.title(), observation.getId(), userId);
+                projectTimelineService.record(observation);
 
                 return toDto(observation);
         }
@@ -98,6 +102,7 @@ public class ObservationService {
                 // Create activity feed
                 activityFeedService.createActivity(observation.getProject().getId(), "OBSERVATION_RESOLVED",
                                 "Observation resolved: " + observation.getTitle(), observation.getId(), userId);
+                projectTimelineService.record(observation);
 
                 // Notify the customer who reported the observation (fire-and-forget — never throws)
                 notificationTriggerService.notifyObservationResolved(
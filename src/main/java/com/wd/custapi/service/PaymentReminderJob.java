@@ -0,0 +1,281 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.service.NotificationFanoutService.Delivery;
+import com.wd.custapi.service.NotificationFanoutService.NotificationPayload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Daily payment reminders: three days before a schedule's due date, on the
+ * due date, and once when it is overdue (up to {@code overdue-window-days} back).
+ *
+ * <p>One pass per run:
+ * <ol>
+ *   <li>A single query joins open schedules with their project members and
+ *       works out the reminder kind, skipping anything already in
+ *       {@code payment_reminder_ledger}. It is read through a server-side
+ *       cursor ({@code chunk-size} rows per fetch), so memory stays flat
+ *       however many projects are active.</li>
+ *   <li>Every {@code chunk-size} rows, in their own transaction: the chunk is
+ *       claimed in the ledger ({@code ON CONFLICT DO NOTHING RETURNING}), and
+ *       only the claimed rows are batch-inserted as notifications and queued in
+ *       {@link PushOutbox}. The outbox sends each distinct message to all of its
+ *       recipients' devices with one multicast.</li>
+ * </ol>
+ * A rerun after a crash, or the same cron firing on another node, finds the
+ * committed chunks in the ledger and does not notify twice. Ledger rows older
+ * than the overdue window can no longer match and are purged at the end of a run.
+ *
+ * <p>Metric: {@code payment.reminders} (tag kind). Disable with
+ * {@code app.payments.reminders.enabled=false}.
+ */
+@Component
+public class PaymentReminderJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReminderJob.class);
+
+    static final ZoneId ZONE = ZoneId.of("Asia/Kolkata");
+    static final String NOTIFICATION_TYPE = "PAYMENT_DUE";
+    private static final int LEAD_DAYS = 3;
+
+    /** Which reminder a due row gets; the ledger keys on it. */
+    enum ReminderKind {
+        T_MINUS_3("Payment Due in 3 Days", "₹%.0f due for: %s"),
+        DUE_TODAY("Payment Due Today", "₹%.0f due today for: %s"),
+        OVERDUE("Payment Overdue", "₹%.0f overdue for: %s");
+
+        final String title;
+        final String bodyFormat;
+
+        ReminderKind(String title, String bodyFormat) {
+            this.title = title;
+            this.bodyFormat = bodyFormat;
+        }
+    }
+
+    // Parameters: t-3 date, today (kind); lower bound, t-3 date (range);
+    // t-3 date, today (upcoming); today (overdue)
+    private static final String DUE_SQL = """
+            WITH due AS (
+                SELECT pm.customer_user_id, ps.id AS schedule_id, ps.description, ps.amount,
+                       ps.due_date, p.id AS project_id,
+                       CASE WHEN ps.due_date = ? THEN 'T_MINUS_3'
+                            WHEN ps.due_date = ? THEN 'DUE_TODAY'
+                            ELSE 'OVERDUE' END AS reminder_kind
+                FROM payment_schedule ps
+                JOIN design_package_payments dpp ON dpp.id = ps.design_payment_id
+                JOIN customer_projects p ON p.id = dpp.project_id
+                JOIN project_members pm ON pm.project_id = p.id
+                WHERE ps.due_date BETWEEN ? AND ?
+                  AND ps.deleted_at IS NULL
+                  AND p.deleted_at IS NULL
+                  AND pm.customer_user_id IS NOT NULL
+                  AND ((ps.due_date IN (?, ?) AND UPPER(ps.status) IN ('PENDING', 'UPCOMING'))
+                    OR (ps.due_date < ? AND UPPER(ps.status) IN ('PENDING', 'UPCOMING', 'OVERDUE')))
+            )
+            SELECT d.* FROM due d
+            WHERE NOT EXISTS (
+                SELECT 1 FROM payment_reminder_ledger l
+                WHERE l.schedule_id = d.schedule_id
+                  AND l.customer_user_id = d.customer_user_id
+                  AND l.reminder_kind = d.reminder_kind
+                  AND l.due_date = d.due_date)
+            ORDER BY d.schedule_id, d.customer_user_id
+            """;
+
+    private static final String CLAIM_SQL = """
+            INSERT INTO payment_reminder_ledger (schedule_id, customer_user_id, reminder_kind, due_date)
+            SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::varchar[], ?::date[])
+            ON CONFLICT DO NOTHING
+            RETURNING schedule_id, customer_user_id, reminder_kind
+            """;
+
+    private static final String PURGE_SQL = "DELETE FROM payment_reminder_ledger WHERE due_date < ?";
+
+    private final JdbcTemplate jdbc;
+    private final NotificationFanoutService fanoutService;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate chunkTransaction;
+    private final Map<ReminderKind, Counter> sentCounters = new EnumMap<>(ReminderKind.class);
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int overdueWindowDays;
+
+    public PaymentReminderJob(JdbcTemplate jdbc,
+                              NotificationFanoutService fanoutService,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.payments.reminders.enabled:true}") boolean enabled,
+                              @Value("${app.payments.reminders.chunk-size:500}") int chunkSize,
+                              @Value("${app.payments.reminders.overdue-window-days:30}") int overdueWindowDays) {
+        this.jdbc = jdbc;
+        this.fanoutService = fanoutService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.overdueWindowDays = overdueWindowDays;
+        for (ReminderKind kind : ReminderKind.values()) {
+            sentCounters.put(kind, Counter.builder("payment.reminders")
+                    .description("Payment reminders written, per recipient")
+                    .tag("kind", kind.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    /** Daily at 08:00 IST. Never throws — a failed run is picked up by the next one. */
+    @Scheduled(cron = "${app.payments.reminders.cron:0 0 8 * * *}", zone = "Asia/Kolkata")
+    public void sendReminders() {
+        if (!enabled) return;
+        try {
+            int sent = run(LocalDate.now(ZONE));
+            log.info("Payment reminder job: {} reminder(s) sent", sent);
+        } catch (RuntimeException e) {
+            log.error("Payment reminder job failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /** One pass for {@code today}; returns how many reminders were written. */
+    int run(LocalDate today) {
+        LocalDate leadDate = today.plusDays(LEAD_DAYS);
+        LocalDate oldestOverdue = today.minusDays(overdueWindowDays);
+        List<DueReminder> chunk = new ArrayList<>(chunkSize);
+        int[] sent = {0};
+
+        // The cursor needs a transaction (autocommit off) for the fetch size to stream
+        readTransaction.executeWithoutResult(status -> jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(DUE_SQL);
+            ps.setFetchSize(chunkSize);
+            ps.setDate(1, Date.valueOf(leadDate));
+            ps.setDate(2, Date.valueOf(today));
+            ps.setDate(3, Date.valueOf(oldestOverdue));
+            ps.setDate(4, Date.valueOf(leadDate));
+            ps.setDate(5, Date.valueOf(leadDate));
+            ps.setDate(6, Date.valueOf(today));
+            ps.setDate(7, Date.valueOf(today));
+            return ps;
+        }, rs -> {
+            chunk.add(DueReminder.from(rs));
+            if (chunk.size() >= chunkSize) {
+                sent[0] += flush(chunk);
+                chunk.clear();
+            }
+        }));
+        sent[0] += flush(chunk);
+
+        jdbc.update(PURGE_SQL, Date.valueOf(oldestOverdue));
+        return sent[0];
+    }
+
+    /**
+     * Claims {@code chunk} in the ledger and delivers what was claimed, in one
+     * transaction. Never throws: a failed chunk rolls back its claims and is
+     * retried by the next run.
+     */
+    private int flush(List<DueReminder> chunk) {
+        if (chunk.isEmpty()) return 0;
+        try {
+            List<DueReminder> delivered = chunkTransaction.execute(status -> {
+                Set<ReminderKey> claimed = claim(chunk);
+                List<DueReminder> fresh = new ArrayList<>(claimed.size());
+                List<Delivery> deliveries = new ArrayList<>(claimed.size());
+                for (DueReminder r : chunk) {
+                    if (claimed.contains(r.key())) {
+                        fresh.add(r);
+                        deliveries.add(new Delivery(r.customerUserId(), r.payload()));
+                    }
+                }
+                fanoutService.fanOut(deliveries);
+                return fresh;
+            });
+            if (delivered == null) return 0;
+            delivered.forEach(r -> sentCounters.get(r.kind()).increment());
+            return delivered.size();
+        } catch (RuntimeException e) {
+            log.warn("Payment reminder chunk of {} failed, retried next run: {}", chunk.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /** Inserts the chunk's ledger rows; returns the ones no earlier run (or other node) had. */
+    private Set<ReminderKey> claim(List<DueReminder> chunk) {
+        Long[] scheduleIds = new Long[chunk.size()];
+        Long[] userIds = new Long[chunk.size()];
+        String[] kinds = new String[chunk.size()];
+        Date[] dueDates = new Date[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            DueReminder r = chunk.get(i);
+            scheduleIds[i] = r.scheduleId();
+            userIds[i] = r.customerUserId();
+            kinds[i] = r.kind().name();
+            dueDates[i] = Date.valueOf(r.dueDate());
+        }
+        List<ReminderKey> rows = jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(CLAIM_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", scheduleIds));
+            ps.setArray(2, con.createArrayOf("bigint", userIds));
+            ps.setArray(3, con.createArrayOf("varchar", kinds));
+            ps.setArray(4, con.createArrayOf("date", dueDates));
+            return ps;
+        }, (rs, n) -> new ReminderKey(rs.getLong("schedule_id"), rs.getLong("customer_user_id"),
+                ReminderKind.valueOf(rs.getString("reminder_kind"))));
+        return new HashSet<>(rows);
+    }
+
+    record ReminderKey(long scheduleId, long customerUserId, ReminderKind kind) {}
+
+    /** One recipient of one reminder, as read from the cursor. */
+    record DueReminder(long customerUserId, long scheduleId, String description, BigDecimal amount,
+                       LocalDate dueDate, Long projectId, ReminderKind kind) {
+
+        static DueReminder from(ResultSet rs) throws SQLException {
+            return new DueReminder(
+                    rs.getLong("customer_user_id"),
+                    rs.getLong("schedule_id"),
+                    rs.getString("description"),
+                    rs.getBigDecimal("amount"),
+                    rs.getDate("due_date").toLocalDate(),
+                    rs.getLong("project_id"),
+                    ReminderKind.valueOf(rs.getString("reminder_kind")));
+        }
+
+        ReminderKey key() {
+            return new ReminderKey(scheduleId, customerUserId, kind);
+        }
+
+        /** Same for every member of the project, so the outbox multicasts it once. */
+        NotificationPayload payload() {
+            String body = String.format(kind.bodyFormat, amount, description);
+            return new NotificationPayload(projectId, scheduleId, kind.title, body, NOTIFICATION_TYPE, Map.of(
+                    "notificationType", NOTIFICATION_TYPE,
+                    "reminderKind", kind.name(),
+                    "referenceId", String.valueOf(scheduleId),
+                    "deepLink", "payments"));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.wd.custapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.wd.custapi.config.CacheConfig;
+import com.wd.custapi.exception.CustomerApiException;
+import com.wd.custapi.model.Project;
+import com.wd.custapi.repository.CustomerUserRepository;
+import com.wd.custapi.repository.ProjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Resolves "may this user open this project, and with which role" once and
+ * serves repeat lookups from bounded Caffeine caches.
+ *
+ * <p>The customer app fans out 6–10 module calls per screen. Each of them used to
+ * re-run the DISTINCT membership join in
+ * {@link ProjectRepository#findByProjectUuidAndCustomerEmail} plus one or two
+ * {@code customer_users} lookups for the admin check and role gate. Entries are
+ * keyed by (email, projectUuid) so access to one project never answers for another;
+ * failed lookups are never cached.
+ *
+ * <p>Membership lives in the portal-owned {@code project_members} table, so this
+ * service cannot observe every change. Entries carry a short TTL
+ * ({@code app.project-access.cache-ttl}) and are evicted explicitly on
+ * project-scoped portal webhooks and local project edits. Hit/miss counts are
+ * published by Actuator as {@code cache.gets{cache=projectAccess|userRoles}}.
+ *
+ * <p>Cached {@link Project} instances are detached and shared between requests —
+ * callers must treat them as read-only (every current caller already does;
+ * writes go through {@link ProjectRepository}).
+ */
+@Service
+public class ProjectAccessService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectAccessService.class);
+
+    public static final String PROJECT_ACCESS_CACHE = "projectAccess";
+    public static final String USER_ROLE_CACHE = "userRoles";
+    public static final String USER_PROJECT_IDS_CACHE = "userProjectIds";
+
+    private static final String ROLE_VIEWER = "VIEWER";
+    private static final String ROLE_ADMIN = "ADMIN";
+
+    /**
+     * An authorized project together with the caller's business role
+     * (e.g. "CUSTOMER", "ARCHITECT", "VIEWER").
+     */
+    public record ProjectAccess(Project project, String role) {
+
+        public Long projectId() {
+            return project.getId();
+        }
+
+        public boolean hasAnyRole(String... roles) {
+            return Arrays.stream(roles).anyMatch(r -> r.equalsIgnoreCase(role));
+        }
+    }
+
+    private record AccessKey(String email, UUID projectUuid) {}
+
+    private final ProjectRepository projectRepository;
+    private final CustomerUserRepository customerUserRepository;
+    private final Cache<Object, Object> accessCache;
+    private final Cache<Object, Object> roleCache;
+    private final Cache<Object, Object> projectIdsCache;
+
+    public ProjectAccessService(ProjectRepository projectRepository,
+                                CustomerUserRepository customerUserRepository,
+                                CacheManager cacheManager) {
+        this.projectRepository = projectRepository;
+        this.customerUserRepository = customerUserRepository;
+        this.accessCache = nativeCache(cacheManager, PROJECT_ACCESS_CACHE);
+        this.roleCache = nativeCache(cacheManager, USER_ROLE_CACHE);
+        this.projectIdsCache = nativeCache(cacheManager, USER_PROJECT_IDS_CACHE);
+    }
+
+    /**
+     * Resolve project by UUID for the given user (admins bypass membership).
+     * Concurrent misses for the same key are coalesced into one query.
+     *
+     * @throws CustomerApiException if the UUID is malformed or the user has no access
+     */
+    public ProjectAccess resolve(String projectUuidStr, String email) {
+        UUID projectUuid;
+        try {
+            projectUuid = UUID.fromString(projectUuidStr);
+        } catch (IllegalArgumentException e) {
+            throw new CustomerApiException("Invalid project UUID format: " + projectUuidStr);
+        }
+        String role = roleOf(email);
+        AccessKey accessKey = new AccessKey(email, projectUuid);
+        Project project = (Project) CacheConfig.get(accessCache, accessKey,
+                key -> ROLE_ADMIN.equalsIgnoreCase(role)
+                        ? projectRepository.findByProjectUuid(projectUuid)
+                        : projectRepository.findByProjectUuidAndCustomerEmail(projectUuid, email));
+        if (project == null) {
+            accessCache.invalidate(accessKey); // see CacheConfig: drop the empty load now, not on completion
+            throw new CustomerApiException("Project not found or access denied");
+        }
+        return new ProjectAccess(project, role);
+    }
+
+    /**
+     * Whether the user may open the project with this id (admins may open any).
+     * Answers from the user's cached accessible-project-id set, so checking many
+     * ids for one user — e.g. a gallery of storage files — costs one query per TTL.
+     */
+    public boolean canAccess(String email, Long projectId) {
+        if (projectId == null) return false;
+        return isAdmin(email) || memberProjectIds(email).contains(projectId);
+    }
+
+    /** Whether the user is an admin, who may open every project. */
+    public boolean isAdmin(String email) {
+        return ROLE_ADMIN.equalsIgnoreCase(roleOf(email));
+    }
+
+    /** Ids of the projects the user is a member of (not all projects for admins); cached. */
+    @SuppressWarnings("unchecked")
+    public Set<Long> memberProjectIds(String email) {
+        return (Set<Long>) CacheConfig.get(projectIdsCache, email,
+                key -> Set.copyOf(projectRepository.findIdsByCustomerEmail(email)));
+    }
+
+    /**
+     * Returns the business role name for a customer user.
+     * Falls back to "VIEWER" (uncached) if the user or role is not found.
+     */
+    public String roleOf(String email) {
+        String role = (String) CacheConfig.get(roleCache, email, key -> customerUserRepository.findByEmail(email)
+                .map(u -> u.getRole() != null ? u.getRole().getName() : null)
+                .orElse(null));
+        if (role == null) {
+            roleCache.invalidate(email);
+            return ROLE_VIEWER;
+        }
+        return role;
+    }
+
+    /** Drops the cached role and every project grant for one user. */
+    public void evictUser(String email) {
+        if (email == null) return;
+        roleCache.invalidate(email);
+        projectIdsCache.invalidate(email);
+        accessCache.asMap().keySet().removeIf(k -> k instanceof AccessKey a && a.email().equals(email));
+    }
+
+    /** Drops every cached grant for one project, e.g. after a membership or detail change. */
+    public void evictProject(Long projectId) {
+        if (projectId == null) return;
+        boolean removed = accessCache.asMap().values()
+                .removeIf(v -> v instanceof Project p && projectId.equals(p.getId()));
+        removed |= projectIdsCache.asMap().values()
+                .removeIf(v -> v instanceof Set<?> ids && ids.contains(projectId));
+        if (removed) {
+            logger.debug("Evicted cached project access for project {}", projectId);
+        }
+    }
+
+    /**
+     * Membership of a project changed. Besides {@link #evictProject}, every
+     * cached id set is dropped: a user who just <em>gained</em> access has a set
+     * without this project, and the event does not say which user that is.
+     */
+    public void evictMembership(Long projectId) {
+        evictProject(projectId);
+        projectIdsCache.invalidateAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (cache == null || !(cache.getNativeCache() instanceof Cache<?, ?>)) {
+            throw new IllegalStateException("Caffeine cache '" + name + "' is not configured — see CacheConfig");
+        }
+        return (Cache<Object, Object>) cache.getNativeCache();
+    }
+}
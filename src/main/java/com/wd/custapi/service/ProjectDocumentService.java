@@ -20,19 +20,22 @@ public class ProjectDocumentService {
     private final CustomerUserRepository userRepository;
     private final FileStorageService fileStorageService;
     private final ActivityFeedService activityFeedService;
+    private final StorageOwnershipIndex storageOwnershipIndex;
 
     public ProjectDocumentService(ProjectDocumentRepository documentRepository,
                                   ProjectRepository projectRepository,
                                   DocumentCategoryRepository categoryRepository,
                                   CustomerUserRepository userRepository,
                                   FileStorageService fileStorageService,
-                                  ActivityFeedService activityFeedService) {
+                                  ActivityFeedService activityFeedService,
+                                  StorageOwnershipIndex storageOwnershipIndex) {
         this.documentRepository = documentRepository;
         this.projectRepository = projectRepository;
         this.categoryRepository = categoryRepository;
         this.userRepository = userRepository;
         this.fileStorageService = fileStorageService;
         this.activityFeedService = activityFeedService;
+        this.storageOwnershipIndex = storageOwnershipIndex;
     }
 
     @Transactional
@@ -64,6 +67,7 @@ public class ProjectDocumentService {
         document.setDescription(request.description());
 
         document = documentRepository.save(document);
+        storageOwnershipIndex.evictPath(filePath);
 
         activityFeedService.createActivity(projectId, "DOCUMENT_UPLOADED",
                 "Document uploaded: " + file.getOriginalFilename(), null, userId);
@@ -0,0 +1,132 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.ProjectTimelineBuild;
+import com.wd.custapi.repository.ProjectTimelineBuildRepository;
+import com.wd.custapi.repository.ProjectTimelineEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the materialised project timeline complete and correct:
+ * <ol>
+ *   <li><b>Backfill</b> — builds up to {@code app.timeline.backfill-batch-size}
+ *       projects that have never been materialised per run, so the first customer
+ *       read rarely pays for the build.</li>
+ *   <li><b>Consistency check</b> — for built projects whose source tables were
+ *       written since their last build or check (the version the V1018 triggers
+ *       bump), compares each entry's source hash with its row and rebuilds on any
+ *       mismatch. Untouched projects cost nothing.</li>
+ * </ol>
+ * Each run holds a Postgres advisory lock, so one node runs the job at a time
+ * and the others skip that run. Disable with {@code app.timeline.job-enabled=false}.
+ */
+@Component
+public class ProjectTimelineJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectTimelineJob.class);
+
+    private static final String LOCK_KEY = "project_timeline_job";
+
+    private final ProjectTimelineService timelineService;
+    private final ProjectTimelineBuildRepository buildRepository;
+    private final ProjectTimelineEntryRepository entryRepository;
+    private final JdbcTemplate jdbc;
+    private final boolean enabled;
+    private final int backfillBatchSize;
+
+    public ProjectTimelineJob(ProjectTimelineService timelineService,
+                              ProjectTimelineBuildRepository buildRepository,
+                              ProjectTimelineEntryRepository entryRepository,
+                              JdbcTemplate jdbc,
+                              @Value("${app.timeline.job-enabled:true}") boolean enabled,
+                              @Value("${app.timeline.backfill-batch-size:50}") int backfillBatchSize) {
+        this.timelineService = timelineService;
+        this.buildRepository = buildRepository;
+        this.entryRepository = entryRepository;
+        this.jdbc = jdbc;
+        this.enabled = enabled;
+        this.backfillBatchSize = backfillBatchSize;
+    }
+
+    @Scheduled(initialDelayString = "${app.timeline.job-initial-delay-ms:60000}",
+               fixedDelayString = "${app.timeline.job-interval-ms:900000}")
+    public void run() {
+        if (!enabled) return;
+        // Session lock on a connection held for the run; the work itself uses others
+        jdbc.execute((ConnectionCallback<Void>) conn -> {
+            try (PreparedStatement lock = conn.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+                lock.setString(1, LOCK_KEY);
+                try (ResultSet rs = lock.executeQuery()) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        log.debug("Project timeline job is running on another node, skipping this run");
+                        return null;
+                    }
+                }
+            }
+            try {
+                int built = backfill();
+                int repaired = repairDrift();
+                if (built > 0 || repaired > 0) {
+                    log.info("Project timeline job: backfilled {} project(s), repaired {}", built, repaired);
+                }
+            } finally {
+                try (PreparedStatement unlock = conn.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+                    unlock.setString(1, LOCK_KEY);
+                    unlock.execute();
+                }
+            }
+            return null;
+        });
+    }
+
+    /** Builds one batch of never-materialised projects; returns how many succeeded. */
+    int backfill() {
+        return rebuildAll(buildRepository.findUnbuiltProjectIds(backfillBatchSize), "backfill");
+    }
+
+    /**
+     * Checks every built project changed since its last build or check; rebuilds
+     * the drifted ones and marks the rest checked. Returns how many were rebuilt.
+     */
+    int repairDrift() {
+        List<Long> drifted = new ArrayList<>();
+        for (ProjectTimelineBuild build : buildRepository.findChanged()) {
+            Long projectId = build.getProjectId();
+            try {
+                // Version read before the comparison: a write during it keeps the project changed
+                if (entryRepository.hasDrifted(projectId)) {
+                    drifted.add(projectId);
+                } else {
+                    buildRepository.markChecked(projectId, build.getSourceVersion());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Timeline drift check failed for project {}: {}", projectId, e.getMessage());
+            }
+        }
+        return rebuildAll(drifted, "drift repair");
+    }
+
+    private int rebuildAll(List<Long> projectIds, String reason) {
+        int rebuilt = 0;
+        for (Long projectId : projectIds) {
+            try {
+                timelineService.rebuildProject(projectId);
+                rebuilt++;
+            } catch (RuntimeException e) {
+                // Another instance (or a first read) may be building it — retried next run
+                log.warn("Timeline {} failed for project {}: {}", reason, projectId, e.getMessage());
+            }
+        }
+        return rebuilt;
+    }
+}
@@ -0,0 +1,267 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.*;
+import com.wd.custapi.repository.ProjectTimelineBuildRepository;
+import com.wd.custapi.repository.ProjectTimelineEntryRepository;
+import com.wd.custapi.repository.SiteReportRepository;
+import com.wd.custapi.service.ActivityFeedService.CombinedActivityItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Materialised per-project activity timeline ({@code project_timeline_entries}).
+ *
+ * <p>The combined feed used to be assembled from five tables and sorted in memory
+ * on every read. Here each project's feed is built once from
+ * {@link ActivityFeedService#getCombinedActivityFeed} and then kept current:
+ * <ul>
+ *   <li>Customer writes (observations, quality checks, gallery uploads, site
+ *       visits) and portal site-report webhooks upsert their row after commit.</li>
+ *   <li>A project is built on its first read, or by {@link ProjectTimelineJob}'s
+ *       backfill; {@code project_timeline_builds} records which projects are built.</li>
+ *   <li>Every entry carries a hash of its source row, refreshed with each write.
+ *       {@link ProjectTimelineJob} rebuilds projects whose source rows no longer
+ *       match — rows the portal writes straight to the shared DB send no event.</li>
+ * </ul>
+ * Timeline writes never fail the caller's write: errors are logged and left to
+ * the consistency job.
+ */
+@Service
+public class ProjectTimelineService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectTimelineService.class);
+
+    private final ProjectTimelineEntryRepository entryRepository;
+    private final ProjectTimelineBuildRepository buildRepository;
+    private final ActivityFeedService activityFeedService;
+    private final SiteReportRepository siteReportRepository;
+    private final TransactionTemplate requiresNew;
+
+    public ProjectTimelineService(ProjectTimelineEntryRepository entryRepository,
+                                  ProjectTimelineBuildRepository buildRepository,
+                                  ActivityFeedService activityFeedService,
+                                  SiteReportRepository siteReportRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.entryRepository = entryRepository;
+        this.buildRepository = buildRepository;
+        this.activityFeedService = activityFeedService;
+        this.siteReportRepository = siteReportRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // ── Reads ───────────────────────────────────────────────────────────────
+
+    /** Combined feed, newest first, from the materialised timeline. */
+    public List<CombinedActivityItem> getTimeline(Long projectId) {
+        if (!ensureBuilt(projectId)) {
+            return activityFeedService.getCombinedActivityFeed(projectId);
+        }
+        return entryRepository.findByProjectIdOrderByOccurredAtDescSourceIdDesc(projectId).stream()
+            .map(ProjectTimelineService::toItem)
+            .toList();
+    }
+
+    /** Combined feed for one source type ({@code null}, empty or ALL for everything). */
+    public List<CombinedActivityItem> getTimelineByType(Long projectId, String type) {
+        if (type == null || type.isEmpty() || type.equalsIgnoreCase("ALL")) {
+            return getTimeline(projectId);
+        }
+        if (!ensureBuilt(projectId)) {
+            return activityFeedService.getCombinedActivityFeedByType(projectId, type);
+        }
+        return entryRepository.findByProjectIdAndSourceTypeOrderByOccurredAtDescSourceIdDesc(
+                projectId, type.toUpperCase(Locale.ROOT)).stream()
+            .map(ProjectTimelineService::toItem)
+            .toList();
+    }
+
+    public Map<LocalDate, List<CombinedActivityItem>> getTimelineGroupedByDate(Long projectId) {
+        return getTimeline(projectId).stream()
+            .collect(Collectors.groupingBy(
+                CombinedActivityItem::date,
+                LinkedHashMap::new,
+                Collectors.toList()
+            ));
+    }
+
+    /**
+     * Builds the project on first read. If that fails (usually a concurrent first
+     * read building the same project) the caller serves the live feed this once.
+     */
+    private boolean ensureBuilt(Long projectId) {
+        if (buildRepository.existsById(projectId)) {
+            return true;
+        }
+        try {
+            rebuildProject(projectId);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Timeline build for project {} failed, serving live feed: {}", projectId, e.getMessage());
+            return false;
+        }
+    }
+
+    // ── Rebuild / backfill ──────────────────────────────────────────────────
+
+    /**
+     * Replaces a project's timeline with a fresh projection of its source tables
+     * and marks it built. Runs in its own transaction.
+     *
+     * @return number of timeline rows written
+     */
+    public int rebuildProject(Long projectId) {
+        Integer written = requiresNew.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<ProjectTimelineBuild> existing = buildRepository.findById(projectId);
+            // Taken before the read, like the hashes: a change in between leaves the
+            // project changed and its entry mismatched, so the next run repairs it.
+            // A first build stays unchecked, as writes before its row existed bumped nothing.
+            Long version = existing.map(ProjectTimelineBuild::getSourceVersion).orElse(null);
+            ProjectTimelineBuild build = existing.orElseGet(() -> new ProjectTimelineBuild(projectId, now));
+            Map<String, Long> hashes = new HashMap<>();
+            for (ProjectTimelineEntryRepository.SourceRowHash h : entryRepository.findSourceRowHashes(projectId)) {
+                hashes.put(h.getSourceType() + ":" + h.getSourceId(), h.getHash());
+            }
+            List<CombinedActivityItem> items = activityFeedService.getCombinedActivityFeed(projectId);
+            entryRepository.deleteByProjectId(projectId);
+            List<ProjectTimelineEntry> rows = new ArrayList<>(items.size());
+            for (CombinedActivityItem item : items) {
+                ProjectTimelineEntry entry = apply(new ProjectTimelineEntry(), projectId, item);
+                entry.setSourceHash(hashes.get(item.type() + ":" + item.id()));
+                rows.add(entry);
+            }
+            entryRepository.saveAll(rows);
+            build.setBuiltAt(now);
+            build.setCheckedVersion(version);
+            buildRepository.save(build);
+            return rows.size();
+        });
+        log.debug("Rebuilt timeline for project {} ({} entries)", projectId, written);
+        return written == null ? 0 : written;
+    }
+
+    // ── Incremental writes ──────────────────────────────────────────────────
+
+    public void record(Observation observation) {
+        upsertAfterCommit(observation.getProject().getId(), activityFeedService.toActivityItem(observation));
+    }
+
+    public void record(QualityCheck qualityCheck) {
+        upsertAfterCommit(qualityCheck.getProject().getId(), activityFeedService.toActivityItem(qualityCheck));
+    }
+
+    public void record(GalleryImage image) {
+        upsertAfterCommit(image.getProject().getId(), activityFeedService.toActivityItem(image));
+    }
+
+    public void record(SiteVisit visit) {
+        upsertAfterCommit(visit.getProject().getId(), activityFeedService.toActivityItem(visit));
+    }
+
+    /** Drafts are not part of the feed, so a report moved back to DRAFT is removed. */
+    public void record(SiteReport report) {
+        if (report.getStatus() != null && "DRAFT".equalsIgnoreCase(report.getStatus())) {
+            removeAfterCommit("SITE_REPORT", report.getId());
+        } else {
+            upsertAfterCommit(report.getProject().getId(), activityFeedService.toActivityItem(report));
+        }
+    }
+
+    /** Portal webhook: re-reads a site report the portal created, changed or deleted. */
+    public void refreshSiteReport(Long siteReportId) {
+        if (siteReportId == null) {
+            return;
+        }
+        siteReportRepository.findById(siteReportId).ifPresentOrElse(
+            this::record,
+            () -> removeAfterCommit("SITE_REPORT", siteReportId));
+    }
+
+    /**
+     * The item is mapped now, while the caller's session can still resolve lazy
+     * author names; the row is written once the caller commits, so a rolled-back
+     * write never reaches the timeline.
+     */
+    private void upsertAfterCommit(Long projectId, CombinedActivityItem item) {
+        afterCommit(() -> requiresNew.executeWithoutResult(status -> {
+            // Unbuilt projects are projected from the sources on first read anyway
+            if (!buildRepository.existsById(projectId)) {
+                return;
+            }
+            ProjectTimelineEntry entry = entryRepository
+                .findBySourceTypeAndSourceId(item.type(), item.id())
+                .orElseGet(ProjectTimelineEntry::new);
+            apply(entry, projectId, item);
+            entry.setSourceHash(entryRepository.findSourceRowHash(item.type(), item.id()));
+            entryRepository.save(entry);
+        }), item.type(), item.id());
+    }
+
+    private void removeAfterCommit(String sourceType, Long sourceId) {
+        afterCommit(() -> requiresNew.executeWithoutResult(
+            status -> entryRepository.deleteBySource(sourceType, sourceId)), sourceType, sourceId);
+    }
+
+    private static void afterCommit(Runnable write, String sourceType, Long sourceId) {
+        Runnable guarded = () -> {
+            try {
+                write.run();
+            } catch (RuntimeException e) {
+                log.warn("Timeline write for {} {} failed, left to the consistency job: {}",
+                    sourceType, sourceId, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+
+    // ── Mapping ─────────────────────────────────────────────────────────────
+
+    private static ProjectTimelineEntry apply(ProjectTimelineEntry entry, Long projectId, CombinedActivityItem item) {
+        entry.setProjectId(projectId);
+        entry.setSourceType(item.type());
+        entry.setSourceId(item.id());
+        entry.setOccurredAt(item.timestamp());
+        entry.setActivityDate(item.date());
+        entry.setTitle(item.title());
+        entry.setDescription(item.description());
+        entry.setStatus(item.status());
+        entry.setCreatedByName(item.createdByName());
+        entry.setMetadata(item.metadata());
+        return entry;
+    }
+
+    private static CombinedActivityItem toItem(ProjectTimelineEntry entry) {
+        return new CombinedActivityItem(
+            entry.getSourceId(),
+            entry.getSourceType(),
+            entry.getTitle(),
+            entry.getDescription(),
+            entry.getOccurredAt(),
+            entry.getActivityDate(),
+            entry.getStatus(),
+            entry.getCreatedByName(),
+            entry.getMetadata() != null ? entry.getMetadata() : new HashMap<>()
+        );
+    }
+}
@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -16,10 +17,16 @@ import java.util.Map;
  *  - Fire-and-forget: exceptions are caught and logged; never propagated.
  *    Push notifications must NEVER break core business operations.
  *  - No-op when Firebase is not initialised (service account file absent).
- *  - sendToTokens uses MulticastMessage (max 500 tokens per call per FCM limit).
+ *  - sendToTokens uses MulticastMessage (max 500 tokens per call per FCM limit)
+ *    and reports per-token failures from the BatchResponse, so callers can
+ *    retry transient errors and drop tokens FCM no longer recognises. A failed
+ *    call is reported for every token of the chunk, marked as a whole-call
+ *    failure so no token is dropped for it.
+ *  - Notification pushes go through {@link PushOutbox}, which calls sendToTokens
+ *    from its dispatcher; sendToToken remains for direct single-device sends.
  */
 @Service
-public class PushNotificationService {
+public class PushNotificationService implements PushSender {
 
     private static final Logger logger = LoggerFactory.getLogger(PushNotificationService.class);
     private static final int FCM_MULTICAST_LIMIT = 500;
@@ -52,24 +59,33 @@ public class PushNotificationService {
     /**
      * Send a push notification to multiple device tokens (batch).
      * Automatically partitions into chunks of 500 to respect FCM limits.
+     *
+     * @return delivery counts and the tokens that failed, with FCM's error code;
+     *         empty when nothing was sent
      */
-    public void sendToTokens(List<String> tokens, String title, String body, Map<String, String> data) {
-        if (!isFirebaseReady() || tokens == null || tokens.isEmpty()) return;
+    @Override
+    public MulticastResult sendToTokens(List<String> tokens, String title, String body, Map<String, String> data) {
+        if (!isFirebaseReady() || tokens == null || tokens.isEmpty()) return MulticastResult.EMPTY;
 
         List<String> validTokens = tokens.stream()
                 .filter(t -> t != null && !t.isBlank())
                 .distinct()
                 .toList();
 
-        if (validTokens.isEmpty()) return;
+        if (validTokens.isEmpty()) return MulticastResult.EMPTY;
 
+        int successCount = 0;
+        List<TokenFailure> failures = new ArrayList<>();
         for (int i = 0; i < validTokens.size(); i += FCM_MULTICAST_LIMIT) {
             List<String> chunk = validTokens.subList(i, Math.min(i + FCM_MULTICAST_LIMIT, validTokens.size()));
-            sendMulticast(chunk, title, body, data);
+            successCount += sendMulticast(chunk, title, body, data, failures);
         }
+        return new MulticastResult(successCount, List.copyOf(failures));
     }
 
-    private void sendMulticast(List<String> tokens, String title, String body, Map<String, String> data) {
+    /** Sends one chunk; returns its success count and adds its failed tokens to {@code failures}. */
+    private int sendMulticast(List<String> tokens, String title, String body, Map<String, String> data,
+                              List<TokenFailure> failures) {
         try {
             MulticastMessage.Builder builder = MulticastMessage.builder()
                     .addAllTokens(tokens)
@@ -83,13 +99,42 @@ public class PushNotificationService {
             BatchResponse response = FirebaseMessaging.getInstance().sendEachForMulticast(builder.build());
             logger.debug("FCM multicast — successCount={} failureCount={}",
                     response.getSuccessCount(), response.getFailureCount());
+            if (response.getFailureCount() > 0) {
+                // Responses are in the same order as the tokens in the message
+                List<SendResponse> responses = response.getResponses();
+                for (int i = 0; i < responses.size() && i < tokens.size(); i++) {
+                    SendResponse r = responses.get(i);
+                    if (!r.isSuccessful()) {
+                        FirebaseMessagingException ex = r.getException();
+                        failures.add(new TokenFailure(tokens.get(i),
+                                ex != null ? ex.getMessagingErrorCode() : null,
+                                ex != null ? ex.getMessage() : null));
+                    }
+                }
+            }
+            return response.getSuccessCount();
         } catch (FirebaseMessagingException e) {
             logger.warn("FCM multicast send failed (customer): {}", e.getMessage());
+            failAll(tokens, e.getMessagingErrorCode(), e.getMessage(), failures);
         } catch (Exception e) {
             logger.error("Unexpected error in FCM multicast (customer): {}", e.getMessage());
+            failAll(tokens, null, e.getMessage(), failures);
+        }
+        return 0;
+    }
+
+    private static void failAll(List<String> tokens, MessagingErrorCode code, String message,
+                                List<TokenFailure> failures) {
+        for (String token : tokens) {
+            failures.add(new TokenFailure(token, code, message, true));
         }
     }
 
+    @Override
+    public boolean isAvailable() {
+        return isFirebaseReady();
+    }
+
     private boolean isFirebaseReady() {
         try {
             return !FirebaseApp.getApps().isEmpty();
@@ -0,0 +1,331 @@
+package com.wd.custapi.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wd.custapi.model.PushOutboxMessage;
+import com.wd.custapi.repository.PushOutboxRepository;
+import com.wd.custapi.service.NotificationFanoutService.Delivery;
+import com.wd.custapi.service.NotificationFanoutService.NotificationPayload;
+import com.wd.custapi.service.PushSender.MulticastResult;
+import com.wd.custapi.service.PushSender.TokenFailure;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Push notification outbox, backed by {@code push_outbox}.
+ *
+ * <ol>
+ *   <li>{@link #enqueue} batch-inserts one PENDING row per recipient in the
+ *       caller's transaction — a push goes out only if the notification it
+ *       announces was committed, and never on the request thread.</li>
+ *   <li>{@link #drain} claims due rows with {@code FOR UPDATE SKIP LOCKED},
+ *       marks them IN_FLIGHT and commits, so no pooled connection is held
+ *       while FCM answers. It then resolves every recipient's devices from
+ *       {@link DeviceTokenService}, sends each distinct payload to all of its
+ *       devices with one multicast per 500 tokens, and records the outcomes in
+ *       a second short transaction.</li>
+ *   <li>A row is SENT once any of its devices accepts it. If every device
+ *       failed transiently it is retried after {@code retry-backoff} (growing
+ *       per attempt) up to {@code max-attempts}; otherwise it is FAILED. Tokens
+ *       FCM reports as UNREGISTERED, INVALID_ARGUMENT or SENDER_ID_MISMATCH are
+ *       pruned from the device registry — only on FCM's answer for that token,
+ *       never for an error of the whole multicast call.</li>
+ * </ol>
+ * IN_FLIGHT rows whose claim is older than {@code claim-timeout} (the node
+ * died mid-send) are returned to PENDING by {@link #releaseStaleClaims}; their
+ * push may then go out twice. Rows older than {@code retention} are purged
+ * nightly, delivered or not.
+ *
+ * <p>Metrics, tagged by notification type: {@code push.delivery} (result =
+ * sent / failed / retry / no_device — the sent share is the success rate) and
+ * {@code push.delivery.latency} (enqueue to FCM acceptance); plus
+ * {@code push.tokens.pruned}.
+ *
+ * <p>While Firebase is not configured ({@link PushSender#isAvailable()}) rows
+ * wait; disable the dispatcher on a node with {@code app.push.outbox.enabled=false}.
+ */
+@Component
+public class PushOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(PushOutbox.class);
+
+    private static final int MAX_BATCHES_PER_DRAIN = 20;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO push_outbox
+                (customer_user_id, notification_type, title, body, data_json, status, attempt_count, next_attempt_at, created_at)
+            VALUES (?, ?, ?, ?, ?, 'PENDING', 0, ?, ?)
+            """;
+
+    private final PushOutboxRepository outboxRepository;
+    private final DeviceTokenService deviceTokenService;
+    private final PushSender pushSender;
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration retention;
+    private final Duration claimTimeout;
+
+    private final Counter tokensPruned;
+
+    public PushOutbox(PushOutboxRepository outboxRepository,
+                      DeviceTokenService deviceTokenService,
+                      PushSender pushSender,
+                      JdbcTemplate jdbc,
+                      ObjectMapper objectMapper,
+                      PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry,
+                      @Value("${app.push.outbox.enabled:true}") boolean enabled,
+                      @Value("${app.push.outbox.batch-size:500}") int batchSize,
+                      @Value("${app.push.outbox.max-attempts:5}") int maxAttempts,
+                      @Value("${app.push.outbox.retry-backoff:PT1M}") Duration retryBackoff,
+                      @Value("${app.push.outbox.retention:P7D}") Duration retention,
+                      @Value("${app.push.outbox.claim-timeout:PT5M}") Duration claimTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.deviceTokenService = deviceTokenService;
+        this.pushSender = pushSender;
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.retention = retention;
+        this.claimTimeout = claimTimeout;
+
+        this.tokensPruned = Counter.builder("push.tokens.pruned")
+                .description("FCM device tokens removed after FCM rejected them for good")
+                .register(meterRegistry);
+    }
+
+    /** Queues {@code payload} for one customer. */
+    public void enqueue(Long customerUserId, NotificationPayload payload) {
+        enqueue(List.of(new Delivery(customerUserId, payload)));
+    }
+
+    /** Queues a push per delivery, in one JDBC batch. */
+    public void enqueue(List<Delivery> rows) {
+        if (rows.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<NotificationPayload, String> dataJson = new HashMap<>();
+        jdbc.batchUpdate(INSERT_SQL, rows, NotificationFanoutService.INSERT_BATCH_SIZE, (ps, r) -> {
+            NotificationPayload p = r.payload();
+            ps.setObject(1, r.customerUserId(), Types.BIGINT);
+            ps.setString(2, p.notificationType());
+            ps.setString(3, p.title());
+            ps.setString(4, p.body());
+            ps.setString(5, dataJson.computeIfAbsent(p, this::writeData));
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+        });
+    }
+
+    /** Sends due pushes until the outbox is empty, a bounded number of batches per run. */
+    @Scheduled(initialDelayString = "${app.push.outbox.initial-delay-ms:15000}",
+               fixedDelayString = "${app.push.outbox.poll-interval-ms:2000}")
+    public void drain() {
+        if (!enabled || !pushSender.isAvailable()) return;
+        for (int i = 0; i < MAX_BATCHES_PER_DRAIN; i++) {
+            if (dispatchBatch() < batchSize) return;
+        }
+    }
+
+    /** Claims, sends and records one batch; returns its size. */
+    int dispatchBatch() {
+        List<PushOutboxMessage> batch = claimBatch();
+        if (batch.isEmpty()) return 0;
+        Set<String> stale = dispatch(batch);
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxRepository.saveAll(batch);
+            if (!stale.isEmpty()) {
+                tokensPruned.increment(deviceTokenService.prune(stale));
+            }
+        });
+        return batch.size();
+    }
+
+    /** Marks up to {@code batch-size} due rows IN_FLIGHT, in a transaction of its own. */
+    private List<PushOutboxMessage> claimBatch() {
+        List<PushOutboxMessage> claimed = transactionTemplate.execute(status -> {
+            List<PushOutboxMessage> batch = outboxRepository.lockDueBatch(LocalDateTime.now(), batchSize);
+            LocalDateTime now = LocalDateTime.now();
+            for (PushOutboxMessage m : batch) {
+                m.setStatus(PushOutboxMessage.STATUS_IN_FLIGHT);
+                m.setClaimedAt(now);
+            }
+            outboxRepository.saveAll(batch);
+            return batch;
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    private record PayloadKey(String notificationType, String title, String body, String dataJson) {
+        static PayloadKey of(PushOutboxMessage m) {
+            return new PayloadKey(m.getNotificationType(), m.getTitle(), m.getBody(), m.getDataJson());
+        }
+    }
+
+    /** Sends a claimed batch and sets each row's outcome; returns the tokens to prune. */
+    private Set<String> dispatch(List<PushOutboxMessage> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, List<String>> tokensByUser = deviceTokenService.tokensByUser(
+                batch.stream().map(PushOutboxMessage::getCustomerUserId).collect(Collectors.toSet()));
+
+        Map<PayloadKey, List<PushOutboxMessage>> groups = new LinkedHashMap<>();
+        for (PushOutboxMessage m : batch) {
+            m.setClaimedAt(null);
+            if (tokensByUser.getOrDefault(m.getCustomerUserId(), List.of()).isEmpty()) {
+                m.setStatus(PushOutboxMessage.STATUS_NO_DEVICE);
+                count(m, "no_device");
+                continue;
+            }
+            groups.computeIfAbsent(PayloadKey.of(m), k -> new ArrayList<>()).add(m);
+        }
+
+        Set<String> stale = new LinkedHashSet<>();
+        groups.forEach((key, messages) -> {
+            List<String> tokens = messages.stream()
+                    .flatMap(m -> tokensByUser.get(m.getCustomerUserId()).stream())
+                    .toList();
+            MulticastResult result = pushSender.sendToTokens(tokens, key.title(), key.body(), readData(key.dataJson()));
+            Map<String, TokenFailure> failed = result.failures().stream()
+                    .collect(Collectors.toMap(TokenFailure::token, f -> f, (a, b) -> a));
+            for (PushOutboxMessage m : messages) {
+                applyOutcome(m, tokensByUser.get(m.getCustomerUserId()), failed, stale, now);
+            }
+        });
+
+        return stale;
+    }
+
+    private void applyOutcome(PushOutboxMessage m, List<String> tokens, Map<String, TokenFailure> failed,
+                              Set<String> stale, LocalDateTime now) {
+        boolean delivered = false;
+        boolean retryable = false;
+        TokenFailure lastFailure = null;
+        for (String token : tokens) {
+            TokenFailure f = failed.get(token);
+            if (f == null) {
+                delivered = true;
+                continue;
+            }
+            lastFailure = f;
+            if (f.isStale()) stale.add(token);
+            else if (f.isTransient()) retryable = true;
+        }
+
+        if (delivered) {
+            m.setStatus(PushOutboxMessage.STATUS_SENT);
+            m.setSentAt(now);
+            count(m, "sent");
+            latency(m).record(Duration.between(m.getCreatedAt(), now));
+            return;
+        }
+        m.setAttemptCount(m.getAttemptCount() + 1);
+        m.setLastError(describe(lastFailure));
+        if (retryable && m.getAttemptCount() < maxAttempts) {
+            m.setStatus(PushOutboxMessage.STATUS_PENDING);
+            m.setNextAttemptAt(now.plus(retryBackoff.multipliedBy(m.getAttemptCount())));
+            count(m, "retry");
+        } else {
+            m.setStatus(PushOutboxMessage.STATUS_FAILED);
+            count(m, "failed");
+            log.warn("Push outbox id={} type={} failed after {} attempt(s): {}",
+                    m.getId(), m.getNotificationType(), m.getAttemptCount(), m.getLastError());
+        }
+    }
+
+    private static String describe(TokenFailure f) {
+        if (f == null) return null;
+        String text = f.errorCode() + ": " + f.message();
+        return text.length() > MAX_ERROR_LENGTH ? text.substring(0, MAX_ERROR_LENGTH) : text;
+    }
+
+    private void count(PushOutboxMessage m, String result) {
+        Counter.builder("push.delivery")
+                .description("Outbox pushes by notification type and result")
+                .tag("type", typeTag(m))
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer latency(PushOutboxMessage m) {
+        return Timer.builder("push.delivery.latency")
+                .description("Time from enqueueing a push to FCM accepting it")
+                .tag("type", typeTag(m))
+                .register(meterRegistry);
+    }
+
+    private static String typeTag(PushOutboxMessage m) {
+        return m.getNotificationType() != null ? m.getNotificationType() : "GENERAL";
+    }
+
+    private String writeData(NotificationPayload payload) {
+        try {
+            return objectMapper.writeValueAsString(payload.data());
+        } catch (Exception e) {
+            return "{}";
+        }
+    }
+
+    private Map<String, String> readData(String json) {
+        if (json == null || json.isBlank()) return Map.of();
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, String>>() {});
+        } catch (Exception e) {
+            log.warn("Unreadable push outbox data '{}': {}", json, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.push.outbox.stale-sweep-interval-ms:60000}")
+    public void releaseStaleClaims() {
+        if (!enabled) return;
+        Integer released = transactionTemplate.execute(status ->
+                outboxRepository.releaseStaleClaims(LocalDateTime.now().minus(claimTimeout)));
+        if (released != null && released > 0) {
+            log.warn("Returned {} stale push outbox claim(s) to the queue", released);
+        }
+    }
+
+    @Scheduled(cron = "${app.push.outbox.purge-cron:0 30 3 * * *}", zone = "Asia/Kolkata")
+    public void purge() {
+        if (!enabled) return;
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} push outbox row(s) older than {}", deleted, retention);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.wd.custapi.service;
+
+import com.google.firebase.messaging.MessagingErrorCode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multicast push transport used by {@link PushOutbox}. Production uses
+ * {@link PushNotificationService} (Firebase); tests substitute a fake.
+ */
+public interface PushSender {
+
+    /** False when pushes cannot be sent at all (Firebase not configured); the outbox then waits. */
+    boolean isAvailable();
+
+    /**
+     * Sends one notification to every token, in as few FCM calls as the
+     * multicast limit allows.
+     */
+    MulticastResult sendToTokens(List<String> tokens, String title, String body, Map<String, String> data);
+
+    /** How many devices accepted the message, and which tokens failed. */
+    record MulticastResult(int successCount, List<TokenFailure> failures) {
+        public static final MulticastResult EMPTY = new MulticastResult(0, List.of());
+    }
+
+    /**
+     * A token FCM did not deliver to. {@code errorCode} is null when FCM gave none.
+     * {@code wholeCall} is set when the multicast call itself failed: the error
+     * then says nothing about this token.
+     */
+    record TokenFailure(String token, MessagingErrorCode errorCode, String message, boolean wholeCall) {
+
+        /** A failure FCM reported for this token alone. */
+        public TokenFailure(String token, MessagingErrorCode errorCode, String message) {
+            this(token, errorCode, message, false);
+        }
+
+        /**
+         * FCM will never accept this token again — the app was uninstalled, the
+         * token rotated or is malformed, or it belongs to another sender. Only a
+         * per-token verdict counts: a call rejected for a bad payload or a wrong
+         * project config carries the same codes for every token in it.
+         */
+        public boolean isStale() {
+            return !wholeCall
+                    && (errorCode == MessagingErrorCode.UNREGISTERED
+                        || errorCode == MessagingErrorCode.INVALID_ARGUMENT
+                        || errorCode == MessagingErrorCode.SENDER_ID_MISMATCH);
+        }
+
+        /**
+         * Worth another attempt: FCM was unavailable, failed internally or
+         * throttled the project, or the call failed without an FCM error (network).
+         */
+        public boolean isTransient() {
+            return errorCode == MessagingErrorCode.UNAVAILABLE
+                    || errorCode == MessagingErrorCode.INTERNAL
+                    || errorCode == MessagingErrorCode.QUOTA_EXCEEDED
+                    || (wholeCall && errorCode == null);
+        }
+    }
+}
@@ -16,15 +16,18 @@ public class QualityCheckService {
     private final ProjectRepository projectRepository;
     private final CustomerUserRepository userRepository;
     private final ActivityFeedService activityFeedService;
+    private final ProjectTimelineService projectTimelineService;
     
     public QualityCheckService(QualityCheckRepository qualityCheckRepository,
                                ProjectRepository projectRepository,
                                CustomerUserRepository userRepository,
-                               ActivityFeedService activityFeedService) {
+                               ActivityFeedService activityFeedService,
+                               ProjectTimelineService projectTimelineService) {
         this.qualityCheckRepository = qualityCheckRepository;
         this.projectRepository = projectRepository;
         this.userRepository = userRepository;
         this.activityFeedService = activityFeedService;
+        this.projectTimelineService = projectTimelineService;
     }
     
     @Transactional
@@ -54,6 +57,7 @@ public class QualityCheckService {
         // Create activity feed
         activityFeedService.createActivity(projectId, "QUALITY_CHECK_ADDED", 
             "Quality check added: " + request.title(), qc.getId(), userId);
+        projectTimelineService.record(qc);
         
         return toDto(qc);
     }
@@ -76,6 +80,7 @@ public class QualityCheckService {
         // Create activity feed
         activityFeedService.createActivity(qc.getProject().getId(), "QUALITY_CHECK_RESOLVED", 
             "Quality check resolved: " + qc.getTitle(), qc.getId(), userId);
+        projectTimelineService.record(qc);
         
         return toDto(qc);
     }
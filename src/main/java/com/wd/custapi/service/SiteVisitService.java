@@ -32,19 +32,22 @@ public class SiteVisitService {
     private final StaffRoleRepository staffRoleRepository;
     private final ActivityFeedService activityFeedService;
     private final PortalUserLookup portalUserLookup;
+    private final ProjectTimelineService projectTimelineService;
 
     public SiteVisitService(SiteVisitRepository siteVisitRepository,
             ProjectRepository projectRepository,
             CustomerUserRepository userRepository,
             StaffRoleRepository staffRoleRepository,
             ActivityFeedService activityFeedService,
-            PortalUserLookup portalUserLookup) {
+            PortalUserLookup portalUserLookup,
+            ProjectTimelineService projectTimelineService) {
         this.siteVisitRepository = siteVisitRepository;
         this.projectRepository = projectRepository;
         this.userRepository = userRepository;
         this.staffRoleRepository = staffRoleRepository;
         this.activityFeedService = activityFeedService;
         this.portalUserLookup = portalUserLookup;
+        this.projectTimelineService = projectTimelineService;
     }
 
     @Transactional
@@ -116,6 +119,7 @@ public class SiteVisitService {
         // Create activity feed
         activityFeedService.createActivity(projectId, "SITE_VISIT_LOGGED",
                 "Site visit started", visit.getId(), userId);
+        projectTimelineService.record(visit);
 
         return toDto(visit);
     }
@@ -167,6 +171,7 @@ public class SiteVisitService {
         }
 
         visit = siteVisitRepository.save(visit);
+        projectTimelineService.record(visit);
         return toDto(visit);
     }
 
@@ -0,0 +1,105 @@
+package com.wd.custapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.wd.custapi.repository.ProjectDocumentRepository;
+import com.wd.custapi.repository.SiteReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lazily populated storage-path → owning-project-ids index for
+ * {@code /api/storage/**} authorization.
+ *
+ * <p>A file is owned by a project if (a) a PROJECT-scoped {@code project_documents}
+ * row points at it, or (b) it is a site-report photo stored under
+ * {@code site-reports/<reportId>/…} whose report belongs to the project. Both
+ * lookups used to run on every download; a gallery of 60 thumbnails cost
+ * 120–180 queries. Combined with {@link ProjectAccessService#canAccess} a warm
+ * download is authorized without touching the database.
+ *
+ * <p>Only non-empty owner sets are cached, so a freshly uploaded file is
+ * visible immediately. Entries are dropped on local document uploads
+ * ({@link #evictPath}) and on portal DOCUMENT_UPLOADED / SITE_REPORT_SUBMITTED
+ * webhooks ({@link #evictProject}); the TTL ({@code app.storage.ownership-cache-ttl})
+ * bounds anything else, e.g. a hard-deleted document row.
+ */
+@Service
+public class StorageOwnershipIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageOwnershipIndex.class);
+
+    public static final String CACHE_NAME = "storagePathOwners";
+
+    private static final Pattern SITE_REPORT_PATH = Pattern.compile("^site-reports/(\\d+)/.+");
+
+    private final ProjectDocumentRepository projectDocumentRepository;
+    private final SiteReportRepository siteReportRepository;
+    private final Cache<Object, Object> cache;
+
+    @SuppressWarnings("unchecked")
+    public StorageOwnershipIndex(ProjectDocumentRepository projectDocumentRepository,
+                                 SiteReportRepository siteReportRepository,
+                                 CacheManager cacheManager) {
+        this.projectDocumentRepository = projectDocumentRepository;
+        this.siteReportRepository = siteReportRepository;
+        org.springframework.cache.Cache springCache = cacheManager.getCache(CACHE_NAME);
+        if (springCache == null || !(springCache.getNativeCache() instanceof Cache<?, ?>)) {
+            throw new IllegalStateException("Caffeine cache '" + CACHE_NAME + "' is not configured — see CacheConfig");
+        }
+        this.cache = (Cache<Object, Object>) springCache.getNativeCache();
+    }
+
+    /**
+     * Ids of the projects that own the storage-relative {@code path}; empty if the
+     * file is not linked to any project.
+     */
+    @SuppressWarnings("unchecked")
+    public Set<Long> ownerProjectIds(String path) {
+        Set<Long> owners = (Set<Long>) cache.getIfPresent(path);
+        if (owners != null) {
+            return owners;
+        }
+        owners = load(path);
+        if (!owners.isEmpty()) {
+            cache.put(path, owners);
+        }
+        return owners;
+    }
+
+    /** Drops the entry for one path, e.g. after a document row was written for it. */
+    public void evictPath(String path) {
+        if (path != null) {
+            cache.invalidate(path);
+        }
+    }
+
+    /** Drops every path owned by the project, e.g. after the portal added or removed files. */
+    public void evictProject(Long projectId) {
+        if (projectId == null) return;
+        boolean removed = cache.asMap().values()
+                .removeIf(v -> v instanceof Set<?> owners && owners.contains(projectId));
+        if (removed) {
+            logger.debug("Evicted storage ownership entries for project {}", projectId);
+        }
+    }
+
+    private Set<Long> load(String path) {
+        Set<Long> owners = new HashSet<>(projectDocumentRepository.findProjectIdsByFilePath(path));
+        Matcher m = SITE_REPORT_PATH.matcher(path);
+        if (m.matches()) {
+            try {
+                siteReportRepository.findProjectIdById(Long.parseLong(m.group(1))).ifPresent(owners::add);
+            } catch (NumberFormatException tooLong) {
+                // not a real report id — no site-report owner
+            }
+        }
+        return Set.copyOf(owners);
+    }
+}
@@ -0,0 +1,62 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.ReceivedWebhookEvent;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for webhook dead letters — events that used up their retries.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/webhookdeadletters} — count plus the newest 50
+ *       (id, type, attempts, last error; payloads are not exposed).</li>
+ *   <li>{@code POST /actuator/webhookdeadletters} with {@code {"id": 123}} replays
+ *       one event; with an empty body replays all of them.</li>
+ * </ul>
+ * Restricted to internal IPs in {@code SecurityConfig}.
+ */
+@Component
+@Endpoint(id = "webhookdeadletters")
+public class WebhookDeadLetterEndpoint {
+
+    private static final int LIST_LIMIT = 50;
+
+    private final WebhookRetryScheduler retryScheduler;
+
+    public WebhookDeadLetterEndpoint(WebhookRetryScheduler retryScheduler) {
+        this.retryScheduler = retryScheduler;
+    }
+
+    @ReadOperation
+    public Map<String, Object> deadLetters() {
+        List<Map<String, Object>> events = retryScheduler.deadLetters(LIST_LIMIT).stream()
+                .map(WebhookDeadLetterEndpoint::summary)
+                .toList();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("total", retryScheduler.deadLetterCount());
+        body.put("events", events);
+        return body;
+    }
+
+    @WriteOperation
+    public Map<String, Object> replay(@Nullable Long id) {
+        return Map.of("replayed", retryScheduler.replay(id));
+    }
+
+    private static Map<String, Object> summary(ReceivedWebhookEvent e) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", e.getId());
+        m.put("eventType", e.getEventType());
+        m.put("attempts", e.getAttemptCount());
+        m.put("error", e.getErrorMessage());
+        m.put("receivedAt", e.getReceivedAt());
+        return m;
+    }
+}
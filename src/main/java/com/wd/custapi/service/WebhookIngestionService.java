@@ -3,151 +3,144 @@ package com.wd.custapi.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wd.custapi.dto.PortalEventType;
 import com.wd.custapi.dto.PortalWebhookEvent;
-import com.wd.custapi.model.CustomerNotification;
 import com.wd.custapi.model.CustomerUser;
 import com.wd.custapi.model.ReceivedWebhookEvent;
-import com.wd.custapi.repository.CustomerNotificationRepository;
 import com.wd.custapi.repository.CustomerUserRepository;
 import com.wd.custapi.repository.ReceivedWebhookEventRepository;
+import com.wd.custapi.security.AuthenticatedPrincipalCache;
+import com.wd.custapi.service.NotificationFanoutService.NotificationPayload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Processes inbound Portal API webhook events and converts them into
- * CustomerNotification records + Firebase push notifications.
+ * CustomerNotification records + Firebase push notifications, delivered to all
+ * recipients at once by {@link NotificationFanoutService}.
  *
- * All processing is async so the HTTP response to the Portal API
- * returns immediately (decoupled from processing latency).
- *
- * Events are tracked in {@code received_webhook_events}. Failed events
- * are retried by {@link #retryFailedEvents()} every 10 minutes (max 3 attempts).
+ * Events arrive through {@link WebhookQueue}, which persists them as PENDING
+ * rows in {@code received_webhook_events} before the HTTP response to the Portal
+ * API and feeds claimed rows to {@link #processQueued}. Failed events are
+ * rescheduled with backoff by {@link WebhookRetryScheduler}.
  */
 @Service
 public class WebhookIngestionService {
 
     private static final Logger log = LoggerFactory.getLogger(WebhookIngestionService.class);
-    private static final int MAX_RETRY_ATTEMPTS = 3;
 
-    private final CustomerNotificationRepository notificationRepository;
+    private final NotificationFanoutService fanoutService;
     private final CustomerUserRepository userRepository;
-    private final PushNotificationService pushNotificationService;
     private final ReceivedWebhookEventRepository webhookEventRepository;
     private final ObjectMapper objectMapper;
+    private final ProjectAccessService projectAccessService;
+    private final AuthenticatedPrincipalCache principalCache;
+    private final StorageOwnershipIndex storageOwnershipIndex;
+    private final ProjectTimelineService projectTimelineService;
+    private final DashboardCache dashboardCache;
+    private final WebhookRetryScheduler retryScheduler;
+    private final CustomerEventBus eventBus;
+    private final TransactionTemplate transactionTemplate;
 
-    public WebhookIngestionService(CustomerNotificationRepository notificationRepository,
+    public WebhookIngestionService(NotificationFanoutService fanoutService,
                                    CustomerUserRepository userRepository,
-                                   PushNotificationService pushNotificationService,
                                    ReceivedWebhookEventRepository webhookEventRepository,
-                                   ObjectMapper objectMapper) {
-        this.notificationRepository = notificationRepository;
+                                   ObjectMapper objectMapper,
+                                   ProjectAccessService projectAccessService,
+                                   AuthenticatedPrincipalCache principalCache,
+                                   StorageOwnershipIndex storageOwnershipIndex,
+                                   ProjectTimelineService projectTimelineService,
+                                   DashboardCache dashboardCache,
+                                   WebhookRetryScheduler retryScheduler,
+                                   CustomerEventBus eventBus,
+                                   PlatformTransactionManager transactionManager) {
+        this.fanoutService = fanoutService;
         this.userRepository = userRepository;
-        this.pushNotificationService = pushNotificationService;
         this.webhookEventRepository = webhookEventRepository;
         this.objectMapper = objectMapper;
+        this.projectAccessService = projectAccessService;
+        this.principalCache = principalCache;
+        this.storageOwnershipIndex = storageOwnershipIndex;
+        this.projectTimelineService = projectTimelineService;
+        this.dashboardCache = dashboardCache;
+        this.retryScheduler = retryScheduler;
+        this.eventBus = eventBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Async
-    @Transactional
-    public void process(PortalWebhookEvent event) {
-        // Persist event record with PROCESSING status before any work
-        ReceivedWebhookEvent webhookRecord = new ReceivedWebhookEvent();
-        webhookRecord.setEventType(event.eventType() != null ? event.eventType().name() : "UNKNOWN");
-        webhookRecord.setStatus(ReceivedWebhookEvent.STATUS_PROCESSING);
-        try {
-            webhookRecord.setPayload(objectMapper.writeValueAsString(event));
-        } catch (Exception ex) {
-            webhookRecord.setPayload("{}");
-        }
-        webhookRecord = webhookEventRepository.save(webhookRecord);
-
+    /**
+     * Processes one event claimed by {@link WebhookQueue} and records the outcome
+     * on its row. The event's writes commit together with the PROCESSED status;
+     * on failure they roll back and FAILED (with its next attempt) or DEAD is
+     * written in a separate transaction.
+     *
+     * @return {@code true} if the event ended PROCESSED
+     */
+    public boolean processQueued(ReceivedWebhookEvent webhookRecord) {
         try {
-            log.info("Processing portal webhook event: type={} projectId={} referenceId={}",
-                    event.eventType(), event.projectId(), event.referenceId());
-
-            doProcess(event);
-
-            webhookRecord.setStatus(ReceivedWebhookEvent.STATUS_PROCESSED);
-            webhookRecord.setProcessedAt(LocalDateTime.now());
-            webhookEventRepository.save(webhookRecord);
+            PortalWebhookEvent event = objectMapper.readValue(webhookRecord.getPayload(), PortalWebhookEvent.class);
+            log.info("Processing portal webhook event id={} type={} projectId={} referenceId={}",
+                    webhookRecord.getId(), event.eventType(), event.projectId(), event.referenceId());
 
+            transactionTemplate.executeWithoutResult(status -> {
+                doProcess(event);
+                webhookRecord.setStatus(ReceivedWebhookEvent.STATUS_PROCESSED);
+                webhookRecord.setProcessedAt(LocalDateTime.now());
+                webhookEventRepository.save(webhookRecord);
+            });
+            return true;
         } catch (Exception e) {
-            // Never propagate — webhook processing must not affect portal API response
-            log.error("Error processing portal webhook event type={}: {}", event.eventType(), e.getMessage(), e);
+            log.error("Error processing portal webhook event id={} type={}: {}",
+                    webhookRecord.getId(), webhookRecord.getEventType(), e.getMessage(), e);
             webhookRecord.setStatus(ReceivedWebhookEvent.STATUS_FAILED);
             webhookRecord.setErrorMessage(e.getMessage());
-            webhookEventRepository.save(webhookRecord);
-        }
-    }
-
-    /**
-     * Retries FAILED webhook events every 10 minutes.
-     * Abandons events that have already been attempted {@value MAX_RETRY_ATTEMPTS} times
-     * by marking them FAILED permanently (error message is prefixed with "[ABANDONED]").
-     */
-    @Scheduled(fixedDelay = 600_000)
-    @Transactional
-    public void retryFailedEvents() {
-        List<ReceivedWebhookEvent> failedEvents =
-                webhookEventRepository.findByStatus(ReceivedWebhookEvent.STATUS_FAILED);
-
-        if (failedEvents.isEmpty()) return;
-
-        log.info("Retrying {} failed webhook event(s)", failedEvents.size());
-
-        for (ReceivedWebhookEvent failedRecord : failedEvents) {
-            int attempt = failedRecord.getAttemptCount() + 1;
-
-            if (attempt > MAX_RETRY_ATTEMPTS) {
-                log.warn("Abandoning webhook event id={} type={} after {} attempts",
-                        failedRecord.getId(), failedRecord.getEventType(), MAX_RETRY_ATTEMPTS);
-                failedRecord.setErrorMessage("[ABANDONED after " + MAX_RETRY_ATTEMPTS + " attempts] " + failedRecord.getErrorMessage());
-                webhookEventRepository.save(failedRecord);
-                continue;
-            }
-
-            failedRecord.setAttemptCount(attempt);
-            failedRecord.setStatus(ReceivedWebhookEvent.STATUS_PROCESSING);
-            webhookEventRepository.save(failedRecord);
-
-            try {
-                PortalWebhookEvent event = objectMapper.readValue(failedRecord.getPayload(), PortalWebhookEvent.class);
-                doProcess(event);
-
-                failedRecord.setStatus(ReceivedWebhookEvent.STATUS_PROCESSED);
-                failedRecord.setProcessedAt(LocalDateTime.now());
-                log.info("Successfully retried webhook event id={} type={} on attempt {}",
-                        failedRecord.getId(), failedRecord.getEventType(), attempt);
-            } catch (Exception e) {
-                log.error("Retry attempt {} failed for webhook event id={} type={}: {}",
-                        attempt, failedRecord.getId(), failedRecord.getEventType(), e.getMessage(), e);
-                failedRecord.setStatus(ReceivedWebhookEvent.STATUS_FAILED);
-                failedRecord.setErrorMessage(e.getMessage());
-            }
-
-            webhookEventRepository.save(failedRecord);
+            retryScheduler.scheduleRetry(webhookRecord);
+            transactionTemplate.executeWithoutResult(status -> webhookEventRepository.save(webhookRecord));
+            return false;
         }
     }
 
     // ── Core processing logic ────────────────────────────────────────────────
 
     private void doProcess(PortalWebhookEvent event) {
+        // Any project-scoped portal write may have changed membership or the
+        // project row itself — drop cached grants before notifying anyone.
+        if (event.eventType() == PortalEventType.PROJECT_MEMBERSHIP_CHANGED) {
+            projectAccessService.evictMembership(event.projectId());
+            dashboardCache.evictAll();
+            eventBus.projectChanged(event.projectId(), event.eventType().name());
+            return;
+        }
+        projectAccessService.evictProject(event.projectId());
+        dashboardCache.evictProject(event.projectId());
+        // Open app screens of the project refresh on this, with or without a notification
+        eventBus.projectChanged(event.projectId(), event.eventType() != null ? event.eventType().name() : null);
+        if (event.eventType() == PortalEventType.DOCUMENT_UPLOADED
+                || event.eventType() == PortalEventType.SITE_REPORT_SUBMITTED) {
+            storageOwnershipIndex.evictProject(event.projectId());
+        }
+        if (event.eventType() == PortalEventType.SITE_REPORT_SUBMITTED) {
+            projectTimelineService.refreshSiteReport(event.referenceId());
+        }
+        if (event.eventType() == PortalEventType.CUSTOMER_ACCOUNT_UPDATED) {
+            evictCustomer(event.customerId());
+            return;
+        }
+
         String title = resolveTitle(event.eventType(), event.metadata());
         String body  = resolveBody(event, title);
         String notifType = resolveNotifType(event.eventType());
 
         List<CustomerUser> recipients = resolveRecipients(event);
-        for (CustomerUser user : recipients) {
-            saveNotification(user, event.projectId(), event.referenceId(), title, body, notifType);
-            pushIfTokenPresent(user, title, body, event.eventType(), event.referenceId(), notifType);
-        }
+        if (recipients.isEmpty()) return;
+        fanoutService.fanOut(recipients, new NotificationPayload(event.projectId(), event.referenceId(),
+                title, body, notifType, pushData(event.eventType(), event.referenceId(), notifType)));
     }
 
     /**
@@ -176,6 +169,23 @@ public class WebhookIngestionService {
         return event.summary() != null ? event.summary() : title;
     }
 
+    /**
+     * Drops the cached JWT principal, project grants and dashboard for an account changed
+     * by the portal, so a disabled user is rejected on their next request
+     * rather than when the principal cache TTL runs out.
+     */
+    private void evictCustomer(Long customerId) {
+        if (customerId == null) {
+            log.warn("CUSTOMER_ACCOUNT_UPDATED webhook without customerId — ignored");
+            return;
+        }
+        userRepository.findById(customerId).ifPresent(user -> {
+            principalCache.evict(user.getEmail());
+            projectAccessService.evictUser(user.getEmail());
+            dashboardCache.evictUser(user.getEmail());
+        });
+    }
+
     private List<CustomerUser> resolveRecipients(PortalWebhookEvent event) {
         if (event.customerId() != null) {
             return userRepository.findById(event.customerId()).map(List::of).orElse(List.of());
@@ -187,25 +197,9 @@ public class WebhookIngestionService {
         return List.of();
     }
 
-    private void saveNotification(CustomerUser user, Long projectId, Long referenceId,
-                                   String title, String body, String notifType) {
-        CustomerNotification notification = new CustomerNotification();
-        notification.setCustomerUser(user);
-        notification.setProjectId(projectId);
-        notification.setReferenceId(referenceId);
-        notification.setTitle(title);
-        notification.setBody(body);
-        notification.setNotificationType(notifType);
-        notification.setRead(false);
-        notificationRepository.save(notification);
-    }
-
     @SuppressWarnings("java:S125") // explanatory prose comments, not commented-out code
-    private void pushIfTokenPresent(CustomerUser user, String title, String body,
-                                     PortalEventType eventType, Long referenceId,
-                                     String resolvedNotifType) {
-        if (user.getFcmToken() == null || user.getFcmToken().isBlank()) return;
-        java.util.Map<String, String> data = new java.util.HashMap<>();
+    private Map<String, String> pushData(PortalEventType eventType, Long referenceId, String resolvedNotifType) {
+        Map<String, String> data = new HashMap<>();
         // 'type' = the customer-app's switch key in NotificationService._handleTap.
         // For PAYMENT_MILESTONE_DUE we want the customer-app to match a literal
         // "PAYMENT_MILESTONE_DUE", so we use the event-type name when available;
@@ -216,7 +210,7 @@ public class WebhookIngestionService {
         if (eventType == PortalEventType.PAYMENT_MILESTONE_DUE) {
             data.put("deepLink", "payments");
         }
-        pushNotificationService.sendToToken(user.getFcmToken(), title, body, data);
+        return data;
     }
 
     /**
@@ -228,7 +222,7 @@ public class WebhookIngestionService {
      * (Jackson's default for unknown enum names with appropriate config) — or a
      * future enum value the runtime classfile doesn't know. Falling through to
      * a generic "Project update" keeps the row PROCESSED rather than letting it
-     * cycle through retries and end ABANDONED.
+     * cycle through retries and end as a dead letter.
      */
     private String resolveTitle(PortalEventType type, Map<String, String> meta) {
         return switch (type) {
@@ -0,0 +1,250 @@
+package com.wd.custapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wd.custapi.dto.PortalWebhookEvent;
+import com.wd.custapi.model.ReceivedWebhookEvent;
+import com.wd.custapi.repository.ReceivedWebhookEventRepository;
+import com.wd.custapi.repository.ReceivedWebhookEventRepository.QueueStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable queue between {@code POST /internal/portal-events} and
+ * {@link WebhookIngestionService}, backed by {@code received_webhook_events}.
+ *
+ * <ol>
+ *   <li>{@link #enqueue} stores the event as PENDING — once the endpoint has
+ *       answered 200, the event survives a restart.</li>
+ *   <li>{@link #poll} claims PENDING rows in batches with
+ *       {@code FOR UPDATE SKIP LOCKED} (so every node can poll the same table),
+ *       marks them PROCESSING and hands them to a fixed pool of
+ *       {@code app.webhooks.queue.workers} threads. A node never holds more than
+ *       {@code max-in-flight} claimed events.</li>
+ *   <li>{@link #releaseStaleClaims} returns rows claimed by a node that died
+ *       mid-batch to PENDING after {@code claim-timeout}.</li>
+ * </ol>
+ * The backlog is sampled on every poll; {@link #isBacklogged()} lets the endpoint
+ * answer 429 instead of accepting events faster than they drain.
+ *
+ * <p>Metrics: {@code webhook.queue.events} (accepted / rejected / processed /
+ * failed), {@code webhook.queue.lag} (receipt to completion),
+ * {@code webhook.queue.processing}, and the gauges {@code webhook.queue.backlog},
+ * {@code webhook.queue.oldest.age} and {@code webhook.queue.in.flight}.
+ *
+ * <p>Disable the workers on a node with {@code app.webhooks.queue.enabled=false};
+ * it still accepts events for the other nodes to drain.
+ */
+@Component
+public class WebhookQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookQueue.class);
+
+    private final ReceivedWebhookEventRepository eventRepository;
+    private final WebhookIngestionService ingestionService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final long maxBacklog;
+    private final Duration claimTimeout;
+    private final ExecutorService workers;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter processed;
+    private final Counter failed;
+    private final Timer lag;
+    private final Timer processing;
+
+    public WebhookQueue(ReceivedWebhookEventRepository eventRepository,
+                        WebhookIngestionService ingestionService,
+                        ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.webhooks.queue.enabled:true}") boolean enabled,
+                        @Value("${app.webhooks.queue.workers:4}") int workerThreads,
+                        @Value("${app.webhooks.queue.batch-size:20}") int batchSize,
+                        @Value("${app.webhooks.queue.max-in-flight:50}") int maxInFlight,
+                        @Value("${app.webhooks.queue.max-backlog:5000}") long maxBacklog,
+                        @Value("${app.webhooks.queue.claim-timeout:PT5M}") Duration claimTimeout) {
+        this.eventRepository = eventRepository;
+        this.ingestionService = ingestionService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.maxBacklog = maxBacklog;
+        this.claimTimeout = claimTimeout;
+
+        AtomicInteger counter = new AtomicInteger();
+        // Unbounded queue is safe: poll() never submits more than maxInFlight tasks
+        this.workers = ExecutorServiceMetrics.monitor(meterRegistry,
+                new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(),
+                        r -> {
+                            Thread t = new Thread(r, "webhook-worker-" + counter.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }),
+                "webhookWorkers");
+
+        this.accepted = eventCounter(meterRegistry, "accepted");
+        this.rejected = eventCounter(meterRegistry, "rejected");
+        this.processed = eventCounter(meterRegistry, "processed");
+        this.failed = eventCounter(meterRegistry, "failed");
+        this.lag = Timer.builder("webhook.queue.lag")
+                .description("Time from webhook receipt to the end of processing")
+                .register(meterRegistry);
+        this.processing = Timer.builder("webhook.queue.processing")
+                .description("Time spent processing one webhook event")
+                .register(meterRegistry);
+        Gauge.builder("webhook.queue.backlog", backlog, AtomicLong::get)
+                .description("PENDING webhook events, sampled on each poll")
+                .register(meterRegistry);
+        Gauge.builder("webhook.queue.oldest.age", oldestAgeSeconds, AtomicLong::get)
+                .description("Age in seconds of the oldest PENDING webhook event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("webhook.queue.in.flight", inFlight, AtomicInteger::get)
+                .description("Webhook events claimed by this node and not yet finished")
+                .register(meterRegistry);
+    }
+
+    private static Counter eventCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("webhook.queue.events")
+                .description("Portal webhook events by queue outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /** True when the last sampled backlog has reached {@code app.webhooks.queue.max-backlog}. */
+    public boolean isBacklogged() {
+        return backlog.get() >= maxBacklog;
+    }
+
+    /** Counts an event turned away by the endpoint because of {@link #isBacklogged()}. */
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * Persists {@code event} as PENDING. Throws {@link org.springframework.dao.DataAccessException}
+     * when the row cannot be written, so the caller can ask the portal to retry.
+     */
+    public ReceivedWebhookEvent enqueue(PortalWebhookEvent event) {
+        ReceivedWebhookEvent webhookRecord = new ReceivedWebhookEvent();
+        webhookRecord.setEventType(event.eventType() != null ? event.eventType().name() : "UNKNOWN");
+        webhookRecord.setStatus(ReceivedWebhookEvent.STATUS_PENDING);
+        try {
+            webhookRecord.setPayload(objectMapper.writeValueAsString(event));
+        } catch (Exception ex) {
+            webhookRecord.setPayload("{}");
+        }
+        webhookRecord = eventRepository.save(webhookRecord);
+        backlog.incrementAndGet();
+        accepted.increment();
+        return webhookRecord;
+    }
+
+    /** Claims and dispatches PENDING events until the queue is empty or this node is at capacity. */
+    @Scheduled(initialDelayString = "${app.webhooks.queue.initial-delay-ms:10000}",
+               fixedDelayString = "${app.webhooks.queue.poll-interval-ms:1000}")
+    public void poll() {
+        sampleBacklog(); // also on worker-less nodes, which still answer the endpoint
+        if (!enabled) return;
+        int free;
+        while ((free = maxInFlight - inFlight.get()) > 0) {
+            int limit = Math.min(batchSize, free);
+            List<ReceivedWebhookEvent> claimed = claimBatch(limit);
+            for (ReceivedWebhookEvent webhookRecord : claimed) {
+                inFlight.incrementAndGet();
+                workers.execute(() -> run(webhookRecord));
+            }
+            if (claimed.size() < limit) break;
+        }
+    }
+
+    List<ReceivedWebhookEvent> claimBatch(int limit) {
+        List<ReceivedWebhookEvent> claimed = transactionTemplate.execute(status -> {
+            List<ReceivedWebhookEvent> batch = eventRepository.lockPendingBatch(limit);
+            LocalDateTime now = LocalDateTime.now();
+            for (ReceivedWebhookEvent webhookRecord : batch) {
+                webhookRecord.setStatus(ReceivedWebhookEvent.STATUS_PROCESSING);
+                webhookRecord.setClaimedAt(now);
+            }
+            return eventRepository.saveAll(batch);
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    private void run(ReceivedWebhookEvent webhookRecord) {
+        try {
+            long start = System.nanoTime();
+            boolean ok = ingestionService.processQueued(webhookRecord);
+            processing.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            (ok ? processed : failed).increment();
+            if (webhookRecord.getReceivedAt() != null) {
+                lag.record(Duration.between(webhookRecord.getReceivedAt(), LocalDateTime.now()));
+            }
+        } catch (RuntimeException e) {
+            // Status could not be written; the row stays PROCESSING until its claim goes stale
+            failed.increment();
+            log.error("Webhook event id={} could not be finished: {}", webhookRecord.getId(), e.getMessage(), e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void sampleBacklog() {
+        QueueStats stats = eventRepository.findQueueStats();
+        backlog.set(stats.getPending());
+        oldestAgeSeconds.set(stats.getOldestReceivedAt() == null ? 0
+                : Math.max(0, Duration.between(stats.getOldestReceivedAt(), LocalDateTime.now()).toSeconds()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhooks.queue.stale-sweep-interval-ms:60000}")
+    public void releaseStaleClaims() {
+        if (!enabled) return;
+        Integer released = transactionTemplate.execute(status ->
+                eventRepository.releaseStaleClaims(LocalDateTime.now().minus(claimTimeout)));
+        if (released != null && released > 0) {
+            log.warn("Returned {} stale webhook claim(s) to the queue", released);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Unfinished rows stay PROCESSING and are released by another node's stale sweep
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.ReceivedWebhookEvent;
+import com.wd.custapi.repository.ReceivedWebhookEventRepository;
+import com.wd.custapi.repository.ReceivedWebhookEventRepository.TypeCount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry schedule for failed webhook events.
+ *
+ * <ul>
+ *   <li>{@link #scheduleRetry} — called when processing fails: counts the attempt
+ *       and sets {@code next_attempt_at} with exponential backoff and jitter
+ *       ({@code initial-backoff} doubling up to {@code max-backoff}), or marks the
+ *       event DEAD once {@code max-attempts} is reached.</li>
+ *   <li>{@link #requeueDue} — claims at most {@code batch-size} due FAILED rows per
+ *       run with {@code FOR UPDATE SKIP LOCKED} and returns them to PENDING for
+ *       {@link WebhookQueue}. At most {@code max-per-type} retries of one event
+ *       type are queued or running at a time, so a burst of one failing type
+ *       cannot occupy every worker. The claim takes at most {@code max-per-type}
+ *       rows of a type, so capped rows that stay due never crowd the other
+ *       types out of the batch.</li>
+ * </ul>
+ * After a portal outage the backlog therefore drains a batch per run, each event
+ * on its own schedule, rather than in one transaction.
+ *
+ * <p>Dead letters are listed and replayed through {@link WebhookDeadLetterEndpoint}.
+ */
+@Component
+public class WebhookRetryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookRetryScheduler.class);
+
+    private final ReceivedWebhookEventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int batchSize;
+    private final int maxPerType;
+
+    private final Counter scheduled;
+    private final Counter deadLettered;
+    private final Counter requeued;
+    private final Counter deferred;
+    private final Counter replayed;
+
+    public WebhookRetryScheduler(ReceivedWebhookEventRepository eventRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.webhooks.retry.enabled:true}") boolean enabled,
+                                 @Value("${app.webhooks.retry.max-attempts:8}") int maxAttempts,
+                                 @Value("${app.webhooks.retry.initial-backoff:PT30S}") Duration initialBackoff,
+                                 @Value("${app.webhooks.retry.max-backoff:PT1H}") Duration maxBackoff,
+                                 @Value("${app.webhooks.retry.batch-size:100}") int batchSize,
+                                 @Value("${app.webhooks.retry.max-per-type:10}") int maxPerType) {
+        this.eventRepository = eventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.batchSize = batchSize;
+        this.maxPerType = maxPerType;
+
+        this.scheduled = retryCounter(meterRegistry, "scheduled");
+        this.deadLettered = retryCounter(meterRegistry, "dead");
+        this.requeued = retryCounter(meterRegistry, "requeued");
+        this.deferred = retryCounter(meterRegistry, "deferred");
+        this.replayed = retryCounter(meterRegistry, "replayed");
+    }
+
+    private static Counter retryCounter(MeterRegistry registry, String result) {
+        return Counter.builder("webhook.retry.events")
+                .description("Webhook retry decisions by result")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Records a failed attempt on {@code webhookRecord} (already FAILED with its
+     * error message): schedules the next attempt, or dead-letters the event when
+     * its attempts are used up. The caller saves the row.
+     */
+    public void scheduleRetry(ReceivedWebhookEvent webhookRecord) {
+        int attempts = webhookRecord.getAttemptCount() + 1;
+        webhookRecord.setAttemptCount(attempts);
+        webhookRecord.setClaimedAt(null);
+        if (attempts >= maxAttempts) {
+            webhookRecord.setStatus(ReceivedWebhookEvent.STATUS_DEAD);
+            webhookRecord.setNextAttemptAt(null);
+            deadLettered.increment();
+            log.warn("Webhook event id={} type={} dead-lettered after {} attempts: {}",
+                    webhookRecord.getId(), webhookRecord.getEventType(), attempts, webhookRecord.getErrorMessage());
+            return;
+        }
+        webhookRecord.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+        scheduled.increment();
+    }
+
+    /**
+     * Delay before retry number {@code attempts}: {@code initialBackoff * 2^(attempts-1)},
+     * capped at {@code maxBackoff}, of which the upper half is random so events
+     * that failed together do not all come due in the same run.
+     */
+    Duration backoff(int attempts) {
+        long base = initialBackoff.toMillis();
+        long cap = maxBackoff.toMillis();
+        int shift = Math.min(attempts - 1, 30);
+        long exponential = base > (cap >> shift) ? cap : Math.min(cap, base << shift);
+        long half = exponential / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    @Scheduled(initialDelayString = "${app.webhooks.retry.initial-delay-ms:30000}",
+               fixedDelayString = "${app.webhooks.retry.interval-ms:15000}")
+    public void requeueDue() {
+        if (!enabled) return;
+        Integer count = transactionTemplate.execute(status -> requeueBatch());
+        if (count != null && count > 0) {
+            log.info("Requeued {} webhook event(s) for retry", count);
+        }
+    }
+
+    /** One bounded batch; must run inside a transaction so the row locks hold until the update. */
+    int requeueBatch() {
+        List<ReceivedWebhookEvent> due = eventRepository.lockDueRetries(LocalDateTime.now(), maxPerType, batchSize);
+        if (due.isEmpty()) return 0;
+
+        Map<String, Long> active = new HashMap<>();
+        for (TypeCount c : eventRepository.countActiveRetriesByType()) {
+            active.put(c.getEventType(), c.getActive());
+        }
+        List<ReceivedWebhookEvent> released = new ArrayList<>(due.size());
+        for (ReceivedWebhookEvent webhookRecord : due) {
+            long running = active.getOrDefault(webhookRecord.getEventType(), 0L);
+            if (running >= maxPerType) {
+                deferred.increment(); // stays FAILED and due; picked up once the type frees up
+                continue;
+            }
+            active.put(webhookRecord.getEventType(), running + 1);
+            webhookRecord.setStatus(ReceivedWebhookEvent.STATUS_PENDING);
+            webhookRecord.setClaimedAt(null);
+            released.add(webhookRecord);
+        }
+        eventRepository.saveAll(released);
+        requeued.increment(released.size());
+        return released.size();
+    }
+
+    /** Newest dead letters first. */
+    public List<ReceivedWebhookEvent> deadLetters(int limit) {
+        return eventRepository.findByStatusOrderByIdDesc(ReceivedWebhookEvent.STATUS_DEAD, PageRequest.of(0, limit));
+    }
+
+    public long deadLetterCount() {
+        return eventRepository.countByStatus(ReceivedWebhookEvent.STATUS_DEAD);
+    }
+
+    /**
+     * Returns one dead letter ({@code id}) or all of them ({@code id == null}) to
+     * the queue with a fresh attempt budget; returns how many were replayed.
+     */
+    public int replay(Long id) {
+        Integer count = transactionTemplate.execute(status -> id != null
+                ? eventRepository.replayDeadLetter(id)
+                : eventRepository.replayAllDeadLetters());
+        int replayedCount = count != null ? count : 0;
+        replayed.increment(replayedCount);
+        log.info("Replayed {} dead-lettered webhook event(s){}", replayedCount, id != null ? " (id=" + id + ")" : "");
+        return replayedCount;
+    }
+}
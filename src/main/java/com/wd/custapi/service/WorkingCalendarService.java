@@ -0,0 +1,86 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.WorkingCalendarHoliday;
+import com.wd.custapi.repository.WorkingCalendarHolidayRepository;
+import com.wd.custapi.util.WorkingCalendar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-region {@link WorkingCalendar}s built from {@code working_calendar_holidays}.
+ *
+ * The table is read on first use and again every
+ * {@code app.working-calendar.refresh-interval-ms}; a calendar is an immutable
+ * snapshot, so lookups do not touch the database. A region without rows — or
+ * any region while the table cannot be read — gets
+ * {@link WorkingCalendar#SUNDAYS_ONLY}.
+ */
+@Service
+public class WorkingCalendarService {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkingCalendarService.class);
+
+    private final WorkingCalendarHolidayRepository holidayRepository;
+    private final String defaultRegion;
+
+    private volatile Map<String, WorkingCalendar> calendars;
+
+    public WorkingCalendarService(WorkingCalendarHolidayRepository holidayRepository,
+                                  @Value("${app.working-calendar.region:IN}") String defaultRegion) {
+        this.holidayRepository = holidayRepository;
+        this.defaultRegion = defaultRegion.toUpperCase(Locale.ROOT);
+    }
+
+    /** Calendar of the configured default region. */
+    public WorkingCalendar calendar() {
+        return calendar(defaultRegion);
+    }
+
+    public WorkingCalendar calendar(String region) {
+        Map<String, WorkingCalendar> loaded = calendars;
+        if (loaded == null) {
+            loaded = load();
+        }
+        return loaded.getOrDefault(region.toUpperCase(Locale.ROOT), WorkingCalendar.SUNDAYS_ONLY);
+    }
+
+    @Scheduled(initialDelayString = "${app.working-calendar.refresh-interval-ms:21600000}",
+               fixedDelayString = "${app.working-calendar.refresh-interval-ms:21600000}")
+    public void refresh() {
+        load();
+    }
+
+    /**
+     * Rebuilds every region's calendar from the table. On failure keeps the
+     * previous calendars (none on first load) until the next refresh.
+     */
+    private Map<String, WorkingCalendar> load() {
+        Map<String, WorkingCalendar> previous = calendars;
+        try {
+            Map<String, List<LocalDate>> byRegion = new HashMap<>();
+            for (WorkingCalendarHoliday holiday : holidayRepository.findAll()) {
+                byRegion.computeIfAbsent(holiday.getRegion().toUpperCase(Locale.ROOT), r -> new ArrayList<>())
+                        .add(holiday.getHolidayDate());
+            }
+            Map<String, WorkingCalendar> built = new HashMap<>();
+            byRegion.forEach((region, dates) -> built.put(region, new WorkingCalendar(dates)));
+            calendars = Map.copyOf(built);
+            log.debug("Loaded working calendars for regions {}", built.keySet());
+        } catch (RuntimeException e) {
+            log.warn("Could not load holiday calendars, using {} until the next refresh: {}",
+                    previous != null ? "the previous ones" : "Mon-Sat without holidays", e.getMessage());
+            calendars = previous != null ? previous : Map.of();
+        }
+        return calendars;
+    }
+}
@@ -0,0 +1,154 @@
+package com.wd.custapi.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable Mon–Sat working-day calendar with a set of holidays, answering in
+ * constant time and without allocating (the {@code long} epoch-day methods).
+ *
+ * <p>Every date has an <em>ordinal</em>: the number of working days before it,
+ * counted from a fixed Monday. Sundays are handled by week arithmetic (six
+ * working days per seven). Holidays are handled by two tables built once over
+ * the holiday span only — a prefix sum of holidays per day, and the day of each
+ * working day — so both counting and adding are a few array reads. Outside the
+ * span there are no holidays and the week arithmetic alone applies.
+ *
+ * <p>Conventions follow {@link WorkingDayCalculator}: {@code workingDaysBetween}
+ * counts {@code start} but not {@code end} and is negative when {@code end} is
+ * earlier. {@code addWorkingDays(d, n)} is the n-th working day after {@code d}
+ * (before it for negative {@code n}); {@code d} itself for {@code n == 0}.
+ */
+public final class WorkingCalendar {
+
+    /** Mon–Sat, no holidays. */
+    public static final WorkingCalendar SUNDAYS_ONLY = new WorkingCalendar(List.of());
+
+    /** 1970-01-05, a Monday: ordinal 0. */
+    private static final long MONDAY = LocalDate.of(1970, 1, 5).toEpochDay();
+
+    /** First epoch day of the holiday span; span tables are indexed from here. */
+    private final long spanStart;
+    /** Number of days in the span. */
+    private final int spanDays;
+    /** {@code holidaysBefore[i]}: working-day holidays in [spanStart, spanStart + i); length spanDays + 1. */
+    private final int[] holidaysBefore;
+    /** {@code workingDays[k]}: span offset of the k-th working day in the span. */
+    private final int[] workingDays;
+    /** Ordinal of {@code spanStart}. */
+    private final long spanStartOrdinal;
+    private final int holidayCount;
+
+    /**
+     * @param holidays holiday dates; Sundays and duplicates are ignored. The
+     *                 tables cover whole years from the first to the last holiday.
+     */
+    public WorkingCalendar(Collection<LocalDate> holidays) {
+        long[] days = holidays.stream()
+                .filter(d -> d.getDayOfWeek() != DayOfWeek.SUNDAY)
+                .mapToLong(LocalDate::toEpochDay)
+                .distinct()
+                .sorted()
+                .toArray();
+        if (days.length == 0) {
+            spanStart = 0;
+            spanDays = 0;
+            holidaysBefore = new int[] {0};
+            workingDays = new int[0];
+            spanStartOrdinal = 0;
+            holidayCount = 0;
+            return;
+        }
+        LocalDate first = LocalDate.ofEpochDay(days[0]).withDayOfYear(1);
+        LocalDate last = LocalDate.ofEpochDay(days[days.length - 1]);
+        spanStart = first.toEpochDay();
+        spanDays = (int) (last.plusYears(1).withDayOfYear(1).toEpochDay() - spanStart);
+        spanStartOrdinal = weekOrdinal(spanStart);
+        holidayCount = days.length;
+
+        holidaysBefore = new int[spanDays + 1];
+        int[] working = new int[spanDays];
+        int workingCount = 0;
+        int next = 0;
+        for (int i = 0; i < spanDays; i++) {
+            long day = spanStart + i;
+            boolean holiday = next < days.length && days[next] == day;
+            if (holiday) next++;
+            holidaysBefore[i + 1] = holidaysBefore[i] + (holiday ? 1 : 0);
+            if (!holiday && !isSunday(day)) working[workingCount++] = i;
+        }
+        workingDays = Arrays.copyOf(working, workingCount);
+    }
+
+    /** Working days in [start, end); negative when {@code end} is before {@code start}. */
+    public long workingDaysBetween(long startEpochDay, long endEpochDay) {
+        return ordinal(endEpochDay) - ordinal(startEpochDay);
+    }
+
+    /** As {@link #workingDaysBetween(long, long)}; zero when either date is {@code null}. */
+    public int workingDaysBetween(LocalDate start, LocalDate end) {
+        if (start == null || end == null) return 0;
+        return Math.toIntExact(workingDaysBetween(start.toEpochDay(), end.toEpochDay()));
+    }
+
+    /** The n-th working day after {@code epochDay} (before it if negative). */
+    public long addWorkingDays(long epochDay, long n) {
+        if (n == 0) return epochDay;
+        return n > 0 ? nthWorkingDay(ordinal(epochDay + 1) + n - 1) : nthWorkingDay(ordinal(epochDay) + n);
+    }
+
+    /** As {@link #addWorkingDays(long, long)}; {@code null} for a {@code null} date. */
+    public LocalDate addWorkingDays(LocalDate date, int n) {
+        return date == null ? null : LocalDate.ofEpochDay(addWorkingDays(date.toEpochDay(), n));
+    }
+
+    public boolean isWorkingDay(long epochDay) {
+        return ordinal(epochDay + 1) > ordinal(epochDay);
+    }
+
+    public boolean isWorkingDay(LocalDate date) {
+        return isWorkingDay(date.toEpochDay());
+    }
+
+    /** Number of holidays (excluding Sundays) in the calendar. */
+    public int holidayCount() {
+        return holidayCount;
+    }
+
+    /** Working days before {@code epochDay}, counted from {@link #MONDAY}. */
+    private long ordinal(long epochDay) {
+        long offset = epochDay - spanStart;
+        int holidays = offset <= 0 ? 0 : holidaysBefore[(int) Math.min(offset, spanDays)];
+        return weekOrdinal(epochDay) - holidays;
+    }
+
+    /** The working day whose ordinal is {@code ordinal}. */
+    private long nthWorkingDay(long ordinal) {
+        if (ordinal < spanStartOrdinal || spanDays == 0) {
+            return weekDay(ordinal);
+        }
+        long inSpan = ordinal - spanStartOrdinal;
+        if (inSpan < workingDays.length) {
+            return spanStart + workingDays[(int) inSpan];
+        }
+        return weekDay(ordinal + holidaysBefore[spanDays]);
+    }
+
+    /** Mon–Sat days before {@code epochDay}, counted from {@link #MONDAY}. */
+    private static long weekOrdinal(long epochDay) {
+        long d = epochDay - MONDAY;
+        return Math.floorDiv(d, 7) * 6 + Math.min(Math.floorMod(d, 7), 6);
+    }
+
+    /** The Mon–Sat day whose week ordinal is {@code ordinal}. */
+    private static long weekDay(long ordinal) {
+        return MONDAY + Math.floorDiv(ordinal, 6) * 7 + Math.floorMod(ordinal, 6);
+    }
+
+    private static boolean isSunday(long epochDay) {
+        return Math.floorMod(epochDay - MONDAY, 7) == 6;
+    }
+}
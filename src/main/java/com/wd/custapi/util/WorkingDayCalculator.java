@@ -1,14 +1,15 @@
 package com.wd.custapi.util;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 
 /**
- * Minimal Mon–Sat working-day arithmetic for customer-API.
+ * Minimal Mon–Sat working-day arithmetic for customer-API, without holidays.
  *
- * <p>Does NOT consult the portal holiday calendar — customer-API does not
- * mirror that table. Accuracy trade-off documented in the S2 PR4 spec; for
- * exact handover precision callers should hit the portal-api equivalent.
+ * <p>Holiday-aware counting is {@link WorkingCalendar}, built per region from
+ * the {@code working_calendar_holidays} table by
+ * {@link com.wd.custapi.service.WorkingCalendarService}; prefer that wherever a
+ * date is shown to a customer. This class is {@link WorkingCalendar#SUNDAYS_ONLY}
+ * for callers without a calendar.
  *
  * <p>Convention: Mon-Sat are counted as working days, Sunday is excluded.
  * The calculation is exclusive at the end date — i.e. workingDaysBetween(d, d)
@@ -22,20 +23,14 @@ public final class WorkingDayCalculator {
     /**
      * Returns the number of working days (Mon-Sat) between {@code start} and
      * {@code end}. Negative when {@code end} is before {@code start}; zero when
-     * either argument is {@code null} or the dates are equal.
+     * either argument is {@code null} or the dates are equal. Constant time.
      */
     public static int workingDaysBetween(LocalDate start, LocalDate end) {
-        if (start == null || end == null) return 0;
-        int sign = end.isBefore(start) ? -1 : 1;
-        LocalDate from = sign > 0 ? start : end;
-        LocalDate to = sign > 0 ? end : start;
+        return WorkingCalendar.SUNDAYS_ONLY.workingDaysBetween(start, end);
+    }
 
-        int count = 0;
-        LocalDate cursor = from;
-        while (cursor.isBefore(to)) {
-            if (cursor.getDayOfWeek() != DayOfWeek.SUNDAY) count++;
-            cursor = cursor.plusDays(1);
-        }
-        return sign * count;
+    /** The n-th Mon–Sat day after {@code date} (before it if negative). */
+    public static LocalDate addWorkingDays(LocalDate date, int n) {
+        return WorkingCalendar.SUNDAYS_ONLY.addWorkingDays(date, n);
     }
 }
@@ -0,0 +1,24 @@
+-- V1017: Keyset indexes for the paged combined activity feed.
+-- ActivityFeedService.getCombinedActivityPage reads each source with
+--   WHERE project_id = ? AND (ts < ? OR (ts = ? AND id < ?)) ORDER BY ts DESC, id DESC LIMIT n
+-- (see the findFeedPageBefore repository methods). A (project_id, ts DESC, id DESC)
+-- index turns every page into a short index range scan regardless of project age.
+-- Soft-deleted sources get partial indexes matching their @SQLRestriction.
+
+CREATE INDEX IF NOT EXISTS idx_site_reports_feed_keyset
+    ON site_reports(project_id, report_date DESC, id DESC)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_observations_feed_keyset
+    ON observations(project_id, reported_date DESC, id DESC)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_quality_checks_feed_keyset
+    ON quality_checks(project_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_gallery_images_feed_keyset
+    ON gallery_images(project_id, uploaded_at DESC, id DESC)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_site_visits_feed_keyset
+    ON site_visits(project_id, check_in_time DESC, id DESC);
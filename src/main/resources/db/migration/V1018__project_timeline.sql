@@ -0,0 +1,82 @@
+-- V1018: Materialised per-project activity timeline.
+-- project_timeline_entries holds one denormalised row per site report, observation,
+-- quality check, gallery image and site visit shown in the combined activity feed,
+-- so /activities/combined reads a single index range instead of five tables.
+-- Rows are upserted by ProjectTimelineService after customer writes and portal
+-- webhooks; ProjectTimelineJob backfills projects missing from
+-- project_timeline_builds and rebuilds any that drift from the sources.
+-- Deleting a project's project_timeline_builds row forces a rebuild.
+--
+-- Change tracking: source_hash is a hash of the source row's text as it was when
+-- the entry was written, so an edit that keeps the per-source count and latest
+-- date unchanged (a title or status change, a report moved to DRAFT and back)
+-- still shows up as a mismatch. source_version is bumped by statement-level
+-- triggers on the five source tables, for writes from this API and from the
+-- portal alike; ProjectTimelineJob only compares hashes for projects whose
+-- source_version moved past checked_version.
+
+CREATE TABLE IF NOT EXISTS project_timeline_entries (
+    id              BIGSERIAL    PRIMARY KEY,
+    project_id      BIGINT       NOT NULL,
+    source_type     VARCHAR(20)  NOT NULL,
+    source_id       BIGINT       NOT NULL,
+    occurred_at     TIMESTAMP    NOT NULL,
+    activity_date   DATE         NOT NULL,
+    title           TEXT,
+    description     TEXT,
+    status          VARCHAR(50),
+    created_by_name VARCHAR(255),
+    metadata        JSONB,
+    source_hash     BIGINT,
+    updated_at      TIMESTAMP    NOT NULL DEFAULT NOW(),
+    CONSTRAINT uq_project_timeline_source UNIQUE (source_type, source_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_project_timeline_feed
+    ON project_timeline_entries(project_id, occurred_at DESC, source_id DESC);
+
+CREATE TABLE IF NOT EXISTS project_timeline_builds (
+    project_id      BIGINT    PRIMARY KEY,
+    built_at        TIMESTAMP NOT NULL,
+    source_version  BIGINT    NOT NULL DEFAULT 0,
+    checked_version BIGINT
+);
+
+CREATE OR REPLACE FUNCTION project_timeline_sources_changed() RETURNS trigger AS $$
+BEGIN
+    -- Unbuilt projects have no row and are projected from scratch when built
+    IF TG_OP = 'INSERT' THEN
+        UPDATE project_timeline_builds b SET source_version = b.source_version + 1
+        WHERE b.project_id IN (SELECT project_id FROM new_rows);
+    ELSIF TG_OP = 'UPDATE' THEN
+        UPDATE project_timeline_builds b SET source_version = b.source_version + 1
+        WHERE b.project_id IN (SELECT project_id FROM new_rows
+                               UNION SELECT project_id FROM old_rows);
+    ELSE
+        UPDATE project_timeline_builds b SET source_version = b.source_version + 1
+        WHERE b.project_id IN (SELECT project_id FROM old_rows);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    t TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['site_reports', 'observations', 'quality_checks', 'gallery_images', 'site_visits'] LOOP
+        EXECUTE format('DROP TRIGGER IF EXISTS trg_%s_timeline_ins ON %I', t, t);
+        EXECUTE format('CREATE TRIGGER trg_%s_timeline_ins AFTER INSERT ON %I '
+                       'REFERENCING NEW TABLE AS new_rows '
+                       'FOR EACH STATEMENT EXECUTE FUNCTION project_timeline_sources_changed()', t, t);
+        EXECUTE format('DROP TRIGGER IF EXISTS trg_%s_timeline_upd ON %I', t, t);
+        EXECUTE format('CREATE TRIGGER trg_%s_timeline_upd AFTER UPDATE ON %I '
+                       'REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows '
+                       'FOR EACH STATEMENT EXECUTE FUNCTION project_timeline_sources_changed()', t, t);
+        EXECUTE format('DROP TRIGGER IF EXISTS trg_%s_timeline_del ON %I', t, t);
+        EXECUTE format('CREATE TRIGGER trg_%s_timeline_del AFTER DELETE ON %I '
+                       'REFERENCING OLD TABLE AS old_rows '
+                       'FOR EACH STATEMENT EXECUTE FUNCTION project_timeline_sources_changed()', t, t);
+    END LOOP;
+END;
+$$;
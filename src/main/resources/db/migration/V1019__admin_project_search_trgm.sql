@@ -0,0 +1,19 @@
+-- V1019: Trigram indexes for admin project search.
+-- DashboardService.getAdminProjectsPaged filters with
+--   LOWER(name) LIKE '%q%' OR LOWER(code) LIKE '%q%' OR LOWER(location) LIKE '%q%'
+-- (see ProjectRepository.ADMIN_SEARCH_FILTER). A leading wildcard cannot use a
+-- btree, so every keystroke scanned customer_projects. GIN trigram indexes on the
+-- same LOWER(...) expressions let the planner answer each branch from an index
+-- and combine them with a BitmapOr.
+-- Paging itself walks the primary key (id DESC), which needs no new index.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_customer_projects_name_trgm
+    ON customer_projects USING gin (LOWER(name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_customer_projects_code_trgm
+    ON customer_projects USING gin (LOWER(code) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_customer_projects_location_trgm
+    ON customer_projects USING gin (LOWER(location) gin_trgm_ops);
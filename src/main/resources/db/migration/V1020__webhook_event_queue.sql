@@ -0,0 +1,18 @@
+-- V1020: received_webhook_events becomes the durable webhook ingestion queue.
+-- InternalWebhookController inserts PENDING rows; WebhookQueue workers on every
+-- node claim them in batches with FOR UPDATE SKIP LOCKED, mark them PROCESSING
+-- with claimed_at, and finish them as PROCESSED or FAILED. PROCESSING rows whose
+-- claim is older than app.webhooks.queue.claim-timeout (node died mid-batch) are
+-- returned to PENDING.
+
+ALTER TABLE received_webhook_events ADD COLUMN IF NOT EXISTS claimed_at TIMESTAMP;
+
+-- Claim scan: oldest PENDING first
+CREATE INDEX IF NOT EXISTS idx_received_webhooks_pending
+    ON received_webhook_events (id)
+    WHERE status = 'PENDING';
+
+-- Stale-claim sweep
+CREATE INDEX IF NOT EXISTS idx_received_webhooks_processing
+    ON received_webhook_events (claimed_at)
+    WHERE status = 'PROCESSING';
@@ -0,0 +1,19 @@
+-- V1021: Per-event retry schedule for webhook events.
+-- A failed event is FAILED with next_attempt_at set by WebhookRetryScheduler
+-- (exponential backoff with jitter); due rows are claimed in bounded batches with
+-- FOR UPDATE SKIP LOCKED and returned to PENDING for the queue workers. Events
+-- that exhaust app.webhooks.retry.max-attempts become DEAD (dead letters), listed
+-- and replayed through the webhookdeadletters actuator endpoint.
+
+ALTER TABLE received_webhook_events ADD COLUMN IF NOT EXISTS attempt_count INT NOT NULL DEFAULT 0;
+ALTER TABLE received_webhook_events ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;
+
+-- Rows the old 10-minute retry job gave up on are dead letters; other FAILED rows are due now
+UPDATE received_webhook_events SET status = 'DEAD'
+    WHERE status = 'FAILED' AND error_message LIKE '[ABANDONED%';
+UPDATE received_webhook_events SET next_attempt_at = NOW()
+    WHERE status = 'FAILED' AND next_attempt_at IS NULL;
+
+-- Due-retry claim: status = 'FAILED' AND next_attempt_at <= now ORDER BY next_attempt_at
+CREATE INDEX IF NOT EXISTS idx_received_webhooks_status_next_attempt
+    ON received_webhook_events (status, next_attempt_at);
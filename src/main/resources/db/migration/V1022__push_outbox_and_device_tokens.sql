@@ -0,0 +1,56 @@
+-- V1022: Push notification outbox and per-device FCM tokens.
+-- customer_device_tokens replaces the single customer_users.fcm_token for sends:
+-- a customer signed in on a phone and a tablet gets the push on both. The
+-- fcm_token column is still written with the latest device for the portal API.
+-- push_outbox holds one row per (customer, notification), inserted in the same
+-- transaction as the customer_notifications row and drained by PushOutbox in
+-- FCM multicast batches; tokens FCM reports as dead are deleted as it goes.
+-- The dispatcher claims rows as IN_FLIGHT with claimed_at and sends after the
+-- claim commits; claims older than app.push.outbox.claim-timeout (node died
+-- mid-send) return to PENDING.
+
+CREATE TABLE IF NOT EXISTS customer_device_tokens (
+    id               BIGSERIAL PRIMARY KEY,
+    customer_user_id BIGINT NOT NULL REFERENCES customer_users(id) ON DELETE CASCADE,
+    token            VARCHAR(512) NOT NULL,
+    created_at       TIMESTAMP NOT NULL DEFAULT NOW(),
+    last_seen_at     TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT uq_customer_device_tokens_token UNIQUE (token)
+);
+
+CREATE INDEX IF NOT EXISTS idx_customer_device_tokens_user
+    ON customer_device_tokens (customer_user_id, last_seen_at DESC);
+
+-- Existing single-device registrations become each user's first device
+INSERT INTO customer_device_tokens (customer_user_id, token)
+SELECT id, fcm_token FROM customer_users
+WHERE fcm_token IS NOT NULL AND fcm_token <> ''
+ON CONFLICT (token) DO NOTHING;
+
+CREATE TABLE IF NOT EXISTS push_outbox (
+    id                BIGSERIAL PRIMARY KEY,
+    customer_user_id  BIGINT NOT NULL REFERENCES customer_users(id) ON DELETE CASCADE,
+    notification_type VARCHAR(50),
+    title             VARCHAR(255) NOT NULL,
+    body              TEXT,
+    data_json         TEXT,
+    status            VARCHAR(20) NOT NULL DEFAULT 'PENDING',  -- PENDING, IN_FLIGHT, SENT, NO_DEVICE, FAILED
+    attempt_count     INT NOT NULL DEFAULT 0,
+    next_attempt_at   TIMESTAMP NOT NULL DEFAULT NOW(),
+    claimed_at        TIMESTAMP,
+    created_at        TIMESTAMP NOT NULL DEFAULT NOW(),
+    sent_at           TIMESTAMP,
+    last_error        VARCHAR(500)
+);
+
+-- Dispatcher claim: status = 'PENDING' AND next_attempt_at <= now ORDER BY id
+CREATE INDEX IF NOT EXISTS idx_push_outbox_due
+    ON push_outbox (next_attempt_at, id) WHERE status = 'PENDING';
+
+-- Stale-claim sweep
+CREATE INDEX IF NOT EXISTS idx_push_outbox_in_flight
+    ON push_outbox (claimed_at) WHERE status = 'IN_FLIGHT';
+
+-- Retention purge by age
+CREATE INDEX IF NOT EXISTS idx_push_outbox_created
+    ON push_outbox (created_at);
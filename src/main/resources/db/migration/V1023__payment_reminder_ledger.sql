@@ -0,0 +1,23 @@
+-- V1023: Dedup ledger for payment reminders.
+-- PaymentReminderJob claims one row per (schedule, recipient, reminder kind, due
+-- date) in the same transaction that writes the notifications, with
+-- ON CONFLICT DO NOTHING, so a rerun after a crash — or the cron firing on a
+-- second node — never reminds the same customer twice. A moved due date is a
+-- new reminder. Rows past the overdue window are purged by the job.
+
+CREATE TABLE IF NOT EXISTS payment_reminder_ledger (
+    schedule_id      BIGINT NOT NULL,
+    customer_user_id BIGINT NOT NULL,
+    reminder_kind    VARCHAR(20) NOT NULL,  -- T_MINUS_3, DUE_TODAY, OVERDUE
+    due_date         DATE NOT NULL,
+    sent_at          TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (schedule_id, customer_user_id, reminder_kind, due_date)
+);
+
+-- Retention purge by due date
+CREATE INDEX IF NOT EXISTS idx_payment_reminder_ledger_due
+    ON payment_reminder_ledger (due_date);
+
+-- The reminder scan is a due_date range over open schedules
+CREATE INDEX IF NOT EXISTS idx_payment_schedule_due_date
+    ON payment_schedule (due_date) WHERE deleted_at IS NULL;
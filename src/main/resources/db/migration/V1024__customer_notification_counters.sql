@@ -0,0 +1,79 @@
+-- V1024: Per-user unread notification counters.
+-- The app badge and the notification list read unread_count from here, not
+-- COUNT(*) over customer_notifications. Statement-level triggers keep it in
+-- step with every write to customer_notifications, whether it comes from this
+-- API (JDBC batch fan-out, bulk mark-read) or from the portal, which inserts
+-- notifications directly. One counter upsert per user per statement, taken in
+-- user-id order so concurrent fan-outs cannot deadlock on the counter rows.
+
+CREATE TABLE IF NOT EXISTS customer_notification_counters (
+    customer_user_id BIGINT PRIMARY KEY REFERENCES customer_users(id) ON DELETE CASCADE,
+    unread_count     INT NOT NULL DEFAULT 0,
+    updated_at       TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+INSERT INTO customer_notification_counters (customer_user_id, unread_count)
+SELECT customer_user_id, COUNT(*) FROM customer_notifications
+WHERE is_read = false
+GROUP BY customer_user_id
+ON CONFLICT (customer_user_id) DO UPDATE SET unread_count = EXCLUDED.unread_count, updated_at = NOW();
+
+CREATE OR REPLACE FUNCTION customer_notification_counters_sync() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO customer_notification_counters AS c (customer_user_id, unread_count)
+        SELECT customer_user_id, COUNT(*) FROM new_rows
+        WHERE is_read = false
+        GROUP BY customer_user_id
+        ORDER BY customer_user_id
+        ON CONFLICT (customer_user_id) DO UPDATE
+            SET unread_count = c.unread_count + EXCLUDED.unread_count, updated_at = NOW();
+    ELSIF TG_OP = 'UPDATE' THEN
+        -- A new row starts at the clamped delta; an existing row takes the
+        -- unclamped one, recounted from the transition tables because
+        -- EXCLUDED only carries the clamped value
+        INSERT INTO customer_notification_counters AS c (customer_user_id, unread_count)
+        SELECT customer_user_id, GREATEST(SUM(delta), 0) FROM (
+            SELECT customer_user_id, 1 AS delta FROM new_rows WHERE is_read = false
+            UNION ALL
+            SELECT customer_user_id, -1 AS delta FROM old_rows WHERE is_read = false
+        ) d
+        GROUP BY customer_user_id
+        HAVING SUM(delta) <> 0
+        ORDER BY customer_user_id
+        ON CONFLICT (customer_user_id) DO UPDATE
+            SET unread_count = GREATEST(c.unread_count
+                    + (SELECT COUNT(*) FROM new_rows n
+                       WHERE n.customer_user_id = EXCLUDED.customer_user_id AND n.is_read = false)
+                    - (SELECT COUNT(*) FROM old_rows o
+                       WHERE o.customer_user_id = EXCLUDED.customer_user_id AND o.is_read = false), 0),
+                updated_at = NOW();
+    ELSE
+        -- Update only: the rows may be going because their user is being deleted
+        UPDATE customer_notification_counters c
+        SET unread_count = GREATEST(c.unread_count - d.removed, 0), updated_at = NOW()
+        FROM (SELECT customer_user_id, COUNT(*) AS removed FROM old_rows
+              WHERE is_read = false GROUP BY customer_user_id) d
+        WHERE c.customer_user_id = d.customer_user_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_customer_notifications_counter_ins ON customer_notifications;
+CREATE TRIGGER trg_customer_notifications_counter_ins
+    AFTER INSERT ON customer_notifications
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_notification_counters_sync();
+
+DROP TRIGGER IF EXISTS trg_customer_notifications_counter_upd ON customer_notifications;
+CREATE TRIGGER trg_customer_notifications_counter_upd
+    AFTER UPDATE ON customer_notifications
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_notification_counters_sync();
+
+DROP TRIGGER IF EXISTS trg_customer_notifications_counter_del ON customer_notifications;
+CREATE TRIGGER trg_customer_notifications_counter_del
+    AFTER DELETE ON customer_notifications
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_notification_counters_sync();
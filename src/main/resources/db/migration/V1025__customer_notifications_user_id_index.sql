@@ -0,0 +1,7 @@
+-- V1025: Per-user id index on customer_notifications.
+-- The event stream (CustomerEventStream) reads a user's notifications after a
+-- given id, oldest first, on every signal and on Last-Event-ID resume, and
+-- looks up the user's newest id on connect.
+
+CREATE INDEX IF NOT EXISTS idx_notif_user_id
+    ON customer_notifications (customer_user_id, id);
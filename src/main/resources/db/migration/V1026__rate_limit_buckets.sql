@@ -0,0 +1,27 @@
+-- V1026: Shared token buckets for the auth rate limiter.
+-- Used when app.rate-limiting.store=postgres (see PostgresBucketStore): Bucket4j
+-- keeps one row per "auth:<uri>:<ip>" key and serialises consumers with
+-- SELECT ... FOR UPDATE on it, so limits hold across nodes. Bucket4j only
+-- writes id and state; the trigger stamps updated_at so idle rows (already
+-- full again) can be purged.
+
+CREATE TABLE IF NOT EXISTS rate_limit_buckets (
+    id         VARCHAR(512) PRIMARY KEY,
+    state      BYTEA,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_buckets_updated_at
+    ON rate_limit_buckets (updated_at);
+
+CREATE OR REPLACE FUNCTION rate_limit_buckets_touch() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := NOW();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_rate_limit_buckets_touch ON rate_limit_buckets;
+CREATE TRIGGER trg_rate_limit_buckets_touch
+    BEFORE UPDATE ON rate_limit_buckets
+    FOR EACH ROW EXECUTE FUNCTION rate_limit_buckets_touch();
@@ -0,0 +1,13 @@
+-- V1027: Holiday calendars for working-day arithmetic.
+-- One row per (region, date). WorkingCalendarService loads the table into an
+-- in-memory calendar per region (prefix sums; see WorkingCalendar) and
+-- reloads it periodically, so rows added here take effect without a deploy.
+-- Sundays are never working days and need no rows.
+
+CREATE TABLE IF NOT EXISTS working_calendar_holidays (
+    id           BIGSERIAL PRIMARY KEY,
+    region       VARCHAR(32) NOT NULL,   -- e.g. KL; app.working-calendar.region picks the default
+    holiday_date DATE NOT NULL,
+    name         VARCHAR(255) NOT NULL,
+    CONSTRAINT uq_working_calendar_holidays_region_date UNIQUE (region, holiday_date)
+);
@@ -0,0 +1,92 @@
+package com.wd.custapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link AuthRateLimitInterceptor} over the in-memory
+ * {@link CaffeineBucketStore}: per-IP limits, 429 on breach, fail-open when
+ * the store is down, and the request / bucket metrics.
+ */
+class AuthRateLimitInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static MockHttpServletRequest request(String uri, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    private double requests(String endpoint, String result) {
+        return meterRegistry.get("auth.ratelimit.requests")
+                .tag("endpoint", endpoint).tag("result", result).counter().count();
+    }
+
+    @Test
+    void login_sixthAttemptFromSameIp_isRejectedWith429() throws Exception {
+        AuthRateLimitInterceptor interceptor =
+                new AuthRateLimitInterceptor(new CaffeineBucketStore(1_000, Duration.ofMinutes(10)), meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(interceptor.preHandle(request("/auth/login", "10.0.0.1"), new MockHttpServletResponse(), null))
+                    .isTrue();
+        }
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        boolean allowed = interceptor.preHandle(request("/auth/login", "10.0.0.1"), rejected, null);
+
+        assertThat(allowed).isFalse();
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isNotNull();
+        // Another IP has its own bucket
+        assertThat(interceptor.preHandle(request("/auth/login", "10.0.0.2"), new MockHttpServletResponse(), null))
+                .isTrue();
+        assertThat(requests("login", "allowed")).isEqualTo(6.0);
+        assertThat(requests("login", "rejected")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("auth.ratelimit.buckets").tag("store", "memory").gauge().value())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void unlimitedEndpoint_touchesNoBucket() throws Exception {
+        RateLimitBucketStore store = mock(RateLimitBucketStore.class);
+        when(store.name()).thenReturn("memory");
+        AuthRateLimitInterceptor interceptor = new AuthRateLimitInterceptor(store, meterRegistry);
+
+        assertThat(interceptor.preHandle(request("/auth/me", "10.0.0.1"), new MockHttpServletResponse(), null))
+                .isTrue();
+        verify(store, never()).resolve(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void storeUnavailable_letsRequestThrough() throws Exception {
+        RateLimitBucketStore store = mock(RateLimitBucketStore.class);
+        when(store.name()).thenReturn("postgres");
+        when(store.resolve(anyString(), anyInt(), any())).thenThrow(new IllegalStateException("connection refused"));
+        AuthRateLimitInterceptor interceptor = new AuthRateLimitInterceptor(store, meterRegistry);
+
+        assertThat(interceptor.preHandle(request("/auth/login", "10.0.0.1"), new MockHttpServletResponse(), null))
+                .isTrue();
+        assertThat(requests("login", "error")).isEqualTo(1.0);
+    }
+
+    @Test
+    void memoryStore_isBounded() {
+        CaffeineBucketStore store = new CaffeineBucketStore(10, Duration.ofMinutes(10));
+
+        for (int i = 0; i < 1_000; i++) {
+            store.resolve("auth:/auth/login:10.0." + (i / 256) + "." + (i % 256), 5, Duration.ofMinutes(1));
+        }
+        store.cleanUp();
+
+        assertThat(store.size()).isLessThanOrEqualTo(10);
+    }
+}
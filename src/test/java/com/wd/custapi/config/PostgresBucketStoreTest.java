@@ -0,0 +1,64 @@
+package com.wd.custapi.config;
+
+import com.wd.custapi.testsupport.FlywayMigrations;
+import com.wd.custapi.testsupport.TestcontainersPostgresBase;
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link PostgresBucketStore} against the V1026 table: two store instances,
+ * standing in for two nodes, draw on the same bucket.
+ */
+class PostgresBucketStoreTest extends TestcontainersPostgresBase {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void migrate() {
+        FlywayMigrations.applyAfter(dataSource, "1025");
+    }
+
+    private PostgresBucketStore store() {
+        return new PostgresBucketStore(dataSource, jdbc, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void resolve_limitHoldsAcrossStoreInstances() {
+        String key = "auth:/auth/login:" + UUID.randomUUID();
+        Bucket nodeA = store().resolve(key, 3, Duration.ofMinutes(1));
+        Bucket nodeB = store().resolve(key, 3, Duration.ofMinutes(1));
+
+        assertThat(nodeA.tryConsume(1)).isTrue();
+        assertThat(nodeB.tryConsume(1)).isTrue();
+        assertThat(nodeA.tryConsume(1)).isTrue();
+
+        assertThat(nodeB.tryConsume(1)).isFalse();
+        assertThat(nodeA.tryConsume(1)).isFalse();
+    }
+
+    @Test
+    void size_isCountedByPurge() {
+        PostgresBucketStore store = store();
+        store.resolve("auth:/auth/login:" + UUID.randomUUID(), 3, Duration.ofMinutes(1)).tryConsume(1);
+        assertThat(store.size()).isZero();
+
+        store.purgeIdle();
+
+        assertThat(store.size()).isEqualTo(
+                jdbc.queryForObject("SELECT COUNT(*) FROM " + PostgresBucketStore.TABLE, Long.class));
+        assertThat(store.size()).isPositive();
+    }
+}
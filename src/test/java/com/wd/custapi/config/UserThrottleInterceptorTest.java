@@ -0,0 +1,123 @@
+package com.wd.custapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link UserThrottleInterceptor} over the in-memory bucket
+ * store: cost accounting against the role budget, RateLimit headers, 429 with
+ * Retry-After once spent, the shed metrics / report, and the pass-through cases.
+ */
+class UserThrottleInterceptorTest {
+
+    private static final String PATTERN = "/api/projects/{projectId}/export/payments";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UserThrottleInterceptor interceptor;
+
+    /** Stand-in controller. */
+    static class Handlers {
+        @RequestCost(20)
+        public void export() {}
+
+        public void cheap() {}
+    }
+
+    @BeforeEach
+    void setUp() {
+        ThrottleProperties properties = new ThrottleProperties();
+        properties.setDefaultBudget(10);
+        properties.setBudgets(Map.of("customer", 50));
+        interceptor = new UserThrottleInterceptor(
+                new CaffeineBucketStore(1_000, Duration.ofMinutes(10)), properties, meterRegistry);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void authenticate(String email, String role) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                email, null, List.of(new SimpleGrantedAuthority("ROLE_" + role))));
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), Handlers.class.getMethod(name));
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/projects/7/export/payments");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, PATTERN);
+        return request;
+    }
+
+    private double requests(String role, String result) {
+        return meterRegistry.get("api.throttle.requests")
+                .tag("endpoint", PATTERN).tag("role", role).tag("result", result).counter().count();
+    }
+
+    @Test
+    void costIsChargedAgainstRoleBudget_untilShedWith429() throws Exception {
+        authenticate("customer@example.com", "CUSTOMER");
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request(), first, handler("export"))).isTrue();
+        assertThat(first.getHeader("RateLimit-Limit")).isEqualTo("50");
+        assertThat(first.getHeader("RateLimit-Remaining")).isEqualTo("30");
+        assertThat(first.getHeader("RateLimit-Policy")).isEqualTo("50;w=60");
+
+        assertThat(interceptor.preHandle(request(), new MockHttpServletResponse(), handler("export"))).isTrue();
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request(), shed, handler("export"))).isFalse();
+
+        assertThat(shed.getStatus()).isEqualTo(429);
+        assertThat(shed.getHeader("RateLimit-Remaining")).isEqualTo("10");
+        assertThat(Long.parseLong(shed.getHeader("Retry-After"))).isPositive();
+        assertThat(requests("CUSTOMER", "allowed")).isEqualTo(2.0);
+        assertThat(requests("CUSTOMER", "shed")).isEqualTo(1.0);
+        assertThat(interceptor.topShedUsers(10))
+                .containsExactly(Map.of("user", "customer@example.com", "shed", 1L));
+    }
+
+    @Test
+    void costAboveBudget_isCappedSoTheEndpointStaysReachable() throws Exception {
+        authenticate("viewer@example.com", "VIEWER"); // default budget 10 < cost 20
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request(), response, handler("export"))).isTrue();
+        assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo("0");
+    }
+
+    @Test
+    void unannotatedEndpoint_anonymousCaller_andAsyncDispatch_passThrough() throws Exception {
+        assertThat(interceptor.preHandle(request(), new MockHttpServletResponse(), handler("export"))).isTrue();
+
+        authenticate("customer@example.com", "CUSTOMER");
+        MockHttpServletResponse cheap = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request(), cheap, handler("cheap"))).isTrue();
+        assertThat(cheap.getHeader("RateLimit-Limit")).isNull();
+
+        MockHttpServletRequest async = request();
+        async.setDispatcherType(DispatcherType.ASYNC);
+        MockHttpServletResponse redispatch = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(async, redispatch, handler("export"))).isTrue();
+        assertThat(redispatch.getHeader("RateLimit-Limit")).isNull();
+    }
+}
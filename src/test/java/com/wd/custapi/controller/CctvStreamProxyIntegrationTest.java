@@ -6,16 +6,28 @@ import com.wd.custapi.model.Project;
 import com.wd.custapi.repository.CctvCameraRepository;
 import com.wd.custapi.service.CctvStreamProxyService;
 import com.wd.custapi.service.DashboardService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -36,6 +48,10 @@ import static org.mockito.Mockito.when;
  *   <li>Segment bytes are relayed verbatim with the upstream content-type.</li>
  *   <li>Stored {@code username}/{@code password} are injected server-side as
  *       a Basic-auth header — credential-protected cameras play through.</li>
+ *   <li>Concurrent viewers of a segment share one upstream fetch; bodies too
+ *       large to share are streamed through on every request.</li>
+ *   <li>Repeated manifest polls are served from one upstream poll, with
+ *       per-camera hit/miss metrics.</li>
  * </ol>
  */
 class CctvStreamProxyIntegrationTest {
@@ -56,7 +72,12 @@ class CctvStreamProxyIntegrationTest {
             """;
     private static final byte[] SEGMENT_BYTES = "TSDATA-binary-payload".getBytes(StandardCharsets.UTF_8);
 
+    private final AtomicInteger segmentFetches = new AtomicInteger();
+    private final AtomicInteger manifestFetches = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private HttpServer server;
+    private DashboardService dashboardService;
     private String base;                // http://127.0.0.1:<random>
     private CustomerCctvController controller;
     private CctvCameraRepository cameraRepository;
@@ -68,12 +89,15 @@ class CctvStreamProxyIntegrationTest {
 
         // Public manifest + segment (no auth required).
         server.createContext("/live/stream.m3u8", exch -> {
+            manifestFetches.incrementAndGet();
             byte[] body = MANIFEST.getBytes(StandardCharsets.UTF_8);
             exch.getResponseHeaders().add("Content-Type", "application/vnd.apple.mpegurl");
             exch.sendResponseHeaders(200, body.length);
             try (var os = exch.getResponseBody()) { os.write(body); }
         });
         server.createContext("/live/seg0.ts", exch -> {
+            segmentFetches.incrementAndGet();
+            sleepQuietly(150); // widen the window for concurrent viewers to overlap
             exch.getResponseHeaders().add("Content-Type", "video/mp2t");
             exch.sendResponseHeaders(200, SEGMENT_BYTES.length);
             try (var os = exch.getResponseBody()) { os.write(SEGMENT_BYTES); }
@@ -99,13 +123,14 @@ class CctvStreamProxyIntegrationTest {
 
         // Wire the controller with a REAL proxy service + mocked surroundings.
         cameraRepository = mock(CctvCameraRepository.class);
-        DashboardService dashboardService = mock(DashboardService.class);
+        dashboardService = mock(DashboardService.class);
         auth = mock(Authentication.class);
         Project project = new Project();
         project.setId(PROJECT_ID);
         when(auth.getName()).thenReturn("member@example.com");
         when(dashboardService.getProjectByUuidAndEmail(anyString(), anyString())).thenReturn(project);
-        controller = new CustomerCctvController(cameraRepository, dashboardService, new CctvStreamProxyService());
+        controller = new CustomerCctvController(cameraRepository, dashboardService, new CctvStreamProxyService(
+                Duration.ofSeconds(30), 64L * 1024 * 1024, 8 * 1024 * 1024, Duration.ofHours(1), meterRegistry));
     }
 
     @AfterEach
@@ -137,17 +162,80 @@ class CctvStreamProxyIntegrationTest {
     }
 
     @Test
-    void segmentProxy_relaysUpstreamBytesVerbatim() {
+    void segmentProxy_relaysUpstreamBytesVerbatim() throws Exception {
         CctvCamera cam = cameraWith(base + "/live/stream.m3u8", null, null);
         when(cameraRepository.findByIdAndProjectIdAndIsActiveTrue(anyLong(), anyLong()))
                 .thenReturn(Optional.of(cam));
         String token = CctvStreamProxyService.encodeRef(base + "/live/seg0.ts");
 
-        ResponseEntity<byte[]> resp = controller.getCameraStreamSegment(UUID, CAMERA_ID, token, auth);
+        ResponseEntity<StreamingResponseBody> resp = controller.getCameraStreamSegment(UUID, CAMERA_ID, token, auth);
 
         assertThat(resp.getStatusCode().value()).isEqualTo(200);
         assertThat(resp.getHeaders().getFirst("Content-Type")).isEqualTo("video/mp2t");
-        assertThat(resp.getBody()).isEqualTo(SEGMENT_BYTES);
+        assertThat(render(resp)).isEqualTo(SEGMENT_BYTES);
+    }
+
+    @Test
+    void segmentProxy_concurrentViewersShareOneUpstreamFetch() throws Exception {
+        CctvCamera cam = cameraWith(base + "/live/stream.m3u8", null, null);
+        when(cameraRepository.findByIdAndProjectIdAndIsActiveTrue(anyLong(), anyLong()))
+                .thenReturn(Optional.of(cam));
+        String token = CctvStreamProxyService.encodeRef(base + "/live/seg0.ts");
+
+        ExecutorService viewers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> bodies = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                bodies.add(viewers.submit(() ->
+                        render(controller.getCameraStreamSegment(UUID, CAMERA_ID, token, auth))));
+            }
+            for (Future<byte[]> body : bodies) {
+                assertThat(body.get(10, TimeUnit.SECONDS)).isEqualTo(SEGMENT_BYTES);
+            }
+        } finally {
+            viewers.shutdownNow();
+        }
+        // A late viewer inside the cache TTL is served from memory too
+        render(controller.getCameraStreamSegment(UUID, CAMERA_ID, token, auth));
+
+        assertThat(segmentFetches.get()).isEqualTo(1);
+    }
+
+    @Test
+    void segmentProxy_bodyLargerThanShareLimit_isStreamedOnEveryRequest() throws Exception {
+        // Share limit below the segment size: nothing is cached, bytes are piped through
+        CctvStreamProxyService smallLimit = new CctvStreamProxyService(
+                Duration.ofSeconds(30), 1024, 8, Duration.ofHours(1), meterRegistry);
+        controller = new CustomerCctvController(cameraRepository, dashboardService, smallLimit);
+        CctvCamera cam = cameraWith(base + "/live/stream.m3u8", null, null);
+        when(cameraRepository.findByIdAndProjectIdAndIsActiveTrue(anyLong(), anyLong()))
+                .thenReturn(Optional.of(cam));
+        String token = CctvStreamProxyService.encodeRef(base + "/live/seg0.ts");
+
+        assertThat(render(controller.getCameraStreamSegment(UUID, CAMERA_ID, token, auth))).isEqualTo(SEGMENT_BYTES);
+        assertThat(render(controller.getCameraStreamSegment(UUID, CAMERA_ID, token, auth))).isEqualTo(SEGMENT_BYTES);
+
+        assertThat(segmentFetches.get()).isEqualTo(2);
+    }
+
+    @Test
+    void manifestProxy_repeatedPolls_shareOneUpstreamFetch() {
+        CctvCamera cam = cameraWith(base + "/live/stream.m3u8", null, null);
+        when(cameraRepository.findByIdAndProjectIdAndIsActiveTrue(anyLong(), anyLong()))
+                .thenReturn(Optional.of(cam));
+
+        byte[] first = controller.getCameraHlsManifest(UUID, CAMERA_ID, auth).getBody();
+        for (int i = 0; i < 4; i++) {
+            assertThat(controller.getCameraHlsManifest(UUID, CAMERA_ID, auth).getBody()).isEqualTo(first);
+        }
+
+        assertThat(manifestFetches.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cctv.manifest.requests")
+                .tags("camera", "42", "result", "hit").counter().count()).isEqualTo(4.0);
+        assertThat(meterRegistry.get("cctv.manifest.hit.ratio")
+                .tag("camera", "42").gauge().value()).isEqualTo(0.8);
+        assertThat(meterRegistry.get("cctv.manifest.upstream")
+                .tag("camera", "42").timer().count()).isEqualTo(1);
     }
 
     @Test
@@ -177,6 +265,20 @@ class CctvStreamProxyIntegrationTest {
         assertThat(resp.getStatusCode().value()).isEqualTo(502);
     }
 
+    private static byte[] render(ResponseEntity<StreamingResponseBody> resp) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resp.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private CctvCamera cameraWith(String streamUrl, String username, String password) {
         CctvCamera cam = mock(CctvCamera.class);
         when(cam.getStreamUrl()).thenReturn(streamUrl);
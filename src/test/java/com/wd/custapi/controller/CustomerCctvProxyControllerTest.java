@@ -13,6 +13,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.security.core.Authentication;
 
 import java.util.Optional;
@@ -78,7 +79,7 @@ class CustomerCctvProxyControllerTest {
         when(streamProxy.resolveUpstreamSegment(anyString(), anyString()))
                 .thenThrow(new SecurityException("host mismatch"));
 
-        ResponseEntity<byte[]> resp =
+        ResponseEntity<StreamingResponseBody> resp =
                 controller.getCameraStreamSegment(PROJECT_UUID, CAMERA_ID, "dGFtcGVyZWQ", auth);
 
         assertThat(resp.getStatusCode().value()).isEqualTo(403);
@@ -269,9 +269,9 @@ class DashboardControllerTest {
     @Test
     void getAdminProjects_success_returns200WithPagedMap() {
         Map<String, Object> paged = Map.of("content", List.of(), "total", 0);
-        when(dashboardService.getAdminProjectsPaged(0, 20, null)).thenReturn(paged);
+        when(dashboardService.getAdminProjectsPaged(0, 20, null, null)).thenReturn(paged);
 
-        ResponseEntity<Map<String, Object>> r = controller.getAdminProjects(0, 20, null, auth);
+        ResponseEntity<Map<String, Object>> r = controller.getAdminProjects(0, 20, null, null, auth);
 
         assertThat(r.getStatusCode().value()).isEqualTo(200);
         assertThat(r.getBody()).isSameAs(paged);
@@ -279,12 +279,23 @@ class DashboardControllerTest {
 
     @Test
     void getAdminProjects_serviceThrows_returns500() {
-        when(dashboardService.getAdminProjectsPaged(anyInt(), anyInt(), any()))
+        when(dashboardService.getAdminProjectsPaged(anyInt(), anyInt(), any(), any()))
                 .thenThrow(new RuntimeException("boom"));
 
-        ResponseEntity<Map<String, Object>> r = controller.getAdminProjects(0, 20, "q", auth);
+        ResponseEntity<Map<String, Object>> r = controller.getAdminProjects(0, 20, "q", null, auth);
 
         assertThat(r.getStatusCode().value()).isEqualTo(500);
         assertThat(r.getBody()).containsEntry("error", "Failed to fetch admin projects");
     }
+
+    @Test
+    void getAdminProjects_invalidCursor_returns400() {
+        when(dashboardService.getAdminProjectsPaged(0, 20, null, "garbage"))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseEntity<Map<String, Object>> r = controller.getAdminProjects(0, 20, null, "garbage", auth);
+
+        assertThat(r.getStatusCode().value()).isEqualTo(400);
+        assertThat(r.getBody()).containsEntry("error", "Invalid cursor");
+    }
 }
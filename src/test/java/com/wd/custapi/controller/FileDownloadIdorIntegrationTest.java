@@ -19,6 +19,8 @@ import java.util.HashMap;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -191,6 +193,30 @@ class FileDownloadIdorIntegrationTest extends TestcontainersPostgresBase {
         mockMvc.perform(get("/api/storage/" + aliceVideoRelPath)
                         .header(HttpHeaders.AUTHORIZATION, "Bearer " + aliceToken)
                         .header("Range", "bytes=0-9"))
-                .andExpect(status().isPartialContent());
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-9/33"))
+                .andExpect(content().string("fake-video"));
+    }
+
+    // Case 9: Conditional GET with the ETag from a previous response -> 304
+    @Test
+    void aliceConditionalGetOwnFile_returns304() throws Exception {
+        String etag = mockMvc.perform(get("/api/storage/" + aliceFileRelPath)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + aliceToken))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/storage/" + aliceFileRelPath)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + aliceToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    // Case 10: Conditional GET on Bob's file never leaks a 304 -> 404
+    @Test
+    void aliceConditionalGetBobFile_returns404() throws Exception {
+        mockMvc.perform(get("/api/storage/" + bobFileRelPath)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + aliceToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
     }
 }
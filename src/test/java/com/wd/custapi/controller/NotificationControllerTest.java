@@ -1,10 +1,14 @@
 package com.wd.custapi.controller;
 
+import com.wd.custapi.dto.MarkNotificationsReadRequest;
 import com.wd.custapi.dto.ProjectModuleDtos.ApiResponse;
 import com.wd.custapi.model.CustomerNotification;
 import com.wd.custapi.model.CustomerUser;
+import com.wd.custapi.repository.CustomerNotificationCounterRepository;
+import com.wd.custapi.repository.CustomerNotificationCounterRepository.BadgeView;
 import com.wd.custapi.repository.CustomerNotificationRepository;
 import com.wd.custapi.repository.CustomerUserRepository;
+import com.wd.custapi.service.CustomerEventStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +21,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -29,15 +34,17 @@ import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
  * Direct-invocation Mockito unit tests for {@link NotificationController}.
  *
- * <p>Both collaborators (notification + user repositories) and the
- * {@link Authentication} are mocked. Covers list/markRead/markAllRead happy
- * paths, the 403 ownership branch, 404 not-found, and the 500 generic-error
- * branches. No Spring / MockMvc / DB.
+ * <p>All collaborators (notification, counter and user repositories) and the
+ * {@link Authentication} are mocked. Covers list/badge/markRead/batch
+ * markRead/markAllRead/stream happy paths, the 403 ownership branch, 404 not-found,
+ * the 400 batch validation, the 503 stream capacity and the 500 generic-error branches. No Spring /
+ * MockMvc / DB.
  */
 @ExtendWith(MockitoExtension.class)
 class NotificationControllerTest {
@@ -46,7 +53,9 @@ class NotificationControllerTest {
     private static final Long USER_ID = 24L;
 
     @Mock private CustomerNotificationRepository notificationRepository;
+    @Mock private CustomerNotificationCounterRepository counterRepository;
     @Mock private CustomerUserRepository customerUserRepository;
+    @Mock private CustomerEventStream eventStream;
     @Mock private Authentication auth;
 
     @InjectMocks private NotificationController controller;
@@ -86,7 +95,7 @@ class NotificationControllerTest {
         Page<CustomerNotification> page = new PageImpl<>(List.of(n), PageRequest.of(0, 20), 1);
         when(notificationRepository.findByCustomerUser_IdOrderByCreatedAtDesc(eq_USER_ID(), any(Pageable.class)))
                 .thenReturn(page);
-        when(notificationRepository.countByCustomerUser_IdAndReadFalse(USER_ID)).thenReturn(3L);
+        when(counterRepository.findUnreadCount(USER_ID)).thenReturn(Optional.of(3));
 
         ResponseEntity<ApiResponse<Map<String, Object>>> response =
                 controller.getNotifications(0, 20, auth);
@@ -110,7 +119,7 @@ class NotificationControllerTest {
         Page<CustomerNotification> page = new PageImpl<>(List.of(), PageRequest.of(0, 50), 0);
         when(notificationRepository.findByCustomerUser_IdOrderByCreatedAtDesc(eq_USER_ID(), any(Pageable.class)))
                 .thenReturn(page);
-        when(notificationRepository.countByCustomerUser_IdAndReadFalse(USER_ID)).thenReturn(0L);
+        when(counterRepository.findUnreadCount(USER_ID)).thenReturn(Optional.empty());
 
         ResponseEntity<ApiResponse<Map<String, Object>>> response =
                 controller.getNotifications(0, 200, auth);
@@ -135,6 +144,105 @@ class NotificationControllerTest {
         assertThat(response.getBody().data()).isNull();
     }
 
+    // ---- GET /api/notifications/badge ----
+
+    @Test
+    void getBadge_returnsCounterValueWithoutLoadingUserOrRows() {
+        BadgeView badge = mock(BadgeView.class);
+        when(badge.getUnreadCount()).thenReturn(7);
+        when(counterRepository.findBadgeByEmail(EMAIL)).thenReturn(Optional.of(badge));
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = controller.getBadge(auth);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody().data()).containsEntry("unreadCount", 7L);
+        verifyNoInteractions(notificationRepository, customerUserRepository);
+    }
+
+    @Test
+    void getBadge_noCounterYet_isZero() {
+        BadgeView badge = mock(BadgeView.class);
+        when(badge.getUnreadCount()).thenReturn(null);
+        when(counterRepository.findBadgeByEmail(EMAIL)).thenReturn(Optional.of(badge));
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = controller.getBadge(auth);
+
+        assertThat(response.getBody().data()).containsEntry("unreadCount", 0L);
+    }
+
+    @Test
+    void getBadge_userNotFound_returns500() {
+        when(counterRepository.findBadgeByEmail(EMAIL)).thenReturn(Optional.empty());
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = controller.getBadge(auth);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(500);
+        assertThat(response.getBody().message()).isEqualTo("Failed to retrieve badge");
+    }
+
+    // ---- GET /api/notifications/stream ----
+
+    @Test
+    void stream_returnsEmitterWithNoBufferingHeaders() {
+        user.setEmail(EMAIL);
+        SseEmitter emitter = new SseEmitter();
+        when(eventStream.connect(USER_ID, EMAIL, "41")).thenReturn(emitter);
+
+        ResponseEntity<SseEmitter> response = controller.stream("41", auth);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody()).isSameAs(emitter);
+        assertThat(response.getHeaders().getFirst("X-Accel-Buffering")).isEqualTo("no");
+    }
+
+    @Test
+    void stream_nodeAtCapacity_returns503WithRetryAfter() {
+        when(eventStream.connect(any(), any(), any())).thenReturn(null);
+
+        ResponseEntity<SseEmitter> response = controller.stream(null, auth);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(503);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("30");
+    }
+
+    // ---- PUT /api/notifications/read ----
+
+    @Test
+    void markReadBatch_byIds_singleUpdateAndReturnsUnreadCount() {
+        when(notificationRepository.markReadByIds(USER_ID, List.of(1L, 2L, 3L))).thenReturn(3);
+        when(counterRepository.findUnreadCount(USER_ID)).thenReturn(Optional.of(2));
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response =
+                controller.markReadBatch(new MarkNotificationsReadRequest(List.of(1L, 2L, 3L), null), auth);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody().data())
+                .containsEntry("updated", 3)
+                .containsEntry("unreadCount", 2L);
+        verify(notificationRepository, never()).findById(any());
+    }
+
+    @Test
+    void markReadBatch_upToWatermark_marksEverythingUpToId() {
+        when(notificationRepository.markReadUpTo(USER_ID, 40L)).thenReturn(12);
+        when(counterRepository.findUnreadCount(USER_ID)).thenReturn(Optional.of(0));
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response =
+                controller.markReadBatch(new MarkNotificationsReadRequest(null, 40L), auth);
+
+        assertThat(response.getBody().message()).isEqualTo("12 notification(s) marked as read");
+        assertThat(response.getBody().data()).containsEntry("unreadCount", 0L);
+    }
+
+    @Test
+    void markReadBatch_neitherOrBoth_returns400() {
+        assertThat(controller.markReadBatch(new MarkNotificationsReadRequest(List.of(), null), auth)
+                .getStatusCode().value()).isEqualTo(400);
+        assertThat(controller.markReadBatch(new MarkNotificationsReadRequest(List.of(1L), 5L), auth)
+                .getStatusCode().value()).isEqualTo(400);
+        verifyNoInteractions(notificationRepository);
+    }
+
     // ---- PUT /api/notifications/{id}/read ----
 
     @Test
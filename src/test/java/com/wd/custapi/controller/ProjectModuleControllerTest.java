@@ -49,6 +49,7 @@ class ProjectModuleControllerTest {
     @Mock private CustomerUserRepository customerUserRepository;
     @Mock private QualityCheckService qualityCheckService;
     @Mock private ActivityFeedService activityFeedService;
+    @Mock private ProjectTimelineService projectTimelineService;
     @Mock private GalleryService galleryService;
     @Mock private ObservationService observationService;
     @Mock private CctvService cctvService;
@@ -367,7 +368,7 @@ class ProjectModuleControllerTest {
 
     @Test
     void getCombinedActivityFeed_happyPath_returnsOk() {
-        when(activityFeedService.getCombinedActivityFeedByType(50L, "SNAG")).thenReturn(List.of());
+        when(projectTimelineService.getTimelineByType(50L, "SNAG")).thenReturn(List.of());
         ResponseEntity<ApiResponse<List<ActivityFeedService.CombinedActivityItem>>> resp =
                 controller.getCombinedActivityFeed(UUID, "SNAG", auth);
         assertThat(resp.getStatusCode().value()).isEqualTo(200);
@@ -382,9 +383,27 @@ class ProjectModuleControllerTest {
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @Test
+    void getCombinedActivityPage_happyPath_returnsOk() {
+        when(activityFeedService.getCombinedActivityPage(50L, null, null, 50))
+                .thenReturn(new ActivityFeedService.CombinedActivityPage(List.of(), null, false));
+        ResponseEntity<ApiResponse<ActivityFeedService.CombinedActivityPage>> resp =
+                controller.getCombinedActivityPage(UUID, null, null, 50, auth);
+        assertThat(resp.getStatusCode().value()).isEqualTo(200);
+    }
+
+    @Test
+    void getCombinedActivityPage_malformedCursor_returns400() {
+        when(activityFeedService.getCombinedActivityPage(50L, null, "yesterday", 50))
+                .thenThrow(new IllegalArgumentException("Invalid feed cursor: yesterday"));
+        ResponseEntity<ApiResponse<ActivityFeedService.CombinedActivityPage>> resp =
+                controller.getCombinedActivityPage(UUID, null, "yesterday", 50, auth);
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void getCombinedActivityFeedGrouped_happyPath_returnsOk() {
-        when(activityFeedService.getCombinedActivityFeedGroupedByDate(50L)).thenReturn(Map.of());
+        when(projectTimelineService.getTimelineGroupedByDate(50L)).thenReturn(Map.of());
         ResponseEntity<ApiResponse<Map<LocalDate, List<ActivityFeedService.CombinedActivityItem>>>> resp =
                 controller.getCombinedActivityFeedGrouped(UUID, auth);
         assertThat(resp.getStatusCode().value()).isEqualTo(200);
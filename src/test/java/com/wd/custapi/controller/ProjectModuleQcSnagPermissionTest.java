@@ -35,6 +35,7 @@ class ProjectModuleQcSnagPermissionTest {
     @Mock private CustomerUserRepository customerUserRepository;
     @Mock private QualityCheckService qualityCheckService;
     @Mock private ActivityFeedService activityFeedService;
+    @Mock private ProjectTimelineService projectTimelineService;
     @Mock private GalleryService galleryService;
     @Mock private ObservationService observationService;
     @Mock private CctvService cctvService;
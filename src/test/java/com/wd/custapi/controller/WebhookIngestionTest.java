@@ -3,7 +3,7 @@ package com.wd.custapi.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wd.custapi.dto.PortalEventType;
 import com.wd.custapi.dto.PortalWebhookEvent;
-import com.wd.custapi.service.WebhookIngestionService;
+import com.wd.custapi.service.WebhookQueue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,6 +13,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -32,7 +33,7 @@ import static org.mockito.Mockito.*;
 class WebhookIngestionTest {
 
     @Mock
-    private WebhookIngestionService ingestionService;
+    private WebhookQueue webhookQueue;
 
     @InjectMocks
     private InternalWebhookController webhookController;
@@ -62,7 +63,7 @@ class WebhookIngestionTest {
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals("accepted", response.getBody().get("status"));
-        verify(ingestionService).process(any(PortalWebhookEvent.class));
+        verify(webhookQueue).enqueue(any(PortalWebhookEvent.class));
     }
 
     @Test
@@ -76,7 +77,7 @@ class WebhookIngestionTest {
                 webhookController.receivePortalEvent(payload, request);
 
         assertEquals(401, response.getStatusCode().value());
-        verify(ingestionService, never()).process(any());
+        verify(webhookQueue, never()).enqueue(any());
     }
 
     @Test
@@ -90,7 +91,7 @@ class WebhookIngestionTest {
                 webhookController.receivePortalEvent(payload, request);
 
         assertEquals(401, response.getStatusCode().value());
-        verify(ingestionService, never()).process(any());
+        verify(webhookQueue, never()).enqueue(any());
     }
 
     // ── Event processing ──────────────────────────────────────────────────────
@@ -106,7 +107,7 @@ class WebhookIngestionTest {
         webhookController.receivePortalEvent(payload, request);
 
         ArgumentCaptor<PortalWebhookEvent> captor = ArgumentCaptor.forClass(PortalWebhookEvent.class);
-        verify(ingestionService).process(captor.capture());
+        verify(webhookQueue).enqueue(captor.capture());
 
         PortalWebhookEvent captured = captor.getValue();
         assertEquals(PortalEventType.INVOICE_ISSUED, captured.eventType());
@@ -125,7 +126,7 @@ class WebhookIngestionTest {
                 webhookController.receivePortalEvent(badPayload, request);
 
         assertEquals(400, response.getStatusCode().value());
-        verify(ingestionService, never()).process(any());
+        verify(webhookQueue, never()).enqueue(any());
     }
 
     @Test
@@ -142,7 +143,40 @@ class WebhookIngestionTest {
                 webhookController.receivePortalEvent(payload, request);
 
         assertEquals(200, response.getStatusCode().value());
-        verify(ingestionService).process(any(PortalWebhookEvent.class));
+        verify(webhookQueue).enqueue(any(PortalWebhookEvent.class));
+    }
+
+    // ── Backpressure ──────────────────────────────────────────────────────────
+
+    @Test
+    void receivePortalEvent_queueBacklogged_returns429WithRetryAfter() throws Exception {
+        String payload = buildPayload();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader("X-Portal-Signature")).thenReturn("sha256=" + hmac(payload, SECRET));
+        when(webhookQueue.isBacklogged()).thenReturn(true);
+
+        ResponseEntity<Map<String, String>> response =
+                webhookController.receivePortalEvent(payload, request);
+
+        assertEquals(429, response.getStatusCode().value());
+        assertEquals("30", response.getHeaders().getFirst("Retry-After"));
+        verify(webhookQueue).recordRejected();
+        verify(webhookQueue, never()).enqueue(any());
+    }
+
+    @Test
+    void receivePortalEvent_queueUnavailable_returns503() throws Exception {
+        String payload = buildPayload();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader("X-Portal-Signature")).thenReturn("sha256=" + hmac(payload, SECRET));
+        when(webhookQueue.enqueue(any(PortalWebhookEvent.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        ResponseEntity<Map<String, String>> response =
+                webhookController.receivePortalEvent(payload, request);
+
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals("30", response.getHeaders().getFirst("Retry-After"));
     }
 
     // ── Helpers ───────────────────────────────────────────────────────────────
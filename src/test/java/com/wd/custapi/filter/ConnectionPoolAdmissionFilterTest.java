@@ -0,0 +1,63 @@
+package com.wd.custapi.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ConnectionPoolAdmissionFilter}: requests beyond the
+ * limit are answered 503 after the admission timeout, permits are returned
+ * when the request finishes, and actuator requests bypass the limit.
+ */
+class ConnectionPoolAdmissionFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConnectionPoolAdmissionFilter filter =
+            new ConnectionPoolAdmissionFilter(1, Duration.ofMillis(20), meterRegistry);
+
+    private static MockHttpServletRequest get(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+
+    @Test
+    void requestBeyondLimit_isRejectedWith503_whileFirstHoldsThePermit() throws Exception {
+        MockHttpServletResponse nested = new MockHttpServletResponse();
+        MockHttpServletResponse first = new MockHttpServletResponse();
+
+        // The second request arrives while the first is still inside the chain
+        filter.doFilter(get("/api/dashboard"), first,
+                (req, res) -> filter.doFilter(get("/api/dashboard"), nested, new MockFilterChain()));
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(nested.getStatus()).isEqualTo(503);
+        assertThat(nested.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(meterRegistry.get("http.admission.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void permitIsReturnedAfterRequest() throws Exception {
+        filter.doFilter(get("/api/dashboard"), new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse second = new MockHttpServletResponse();
+
+        filter.doFilter(get("/api/dashboard"), second, new MockFilterChain());
+
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("http.admission.active").gauge().value()).isZero();
+    }
+
+    @Test
+    void actuator_bypassesLimit() throws Exception {
+        MockHttpServletResponse health = new MockHttpServletResponse();
+
+        filter.doFilter(get("/api/dashboard"), new MockHttpServletResponse(),
+                (req, res) -> filter.doFilter(get("/actuator/health"), health, new MockFilterChain()));
+
+        assertThat(health.getStatus()).isEqualTo(200);
+    }
+}
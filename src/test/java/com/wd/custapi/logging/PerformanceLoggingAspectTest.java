@@ -0,0 +1,66 @@
+package com.wd.custapi.logging;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@code service.method} timers recorded by {@link PerformanceLoggingAspect}.
+ */
+class PerformanceLoggingAspectTest {
+
+    static class SampleService {
+        String load() {
+            return "ok";
+        }
+    }
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PerformanceLoggingAspect aspect = new PerformanceLoggingAspect(meterRegistry);
+
+    private ProceedingJoinPoint joinPoint() throws Exception {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(SampleService.class.getDeclaredMethod("load"));
+        when(signature.getName()).thenReturn("load");
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getTarget()).thenReturn(new SampleService());
+        return joinPoint;
+    }
+
+    private Timer timer(String exception) {
+        return meterRegistry.find(PerformanceLoggingAspect.SERVICE_TIMER)
+                .tags("class", "SampleService", "method", "load", "exception", exception)
+                .timer();
+    }
+
+    @Test
+    void monitorServices_recordsSuccessfulCalls() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint();
+        when(joinPoint.proceed()).thenReturn("ok");
+
+        assertThat(aspect.monitorServices(joinPoint)).isEqualTo("ok");
+        aspect.monitorServices(joinPoint);
+
+        assertThat(timer("none").count()).isEqualTo(2);
+        assertThat(timer("IllegalStateException")).isNull();
+    }
+
+    @Test
+    void monitorServices_recordsFailuresByExceptionAndRethrows() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint();
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> aspect.monitorServices(joinPoint)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(timer("IllegalStateException").count()).isEqualTo(1);
+        assertThat(timer("none")).isNull();
+    }
+}
@@ -0,0 +1,61 @@
+package com.wd.custapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link SensitiveDataMasker}'s single-pass scanner — JSON and
+ * param shapes, case-insensitivity, several secrets in one input, no copy when
+ * nothing matches — and for {@link MaskingMessageConverter}.
+ */
+class SensitiveDataMaskerTest {
+
+    @Test
+    void mask_jsonFields_masksValuesOnly() {
+        assertThat(SensitiveDataMasker.mask("{\"password\":\"mySecret123\",\"email\":\"user@test.com\"}"))
+                .isEqualTo("{\"password\":\"****\",\"email\":\"user@test.com\"}");
+        assertThat(SensitiveDataMasker.mask("{\"Token\" : \"abc\", \"otp\":\"\"}"))
+                .isEqualTo("{\"Token\" : \"****\", \"otp\":\"****\"}");
+    }
+
+    @Test
+    void mask_paramFields_masksUpToDelimiter() {
+        assertThat(SensitiveDataMasker.mask("page=1&access_token=eyJ.x.y&PIN=1234 done"))
+                .isEqualTo("page=1&access_token=****&PIN=**** done");
+        assertThat(SensitiveDataMasker.mask("{\"url\":\"https://x.test/cb?secret=s3\"}"))
+                .isEqualTo("{\"url\":\"https://x.test/cb?secret=****\"}");
+    }
+
+    @Test
+    void mask_similarButNotSensitiveNames_areLeftAlone() {
+        String input = "{\"passwordHint\":\"pet\",\"tokenType\":\"Bearer\"} pin= otp";
+        assertThat(SensitiveDataMasker.mask(input)).isSameAs(input);
+    }
+
+    @Test
+    void mask_nothingToMask_returnsSameInstance() {
+        String input = "GET /api/projects/42 completed 200 in 12ms";
+        assertThat(SensitiveDataMasker.mask(input)).isSameAs(input);
+        assertThat(SensitiveDataMasker.mask((String) null)).isNull();
+    }
+
+    @Test
+    void mask_intoBuffer_appendsMaskedCopy() {
+        StringBuilder out = new StringBuilder("body: ");
+        SensitiveDataMasker.mask(new StringBuilder("cvv=123,otp=42"), out);
+        assertThat(out).hasToString("body: cvv=****,otp=****");
+    }
+
+    @Test
+    void converter_masksFormattedMessage() {
+        LoggingEvent event = new LoggingEvent("test", new LoggerContext().getLogger("test"), Level.WARN,
+                "Login failed for {}: {}", null, new Object[]{"a@test.com", "password=hunter2"});
+
+        assertThat(new MaskingMessageConverter().convert(event))
+                .isEqualTo("Login failed for a@test.com: password=****");
+    }
+}
@@ -0,0 +1,83 @@
+package com.wd.custapi.repository;
+
+import com.wd.custapi.testsupport.FlywayMigrations;
+import com.wd.custapi.testsupport.TestcontainersPostgresBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unread counters kept by the V1024 triggers on {@code customer_notifications}.
+ *
+ * <p>The counter table is dropped before the migrations run so V1024 creates it
+ * with its column defaults; the Hibernate-built one has none and the triggers
+ * rely on them.
+ */
+class CustomerNotificationCounterRepositoryTest extends TestcontainersPostgresBase {
+
+    private static final String EMAIL = "counter-test@example.com";
+
+    @Autowired
+    private CustomerNotificationCounterRepository counterRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private long userId;
+
+    @BeforeEach
+    void migrate() {
+        jdbc.execute("DROP TABLE IF EXISTS customer_notification_counters");
+        FlywayMigrations.applyAfter(dataSource, "1023");
+
+        jdbc.update("INSERT INTO customer_roles (id, name) VALUES (1, 'CUSTOMER') ON CONFLICT DO NOTHING");
+        jdbc.update("INSERT INTO customer_users (email, password, first_name, role_id, created_at, enabled) "
+                + "VALUES (?, 'x', 'Test', 1, now(), true) ON CONFLICT (email) DO NOTHING", EMAIL);
+        userId = jdbc.queryForObject("SELECT id FROM customer_users WHERE email = ?", Long.class, EMAIL);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("DELETE FROM customer_notifications WHERE customer_user_id = ?", userId);
+        jdbc.update("DELETE FROM customer_notification_counters WHERE customer_user_id = ?", userId);
+    }
+
+    @Test
+    void insertMarkReadAndDelete_keepUnreadCountInStep() {
+        insertNotifications(3);
+        assertThat(counterRepository.findUnreadCount(userId)).contains(3);
+
+        jdbc.update("UPDATE customer_notifications SET is_read = true WHERE id = "
+                + "(SELECT MIN(id) FROM customer_notifications WHERE customer_user_id = ?)", userId);
+        assertThat(counterRepository.findUnreadCount(userId)).contains(2);
+
+        jdbc.update("DELETE FROM customer_notifications WHERE customer_user_id = ? AND is_read = false", userId);
+        assertThat(counterRepository.findUnreadCount(userId)).contains(0);
+    }
+
+    @Test
+    void markRead_withoutCounterRow_doesNotGoNegative() {
+        insertNotifications(2);
+        jdbc.update("DELETE FROM customer_notification_counters WHERE customer_user_id = ?", userId);
+
+        jdbc.update("UPDATE customer_notifications SET is_read = true WHERE customer_user_id = ?", userId);
+
+        assertThat(counterRepository.findUnreadCount(userId)).contains(0);
+    }
+
+    private void insertNotifications(int count) {
+        for (int i = 0; i < count; i++) {
+            jdbc.update("INSERT INTO customer_notifications (customer_user_id, title, is_read, created_at) "
+                    + "VALUES (?, ?, false, now())", userId, "Notification " + i);
+        }
+    }
+}
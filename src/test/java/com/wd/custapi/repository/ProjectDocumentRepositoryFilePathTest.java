@@ -43,4 +43,19 @@ class ProjectDocumentRepositoryFilePathTest extends TestcontainersPostgresBase {
         List<ProjectDocument> found = repo.findByFilePath("projects/99999/never-existed.pdf");
         assertThat(found).isEmpty();
     }
+
+    @Test
+    void findProjectIdsByFilePath_returnsOnlyProjectScopedOwners() {
+        jdbc.update(
+                "INSERT INTO document_categories (id, name, created_at) "
+              + "VALUES (9001, 'test-cat', now()) ON CONFLICT DO NOTHING");
+        jdbc.update(
+                "INSERT INTO project_documents "
+              + "(reference_id, reference_type, category_id, filename, file_path, "
+              + " created_at, is_active, uploaded_by_type) "
+              + "VALUES (23456, 'PROJECT', 9001, 'shared.pdf', 'shared/owners.pdf', now(), true, 'CUSTOMER'), "
+              + "       (777, 'LEAD', 9001, 'shared.pdf', 'shared/owners.pdf', now(), true, 'CUSTOMER')");
+
+        assertThat(repo.findProjectIdsByFilePath("shared/owners.pdf")).containsExactly(23456L);
+    }
 }
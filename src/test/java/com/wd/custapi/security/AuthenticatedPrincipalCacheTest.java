@@ -0,0 +1,89 @@
+package com.wd.custapi.security;
+
+import com.wd.custapi.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link AuthenticatedPrincipalCache}: one user lookup per TTL window,
+ * no cached password hash, no cached misses, and eviction forces a reload.
+ */
+@ExtendWith(MockitoExtension.class)
+class AuthenticatedPrincipalCacheTest {
+
+    private static final String EMAIL = "owner@example.com";
+
+    @Mock private UserDetailsService userDetailsService;
+
+    private AuthenticatedPrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AuthenticatedPrincipalCache(userDetailsService,
+                new CacheConfig().cacheManager(Duration.ofMinutes(2), Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(1)));
+    }
+
+    private static UserDetails loaded(boolean enabled) {
+        return User.withUsername(EMAIL)
+                .password("$2a$10$hash")
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"),
+                        new SimpleGrantedAuthority("PROJECT_VIEW")))
+                .disabled(!enabled)
+                .build();
+    }
+
+    @Test
+    void get_repeatedCalls_loadUserOnce() {
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(loaded(true));
+
+        for (int i = 0; i < 10; i++) {
+            UserDetails principal = cache.get(EMAIL);
+            assertThat(principal.getUsername()).isEqualTo(EMAIL);
+            assertThat(principal.getAuthorities()).extracting("authority")
+                    .containsExactlyInAnyOrder("ROLE_CUSTOMER", "PROJECT_VIEW");
+        }
+
+        verify(userDetailsService, times(1)).loadUserByUsername(EMAIL);
+    }
+
+    @Test
+    void get_doesNotRetainPasswordHash() {
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(loaded(true));
+
+        assertThat(cache.get(EMAIL).getPassword()).isEmpty();
+    }
+
+    @Test
+    void get_unknownUser_isNotCached() {
+        when(userDetailsService.loadUserByUsername(EMAIL))
+                .thenThrow(new UsernameNotFoundException("User not found: " + EMAIL))
+                .thenReturn(loaded(true));
+
+        assertThatThrownBy(() -> cache.get(EMAIL)).isInstanceOf(UsernameNotFoundException.class);
+        assertThat(cache.get(EMAIL).getUsername()).isEqualTo(EMAIL);
+    }
+
+    @Test
+    void evict_reloadsCurrentAccountState() {
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(loaded(true), loaded(false));
+
+        assertThat(cache.get(EMAIL).isEnabled()).isTrue();
+        cache.evict(EMAIL);
+        assertThat(cache.get(EMAIL).isEnabled()).isFalse();
+    }
+}
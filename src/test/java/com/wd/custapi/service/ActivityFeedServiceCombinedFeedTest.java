@@ -33,6 +33,7 @@ class ActivityFeedServiceCombinedFeedTest {
     @Mock private QualityCheckRepository qualityCheckRepository;
     @Mock private GalleryImageRepository galleryImageRepository;
     @Mock private SiteVisitRepository siteVisitRepository;
+    @Mock private DashboardCache dashboardCache;
 
     @InjectMocks private ActivityFeedService service;
 
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -16,13 +17,17 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
  * Pure-Mockito unit tests for {@link ActivityFeedService}. No Spring / DB.
  * Covers createActivity (happy + every null/exception branch), getProjectActivities,
- * getProjectActivitiesByDateRange, and the combined-feed grouping / type-filter paths.
+ * getProjectActivitiesByDateRange, the combined-feed grouping / type-filter paths and
+ * the cursor-paged k-way merge.
  * The orphaned-author lazy-proxy path is already covered by ActivityFeedServiceCombinedFeedTest.
  */
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +42,7 @@ class ActivityFeedServiceUnitTest {
     @Mock private QualityCheckRepository qualityCheckRepository;
     @Mock private GalleryImageRepository galleryImageRepository;
     @Mock private SiteVisitRepository siteVisitRepository;
+    @Mock private DashboardCache dashboardCache;
 
     @InjectMocks private ActivityFeedService service;
 
@@ -230,6 +236,72 @@ class ActivityFeedServiceUnitTest {
         assertThat(service.getCombinedActivityFeedByType(50L, "OBSERVATION")).isEmpty();
     }
 
+    // ── combined feed: keyset paging ──────────────────────────────────────────
+
+    @Test
+    void getCombinedActivityPage_mergesSourcesNewestFirst_andEmitsCursor() {
+        SiteReport r1 = siteReport(1L, "PUBLISHED", LocalDateTime.of(2026, 5, 10, 10, 0));
+        SiteReport r2 = siteReport(2L, "PUBLISHED", LocalDateTime.of(2026, 5, 10, 8, 0));
+        Observation obs = mock(Observation.class);
+        when(obs.getId()).thenReturn(3L);
+        when(obs.getReportedDate()).thenReturn(LocalDateTime.of(2026, 5, 10, 9, 0));
+        when(siteReportRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any()))
+                .thenReturn(List.of(r1, r2));
+        when(observationRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any()))
+                .thenReturn(List.of(obs));
+        when(qualityCheckRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any())).thenReturn(List.of());
+        when(galleryImageRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any())).thenReturn(List.of());
+        when(siteVisitRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any())).thenReturn(List.of());
+
+        ActivityFeedService.CombinedActivityPage page = service.getCombinedActivityPage(50L, null, null, 2);
+
+        assertThat(page.items()).extracting(ActivityFeedService.CombinedActivityItem::id)
+                .containsExactly(1L, 3L);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(page.nextCursor()).isEqualTo("2026-05-10T09:00,3,OBSERVATION");
+        // Each source is asked for at most limit + 1 rows
+        verify(siteReportRepository).findFeedPageBefore(50L, LocalDateTime.of(9999, 12, 31, 0, 0),
+                Long.MAX_VALUE, PageRequest.of(0, 3));
+    }
+
+    @Test
+    void getCombinedActivityPage_cursorBoundsEachSourceByTieBreakOrder() {
+        LocalDateTime ts = LocalDateTime.of(2026, 5, 10, 9, 0);
+        when(siteReportRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any())).thenReturn(List.of());
+        when(observationRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any())).thenReturn(List.of());
+        when(qualityCheckRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any())).thenReturn(List.of());
+        when(galleryImageRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any())).thenReturn(List.of());
+        when(siteVisitRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any())).thenReturn(List.of());
+
+        ActivityFeedService.CombinedActivityPage page =
+                service.getCombinedActivityPage(50L, "ALL", "2026-05-10T09:00,3,OBSERVATION", 10);
+
+        assertThat(page.items()).isEmpty();
+        assertThat(page.hasMore()).isFalse();
+        assertThat(page.nextCursor()).isNull();
+        // Sources up to and including the cursor's own exclude id 3; later sources may still return it
+        verify(siteReportRepository).findFeedPageBefore(50L, ts, 3L, PageRequest.of(0, 11));
+        verify(observationRepository).findFeedPageBefore(50L, ts, 3L, PageRequest.of(0, 11));
+        verify(qualityCheckRepository).findFeedPageBefore(50L, ts, 4L, PageRequest.of(0, 11));
+        verify(siteVisitRepository).findFeedPageBefore(50L, ts, 4L, PageRequest.of(0, 11));
+    }
+
+    @Test
+    void getCombinedActivityPage_specificType_queriesOnlyThatSource() {
+        when(galleryImageRepository.findFeedPageBefore(eq(50L), any(), anyLong(), any())).thenReturn(List.of());
+
+        assertThat(service.getCombinedActivityPage(50L, "gallery", null, 20).items()).isEmpty();
+
+        verifyNoInteractions(siteReportRepository, observationRepository,
+                qualityCheckRepository, siteVisitRepository);
+    }
+
+    @Test
+    void getCombinedActivityPage_malformedCursor_isRejected() {
+        assertThatThrownBy(() -> service.getCombinedActivityPage(50L, null, "yesterday", 20))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     // ── helpers ──────────────────────────────────────────────────────────────
 
     private void stubFeedWithOneReport() {
@@ -7,6 +7,7 @@ import com.wd.custapi.model.PasswordResetToken;
 import com.wd.custapi.repository.CustomerUserRepository;
 import com.wd.custapi.repository.PasswordResetTokenRepository;
 import com.wd.custapi.repository.RefreshTokenRepository;
+import com.wd.custapi.security.AuthenticatedPrincipalCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -52,6 +53,9 @@ class AuthServicePasswordResetTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private AuthenticatedPrincipalCache principalCache;
+
     @InjectMocks
     private AuthService authService;
 
@@ -133,6 +137,7 @@ class AuthServicePasswordResetTest {
         assertEquals("encoded-password", user.getPassword());
         verify(customerUserRepository).save(user);
         verify(refreshTokenRepository).deleteByUser_Id(99L);
+        verify(principalCache).evict("known@example.com");
     }
 
     private static String extractQueryParam(URI uri, String key) {
@@ -13,6 +13,7 @@ import com.wd.custapi.repository.EmailVerificationTokenRepository;
 import com.wd.custapi.repository.PasswordResetTokenRepository;
 import com.wd.custapi.repository.RefreshTokenRepository;
 import com.wd.custapi.repository.RoleRepository;
+import com.wd.custapi.security.AuthenticatedPrincipalCache;
 import com.wd.custapi.util.TokenHashUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -65,6 +66,12 @@ class AuthServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private AuthenticatedPrincipalCache principalCache;
+
+    @Mock
+    private DeviceTokenService deviceTokenService;
+
     @InjectMocks
     private AuthService authService;
 
@@ -307,4 +314,15 @@ class AuthServiceTest {
         RuntimeException ex = assertThrows(RuntimeException.class, () -> authService.refreshToken(request));
         assertTrue(ex.getMessage().toLowerCase().contains("invalid"));
     }
+
+    @Test
+    void registerFcmToken_registersDeviceAndKeepsLatestOnUserRow() {
+        when(customerUserRepository.findByEmail("john@example.com")).thenReturn(Optional.of(user));
+
+        authService.registerFcmToken("john@example.com", "device-2");
+
+        assertEquals("device-2", user.getFcmToken());
+        verify(customerUserRepository).save(user);
+        verify(deviceTokenService).register(user, "device-2");
+    }
 }
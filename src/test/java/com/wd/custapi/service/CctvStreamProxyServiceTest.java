@@ -3,6 +3,7 @@ package com.wd.custapi.service;
 import org.junit.jupiter.api.Test;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Base64;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -101,4 +102,25 @@ class CctvStreamProxyServiceTest {
         assertThat(svc.basicAuthHeader(null, "x")).isNull();
         assertThat(svc.basicAuthHeader("", "x")).isNull();
     }
+
+    @Test
+    void manifestTtl_livePlaylistIsHalfTheTargetDuration() {
+        assertThat(svc.manifestTtl("#EXTM3U\n#EXT-X-TARGETDURATION:6\n#EXTINF:6.0,\nseg.ts"))
+                .isEqualTo(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void manifestTtl_neverBelowTheLiveFloor() {
+        assertThat(svc.manifestTtl("#EXTM3U\n#EXT-X-TARGETDURATION:1\n#EXTINF:1.0,\nseg.ts"))
+                .isEqualTo(CctvStreamProxyService.MIN_LIVE_MANIFEST_TTL);
+        // Master playlists carry no target duration
+        assertThat(svc.manifestTtl("#EXTM3U\n#EXT-X-STREAM-INF:BANDWIDTH=800000\nlow.m3u8"))
+                .isEqualTo(CctvStreamProxyService.MIN_LIVE_MANIFEST_TTL);
+    }
+
+    @Test
+    void manifestTtl_vodPlaylistIsLongLived() {
+        assertThat(svc.manifestTtl("#EXTM3U\n#EXT-X-TARGETDURATION:10\n#EXTINF:9.0,\nseg.ts\n#EXT-X-ENDLIST"))
+                .isEqualTo(Duration.ofHours(1));
+    }
 }
@@ -0,0 +1,112 @@
+package com.wd.custapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wd.custapi.service.CustomerEventBus.Signal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link CustomerEventBus}: signals are NOTIFYed on the shared
+ * channel in cross-node mode, in a savepoint so a failed NOTIFY leaves the
+ * caller's transaction usable, delivered to the local stream otherwise, and
+ * large recipient lists are split to fit a NOTIFY payload.
+ */
+@ExtendWith(MockitoExtension.class)
+class CustomerEventBusTest {
+
+    @Mock private JdbcTemplate jdbc;
+    @Mock private CustomerEventStream stream;
+    @Mock private Connection connection;
+    @Mock private Savepoint savepoint;
+    @Mock private PreparedStatement statement;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CustomerEventBus bus(boolean crossNode) {
+        return new CustomerEventBus(jdbc, stream, objectMapper, new DataSourceProperties(), crossNode);
+    }
+
+    /** Runs the bus's connection callbacks against {@link #connection}, translating like JdbcTemplate. */
+    @SuppressWarnings("unchecked")
+    private void onConnection() {
+        when(jdbc.execute(any(ConnectionCallback.class))).thenAnswer(inv -> {
+            try {
+                return ((ConnectionCallback<Object>) inv.getArgument(0)).doInConnection(connection);
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("pg_notify", null, e);
+            }
+        });
+    }
+
+    @Test
+    void crossNode_notifiesChannelWithSignalJson_inSavepoint() throws Exception {
+        onConnection();
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(connection.prepareStatement("SELECT pg_notify(?, ?)")).thenReturn(statement);
+
+        bus(true).projectChanged(10L, "SITE_REPORT_SUBMITTED");
+
+        verify(statement).setString(1, CustomerEventBus.CHANNEL);
+        verify(statement).setString(eq(2),
+                argThat((String json) -> json.contains("\"projectId\":10") && json.contains("SITE_REPORT_SUBMITTED")));
+        verify(statement).execute();
+        verify(connection).releaseSavepoint(savepoint);
+        verifyNoInteractions(stream);
+    }
+
+    @Test
+    void crossNode_failedNotify_rollsBackToSavepointAndDoesNotThrow() throws Exception {
+        onConnection();
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(connection.prepareStatement("SELECT pg_notify(?, ?)")).thenReturn(statement);
+        when(statement.execute()).thenThrow(new SQLException("too many notifications in the NOTIFY queue"));
+
+        bus(true).projectChanged(10L, "SITE_REPORT_SUBMITTED");
+
+        verify(connection).rollback(savepoint);
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    void localMode_outsideTransaction_deliversImmediately_inChunks() {
+        List<Long> userIds = LongStream.rangeClosed(1, CustomerEventBus.MAX_USER_IDS_PER_SIGNAL + 1).boxed().toList();
+
+        bus(false).notificationsAdded(userIds);
+
+        ArgumentCaptor<Signal> signals = ArgumentCaptor.forClass(Signal.class);
+        verify(stream, times(2)).deliver(signals.capture());
+        Set<Long> delivered = new HashSet<>();
+        signals.getAllValues().forEach(s -> delivered.addAll(s.userIds()));
+        assertThat(delivered).hasSize(userIds.size());
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void projectChanged_withoutProject_isIgnored() {
+        bus(false).projectChanged(null, "GENERAL");
+
+        verifyNoInteractions(stream, jdbc);
+    }
+}
@@ -0,0 +1,249 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.CustomerNotification;
+import com.wd.custapi.repository.CustomerNotificationRepository;
+import com.wd.custapi.service.CustomerEventBus.Signal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link CustomerEventStream}: replay from {@code Last-Event-ID},
+ * delivery of notification and project signals, the per-user and per-node
+ * connection caps, the cap on concurrent notification fetches and the overflow
+ * disconnect. Writes run inline on a {@link SyncTaskExecutor} unless a test
+ * needs real writer threads; emitters record the events they are sent.
+ */
+@ExtendWith(MockitoExtension.class)
+class CustomerEventStreamTest {
+
+    @Mock private CustomerNotificationRepository notificationRepository;
+    @Mock private ProjectAccessService projectAccessService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    /** Per-user cap 2, replay limit 3, two concurrent fetches. */
+    private CustomerEventStream stream(int maxConnections, int bufferSize, Executor writers) {
+        return new CustomerEventStream(notificationRepository, projectAccessService, meterRegistry,
+                maxConnections, 2, bufferSize, 3, Duration.ofMinutes(30), 2, writers) {
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter(timeoutMillis);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private CustomerEventStream stream() {
+        return stream(100, 16, new SyncTaskExecutor());
+    }
+
+    private static CustomerNotification notification(long id) {
+        CustomerNotification n = new CustomerNotification();
+        n.setId(id);
+        n.setTitle("Notification " + id);
+        n.setNotificationType("SITE_REPORT");
+        n.setCreatedAt(LocalDateTime.now());
+        return n;
+    }
+
+    private double disconnects(String reason) {
+        return meterRegistry.get("notification.stream.disconnects").tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void connect_withLastEventId_replaysMissedNotifications() {
+        when(notificationRepository.findByCustomerUser_IdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(40L), any(Pageable.class)))
+                .thenReturn(List.of(notification(41), notification(42)));
+
+        stream().connect(1L, "a@example.com", "40");
+
+        List<String> events = emitters.get(0).events;
+        assertThat(events).hasSize(3);
+        assertThat(events.get(0)).contains("event:ready").contains("id:40");
+        assertThat(events.get(1)).contains("event:notification").contains("id:41");
+        assertThat(events.get(2)).contains("event:notification").contains("id:42");
+    }
+
+    @Test
+    void connect_fartherBehindThanReplayLimit_jumpsToNewestAndSendsResync() {
+        when(notificationRepository.findByCustomerUser_IdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(5L), any(Pageable.class)))
+                .thenReturn(List.of(notification(6), notification(7), notification(8)));
+        when(notificationRepository.findMaxIdByUserId(1L)).thenReturn(99L);
+
+        stream().connect(1L, "a@example.com", "5");
+
+        List<String> events = emitters.get(0).events;
+        assertThat(events.get(events.size() - 1)).contains("event:resync").contains("id:99");
+    }
+
+    @Test
+    void deliver_notificationSignal_sendsRowsAfterWatermarkToThatUserOnly() {
+        when(notificationRepository.findMaxIdByUserId(1L)).thenReturn(10L);
+        when(notificationRepository.findByCustomerUser_IdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(notification(11)));
+        CustomerEventStream stream = stream();
+        stream.connect(1L, "a@example.com", null);
+
+        stream.deliver(Signal.notifications(List.of(1L, 2L)));
+
+        List<String> events = emitters.get(0).events;
+        assertThat(events.get(events.size() - 1)).contains("event:notification").contains("id:11");
+        verify(notificationRepository, never())
+                .findByCustomerUser_IdAndIdGreaterThanOrderByIdAsc(eq(2L), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void deliver_notificationsForManyUsers_capsConcurrentFetches() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        when(notificationRepository.findMaxIdByUserId(anyLong())).thenReturn(0L);
+        when(notificationRepository.findByCustomerUser_IdAndIdGreaterThanOrderByIdAsc(anyLong(), eq(0L), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    release.await(5, TimeUnit.SECONDS);
+                    inFlight.decrementAndGet();
+                    return List.of();
+                });
+        ExecutorService writers = Executors.newFixedThreadPool(6);
+        try {
+            CustomerEventStream stream = stream(100, 16, writers);
+            List<Long> userIds = List.of(1L, 2L, 3L, 4L, 5L, 6L);
+            userIds.forEach(id -> stream.connect(id, "u" + id + "@example.com", null));
+
+            stream.deliver(Signal.notifications(userIds));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (inFlight.get() < 2 && System.nanoTime() < deadline) Thread.sleep(10);
+            Thread.sleep(100);
+            assertThat(peak.get()).isEqualTo(2);
+        } finally {
+            release.countDown();
+            writers.shutdown();
+            assertThat(writers.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        }
+        verify(notificationRepository, times(6))
+                .findByCustomerUser_IdAndIdGreaterThanOrderByIdAsc(anyLong(), eq(0L), any(Pageable.class));
+    }
+
+    @Test
+    void deliver_projectSignal_reachesOnlyUsersWithAccess() {
+        when(projectAccessService.memberProjectIds("a@example.com")).thenReturn(Set.of(10L));
+        when(projectAccessService.memberProjectIds("b@example.com")).thenReturn(Set.of(20L));
+        when(projectAccessService.isAdmin("a@example.com")).thenReturn(false);
+        when(projectAccessService.isAdmin("b@example.com")).thenReturn(false);
+        when(projectAccessService.isAdmin("c@example.com")).thenReturn(true);
+        CustomerEventStream stream = stream();
+        stream.connect(1L, "a@example.com", null);
+        stream.connect(2L, "b@example.com", null);
+        stream.connect(3L, "c@example.com", null);
+        clearInvocations(projectAccessService);
+
+        stream.deliver(Signal.projectChanged(10L, "SITE_REPORT_SUBMITTED"));
+
+        assertThat(emitters.get(0).events).anySatisfy(e ->
+                assertThat(e).contains("event:project").contains("SITE_REPORT_SUBMITTED"));
+        assertThat(emitters.get(1).events).noneMatch(e -> e.contains("event:project"));
+        assertThat(emitters.get(2).events).anySatisfy(e -> assertThat(e).contains("event:project"));
+        verifyNoInteractions(projectAccessService);   // resolved at connect, not per signal
+    }
+
+    @Test
+    void deliver_membershipChange_reResolvesProjectsBeforeDelivering() {
+        when(projectAccessService.memberProjectIds("b@example.com")).thenReturn(Set.of(), Set.of(10L));
+        CustomerEventStream stream = stream();
+        stream.connect(2L, "b@example.com", null);
+
+        stream.deliver(Signal.projectChanged(10L, "PROJECT_MEMBERSHIP_CHANGED"));
+        stream.deliver(Signal.projectChanged(10L, "BOQ_UPDATED"));
+
+        verify(projectAccessService).evictMembership(10L);
+        assertThat(emitters.get(0).events).filteredOn(e -> e.contains("event:project")).hasSize(2);
+    }
+
+    @Test
+    void connect_beyondPerUserCap_closesOldestStream() {
+        CustomerEventStream stream = stream();
+
+        stream.connect(1L, "a@example.com", null);
+        stream.connect(1L, "a@example.com", null);
+        stream.connect(1L, "a@example.com", null);
+
+        assertThat(emitters.get(0).completed).isTrue();
+        assertThat(emitters.get(2).completed).isFalse();
+        assertThat(stream.connectionCount()).isEqualTo(2);
+        assertThat(disconnects("replaced")).isEqualTo(1.0);
+    }
+
+    @Test
+    void connect_nodeAtMaxConnections_returnsNull() {
+        CustomerEventStream stream = stream(1, 16, new SyncTaskExecutor());
+
+        assertThat(stream.connect(1L, "a@example.com", null)).isNotNull();
+        assertThat(stream.connect(2L, "b@example.com", null)).isNull();
+        assertThat(stream.connectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void offer_clientNotKeepingUp_isDisconnectedOnOverflow() {
+        when(projectAccessService.memberProjectIds("a@example.com")).thenReturn(Set.of(10L));
+        List<Runnable> stalledWrites = new ArrayList<>();
+        CustomerEventStream stream = stream(100, 2, stalledWrites::add);
+        stream.connect(1L, "a@example.com", null);               // ready
+        stream.deliver(Signal.projectChanged(10L, "BOQ_UPDATED")); // project — buffer full
+
+        stream.heartbeat();
+
+        assertThat(emitters.get(0).completed).isTrue();
+        assertThat(stream.connectionCount()).isZero();
+        assertThat(disconnects("overflow")).isEqualTo(1.0);
+    }
+
+    /** Records each event as its SSE text (non-text data via {@code toString}). */
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        volatile boolean completed;
+
+        RecordingEmitter(long timeoutMillis) {
+            super(timeoutMillis);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            events.add(text.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.wd.custapi.service;
 
+import com.wd.custapi.dto.DashboardDto;
 import com.wd.custapi.model.Project;
 import com.wd.custapi.testsupport.TestcontainersPostgresBase;
 import org.junit.jupiter.api.Test;
@@ -43,6 +44,17 @@ class DashboardServiceProjectByIdAndEmailTest extends TestcontainersPostgresBase
         assertThat(found.getId()).isEqualTo(projectId);
     }
 
+    @Test
+    void dashboardCardsComeFromMembershipProjection() {
+        seedCustomerAndProject("carol@test.com", "Carol Project");
+        seedCustomerAndProject("dave@test.com", "Dave Project");
+        DashboardDto dashboard = dashboardService.getCustomerDashboard("carol@test.com");
+        assertThat(dashboard.getProjects().getTotalProjects()).isEqualTo(1L);
+        assertThat(dashboard.getProjects().getRecentProjects())
+                .extracting(DashboardDto.ProjectCard::getName)
+                .containsExactly("Carol Project");
+    }
+
     // --- helpers ---
     private long seedCustomerAndProject(String email, String projectName) {
         jdbc.update("INSERT INTO customer_roles (id, name) VALUES (1, 'CUSTOMER') ON CONFLICT DO NOTHING");
@@ -1,18 +1,25 @@
 package com.wd.custapi.service;
 
+import com.wd.custapi.config.CacheConfig;
 import com.wd.custapi.dto.DashboardDto;
 import com.wd.custapi.model.CustomerUser;
 import com.wd.custapi.model.Project;
 import com.wd.custapi.model.Role;
 import com.wd.custapi.repository.*;
+import com.wd.custapi.repository.ProjectRepository.DashboardProjectView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -44,6 +51,14 @@ class DashboardServiceTest {
     @Mock
     private com.wd.custapi.repository.ProjectMilestoneRepository projectMilestoneRepository;
 
+    @Spy
+    private DashboardCache dashboardCache = new DashboardCache(new CacheConfig().cacheManager(
+            Duration.ofMinutes(2), Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(1)));
+
+    // Sections run inline on the test thread
+    @Spy
+    private DashboardSections sections = new DashboardSections(Runnable::run, Duration.ofSeconds(1));
+
     @InjectMocks
     private DashboardService dashboardService;
 
@@ -72,15 +87,31 @@ class DashboardServiceTest {
 
     // ── getCustomerDashboard ──────────────────────────────────────────────────
 
-    @Test
-    void getCustomerDashboard_returnsUserInfoAndProjectCards() {
-        when(customerUserRepository.findByEmail("john@example.com")).thenReturn(Optional.of(customerUser));
-        when(projectRepository.findAllByCustomerEmail("john@example.com")).thenReturn(List.of(project));
-        when(projectDesignStepRepository.calculateDesignProgressBatch(anyList())).thenReturn(List.of());
-        when(activityFeedRepository.findTop10ByProjectIdInOrderByCreatedAtDesc(anyList(), any()))
+    /** Build into a local before {@code when(...)}: stubbing inside another stubbing fails. */
+    private DashboardProjectView projectView(Long id, String name) {
+        DashboardProjectView view = mock(DashboardProjectView.class, withSettings().strictness(Strictness.LENIENT));
+        when(view.getId()).thenReturn(id);
+        when(view.getProjectUuid()).thenReturn(UUID.randomUUID());
+        when(view.getName()).thenReturn(name);
+        return view;
+    }
+
+    private void stubDashboardSections() {
+        when(projectDesignStepRepository.calculateDesignProgressBatch(anyList()))
+                .thenReturn(List.<Object[]>of(new Object[]{10L, 40.0}));
+        when(activityFeedRepository.findRecentViewsByProjectIdIn(anyList(), any(Pageable.class)))
                 .thenReturn(List.of());
         when(paymentScheduleRepository.getPaymentSummaryForProjects(anyList()))
                 .thenReturn(new Object[]{1L, 0L, 1L, 50000.0, 0.0});
+    }
+
+    @Test
+    void getCustomerDashboard_returnsUserInfoAndProjectCards() {
+        DashboardProjectView view = projectView(10L, "Test Project");
+        when(customerUserRepository.findByEmail("john@example.com")).thenReturn(Optional.of(customerUser));
+        when(projectRepository.findDashboardViewsByCustomerEmail("john@example.com"))
+                .thenReturn(List.of(view));
+        stubDashboardSections();
 
         DashboardDto result = dashboardService.getCustomerDashboard("john@example.com");
 
@@ -89,6 +120,104 @@ class DashboardServiceTest {
         assertEquals("john@example.com", result.getUser().getEmail());
         assertNotNull(result.getProjects());
         assertEquals(1L, result.getProjects().getTotalProjects());
+        assertEquals("Test Project", result.getProjects().getRecentProjects().get(0).getName());
+        assertEquals(40.0, result.getProjects().getRecentProjects().get(0).getDesignProgress());
+        assertEquals(1L, result.getQuickStats().getTotalBills());
+        verify(projectRepository, never()).findAllByCustomerEmail(any());
+    }
+
+    @Test
+    void getCustomerDashboard_secondCallServedFromCacheUntilProjectEvicted() {
+        DashboardProjectView view = projectView(10L, "Test Project");
+        when(customerUserRepository.findByEmail("john@example.com")).thenReturn(Optional.of(customerUser));
+        when(projectRepository.findDashboardViewsByCustomerEmail("john@example.com"))
+                .thenReturn(List.of(view));
+        stubDashboardSections();
+
+        DashboardDto first = dashboardService.getCustomerDashboard("john@example.com");
+        assertSame(first, dashboardService.getCustomerDashboard("john@example.com"));
+        verify(customerUserRepository, times(1)).findByEmail("john@example.com");
+
+        dashboardCache.evictProject(99L);   // unrelated project
+        assertSame(first, dashboardService.getCustomerDashboard("john@example.com"));
+
+        dashboardCache.evictProject(10L);
+        assertNotSame(first, dashboardService.getCustomerDashboard("john@example.com"));
+        verify(customerUserRepository, times(2)).findByEmail("john@example.com");
+    }
+
+    @Test
+    void getCustomerDashboard_failedSection_degradesToFallback() {
+        DashboardProjectView view = projectView(10L, "Test Project");
+        when(customerUserRepository.findByEmail("john@example.com")).thenReturn(Optional.of(customerUser));
+        when(projectRepository.findDashboardViewsByCustomerEmail("john@example.com"))
+                .thenReturn(List.of(view));
+        when(projectDesignStepRepository.calculateDesignProgressBatch(anyList())).thenReturn(List.of());
+        when(activityFeedRepository.findRecentViewsByProjectIdIn(anyList(), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(paymentScheduleRepository.getPaymentSummaryForProjects(anyList()))
+                .thenThrow(new IllegalStateException("statement timeout"));
+
+        DashboardDto result = dashboardService.getCustomerDashboard("john@example.com");
+
+        assertEquals(1L, result.getProjects().getTotalProjects());
+        assertEquals(0L, result.getQuickStats().getTotalBills());
+    }
+
+    @Test
+    void getCustomerDashboard_degradedDashboard_isRebuiltOnNextCall() {
+        DashboardProjectView view = projectView(10L, "Test Project");
+        when(customerUserRepository.findByEmail("john@example.com")).thenReturn(Optional.of(customerUser));
+        when(projectRepository.findDashboardViewsByCustomerEmail("john@example.com"))
+                .thenThrow(new IllegalStateException("statement timeout"))
+                .thenReturn(List.of(view));
+        stubDashboardSections();
+
+        DashboardDto degraded = dashboardService.getCustomerDashboard("john@example.com");
+        assertEquals(0L, degraded.getProjects().getTotalProjects());
+
+        DashboardDto rebuilt = dashboardService.getCustomerDashboard("john@example.com");
+        assertEquals(1L, rebuilt.getProjects().getTotalProjects());
+        assertSame(rebuilt, dashboardService.getCustomerDashboard("john@example.com"));
+        verify(projectRepository, times(2)).findDashboardViewsByCustomerEmail("john@example.com");
+    }
+
+    @Test
+    void sections_slowSection_timesOutToFallback() {
+        DashboardSections pooled = new DashboardSections(2, 4, Duration.ofMillis(100));
+        try {
+            DashboardSections.Section<String> slow = pooled.start("slow", () -> {
+                try {
+                    Thread.sleep(2_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "late";
+            });
+            DashboardSections.Section<String> fast = pooled.start("fast", () -> "ok");
+
+            assertEquals("fallback", pooled.await(slow, "fallback"));
+            assertEquals("ok", pooled.await(fast, "fallback"));
+        } finally {
+            pooled.shutdown();
+        }
+    }
+
+    @Test
+    void getCustomerDashboard_nonFinancialRole_skipsPaymentQuery() {
+        customerRole.setName("ARCHITECT");
+        DashboardProjectView view = projectView(10L, "Test Project");
+        when(customerUserRepository.findByEmail("john@example.com")).thenReturn(Optional.of(customerUser));
+        when(projectRepository.findDashboardViewsByCustomerEmail("john@example.com"))
+                .thenReturn(List.of(view));
+        when(projectDesignStepRepository.calculateDesignProgressBatch(anyList())).thenReturn(List.of());
+        when(activityFeedRepository.findRecentViewsByProjectIdIn(anyList(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        DashboardDto result = dashboardService.getCustomerDashboard("john@example.com");
+
+        assertEquals(0L, result.getQuickStats().getTotalBills());
+        verifyNoInteractions(paymentScheduleRepository);
     }
 
     @Test
@@ -99,6 +228,60 @@ class DashboardServiceTest {
                 () -> dashboardService.getCustomerDashboard("unknown@example.com"));
     }
 
+    // ── getAdminProjectsPaged ─────────────────────────────────────────────────
+
+    @Test
+    void getAdminProjectsPaged_firstPage_returnsKeysetCursorAndCachedTotal() {
+        List<DashboardProjectView> firstWindow = List.of(
+                projectView(30L, "C"), projectView(20L, "B"), lookAheadRow());
+        when(projectRepository.findRecentDashboardViewsForAdmin(any(Pageable.class))).thenReturn(firstWindow);
+        when(projectRepository.count()).thenReturn(3L);
+        when(projectDesignStepRepository.calculateDesignProgressBatch(anyList())).thenReturn(List.of());
+
+        Map<String, Object> first = dashboardService.getAdminProjectsPaged(0, 2, null, null);
+
+        assertEquals(2, ((List<?>) first.get("content")).size());
+        assertEquals(true, first.get("hasNext"));
+        assertEquals(3L, first.get("totalElements"));
+        assertEquals(2, first.get("totalPages"));
+        String cursor = (String) first.get("nextCursor");
+        assertEquals(20L, DashboardService.decodeAdminCursor(cursor));
+
+        DashboardProjectView last = projectView(10L, "A");
+        when(projectRepository.findDashboardViewsForAdminBefore(eq(20L), any(Pageable.class)))
+                .thenReturn(List.of(last));
+
+        Map<String, Object> second = dashboardService.getAdminProjectsPaged(1, 2, null, cursor);
+
+        assertEquals(1, ((List<?>) second.get("content")).size());
+        assertEquals(false, second.get("hasNext"));
+        assertNull(second.get("nextCursor"));
+        verify(projectRepository, times(1)).count();
+    }
+
+    @Test
+    void getAdminProjectsPaged_search_usesEscapedLowerCasePattern() {
+        when(projectRepository.searchDashboardViewsForAdmin(eq("%villa\\_5%"), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(projectRepository.countForAdminSearch("%villa\\_5%")).thenReturn(0L);
+
+        Map<String, Object> result = dashboardService.getAdminProjectsPaged(0, 20, "  Villa_5 ", null);
+
+        assertEquals(List.of(), result.get("content"));
+        assertEquals(false, result.get("hasNext"));
+    }
+
+    @Test
+    void getAdminProjectsPaged_invalidCursor_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> dashboardService.getAdminProjectsPaged(0, 20, null, "not-a-cursor"));
+    }
+
+    private static DashboardProjectView lookAheadRow() {
+        // Only its presence matters — it is trimmed before rendering
+        return mock(DashboardProjectView.class);
+    }
+
     // ── getRecentProjects ─────────────────────────────────────────────────────
 
     @Test
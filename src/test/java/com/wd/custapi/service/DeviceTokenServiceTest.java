@@ -0,0 +1,114 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.CustomerDeviceToken;
+import com.wd.custapi.model.CustomerUser;
+import com.wd.custapi.repository.CustomerDeviceTokenRepository;
+import com.wd.custapi.repository.CustomerUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link DeviceTokenService}: multi-device registration, token
+ * hand-over between accounts, the per-user device cap and pruning.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeviceTokenServiceTest {
+
+    @Mock private CustomerDeviceTokenRepository deviceTokenRepository;
+    @Mock private CustomerUserRepository customerUserRepository;
+
+    private DeviceTokenService service;
+    private CustomerUser user;
+
+    @BeforeEach
+    void setUp() {
+        service = new DeviceTokenService(deviceTokenRepository, customerUserRepository, 2);
+        user = new CustomerUser();
+        user.setId(7L);
+    }
+
+    private static CustomerDeviceToken device(long userId, String token, int minutesAgo) {
+        CustomerDeviceToken d = new CustomerDeviceToken();
+        d.setCustomerUserId(userId);
+        d.setToken(token);
+        d.setLastSeenAt(LocalDateTime.now().minusMinutes(minutesAgo));
+        return d;
+    }
+
+    @Test
+    void register_newToken_addsDevice() {
+        when(deviceTokenRepository.findByToken("phone")).thenReturn(Optional.empty());
+        when(deviceTokenRepository.findByCustomerUserIdOrderByLastSeenAtDesc(7L))
+                .thenReturn(List.of(device(7, "phone", 0)));
+
+        service.register(user, "phone");
+
+        ArgumentCaptor<CustomerDeviceToken> saved = ArgumentCaptor.forClass(CustomerDeviceToken.class);
+        verify(deviceTokenRepository).save(saved.capture());
+        assertThat(saved.getValue().getToken()).isEqualTo("phone");
+        assertThat(saved.getValue().getCustomerUserId()).isEqualTo(7L);
+        verify(deviceTokenRepository, never()).deleteAll(anyIterable());
+    }
+
+    @Test
+    void register_tokenOfAnotherAccount_movesToThisUser() {
+        CustomerDeviceToken shared = device(99, "shared", 60);
+        when(deviceTokenRepository.findByToken("shared")).thenReturn(Optional.of(shared));
+        when(deviceTokenRepository.findByCustomerUserIdOrderByLastSeenAtDesc(7L)).thenReturn(List.of(shared));
+
+        service.register(user, "shared");
+
+        assertThat(shared.getCustomerUserId()).isEqualTo(7L);
+        assertThat(shared.getLastSeenAt()).isAfter(LocalDateTime.now().minusMinutes(1));
+        verify(deviceTokenRepository).save(shared);
+    }
+
+    @Test
+    void register_beyondCap_dropsLeastRecentlySeenDevices() {
+        CustomerDeviceToken newest = device(7, "new", 0);
+        CustomerDeviceToken middle = device(7, "mid", 10);
+        CustomerDeviceToken oldest = device(7, "old", 20);
+        when(deviceTokenRepository.findByToken("new")).thenReturn(Optional.empty());
+        when(deviceTokenRepository.findByCustomerUserIdOrderByLastSeenAtDesc(7L))
+                .thenReturn(new ArrayList<>(List.of(newest, middle, oldest)));
+
+        service.register(user, "new");
+
+        verify(deviceTokenRepository).deleteAll(List.of(oldest));
+    }
+
+    @Test
+    void tokensByUser_groupsTokensPerUser() {
+        when(deviceTokenRepository.findByCustomerUserIdIn(Set.of(7L, 8L)))
+                .thenReturn(List.of(device(7, "a", 0), device(7, "b", 0), device(8, "c", 0)));
+
+        Map<Long, List<String>> tokens = service.tokensByUser(Set.of(7L, 8L));
+
+        assertThat(tokens).containsOnlyKeys(7L, 8L);
+        assertThat(tokens.get(7L)).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void prune_deletesDevicesAndClearsLegacyColumn() {
+        when(deviceTokenRepository.deleteByTokenIn(Set.of("x"))).thenReturn(1);
+
+        assertThat(service.prune(Set.of("x"))).isEqualTo(1);
+
+        verify(customerUserRepository).clearFcmTokens(Set.of("x"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.wd.custapi.service;
+
+import com.google.firebase.messaging.MessagingErrorCode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory {@link PushSender} for tests: records every multicast and fails
+ * the tokens it has been told to, with the given FCM error code, or every
+ * token of the call when the whole call is set to fail.
+ */
+class FakePushSender implements PushSender {
+
+    record Sent(List<String> tokens, String title, String body, Map<String, String> data) {}
+
+    private final List<Sent> sent = new ArrayList<>();
+    private final Map<String, MessagingErrorCode> failing = new HashMap<>();
+    private boolean available = true;
+    private MessagingErrorCode callFailure;
+
+    FakePushSender failToken(String token, MessagingErrorCode code) {
+        failing.put(token, code);
+        return this;
+    }
+
+    FakePushSender failCall(MessagingErrorCode code) {
+        callFailure = code;
+        return this;
+    }
+
+    FakePushSender unavailable() {
+        available = false;
+        return this;
+    }
+
+    List<Sent> sent() {
+        return sent;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public MulticastResult sendToTokens(List<String> tokens, String title, String body, Map<String, String> data) {
+        sent.add(new Sent(List.copyOf(tokens), title, body, data));
+        List<TokenFailure> failures = new ArrayList<>();
+        if (callFailure != null) {
+            tokens.forEach(t -> failures.add(new TokenFailure(t, callFailure, "fake call " + callFailure, true)));
+            return new MulticastResult(0, failures);
+        }
+        for (String token : tokens) {
+            MessagingErrorCode code = failing.get(token);
+            if (code != null) failures.add(new TokenFailure(token, code, "fake " + code));
+        }
+        return new MulticastResult(tokens.size() - failures.size(), failures);
+    }
+}
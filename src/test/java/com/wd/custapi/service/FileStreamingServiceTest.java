@@ -0,0 +1,216 @@
+package com.wd.custapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link FileStreamingService}: byte ranges, multipart ranges,
+ * conditional requests, If-Range and HEAD parity against a real temp file.
+ */
+class FileStreamingServiceTest {
+
+    private static final String CONTENT = "0123456789abcdefghij"; // 20 bytes
+
+    @TempDir
+    Path tempDir;
+
+    private FileStreamingService service;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new FileStreamingService();
+        file = tempDir.resolve("drawing.pdf");
+        Files.writeString(file, CONTENT);
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve(request, response, file, false);
+        return response;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/api/storage/drawing.pdf");
+    }
+
+    @Test
+    void noRange_returnsFullBodyWithValidators() throws Exception {
+        MockHttpServletResponse response = serve(get());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getContentLengthLong()).isEqualTo(20);
+        assertThat(response.getContentType()).isEqualTo("application/pdf");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("\"");
+        assertThat(response.getHeader(HttpHeaders.LAST_MODIFIED)).isNotNull();
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).isEqualTo("inline; filename=\"drawing.pdf\"");
+    }
+
+    @Test
+    void singleRange_returnsOnlyRequestedBytes() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/20");
+    }
+
+    @Test
+    void suffixAndOpenEndedRanges_areResolvedAgainstFileSize() throws Exception {
+        MockHttpServletRequest suffix = get();
+        suffix.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        assertThat(serve(suffix).getContentAsString()).isEqualTo("hij");
+
+        MockHttpServletRequest openEnded = get();
+        openEnded.addHeader(HttpHeaders.RANGE, "bytes=15-");
+        MockHttpServletResponse response = serve(openEnded);
+        assertThat(response.getContentAsString()).isEqualTo("fghij");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 15-19/20");
+    }
+
+    @Test
+    void multipleRanges_returnMultipartByteranges() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,10-11");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String body = response.getContentAsString();
+        assertThat(body).contains("Content-Range: bytes 0-1/20\r\n\r\n01\r\n");
+        assertThat(body).contains("Content-Range: bytes 10-11/20\r\n\r\nab\r\n");
+        assertThat(body).endsWith("--\r\n");
+        assertThat(response.getContentLengthLong()).isEqualTo(body.getBytes(StandardCharsets.US_ASCII).length);
+    }
+
+    @Test
+    void unsatisfiableRange_returns416() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-60");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */20");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void ifNoneMatch_withCurrentEtag_returns304() throws Exception {
+        String etag = serve(get()).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/" + etag);
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+    }
+
+    @Test
+    void ifModifiedSince_notChanged_returns304() throws Exception {
+        String lastModified = serve(get()).getHeader(HttpHeaders.LAST_MODIFIED);
+
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+
+        assertThat(serve(request).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void ifRange_staleValidator_ignoresRangeAndReturnsFullBody() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale-etag\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void ifRange_currentEtagOrDate_honoursRange() throws Exception {
+        MockHttpServletResponse first = serve(get());
+
+        MockHttpServletRequest byEtag = get();
+        byEtag.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        byEtag.addHeader(HttpHeaders.IF_RANGE, first.getHeader(HttpHeaders.ETAG));
+        assertThat(serve(byEtag).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest byDate = get();
+        byDate.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        byDate.addHeader(HttpHeaders.IF_RANGE, first.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertThat(serve(byDate).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest oldDate = get();
+        oldDate.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        oldDate.addHeader(HttpHeaders.IF_RANGE, DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)));
+        assertThat(serve(oldDate).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void head_returnsSameHeadersAsGetWithoutBody() throws Exception {
+        MockHttpServletRequest getRequest = get();
+        getRequest.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        MockHttpServletRequest headRequest = new MockHttpServletRequest("HEAD", "/api/storage/drawing.pdf");
+        headRequest.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        MockHttpServletResponse getResponse = serve(getRequest);
+        MockHttpServletResponse headResponse = serve(headRequest);
+
+        assertThat(headResponse.getStatus()).isEqualTo(getResponse.getStatus());
+        assertThat(headResponse.getContentLengthLong()).isEqualTo(getResponse.getContentLengthLong());
+        assertThat(headResponse.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo(getResponse.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertThat(headResponse.getHeader(HttpHeaders.ETAG)).isEqualTo(getResponse.getHeader(HttpHeaders.ETAG));
+        assertThat(headResponse.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void sendfileSupported_largeFile_delegatesTransferToContainer() throws Exception {
+        Path video = tempDir.resolve("walkthrough.mp4");
+        Files.write(video, new byte[100 * 1024]);
+        MockHttpServletRequest request = get();
+        request.setAttribute(FileStreamingService.SENDFILE_SUPPORT_ATTR, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=1024-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.serve(request, response, video, false);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute(FileStreamingService.SENDFILE_FILENAME_ATTR))
+                .isEqualTo(video.toAbsolutePath().toString());
+        assertThat(request.getAttribute(FileStreamingService.SENDFILE_START_ATTR)).isEqualTo(1024L);
+        assertThat(request.getAttribute(FileStreamingService.SENDFILE_END_ATTR)).isEqualTo(100 * 1024L);
+    }
+
+    @Test
+    void contentType_isCachedPerExtension() {
+        assertThat(service.contentTypeOf(file)).isEqualTo("application/pdf");
+        assertThat(service.contentTypeOf(tempDir.resolve("OTHER.PDF"))).isEqualTo("application/pdf");
+        assertThat(service.contentTypeOf(tempDir.resolve("no-extension"))).isEqualTo("application/octet-stream");
+    }
+}
@@ -48,6 +48,9 @@ class GalleryServiceTest {
     @Mock
     private FileStorageService fileStorageService;
 
+    @Mock
+    private ProjectTimelineService projectTimelineService;
+
     @InjectMocks
     private GalleryService galleryService;
 
@@ -0,0 +1,83 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.CustomerUser;
+import com.wd.custapi.service.NotificationFanoutService.Delivery;
+import com.wd.custapi.service.NotificationFanoutService.NotificationPayload;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link NotificationFanoutService}: one batch insert of
+ * notification rows per fan-out, with the pushes handed to the outbox and the
+ * recipients' event streams signalled.
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationFanoutServiceTest {
+
+    @Mock private JdbcTemplate jdbc;
+    @Mock private PushOutbox pushOutbox;
+    @Mock private CustomerEventBus eventBus;
+
+    @InjectMocks private NotificationFanoutService fanoutService;
+
+    private static CustomerUser user(long id) {
+        CustomerUser u = new CustomerUser();
+        u.setId(id);
+        u.setEmail("user" + id + "@example.com");
+        return u;
+    }
+
+    private static NotificationPayload payload(String title) {
+        return new NotificationPayload(10L, 55L, title, "body", "SITE_REPORT", Map.of("type", "SITE_REPORT_SUBMITTED"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fanOut_insertsAllRowsInOneBatch_andQueuesPushes() {
+        NotificationPayload p = payload("New Site Report");
+        CustomerUser a = user(1);
+        CustomerUser b = user(2);
+        CustomerUser c = user(3);
+
+        int written = fanoutService.fanOut(List.of(a, b, c), p);
+
+        assertThat(written).isEqualTo(3);
+        ArgumentCaptor<Collection<Delivery>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbc).batchUpdate(startsWith("INSERT INTO customer_notifications"), rows.capture(),
+                eq(NotificationFanoutService.INSERT_BATCH_SIZE), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(rows.getValue()).extracting(Delivery::customerUserId).containsExactly(1L, 2L, 3L);
+        verify(pushOutbox).enqueue(List.of(new Delivery(1L, p), new Delivery(2L, p), new Delivery(3L, p)));
+        verify(eventBus).notificationsAdded(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void payload_copiesDataSoEqualPayloadsGroupTogether() {
+        Map<String, String> data = new java.util.HashMap<>(Map.of("type", "X"));
+        NotificationPayload first = new NotificationPayload(1L, 2L, "T", "B", "GENERAL", data);
+        data.put("type", "changed");
+
+        assertThat(first).isEqualTo(new NotificationPayload(1L, 2L, "T", "B", "GENERAL", Map.of("type", "X")));
+        assertThat(new NotificationPayload(1L, 2L, "T", "B", "GENERAL", null).data()).isEmpty();
+    }
+
+    @Test
+    void fanOut_noRecipients_doesNothing() {
+        assertThat(fanoutService.fanOut(List.of(), payload("T"))).isZero();
+
+        verifyNoInteractions(jdbc, pushOutbox, eventBus);
+    }
+}
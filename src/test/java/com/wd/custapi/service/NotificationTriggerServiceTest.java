@@ -5,7 +5,7 @@ import com.wd.custapi.model.CustomerUser;
 import com.wd.custapi.model.Project;
 import com.wd.custapi.repository.CustomerNotificationRepository;
 import com.wd.custapi.repository.CustomerUserRepository;
-import com.wd.custapi.repository.PaymentScheduleRepository;
+import com.wd.custapi.service.NotificationFanoutService.NotificationPayload;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -13,8 +13,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,17 +23,17 @@ import static org.mockito.Mockito.*;
 
 /**
  * Pure-Mockito unit tests for {@link NotificationTriggerService}. No Spring / DB.
- * Covers every trigger path (payment-due batch, query-replied, observation-resolved,
- * BOQ approval/change), the saveAndPush persistence + FCM fan-out, the "skip push when
- * no token" branch, and the must-never-throw exception guards.
+ * Covers every trigger path (query-replied, observation-resolved,
+ * BOQ approval/change), the saveAndPush persistence + push outbox enqueue, and the
+ * must-never-throw exception guards.
  */
 @ExtendWith(MockitoExtension.class)
 class NotificationTriggerServiceTest {
 
     @Mock private CustomerNotificationRepository notificationRepository;
     @Mock private CustomerUserRepository customerUserRepository;
-    @Mock private PaymentScheduleRepository paymentScheduleRepository;
-    @Mock private PushNotificationService pushNotificationService;
+    @Mock private PushOutbox pushOutbox;
+    @Mock private CustomerEventBus eventBus;
 
     @InjectMocks private NotificationTriggerService service;
 
@@ -46,66 +44,6 @@ class NotificationTriggerServiceTest {
         return u;
     }
 
-    // ── sendPaymentDueReminders ───────────────────────────────────────────────
-
-    @Test
-    void sendPaymentDueReminders_savesNotificationAndPushesForEachRow() {
-        Object[] row = new Object[]{ 3L, 88L, "Foundation milestone", new BigDecimal("150000"), 50L };
-        when(paymentScheduleRepository.findDueOn(LocalDate.now().plusDays(3)))
-                .thenReturn(List.<Object[]>of(row));
-        CustomerUser user = userWithToken(3L, "fcm-token-abc");
-        when(customerUserRepository.findById(3L)).thenReturn(Optional.of(user));
-
-        service.sendPaymentDueReminders();
-
-        ArgumentCaptor<CustomerNotification> captor = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(captor.capture());
-        CustomerNotification n = captor.getValue();
-        assertThat(n.getNotificationType()).isEqualTo("PAYMENT_DUE");
-        assertThat(n.getProjectId()).isEqualTo(50L);
-        assertThat(n.getReferenceId()).isEqualTo(88L);
-        assertThat(n.getTitle()).isEqualTo("Payment Due in 3 Days");
-        assertThat(n.getBody()).contains("Foundation milestone");
-        verify(pushNotificationService).sendToToken(eq("fcm-token-abc"),
-                eq("Payment Due in 3 Days"), anyString(), anyMap());
-    }
-
-    @Test
-    void sendPaymentDueReminders_nullProjectId_handledAndUserMissingSkipped() {
-        Object[] rowNullProject = new Object[]{ 4L, 9L, "Slab", new BigDecimal("1000"), null };
-        when(paymentScheduleRepository.findDueOn(any(LocalDate.class)))
-                .thenReturn(List.<Object[]>of(rowNullProject));
-        when(customerUserRepository.findById(4L)).thenReturn(Optional.empty());
-
-        service.sendPaymentDueReminders();
-
-        verify(notificationRepository, never()).save(any());
-        verify(pushNotificationService, never()).sendToToken(any(), any(), any(), any());
-    }
-
-    @Test
-    void sendPaymentDueReminders_oneBadRowDoesNotAbortBatch() {
-        Object[] bad = new Object[]{ "not-a-number", 1L, "x", BigDecimal.ONE, 1L };
-        Object[] good = new Object[]{ 5L, 2L, "Good", new BigDecimal("500"), 50L };
-        when(paymentScheduleRepository.findDueOn(any(LocalDate.class)))
-                .thenReturn(List.of(bad, good));
-        CustomerUser goodUser = userWithToken(5L, null);
-        when(customerUserRepository.findById(5L))
-                .thenReturn(Optional.of(goodUser));
-
-        assertThatCode(() -> service.sendPaymentDueReminders()).doesNotThrowAnyException();
-
-        verify(notificationRepository, times(1)).save(any()); // only the good row persisted
-    }
-
-    @Test
-    void sendPaymentDueReminders_repositoryThrows_swallowed() {
-        when(paymentScheduleRepository.findDueOn(any(LocalDate.class)))
-                .thenThrow(new RuntimeException("query exploded"));
-        assertThatCode(() -> service.sendPaymentDueReminders()).doesNotThrowAnyException();
-        verifyNoInteractions(notificationRepository);
-    }
-
     // ── notifyQueryReplied ────────────────────────────────────────────────────
 
     @Test
@@ -119,7 +57,8 @@ class NotificationTriggerServiceTest {
         verify(notificationRepository).save(captor.capture());
         assertThat(captor.getValue().getNotificationType()).isEqualTo("QUERY_REPLIED");
         assertThat(captor.getValue().getBody()).contains("When is the slab pour?");
-        verify(pushNotificationService).sendToToken(eq("tok"), eq("Query Replied"), anyString(), anyMap());
+        verify(pushOutbox).enqueue(eq(3L), argThat((NotificationPayload p) -> "Query Replied".equals(p.title())));
+        verify(eventBus).notificationsAdded(List.of(3L));
     }
 
     @Test
@@ -148,7 +87,7 @@ class NotificationTriggerServiceTest {
         verify(notificationRepository).save(captor.capture());
         assertThat(captor.getValue().getNotificationType()).isEqualTo("OBSERVATION_RESOLVED");
         assertThat(captor.getValue().getBody()).contains("Cracked tile");
-        verify(pushNotificationService).sendToToken(eq("tok"), eq("Issue Resolved"), anyString(), anyMap());
+        verify(pushOutbox).enqueue(eq(3L), argThat((NotificationPayload p) -> "Issue Resolved".equals(p.title())));
     }
 
     @Test
@@ -175,12 +114,12 @@ class NotificationTriggerServiceTest {
         assertThat(n.getNotificationType()).isEqualTo("BOQ_APPROVED");
         assertThat(n.getTitle()).isEqualTo("BOQ Approval Confirmed");
         assertThat(n.getBody()).contains("Villa A");
-        verify(pushNotificationService).sendToToken(eq("tok"), eq("BOQ Approval Confirmed"), anyString(), anyMap());
+        verify(pushOutbox).enqueue(eq(3L), argThat((NotificationPayload p) -> "BOQ Approval Confirmed".equals(p.title())));
     }
 
     @Test
     void notifyBoqApprovalAction_changeRequestedWithMessage_appendsNote() {
-        CustomerUser customer = userWithToken(3L, null); // no token → no push
+        CustomerUser customer = userWithToken(3L, null);
         Project project = mock(Project.class);
         when(project.getId()).thenReturn(50L);
         when(project.getName()).thenReturn("Villa A");
@@ -193,7 +132,7 @@ class NotificationTriggerServiceTest {
         assertThat(n.getNotificationType()).isEqualTo("BOQ_CHANGE_REQUESTED");
         assertThat(n.getTitle()).isEqualTo("Change Request Submitted");
         assertThat(n.getBody()).contains("Please revise tiling");
-        verifyNoInteractions(pushNotificationService); // token blank → skipped
+        verify(pushOutbox).enqueue(eq(3L), argThat((NotificationPayload p) -> "Change Request Submitted".equals(p.title())));
     }
 
     @Test
@@ -204,16 +143,17 @@ class NotificationTriggerServiceTest {
                 .doesNotThrowAnyException();
     }
 
-    // ── saveAndPush "no token" branch via a trigger ───────────────────────────
+    // ── saveAndPush without a legacy token via a trigger ──────────────────────
 
     @Test
-    void saveAndPush_blankToken_persistsButSkipsPush() {
+    void saveAndPush_blankLegacyToken_stillQueuesPushForRegisteredDevices() {
         CustomerUser user = userWithToken(3L, "  ");
         when(customerUserRepository.findById(3L)).thenReturn(Optional.of(user));
 
         service.notifyQueryReplied(3L, 50L, 1L, "t");
 
         verify(notificationRepository).save(any(CustomerNotification.class));
-        verify(pushNotificationService, never()).sendToToken(any(), any(), any(), any());
+        // Devices come from customer_device_tokens at dispatch, not customer_users.fcm_token
+        verify(pushOutbox).enqueue(eq(3L), any(NotificationPayload.class));
     }
 }
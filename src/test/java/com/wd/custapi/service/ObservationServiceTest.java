@@ -38,6 +38,7 @@ class ObservationServiceTest {
     @Mock private FileStorageService fileStorageService;
     @Mock private ActivityFeedService activityFeedService;
     @Mock private NotificationTriggerService notificationTriggerService;
+    @Mock private ProjectTimelineService projectTimelineService;
 
     @InjectMocks private ObservationService service;
 
@@ -0,0 +1,169 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.service.NotificationFanoutService.Delivery;
+import com.wd.custapi.service.NotificationFanoutService.NotificationPayload;
+import com.wd.custapi.service.PaymentReminderJob.ReminderKey;
+import com.wd.custapi.service.PaymentReminderJob.ReminderKind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link PaymentReminderJob}: the cursor rows are delivered in
+ * chunks, only reminders claimed in the ledger are fanned out, and each kind
+ * gets its own message. JDBC is mocked; the transaction manager is a mock, so
+ * chunks run inline.
+ */
+@ExtendWith(MockitoExtension.class)
+class PaymentReminderJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    @Mock private JdbcTemplate jdbc;
+    @Mock private NotificationFanoutService fanoutService;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PaymentReminderJob job(int chunkSize) {
+        return new PaymentReminderJob(jdbc, fanoutService, transactionManager, meterRegistry, true, chunkSize, 30);
+    }
+
+    private record Row(long userId, long scheduleId, LocalDate dueDate, ReminderKind kind) {}
+
+    /** Feeds {@code rows} to the job's cursor callback, one mocked ResultSet position per row. */
+    private void stubCursor(Row... rows) throws Exception {
+        List<ResultSet> positions = new ArrayList<>();
+        for (Row r : rows) {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("customer_user_id")).thenReturn(r.userId());
+            when(rs.getLong("schedule_id")).thenReturn(r.scheduleId());
+            when(rs.getString("description")).thenReturn("Milestone " + r.scheduleId());
+            when(rs.getBigDecimal("amount")).thenReturn(new BigDecimal("150000"));
+            when(rs.getDate("due_date")).thenReturn(Date.valueOf(r.dueDate()));
+            when(rs.getLong("project_id")).thenReturn(50L);
+            when(rs.getString("reminder_kind")).thenReturn(r.kind().name());
+            positions.add(rs);
+        }
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (ResultSet rs : positions) handler.processRow(rs);
+            return null;
+        }).when(jdbc).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    /** Every row of every chunk is new to the ledger. */
+    @SuppressWarnings("unchecked")
+    private void stubClaimAll(Row... rows) {
+        List<ReminderKey> keys = new ArrayList<>();
+        for (Row r : rows) keys.add(new ReminderKey(r.scheduleId(), r.userId(), r.kind()));
+        when(jdbc.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenReturn(keys);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Delivery>> fannedOut(int chunks) {
+        ArgumentCaptor<List<Delivery>> captor = ArgumentCaptor.forClass(List.class);
+        verify(fanoutService, times(chunks)).fanOut(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void run_deliversCursorRowsInChunks() throws Exception {
+        Row[] rows = {
+                new Row(1, 88, TODAY.plusDays(3), ReminderKind.T_MINUS_3),
+                new Row(2, 88, TODAY.plusDays(3), ReminderKind.T_MINUS_3),
+                new Row(1, 89, TODAY, ReminderKind.DUE_TODAY)};
+        stubCursor(rows);
+        stubClaimAll(rows);
+
+        int sent = job(2).run(TODAY);
+
+        assertThat(sent).isEqualTo(3);
+        List<List<Delivery>> chunks = fannedOut(2);
+        assertThat(chunks.get(0)).extracting(Delivery::customerUserId).containsExactly(1L, 2L);
+        assertThat(chunks.get(1)).extracting(Delivery::customerUserId).containsExactly(1L);
+        // Both members of the project get the identical payload, so the outbox multicasts it once
+        assertThat(chunks.get(0).get(0).payload()).isEqualTo(chunks.get(0).get(1).payload());
+        verify(jdbc).update(startsWith("DELETE FROM payment_reminder_ledger"), any(Object[].class));
+        assertThat(meterRegistry.get("payment.reminders").tag("kind", "T_MINUS_3").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void run_fansOutOnlyRemindersClaimedInLedger() throws Exception {
+        stubCursor(
+                new Row(1, 88, TODAY.minusDays(2), ReminderKind.OVERDUE),
+                new Row(2, 88, TODAY.minusDays(2), ReminderKind.OVERDUE));
+        // User 1's reminder was committed by an earlier run / another node
+        when(jdbc.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenReturn(List.of(new ReminderKey(88, 2, ReminderKind.OVERDUE)));
+
+        int sent = job(500).run(TODAY);
+
+        assertThat(sent).isEqualTo(1);
+        assertThat(fannedOut(1).get(0)).extracting(Delivery::customerUserId).containsExactly(2L);
+    }
+
+    @Test
+    void run_eachKindHasItsOwnMessage() throws Exception {
+        Row[] rows = {
+                new Row(1, 1, TODAY.plusDays(3), ReminderKind.T_MINUS_3),
+                new Row(1, 2, TODAY, ReminderKind.DUE_TODAY),
+                new Row(1, 3, TODAY.minusDays(1), ReminderKind.OVERDUE)};
+        stubCursor(rows);
+        stubClaimAll(rows);
+
+        job(500).run(TODAY);
+
+        List<NotificationPayload> payloads = fannedOut(1).get(0).stream().map(Delivery::payload).toList();
+        assertThat(payloads).extracting(NotificationPayload::title)
+                .containsExactly("Payment Due in 3 Days", "Payment Due Today", "Payment Overdue");
+        assertThat(payloads).allSatisfy(p -> {
+            assertThat(p.notificationType()).isEqualTo("PAYMENT_DUE");
+            assertThat(p.projectId()).isEqualTo(50L);
+            assertThat(p.data()).containsEntry("deepLink", "payments");
+        });
+        assertThat(payloads.get(2).body()).contains("overdue").contains("Milestone 3");
+        assertThat(payloads.get(2).data()).containsEntry("reminderKind", "OVERDUE");
+    }
+
+    @Test
+    void run_nothingDue_writesNothing() throws Exception {
+        stubCursor();
+
+        assertThat(job(500).run(TODAY)).isZero();
+
+        verifyNoInteractions(fanoutService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendReminders_failedChunkIsSwallowed() throws Exception {
+        stubCursor(new Row(1, 88, TODAY, ReminderKind.DUE_TODAY));
+        when(jdbc.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenThrow(new RuntimeException("ledger unavailable"));
+
+        assertThatCode(() -> job(500).sendReminders()).doesNotThrowAnyException();
+        verifyNoInteractions(fanoutService);
+    }
+}
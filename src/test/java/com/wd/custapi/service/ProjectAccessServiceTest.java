@@ -0,0 +1,184 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.config.CacheConfig;
+import com.wd.custapi.exception.CustomerApiException;
+import com.wd.custapi.model.CustomerUser;
+import com.wd.custapi.model.Project;
+import com.wd.custapi.model.Role;
+import com.wd.custapi.repository.CustomerUserRepository;
+import com.wd.custapi.repository.ProjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ProjectAccessService}: repeat lookups are served from
+ * the cache, failures are not cached, and eviction hooks drop the right entries.
+ * Uses the real {@link CacheConfig} cache manager with mocked repositories.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProjectAccessServiceTest {
+
+    private static final String EMAIL = "owner@example.com";
+
+    @Mock private ProjectRepository projectRepository;
+    @Mock private CustomerUserRepository customerUserRepository;
+
+    private ProjectAccessService service;
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProjectAccessService(projectRepository, customerUserRepository,
+                new CacheConfig().cacheManager(Duration.ofMinutes(2), Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(1)));
+
+        project = new Project();
+        project.setId(50L);
+        project.setProjectUuid(UUID.randomUUID());
+
+        Role role = new Role();
+        role.setName("CUSTOMER");
+        CustomerUser user = new CustomerUser();
+        user.setEmail(EMAIL);
+        user.setRole(role);
+        lenient().when(customerUserRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void resolve_repeatedCalls_hitDatabaseOnce() {
+        when(projectRepository.findByProjectUuidAndCustomerEmail(project.getProjectUuid(), EMAIL))
+                .thenReturn(project);
+
+        for (int i = 0; i < 10; i++) {
+            ProjectAccessService.ProjectAccess access = service.resolve(project.getProjectUuid().toString(), EMAIL);
+            assertThat(access.projectId()).isEqualTo(50L);
+            assertThat(access.role()).isEqualTo("CUSTOMER");
+        }
+
+        verify(projectRepository, times(1)).findByProjectUuidAndCustomerEmail(any(), any());
+        verify(customerUserRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void resolve_insideTransaction_loadsOnCallerThreadAndCaches() {
+        Thread caller = Thread.currentThread();
+        when(projectRepository.findByProjectUuidAndCustomerEmail(project.getProjectUuid(), EMAIL))
+                .thenAnswer(inv -> {
+                    assertThat(Thread.currentThread()).isSameAs(caller);
+                    return project;
+                });
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            service.resolve(project.getProjectUuid().toString(), EMAIL);
+            service.resolve(project.getProjectUuid().toString(), EMAIL);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        verify(projectRepository, times(1)).findByProjectUuidAndCustomerEmail(any(), any());
+    }
+
+    @Test
+    void resolve_deniedAccess_isNotCached() {
+        when(projectRepository.findByProjectUuidAndCustomerEmail(project.getProjectUuid(), EMAIL))
+                .thenReturn(null, project);
+        String uuid = project.getProjectUuid().toString();
+
+        assertThatThrownBy(() -> service.resolve(uuid, EMAIL))
+                .isInstanceOf(CustomerApiException.class)
+                .hasMessageContaining("access denied");
+        assertThat(service.resolve(uuid, EMAIL).project()).isSameAs(project);
+    }
+
+    @Test
+    void resolve_invalidUuid_throwsWithoutQuerying() {
+        assertThatThrownBy(() -> service.resolve("not-a-uuid", EMAIL))
+                .isInstanceOf(CustomerApiException.class)
+                .hasMessageContaining("Invalid project UUID");
+        verifyNoInteractions(projectRepository);
+    }
+
+    @Test
+    void resolve_adminRole_usesUnscopedLookup() {
+        Role admin = new Role();
+        admin.setName("ADMIN");
+        CustomerUser adminUser = new CustomerUser();
+        adminUser.setRole(admin);
+        when(customerUserRepository.findByEmail("admin@example.com")).thenReturn(Optional.of(adminUser));
+        when(projectRepository.findByProjectUuid(project.getProjectUuid())).thenReturn(project);
+
+        ProjectAccessService.ProjectAccess access =
+                service.resolve(project.getProjectUuid().toString(), "admin@example.com");
+
+        assertThat(access.hasAnyRole("admin")).isTrue();
+        verify(projectRepository, never()).findByProjectUuidAndCustomerEmail(any(), any());
+    }
+
+    @Test
+    void evictProject_forcesFreshMembershipCheck() {
+        when(projectRepository.findByProjectUuidAndCustomerEmail(project.getProjectUuid(), EMAIL))
+                .thenReturn(project);
+        String uuid = project.getProjectUuid().toString();
+
+        service.resolve(uuid, EMAIL);
+        service.evictProject(50L);
+        service.resolve(uuid, EMAIL);
+
+        verify(projectRepository, times(2)).findByProjectUuidAndCustomerEmail(any(), any());
+    }
+
+    @Test
+    void evictUser_dropsRoleAndGrants() {
+        when(projectRepository.findByProjectUuidAndCustomerEmail(project.getProjectUuid(), EMAIL))
+                .thenReturn(project);
+        String uuid = project.getProjectUuid().toString();
+
+        service.resolve(uuid, EMAIL);
+        service.evictUser(EMAIL);
+        service.resolve(uuid, EMAIL);
+
+        verify(customerUserRepository, times(2)).findByEmail(EMAIL);
+        verify(projectRepository, times(2)).findByProjectUuidAndCustomerEmail(any(), any());
+    }
+
+    @Test
+    void canAccess_answersFromOneIdSetQuery() {
+        when(projectRepository.findIdsByCustomerEmail(EMAIL)).thenReturn(List.of(50L, 51L));
+
+        assertThat(service.canAccess(EMAIL, 50L)).isTrue();
+        assertThat(service.canAccess(EMAIL, 51L)).isTrue();
+        assertThat(service.canAccess(EMAIL, 99L)).isFalse();
+
+        verify(projectRepository, times(1)).findIdsByCustomerEmail(EMAIL);
+    }
+
+    @Test
+    void evictMembership_dropsCachedIdSets() {
+        when(projectRepository.findIdsByCustomerEmail(EMAIL)).thenReturn(List.of(50L), List.of(50L, 77L));
+
+        assertThat(service.canAccess(EMAIL, 77L)).isFalse();
+        service.evictMembership(77L);
+        assertThat(service.canAccess(EMAIL, 77L)).isTrue();
+    }
+
+    @Test
+    void roleOf_unknownUser_fallsBackToViewer() {
+        when(customerUserRepository.findByEmail("ghost@example.com")).thenReturn(Optional.empty());
+
+        assertThat(service.roleOf("ghost@example.com")).isEqualTo("VIEWER");
+    }
+}
@@ -42,6 +42,7 @@ class ProjectDocumentServiceTest {
     @Mock private CustomerUserRepository userRepository;
     @Mock private FileStorageService fileStorageService;
     @Mock private ActivityFeedService activityFeedService;
+    @Mock private StorageOwnershipIndex storageOwnershipIndex;
 
     @InjectMocks private ProjectDocumentService service;
 
@@ -97,6 +98,7 @@ class ProjectDocumentServiceTest {
         verify(documentRepository).save(captor.capture());
         assertThat(captor.getValue().getReferenceType()).isEqualTo("PROJECT");
         assertThat(captor.getValue().getReferenceId()).isEqualTo(50L);
+        verify(storageOwnershipIndex).evictPath("projects/50/documents/uuid.pdf");
 
         // activity feed best-effort logged
         verify(activityFeedService).createActivity(eq(50L), eq("DOCUMENT_UPLOADED"),
@@ -0,0 +1,112 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.ProjectTimelineBuild;
+import com.wd.custapi.repository.ProjectTimelineBuildRepository;
+import com.wd.custapi.repository.ProjectTimelineEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ProjectTimelineJob}: a run only goes ahead on the node
+ * holding the advisory lock, and the consistency check compares hashes only for
+ * changed projects, rebuilding the drifted ones and marking the rest checked.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProjectTimelineJobTest {
+
+    @Mock private ProjectTimelineService timelineService;
+    @Mock private ProjectTimelineBuildRepository buildRepository;
+    @Mock private ProjectTimelineEntryRepository entryRepository;
+    @Mock private JdbcTemplate jdbc;
+    @Mock private Connection connection;
+    @Mock private PreparedStatement lock;
+    @Mock private PreparedStatement unlock;
+    @Mock private ResultSet lockResult;
+
+    private ProjectTimelineJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new ProjectTimelineJob(timelineService, buildRepository, entryRepository, jdbc, true, 50);
+    }
+
+    private static ProjectTimelineBuild build(Long projectId) {
+        ProjectTimelineBuild build = mock(ProjectTimelineBuild.class);
+        when(build.getProjectId()).thenReturn(projectId);
+        return build;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void lockAcquired(boolean acquired) throws Exception {
+        when(jdbc.execute(any(ConnectionCallback.class)))
+                .thenAnswer(inv -> ((ConnectionCallback<Object>) inv.getArgument(0)).doInConnection(connection));
+        when(connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")).thenReturn(lock);
+        when(lock.executeQuery()).thenReturn(lockResult);
+        when(lockResult.next()).thenReturn(true);
+        when(lockResult.getBoolean(1)).thenReturn(acquired);
+    }
+
+    @Test
+    void run_lockHeldElsewhere_skipsTheRun() throws Exception {
+        lockAcquired(false);
+
+        job.run();
+
+        verifyNoInteractions(buildRepository, entryRepository, timelineService);
+        verify(connection, never()).prepareStatement("SELECT pg_advisory_unlock(hashtext(?))");
+    }
+
+    @Test
+    void run_lockAcquired_runsAndReleasesTheLock() throws Exception {
+        lockAcquired(true);
+        when(connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")).thenReturn(unlock);
+        when(buildRepository.findUnbuiltProjectIds(50)).thenReturn(List.of(7L));
+        when(buildRepository.findChanged()).thenReturn(List.of());
+
+        job.run();
+
+        verify(timelineService).rebuildProject(7L);
+        verify(unlock).setString(1, "project_timeline_job");
+        verify(unlock).execute();
+    }
+
+    @Test
+    void repairDrift_rebuildsDriftedAndMarksUnchangedChecked() {
+        ProjectTimelineBuild drifted = build(1L);
+        ProjectTimelineBuild clean = build(2L);
+        when(clean.getSourceVersion()).thenReturn(12L);
+        when(buildRepository.findChanged()).thenReturn(List.of(drifted, clean));
+        when(entryRepository.hasDrifted(1L)).thenReturn(true);
+        when(entryRepository.hasDrifted(2L)).thenReturn(false);
+
+        assertThat(job.repairDrift()).isEqualTo(1);
+
+        verify(timelineService).rebuildProject(1L);
+        verify(timelineService, never()).rebuildProject(2L);
+        verify(buildRepository).markChecked(2L, 12L);
+        verify(buildRepository, never()).markChecked(eq(1L), anyLong());
+    }
+
+    @Test
+    void repairDrift_noChangedProjects_checksNothing() {
+        when(buildRepository.findChanged()).thenReturn(List.of());
+
+        assertThat(job.repairDrift()).isZero();
+
+        verifyNoInteractions(entryRepository, timelineService);
+    }
+}
@@ -0,0 +1,229 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.ProjectTimelineBuild;
+import com.wd.custapi.model.ProjectTimelineEntry;
+import com.wd.custapi.model.SiteReport;
+import com.wd.custapi.repository.ProjectTimelineBuildRepository;
+import com.wd.custapi.repository.ProjectTimelineEntryRepository;
+import com.wd.custapi.repository.SiteReportRepository;
+import com.wd.custapi.service.ActivityFeedService.CombinedActivityItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ProjectTimelineService}: reads from the materialised rows,
+ * lazy first-read builds with live fallback, and incremental upserts/removals.
+ * No transaction synchronisation is active here, so after-commit writes run inline.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProjectTimelineServiceTest {
+
+    @Mock private ProjectTimelineEntryRepository entryRepository;
+    @Mock private ProjectTimelineBuildRepository buildRepository;
+    @Mock private ActivityFeedService activityFeedService;
+    @Mock private SiteReportRepository siteReportRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private ProjectTimelineService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProjectTimelineService(entryRepository, buildRepository,
+                activityFeedService, siteReportRepository, transactionManager);
+    }
+
+    private static CombinedActivityItem item(Long id, String type, LocalDateTime ts) {
+        return new CombinedActivityItem(id, type, "t" + id, "d", ts, ts.toLocalDate(),
+                "OPEN", "Jane", Map.of());
+    }
+
+    private static ProjectTimelineEntry entry(Long sourceId, String type, LocalDateTime ts) {
+        ProjectTimelineEntry e = new ProjectTimelineEntry();
+        e.setProjectId(1L);
+        e.setSourceId(sourceId);
+        e.setSourceType(type);
+        e.setOccurredAt(ts);
+        e.setActivityDate(ts.toLocalDate());
+        e.setTitle("t" + sourceId);
+        return e;
+    }
+
+    @Test
+    void getTimeline_builtProject_readsMaterialisedRowsOnly() {
+        LocalDateTime ts = LocalDateTime.of(2026, 3, 1, 10, 0);
+        when(buildRepository.existsById(1L)).thenReturn(true);
+        when(entryRepository.findByProjectIdOrderByOccurredAtDescSourceIdDesc(1L))
+                .thenReturn(List.of(entry(9L, "OBSERVATION", ts), entry(4L, "GALLERY", ts.minusDays(1))));
+
+        List<CombinedActivityItem> items = service.getTimeline(1L);
+
+        assertThat(items).extracting(CombinedActivityItem::id).containsExactly(9L, 4L);
+        assertThat(items.get(0).metadata()).isNotNull();
+        verifyNoInteractions(activityFeedService);
+    }
+
+    @Test
+    void getTimelineByType_filtersOnUppercasedSourceType() {
+        when(buildRepository.existsById(1L)).thenReturn(true);
+        when(entryRepository.findByProjectIdAndSourceTypeOrderByOccurredAtDescSourceIdDesc(1L, "GALLERY"))
+                .thenReturn(List.of());
+
+        assertThat(service.getTimelineByType(1L, "gallery")).isEmpty();
+    }
+
+    @Test
+    void getTimeline_unbuiltProject_buildsThenReads() {
+        LocalDateTime ts = LocalDateTime.of(2026, 3, 1, 10, 0);
+        when(buildRepository.existsById(1L)).thenReturn(false);
+        when(buildRepository.findById(1L)).thenReturn(Optional.empty());
+        when(activityFeedService.getCombinedActivityFeed(1L))
+                .thenReturn(List.of(item(9L, "OBSERVATION", ts)));
+        when(entryRepository.findByProjectIdOrderByOccurredAtDescSourceIdDesc(1L))
+                .thenReturn(List.of(entry(9L, "OBSERVATION", ts)));
+
+        List<CombinedActivityItem> items = service.getTimeline(1L);
+
+        assertThat(items).extracting(CombinedActivityItem::id).containsExactly(9L);
+        verify(entryRepository).deleteByProjectId(1L);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProjectTimelineEntry>> rows = ArgumentCaptor.forClass(List.class);
+        verify(entryRepository).saveAll(rows.capture());
+        assertThat(rows.getValue()).singleElement()
+                .satisfies(e -> assertThat(e.getSourceType()).isEqualTo("OBSERVATION"));
+        verify(buildRepository).save(any(ProjectTimelineBuild.class));
+    }
+
+    @Test
+    void getTimeline_buildFails_servesLiveFeed() {
+        LocalDateTime ts = LocalDateTime.of(2026, 3, 1, 10, 0);
+        List<CombinedActivityItem> live = List.of(item(9L, "OBSERVATION", ts));
+        when(buildRepository.existsById(1L)).thenReturn(false);
+        when(activityFeedService.getCombinedActivityFeed(1L)).thenReturn(live);
+        when(entryRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("uq_project_timeline_source"));
+
+        assertThat(service.getTimeline(1L)).isEqualTo(live);
+        verify(entryRepository, never()).findByProjectIdOrderByOccurredAtDescSourceIdDesc(any());
+    }
+
+    @Test
+    void recordSiteReport_draft_removesEntry() {
+        SiteReport report = mock(SiteReport.class);
+        when(report.getId()).thenReturn(31L);
+        when(report.getStatus()).thenReturn("DRAFT");
+
+        service.record(report);
+
+        verify(entryRepository).deleteBySource("SITE_REPORT", 31L);
+        verifyNoInteractions(activityFeedService);
+    }
+
+    @Test
+    void refreshSiteReport_deletedReport_removesEntry() {
+        when(siteReportRepository.findById(31L)).thenReturn(Optional.empty());
+
+        service.refreshSiteReport(31L);
+
+        verify(entryRepository).deleteBySource("SITE_REPORT", 31L);
+    }
+
+    @Test
+    void upsert_unbuiltProject_isSkipped() {
+        SiteReport report = mock(SiteReport.class, RETURNS_DEEP_STUBS);
+        when(report.getStatus()).thenReturn("SUBMITTED");
+        when(report.getProject().getId()).thenReturn(1L);
+        when(activityFeedService.toActivityItem(report))
+                .thenReturn(item(31L, "SITE_REPORT", LocalDateTime.of(2026, 3, 1, 10, 0)));
+        when(buildRepository.existsById(1L)).thenReturn(false);
+
+        service.record(report);
+
+        verify(entryRepository, never()).save(any());
+    }
+
+    @Test
+    void upsert_existingEntry_isUpdatedInPlace() {
+        SiteReport report = mock(SiteReport.class, RETURNS_DEEP_STUBS);
+        when(report.getStatus()).thenReturn("SUBMITTED");
+        when(report.getProject().getId()).thenReturn(1L);
+        LocalDateTime ts = LocalDateTime.of(2026, 3, 1, 10, 0);
+        when(activityFeedService.toActivityItem(report)).thenReturn(item(31L, "SITE_REPORT", ts));
+        when(buildRepository.existsById(1L)).thenReturn(true);
+        ProjectTimelineEntry existing = entry(31L, "SITE_REPORT", ts.minusDays(2));
+        when(entryRepository.findBySourceTypeAndSourceId("SITE_REPORT", 31L)).thenReturn(Optional.of(existing));
+
+        service.record(report);
+
+        verify(entryRepository).save(existing);
+        assertThat(existing.getOccurredAt()).isEqualTo(ts);
+    }
+
+    @Test
+    void upsert_storesTheSourceRowHash() {
+        SiteReport report = mock(SiteReport.class, RETURNS_DEEP_STUBS);
+        when(report.getStatus()).thenReturn("SUBMITTED");
+        when(report.getProject().getId()).thenReturn(1L);
+        LocalDateTime ts = LocalDateTime.of(2026, 3, 1, 10, 0);
+        when(activityFeedService.toActivityItem(report)).thenReturn(item(31L, "SITE_REPORT", ts));
+        when(buildRepository.existsById(1L)).thenReturn(true);
+        ProjectTimelineEntry existing = entry(31L, "SITE_REPORT", ts);
+        existing.setSourceHash(100L);
+        when(entryRepository.findBySourceTypeAndSourceId("SITE_REPORT", 31L)).thenReturn(Optional.of(existing));
+        when(entryRepository.findSourceRowHash("SITE_REPORT", 31L)).thenReturn(-42L);
+
+        service.record(report);
+
+        assertThat(existing.getSourceHash()).isEqualTo(-42L);
+    }
+
+    @Test
+    void rebuild_storesSourceHashesAndTheVersionReadBeforeTheFeed() {
+        LocalDateTime ts = LocalDateTime.of(2026, 3, 1, 10, 0);
+        ProjectTimelineBuild build = mock(ProjectTimelineBuild.class);
+        when(build.getSourceVersion()).thenReturn(5L);
+        when(buildRepository.findById(1L)).thenReturn(Optional.of(build));
+        ProjectTimelineEntryRepository.SourceRowHash hash = mock(ProjectTimelineEntryRepository.SourceRowHash.class);
+        when(hash.getSourceType()).thenReturn("OBSERVATION");
+        when(hash.getSourceId()).thenReturn(9L);
+        when(hash.getHash()).thenReturn(77L);
+        when(entryRepository.findSourceRowHashes(1L)).thenReturn(List.of(hash));
+        when(activityFeedService.getCombinedActivityFeed(1L)).thenReturn(List.of(item(9L, "OBSERVATION", ts)));
+
+        service.rebuildProject(1L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProjectTimelineEntry>> rows = ArgumentCaptor.forClass(List.class);
+        verify(entryRepository).saveAll(rows.capture());
+        assertThat(rows.getValue()).singleElement()
+                .satisfies(e -> assertThat(e.getSourceHash()).isEqualTo(77L));
+        verify(build).setCheckedVersion(5L);
+    }
+
+    @Test
+    void rebuild_firstBuild_staysUnchecked() {
+        when(buildRepository.findById(1L)).thenReturn(Optional.empty());
+        when(activityFeedService.getCombinedActivityFeed(1L)).thenReturn(List.of());
+
+        service.rebuildProject(1L);
+
+        ArgumentCaptor<ProjectTimelineBuild> saved = ArgumentCaptor.forClass(ProjectTimelineBuild.class);
+        verify(buildRepository).save(saved.capture());
+        assertThat(saved.getValue().getCheckedVersion()).isNull();
+    }
+}
@@ -3,8 +3,12 @@ package com.wd.custapi.service;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.messaging.BatchResponse;
 import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
 import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.SendResponse;
+import com.wd.custapi.service.PushSender.MulticastResult;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 
@@ -12,6 +16,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
@@ -297,4 +302,82 @@ class PushNotificationServiceTest {
             verify(messaging).sendEachForMulticast(any(MulticastMessage.class));
         }
     }
+
+    @Test
+    void sendToTokens_reportsPerTokenFailuresFromBatchResponse() throws Exception {
+        FirebaseMessaging messaging = mock(FirebaseMessaging.class);
+        BatchResponse batch = mock(BatchResponse.class);
+        SendResponse ok = mock(SendResponse.class);
+        when(ok.isSuccessful()).thenReturn(true);
+        FirebaseMessagingException gone = mock(FirebaseMessagingException.class);
+        when(gone.getMessagingErrorCode()).thenReturn(MessagingErrorCode.UNREGISTERED);
+        SendResponse failed = mock(SendResponse.class);
+        when(failed.isSuccessful()).thenReturn(false);
+        when(failed.getException()).thenReturn(gone);
+        when(batch.getSuccessCount()).thenReturn(1);
+        when(batch.getFailureCount()).thenReturn(1);
+        when(batch.getResponses()).thenReturn(List.of(ok, failed));
+        when(messaging.sendEachForMulticast(any(MulticastMessage.class))).thenReturn(batch);
+
+        try (MockedStatic<FirebaseApp> appStatic = mockStatic(FirebaseApp.class);
+             MockedStatic<FirebaseMessaging> msgStatic = mockStatic(FirebaseMessaging.class)) {
+            firebaseReady(appStatic);
+            msgStatic.when(FirebaseMessaging::getInstance).thenReturn(messaging);
+
+            MulticastResult result = service.sendToTokens(List.of("live", "stale"), "T", "B", Map.of());
+
+            assertThat(result.successCount()).isEqualTo(1);
+            assertThat(result.failures()).singleElement().satisfies(f -> {
+                assertThat(f.token()).isEqualTo("stale");
+                assertThat(f.isStale()).isTrue();
+                assertThat(f.isTransient()).isFalse();
+            });
+        }
+    }
+
+    @Test
+    void sendToTokens_marksWholeChunkFailed_whenMulticastThrows() throws Exception {
+        FirebaseMessaging messaging = mock(FirebaseMessaging.class);
+        when(messaging.sendEachForMulticast(any(MulticastMessage.class)))
+                .thenThrow(new RuntimeException("FCM down"));
+
+        try (MockedStatic<FirebaseApp> appStatic = mockStatic(FirebaseApp.class);
+             MockedStatic<FirebaseMessaging> msgStatic = mockStatic(FirebaseMessaging.class)) {
+            firebaseReady(appStatic);
+            msgStatic.when(FirebaseMessaging::getInstance).thenReturn(messaging);
+
+            MulticastResult result = service.sendToTokens(List.of("t1", "t2"), "T", "B", null);
+
+            assertThat(result.successCount()).isZero();
+            assertThat(result.failures()).extracting(PushSender.TokenFailure::token)
+                    .containsExactly("t1", "t2");
+            assertThat(result.failures()).allSatisfy(f -> {
+                assertThat(f.wholeCall()).isTrue();
+                assertThat(f.isStale()).isFalse();
+                assertThat(f.isTransient()).isTrue();
+            });
+        }
+    }
+
+    @Test
+    void sendToTokens_callRejectedWithInvalidArgument_doesNotMarkTokensStale() throws Exception {
+        FirebaseMessaging messaging = mock(FirebaseMessaging.class);
+        FirebaseMessagingException badPayload = mock(FirebaseMessagingException.class);
+        when(badPayload.getMessagingErrorCode()).thenReturn(MessagingErrorCode.INVALID_ARGUMENT);
+        when(messaging.sendEachForMulticast(any(MulticastMessage.class))).thenThrow(badPayload);
+
+        try (MockedStatic<FirebaseApp> appStatic = mockStatic(FirebaseApp.class);
+             MockedStatic<FirebaseMessaging> msgStatic = mockStatic(FirebaseMessaging.class)) {
+            firebaseReady(appStatic);
+            msgStatic.when(FirebaseMessaging::getInstance).thenReturn(messaging);
+
+            MulticastResult result = service.sendToTokens(List.of("t1", "t2"), "T", "B", null);
+
+            assertThat(result.failures()).hasSize(2).allSatisfy(f -> {
+                assertThat(f.errorCode()).isEqualTo(MessagingErrorCode.INVALID_ARGUMENT);
+                assertThat(f.isStale()).isFalse();
+                assertThat(f.isTransient()).isFalse();
+            });
+        }
+    }
 }
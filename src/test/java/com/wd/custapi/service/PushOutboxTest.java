@@ -0,0 +1,235 @@
+package com.wd.custapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.wd.custapi.model.PushOutboxMessage;
+import com.wd.custapi.repository.PushOutboxRepository;
+import com.wd.custapi.service.NotificationFanoutService.Delivery;
+import com.wd.custapi.service.NotificationFanoutService.NotificationPayload;
+import com.wd.custapi.service.PushSender.MulticastResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link PushOutbox}: batch enqueue, multicast per distinct
+ * payload across every device of every recipient, per-row outcomes, stale-token
+ * pruning, the claim committed before FCM is called, and the per-type delivery
+ * metrics. {@link FakePushSender} stands in for FCM; the transaction manager is
+ * a mock, so transactions run inline.
+ */
+@ExtendWith(MockitoExtension.class)
+class PushOutboxTest {
+
+    @Mock private PushOutboxRepository outboxRepository;
+    @Mock private DeviceTokenService deviceTokenService;
+    @Mock private JdbcTemplate jdbc;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PushOutbox outbox(FakePushSender sender) {
+        return new PushOutbox(outboxRepository, deviceTokenService, sender, jdbc, objectMapper,
+                transactionManager, meterRegistry, true, 500, 3, Duration.ofMinutes(1), Duration.ofDays(7),
+                Duration.ofMinutes(5));
+    }
+
+    private static PushOutboxMessage message(long id, long userId, String type, String title) {
+        PushOutboxMessage m = new PushOutboxMessage();
+        m.setId(id);
+        m.setCustomerUserId(userId);
+        m.setNotificationType(type);
+        m.setTitle(title);
+        m.setBody("body");
+        m.setDataJson("{\"notificationType\":\"" + type + "\"}");
+        m.setCreatedAt(LocalDateTime.now().minusSeconds(5));
+        m.setNextAttemptAt(LocalDateTime.now().minusSeconds(5));
+        return m;
+    }
+
+    private void stubBatch(List<PushOutboxMessage> batch, Map<Long, List<String>> tokens) {
+        when(outboxRepository.lockDueBatch(any(), eq(500))).thenReturn(batch);
+        when(deviceTokenService.tokensByUser(anyCollection())).thenReturn(tokens);
+    }
+
+    private long commits() {
+        return mockingDetails(transactionManager).getInvocations().stream()
+                .filter(i -> i.getMethod().getName().equals("commit"))
+                .count();
+    }
+
+    private double deliveries(String type, String result) {
+        return meterRegistry.get("push.delivery").tag("type", type).tag("result", result).counter().count();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enqueue_insertsOnePendingRowPerDelivery() {
+        NotificationPayload p = new NotificationPayload(1L, 2L, "T", "B", "PAYMENT", Map.of("k", "v"));
+
+        outbox(new FakePushSender()).enqueue(List.of(new Delivery(7L, p), new Delivery(7L, p)));
+
+        ArgumentCaptor<Collection<?>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbc).batchUpdate(startsWith("INSERT INTO push_outbox"), rows.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(rows.getValue()).hasSize(2);
+    }
+
+    @Test
+    void dispatchBatch_multicastsEachPayloadOnceToAllDevices_andMarksSent() {
+        FakePushSender sender = new FakePushSender();
+        PushOutboxMessage a = message(1, 10, "SITE_REPORT", "Report");
+        PushOutboxMessage b = message(2, 11, "SITE_REPORT", "Report");
+        PushOutboxMessage c = message(3, 12, "PAYMENT", "Invoice");
+        stubBatch(List.of(a, b, c), Map.of(
+                10L, List.of("phone-10", "tablet-10"),
+                11L, List.of("phone-11"),
+                12L, List.of("phone-12")));
+
+        int count = outbox(sender).dispatchBatch();
+
+        assertThat(count).isEqualTo(3);
+        assertThat(sender.sent()).hasSize(2);
+        assertThat(sender.sent().get(0).tokens()).containsExactly("phone-10", "tablet-10", "phone-11");
+        assertThat(sender.sent().get(0).data()).containsEntry("notificationType", "SITE_REPORT");
+        assertThat(sender.sent().get(1).tokens()).containsExactly("phone-12");
+        assertThat(List.of(a, b, c)).allSatisfy(m -> {
+            assertThat(m.getStatus()).isEqualTo(PushOutboxMessage.STATUS_SENT);
+            assertThat(m.getSentAt()).isNotNull();
+        });
+        verify(outboxRepository, times(2)).saveAll(List.of(a, b, c));   // claim, then outcomes
+        assertThat(deliveries("SITE_REPORT", "sent")).isEqualTo(2.0);
+        assertThat(meterRegistry.get("push.delivery.latency").tag("type", "PAYMENT").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void dispatchBatch_sendsAfterTheClaimCommits_andRecordsInASecondTransaction() {
+        PushOutboxMessage m = message(1, 10, "PAYMENT", "P");
+        stubBatch(List.of(m), Map.of(10L, List.of("phone-10")));
+        List<String> statusAtSend = new ArrayList<>();
+        List<Long> commitsAtSend = new ArrayList<>();
+        FakePushSender sender = new FakePushSender() {
+            @Override
+            public MulticastResult sendToTokens(List<String> tokens, String title, String body,
+                                                Map<String, String> data) {
+                statusAtSend.add(m.getStatus());
+                commitsAtSend.add(commits());
+                return super.sendToTokens(tokens, title, body, data);
+            }
+        };
+
+        outbox(sender).dispatchBatch();
+
+        assertThat(statusAtSend).containsExactly(PushOutboxMessage.STATUS_IN_FLIGHT);
+        assertThat(commitsAtSend).containsExactly(1L);
+        assertThat(commits()).isEqualTo(2L);
+        assertThat(m.getStatus()).isEqualTo(PushOutboxMessage.STATUS_SENT);
+        assertThat(m.getClaimedAt()).isNull();
+    }
+
+    @Test
+    void releaseStaleClaims_usesClaimTimeout() {
+        when(outboxRepository.releaseStaleClaims(any())).thenReturn(1);
+
+        outbox(new FakePushSender()).releaseStaleClaims();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepository).releaseStaleClaims(cutoff.capture());
+        assertThat(cutoff.getValue()).isBefore(LocalDateTime.now().minusMinutes(4));
+    }
+
+    @Test
+    void dispatchBatch_userWithoutDevices_isNoDevice() {
+        FakePushSender sender = new FakePushSender();
+        PushOutboxMessage m = message(1, 10, "GENERAL", "Hi");
+        stubBatch(List.of(m), Map.of());
+
+        outbox(sender).dispatchBatch();
+
+        assertThat(sender.sent()).isEmpty();
+        assertThat(m.getStatus()).isEqualTo(PushOutboxMessage.STATUS_NO_DEVICE);
+        assertThat(deliveries("GENERAL", "no_device")).isEqualTo(1.0);
+    }
+
+    @Test
+    void dispatchBatch_prunesStaleTokens_andFailsRowsWithNoLiveDevice() {
+        FakePushSender sender = new FakePushSender()
+                .failToken("gone-10", MessagingErrorCode.UNREGISTERED)
+                .failToken("bad-11", MessagingErrorCode.INVALID_ARGUMENT);
+        PushOutboxMessage partlyStale = message(1, 10, "PAYMENT", "P");
+        PushOutboxMessage allStale = message(2, 11, "PAYMENT", "P");
+        stubBatch(List.of(partlyStale, allStale), Map.of(
+                10L, List.of("gone-10", "live-10"),
+                11L, List.of("bad-11")));
+        when(deviceTokenService.prune(anyCollection())).thenReturn(2);
+
+        outbox(sender).dispatchBatch();
+
+        verify(deviceTokenService).prune(Set.of("gone-10", "bad-11"));
+        assertThat(partlyStale.getStatus()).isEqualTo(PushOutboxMessage.STATUS_SENT);
+        assertThat(allStale.getStatus()).isEqualTo(PushOutboxMessage.STATUS_FAILED);
+        assertThat(allStale.getLastError()).contains("INVALID_ARGUMENT");
+        assertThat(meterRegistry.get("push.tokens.pruned").counter().count()).isEqualTo(2.0);
+        assertThat(deliveries("PAYMENT", "failed")).isEqualTo(1.0);
+    }
+
+    @Test
+    void dispatchBatch_wholeCallRejected_failsRowsWithoutPruning() {
+        FakePushSender sender = new FakePushSender().failCall(MessagingErrorCode.SENDER_ID_MISMATCH);
+        PushOutboxMessage m = message(1, 10, "PAYMENT", "P");
+        stubBatch(List.of(m), Map.of(10L, List.of("phone-10", "tablet-10")));
+
+        outbox(sender).dispatchBatch();
+
+        assertThat(m.getStatus()).isEqualTo(PushOutboxMessage.STATUS_FAILED);
+        assertThat(m.getLastError()).contains("SENDER_ID_MISMATCH");
+        verify(deviceTokenService, never()).prune(anyCollection());
+    }
+
+    @Test
+    void dispatchBatch_transientFailure_retriesWithBackoff_untilMaxAttempts() {
+        FakePushSender sender = new FakePushSender().failToken("t", MessagingErrorCode.UNAVAILABLE);
+        PushOutboxMessage m = message(1, 10, "PAYMENT", "P");
+        stubBatch(List.of(m), Map.of(10L, List.of("t")));
+        PushOutbox outbox = outbox(sender);
+
+        outbox.dispatchBatch();
+
+        assertThat(m.getStatus()).isEqualTo(PushOutboxMessage.STATUS_PENDING);
+        assertThat(m.getAttemptCount()).isEqualTo(1);
+        assertThat(m.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(30));
+        assertThat(deliveries("PAYMENT", "retry")).isEqualTo(1.0);
+
+        m.setAttemptCount(2); // third attempt is the last (max-attempts = 3)
+        outbox.dispatchBatch();
+
+        assertThat(m.getStatus()).isEqualTo(PushOutboxMessage.STATUS_FAILED);
+        verify(deviceTokenService, never()).prune(anyCollection());
+    }
+
+    @Test
+    void drain_senderUnavailable_leavesRowsWaiting() {
+        outbox(new FakePushSender().unavailable()).drain();
+
+        verifyNoInteractions(outboxRepository, deviceTokenService);
+    }
+}
@@ -29,6 +29,7 @@ class QualityCheckServiceTest {
     @Mock private ProjectRepository projectRepository;
     @Mock private CustomerUserRepository userRepository;
     @Mock private ActivityFeedService activityFeedService;
+    @Mock private ProjectTimelineService projectTimelineService;
 
     @InjectMocks private QualityCheckService service;
 
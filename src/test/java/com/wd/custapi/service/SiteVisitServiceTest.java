@@ -41,6 +41,7 @@ class SiteVisitServiceTest {
     @Mock private StaffRoleRepository staffRoleRepository;
     @Mock private ActivityFeedService activityFeedService;
     @Mock private PortalUserLookup portalUserLookup;
+    @Mock private ProjectTimelineService projectTimelineService;
 
     @InjectMocks private SiteVisitService service;
 
@@ -0,0 +1,99 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.config.CacheConfig;
+import com.wd.custapi.repository.ProjectDocumentRepository;
+import com.wd.custapi.repository.SiteReportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link StorageOwnershipIndex}: document and site-report paths
+ * resolve to their projects once, unowned paths are never cached, and the
+ * eviction hooks force a reload.
+ */
+@ExtendWith(MockitoExtension.class)
+class StorageOwnershipIndexTest {
+
+    private static final String DOC_PATH = "projects/50/documents/plan.pdf";
+    private static final String PHOTO_PATH = "site-reports/9/photo.jpg";
+
+    @Mock private ProjectDocumentRepository projectDocumentRepository;
+    @Mock private SiteReportRepository siteReportRepository;
+
+    private StorageOwnershipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new StorageOwnershipIndex(projectDocumentRepository, siteReportRepository,
+                new CacheConfig().cacheManager(Duration.ofMinutes(2), Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void documentPath_resolvedOnceThenServedFromCache() {
+        when(projectDocumentRepository.findProjectIdsByFilePath(DOC_PATH)).thenReturn(List.of(50L));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(index.ownerProjectIds(DOC_PATH)).containsExactly(50L);
+        }
+
+        verify(projectDocumentRepository, times(1)).findProjectIdsByFilePath(DOC_PATH);
+        verifyNoInteractions(siteReportRepository);
+    }
+
+    @Test
+    void siteReportPhoto_resolvesThroughReport() {
+        when(projectDocumentRepository.findProjectIdsByFilePath(PHOTO_PATH)).thenReturn(List.of());
+        when(siteReportRepository.findProjectIdById(9L)).thenReturn(Optional.of(60L));
+
+        assertThat(index.ownerProjectIds(PHOTO_PATH)).containsExactly(60L);
+        assertThat(index.ownerProjectIds(PHOTO_PATH)).containsExactly(60L);
+
+        verify(siteReportRepository, times(1)).findProjectIdById(9L);
+    }
+
+    @Test
+    void unownedPath_isNotCached() {
+        when(projectDocumentRepository.findProjectIdsByFilePath(DOC_PATH)).thenReturn(List.of(), List.of(50L));
+
+        assertThat(index.ownerProjectIds(DOC_PATH)).isEmpty();
+        assertThat(index.ownerProjectIds(DOC_PATH)).containsExactly(50L);
+    }
+
+    @Test
+    void evictProject_dropsOnlyThatProjectsPaths() {
+        when(projectDocumentRepository.findProjectIdsByFilePath(any())).thenAnswer(inv ->
+                inv.getArgument(0).equals(DOC_PATH) ? List.of(50L) : List.of(51L));
+        String otherPath = "projects/51/documents/other.pdf";
+        index.ownerProjectIds(DOC_PATH);
+        index.ownerProjectIds(otherPath);
+
+        index.evictProject(50L);
+        index.ownerProjectIds(DOC_PATH);
+        index.ownerProjectIds(otherPath);
+
+        verify(projectDocumentRepository, times(2)).findProjectIdsByFilePath(DOC_PATH);
+        verify(projectDocumentRepository, times(1)).findProjectIdsByFilePath(otherPath);
+    }
+
+    @Test
+    void evictPath_forcesReload() {
+        when(projectDocumentRepository.findProjectIdsByFilePath(DOC_PATH)).thenReturn(List.of(50L));
+
+        index.ownerProjectIds(DOC_PATH);
+        index.evictPath(DOC_PATH);
+        index.ownerProjectIds(DOC_PATH);
+
+        verify(projectDocumentRepository, times(2)).findProjectIdsByFilePath(DOC_PATH);
+    }
+}
@@ -4,12 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.wd.custapi.dto.PortalEventType;
 import com.wd.custapi.dto.PortalWebhookEvent;
-import com.wd.custapi.model.CustomerNotification;
 import com.wd.custapi.model.CustomerUser;
 import com.wd.custapi.model.ReceivedWebhookEvent;
-import com.wd.custapi.repository.CustomerNotificationRepository;
 import com.wd.custapi.repository.CustomerUserRepository;
 import com.wd.custapi.repository.ReceivedWebhookEventRepository;
+import com.wd.custapi.security.AuthenticatedPrincipalCache;
+import com.wd.custapi.service.NotificationFanoutService.NotificationPayload;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +17,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
@@ -29,19 +30,27 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class WebhookIngestionServicePaymentMilestoneTest {
 
-    @Mock CustomerNotificationRepository notificationRepository;
+    @Mock NotificationFanoutService fanoutService;
     @Mock CustomerUserRepository userRepository;
-    @Mock PushNotificationService pushNotificationService;
     @Mock ReceivedWebhookEventRepository webhookEventRepository;
+    @Mock ProjectAccessService projectAccessService;
+    @Mock AuthenticatedPrincipalCache principalCache;
+    @Mock StorageOwnershipIndex storageOwnershipIndex;
+    @Mock ProjectTimelineService projectTimelineService;
+    @Mock DashboardCache dashboardCache;
+    @Mock WebhookRetryScheduler retryScheduler;
+    @Mock CustomerEventBus eventBus;
+    @Mock PlatformTransactionManager transactionManager;
 
     @InjectMocks WebhookIngestionService service;
 
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
     private CustomerUser customer;
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(service, "objectMapper",
-                new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
 
         customer = new CustomerUser();
         customer.setId(17L);
@@ -59,6 +68,26 @@ class WebhookIngestionServicePaymentMilestoneTest {
                 .thenReturn(java.util.List.of(customer));
     }
 
+    /** Runs the event the way WebhookQueue does — as a claimed PROCESSING row. */
+    private void process(PortalWebhookEvent event) {
+        ReceivedWebhookEvent claimed = new ReceivedWebhookEvent();
+        claimed.setEventType(event.eventType().name());
+        claimed.setStatus(ReceivedWebhookEvent.STATUS_PROCESSING);
+        try {
+            claimed.setPayload(objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        service.processQueued(claimed);
+    }
+
+    /** The payload fanned out to the project's members. */
+    private NotificationPayload fannedOut() {
+        ArgumentCaptor<NotificationPayload> payload = ArgumentCaptor.forClass(NotificationPayload.class);
+        verify(fanoutService).fanOut(eq(java.util.List.of(customer)), payload.capture());
+        return payload.getValue();
+    }
+
     private PortalWebhookEvent eventFor(String kind) {
         return new PortalWebhookEvent(
                 PortalEventType.PAYMENT_MILESTONE_DUE,
@@ -79,48 +108,43 @@ class WebhookIngestionServicePaymentMilestoneTest {
 
     @Test
     void process_tMinus3_titleAndBody() {
-        service.process(eventFor("T_MINUS_3"));
+        process(eventFor("T_MINUS_3"));
 
-        ArgumentCaptor<CustomerNotification> notif = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notif.capture());
+        NotificationPayload notif = fannedOut();
 
-        assertEquals("PAYMENT_MILESTONE_DUE", notif.getValue().getNotificationType());
-        assertEquals("Payment due in 3 days", notif.getValue().getTitle());
+        assertEquals("PAYMENT_MILESTONE_DUE", notif.notificationType());
+        assertEquals("Payment due in 3 days", notif.title());
         // Body must use the existing ContractValueFormatter (₹4 L for 4,25,000 — formatINR rounds to 0 decimals at lakh scale).
-        assertEquals("Stage 4 — Plastering (\u20B94 L)", notif.getValue().getBody());
+        assertEquals("Stage 4 — Plastering (\u20B94 L)", notif.body());
     }
 
     @Test
     void process_dueToday_titleAndBody() {
-        service.process(eventFor("DUE_TODAY"));
+        process(eventFor("DUE_TODAY"));
 
-        ArgumentCaptor<CustomerNotification> notif = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notif.capture());
-        assertEquals("Payment due today", notif.getValue().getTitle());
-        assertEquals("Stage 4 — Plastering (\u20B94 L)", notif.getValue().getBody());
+        NotificationPayload notif = fannedOut();
+        assertEquals("Payment due today", notif.title());
+        assertEquals("Stage 4 — Plastering (\u20B94 L)", notif.body());
     }
 
     @Test
     void process_overdue_titleAndBody() {
-        service.process(eventFor("OVERDUE"));
+        process(eventFor("OVERDUE"));
 
-        ArgumentCaptor<CustomerNotification> notif = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notif.capture());
-        assertEquals("Payment overdue", notif.getValue().getTitle());
-        assertEquals("Stage 4 — Plastering (\u20B94 L)", notif.getValue().getBody());
+        NotificationPayload notif = fannedOut();
+        assertEquals("Payment overdue", notif.title());
+        assertEquals("Stage 4 — Plastering (\u20B94 L)", notif.body());
     }
 
     @Test
     void process_paymentMilestone_dispatchesFcmWithDeepLinkPayments() {
-        service.process(eventFor("DUE_TODAY"));
+        process(eventFor("DUE_TODAY"));
 
-        @SuppressWarnings("unchecked")
-        ArgumentCaptor<Map<String,String>> dataCap = ArgumentCaptor.forClass(Map.class);
-        verify(pushNotificationService).sendToToken(
-                eq("fcm-token-abc"), eq("Payment due today"),
-                eq("Stage 4 — Plastering (\u20B94 L)"), dataCap.capture());
+        NotificationPayload notif = fannedOut();
+        assertEquals("Payment due today", notif.title());
+        assertEquals("Stage 4 — Plastering (\u20B94 L)", notif.body());
 
-        Map<String, String> data = dataCap.getValue();
+        Map<String, String> data = notif.data();
         assertEquals("payments", data.get("deepLink"));
         // type matches the customer-app's _handleTap switch keys:
         assertEquals("PAYMENT_MILESTONE_DUE", data.get("type"));
@@ -139,10 +163,9 @@ class WebhookIngestionServicePaymentMilestoneTest {
                        "dueDate", "2026-05-13", "netPayableAmount", "95000.00"),
                 LocalDateTime.now());
 
-        service.process(e);
+        process(e);
 
-        ArgumentCaptor<CustomerNotification> notif = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notif.capture());
-        assertEquals("Stage 4 — Plastering (\u20B995,000)", notif.getValue().getBody());
+        NotificationPayload notif = fannedOut();
+        assertEquals("Stage 4 — Plastering (\u20B995,000)", notif.body());
     }
 }
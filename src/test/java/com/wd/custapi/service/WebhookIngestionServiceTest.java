@@ -4,12 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.wd.custapi.dto.PortalEventType;
 import com.wd.custapi.dto.PortalWebhookEvent;
-import com.wd.custapi.model.CustomerNotification;
 import com.wd.custapi.model.CustomerUser;
 import com.wd.custapi.model.ReceivedWebhookEvent;
-import com.wd.custapi.repository.CustomerNotificationRepository;
 import com.wd.custapi.repository.CustomerUserRepository;
 import com.wd.custapi.repository.ReceivedWebhookEventRepository;
+import com.wd.custapi.security.AuthenticatedPrincipalCache;
+import com.wd.custapi.service.NotificationFanoutService.NotificationPayload;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +17,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -31,16 +32,37 @@ import static org.mockito.Mockito.*;
 class WebhookIngestionServiceTest {
 
     @Mock
-    private CustomerNotificationRepository notificationRepository;
+    private NotificationFanoutService fanoutService;
 
     @Mock
     private CustomerUserRepository userRepository;
 
     @Mock
-    private PushNotificationService pushNotificationService;
+    private ReceivedWebhookEventRepository webhookEventRepository;
 
     @Mock
-    private ReceivedWebhookEventRepository webhookEventRepository;
+    private ProjectAccessService projectAccessService;
+
+    @Mock
+    private AuthenticatedPrincipalCache principalCache;
+
+    @Mock
+    private StorageOwnershipIndex storageOwnershipIndex;
+
+    @Mock
+    private ProjectTimelineService projectTimelineService;
+
+    @Mock
+    private DashboardCache dashboardCache;
+
+    @Mock
+    private WebhookRetryScheduler retryScheduler;
+
+    @Mock
+    private CustomerEventBus eventBus;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private WebhookIngestionService webhookIngestionService;
@@ -64,6 +86,26 @@ class WebhookIngestionServiceTest {
         customer.setLastName("Doe");
     }
 
+    // Helper: runs the event the way WebhookQueue does — as a claimed PROCESSING row
+    private void process(PortalWebhookEvent event) {
+        ReceivedWebhookEvent claimed = new ReceivedWebhookEvent();
+        claimed.setEventType(event.eventType() != null ? event.eventType().name() : "UNKNOWN");
+        claimed.setStatus(ReceivedWebhookEvent.STATUS_PROCESSING);
+        try {
+            claimed.setPayload(objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        webhookIngestionService.processQueued(claimed);
+    }
+
+    // Helper: the payload fanned out to the single recipient
+    private NotificationPayload fannedOut() {
+        ArgumentCaptor<NotificationPayload> payload = ArgumentCaptor.forClass(NotificationPayload.class);
+        verify(fanoutService).fanOut(eq(List.of(customer)), payload.capture());
+        return payload.getValue();
+    }
+
     // Helper: saves record with an id so subsequent saves work
     private ReceivedWebhookEvent savedRecord(String status) {
         ReceivedWebhookEvent webhookRecord = new ReceivedWebhookEvent();
@@ -83,14 +125,33 @@ class WebhookIngestionServiceTest {
         when(webhookEventRepository.save(any(ReceivedWebhookEvent.class))).thenReturn(webhookRecord);
         when(userRepository.findById(1L)).thenReturn(Optional.of(customer));
 
-        webhookIngestionService.process(event);
+        process(event);
+
+        NotificationPayload notif = fannedOut();
+        assertEquals("SITE_REPORT", notif.notificationType());
+        assertTrue(notif.title().contains("Week 3 Report"));
+        verify(storageOwnershipIndex).evictProject(10L);
+        verify(projectTimelineService).refreshSiteReport(55L);
+        verify(dashboardCache).evictProject(10L);
+        verify(eventBus).projectChanged(10L, "SITE_REPORT_SUBMITTED");
+    }
+
+    @Test
+    void process_customerAccountUpdated_evictsCachedPrincipalWithoutNotifying() {
+        PortalWebhookEvent event = new PortalWebhookEvent(
+                PortalEventType.CUSTOMER_ACCOUNT_UPDATED, null, 1L, null,
+                "Account disabled", Map.of(), LocalDateTime.now());
+
+        ReceivedWebhookEvent webhookRecord = savedRecord(ReceivedWebhookEvent.STATUS_PROCESSING);
+        when(webhookEventRepository.save(any(ReceivedWebhookEvent.class))).thenReturn(webhookRecord);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(customer));
+
+        process(event);
 
-        ArgumentCaptor<CustomerNotification> notifCaptor = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notifCaptor.capture());
-        CustomerNotification notif = notifCaptor.getValue();
-        assertEquals("SITE_REPORT", notif.getNotificationType());
-        assertTrue(notif.getTitle().contains("Week 3 Report"));
-        assertEquals(customer, notif.getCustomerUser());
+        verify(principalCache).evict("john@example.com");
+        verify(projectAccessService).evictUser("john@example.com");
+        verify(dashboardCache).evictUser("john@example.com");
+        verifyNoInteractions(fanoutService);
     }
 
     @Test
@@ -103,12 +164,11 @@ class WebhookIngestionServiceTest {
         when(webhookEventRepository.save(any(ReceivedWebhookEvent.class))).thenReturn(webhookRecord);
         when(userRepository.findById(1L)).thenReturn(Optional.of(customer));
 
-        webhookIngestionService.process(event);
+        process(event);
 
-        ArgumentCaptor<CustomerNotification> notifCaptor = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notifCaptor.capture());
-        assertEquals("PAYMENT", notifCaptor.getValue().getNotificationType());
-        assertTrue(notifCaptor.getValue().getTitle().contains("INV-001"));
+        NotificationPayload notifCaptor = fannedOut();
+        assertEquals("PAYMENT", notifCaptor.notificationType());
+        assertTrue(notifCaptor.title().contains("INV-001"));
     }
 
     @Test
@@ -121,12 +181,11 @@ class WebhookIngestionServiceTest {
         when(webhookEventRepository.save(any(ReceivedWebhookEvent.class))).thenReturn(webhookRecord);
         when(userRepository.findById(1L)).thenReturn(Optional.of(customer));
 
-        webhookIngestionService.process(event);
+        process(event);
 
-        ArgumentCaptor<CustomerNotification> notifCaptor = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notifCaptor.capture());
-        assertEquals("PAYMENT", notifCaptor.getValue().getNotificationType());
-        assertTrue(notifCaptor.getValue().getTitle().contains("50000"));
+        NotificationPayload notifCaptor = fannedOut();
+        assertEquals("PAYMENT", notifCaptor.notificationType());
+        assertTrue(notifCaptor.title().contains("50000"));
     }
 
     @Test
@@ -139,12 +198,11 @@ class WebhookIngestionServiceTest {
         when(webhookEventRepository.save(any(ReceivedWebhookEvent.class))).thenReturn(webhookRecord);
         when(userRepository.findById(1L)).thenReturn(Optional.of(customer));
 
-        webhookIngestionService.process(event);
+        process(event);
 
-        ArgumentCaptor<CustomerNotification> notifCaptor = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notifCaptor.capture());
-        assertEquals("DELAY", notifCaptor.getValue().getNotificationType());
-        assertTrue(notifCaptor.getValue().getTitle().contains("MATERIAL"));
+        NotificationPayload notifCaptor = fannedOut();
+        assertEquals("DELAY", notifCaptor.notificationType());
+        assertTrue(notifCaptor.title().contains("MATERIAL"));
     }
 
     @Test
@@ -167,14 +225,13 @@ class WebhookIngestionServiceTest {
                 .thenReturn(savedRecord(ReceivedWebhookEvent.STATUS_PROCESSING));
         when(userRepository.findCustomersByProjectId(10L)).thenReturn(List.of(customer));
 
-        webhookIngestionService.process(event);
+        process(event);
 
-        ArgumentCaptor<CustomerNotification> notif = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notif.capture());
-        assertEquals("SCHEDULE", notif.getValue().getNotificationType());
-        assertTrue(notif.getValue().getTitle().startsWith("Expected Handover Shifted"));
-        assertTrue(notif.getValue().getBody().contains("approximately 5 working days later"));
-        assertEquals(10L, notif.getValue().getProjectId());
+        NotificationPayload notif = fannedOut();
+        assertEquals("SCHEDULE", notif.notificationType());
+        assertTrue(notif.title().startsWith("Expected Handover Shifted"));
+        assertTrue(notif.body().contains("approximately 5 working days later"));
+        assertEquals(10L, notif.projectId());
     }
 
     @Test
@@ -192,11 +249,10 @@ class WebhookIngestionServiceTest {
                 .thenReturn(savedRecord(ReceivedWebhookEvent.STATUS_PROCESSING));
         when(userRepository.findCustomersByProjectId(10L)).thenReturn(List.of(customer));
 
-        webhookIngestionService.process(event);
+        process(event);
 
-        ArgumentCaptor<CustomerNotification> notif = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notif.capture());
-        assertTrue(notif.getValue().getBody().contains("5 working days earlier"));
+        NotificationPayload notif = fannedOut();
+        assertTrue(notif.body().contains("5 working days earlier"));
     }
 
     @Test
@@ -216,23 +272,21 @@ class WebhookIngestionServiceTest {
         when(webhookEventRepository.save(any(ReceivedWebhookEvent.class))).thenReturn(webhookRecord);
         when(userRepository.findById(1L)).thenReturn(Optional.of(customer));
 
-        webhookIngestionService.process(event);
+        process(event);
 
         // Ends PROCESSED (not FAILED) — graceful fallback
         ArgumentCaptor<ReceivedWebhookEvent> captor = ArgumentCaptor.forClass(ReceivedWebhookEvent.class);
-        verify(webhookEventRepository, atLeast(2)).save(captor.capture());
-        ReceivedWebhookEvent lastSaved = captor.getAllValues().get(captor.getAllValues().size() - 1);
-        assertEquals(ReceivedWebhookEvent.STATUS_PROCESSED, lastSaved.getStatus());
+        verify(webhookEventRepository).save(captor.capture());
+        assertEquals(ReceivedWebhookEvent.STATUS_PROCESSED, captor.getValue().getStatus());
 
         // Notification still saved with GENERAL type and "Project update" title
-        ArgumentCaptor<CustomerNotification> notif = ArgumentCaptor.forClass(CustomerNotification.class);
-        verify(notificationRepository).save(notif.capture());
-        assertEquals("GENERAL", notif.getValue().getNotificationType());
-        assertEquals("Project update", notif.getValue().getTitle());
+        NotificationPayload notif = fannedOut();
+        assertEquals("GENERAL", notif.notificationType());
+        assertEquals("Project update", notif.title());
     }
 
     @Test
-    void process_handoverShift_pushesFcmWithScheduleNotificationType() {
+    void process_handoverShift_pushDataCarriesScheduleNotificationType() {
         PortalWebhookEvent event = new PortalWebhookEvent(
                 PortalEventType.HANDOVER_SHIFT, 10L, null, 10L,
                 "summary",
@@ -245,16 +299,17 @@ class WebhookIngestionServiceTest {
                 .thenReturn(savedRecord(ReceivedWebhookEvent.STATUS_PROCESSING));
         when(userRepository.findCustomersByProjectId(10L)).thenReturn(List.of(customer));
 
-        webhookIngestionService.process(event);
+        process(event);
 
-        verify(pushNotificationService).sendToToken(eq("token-abc"), anyString(), anyString(),
-                argThat(map -> "SCHEDULE".equals(map.get("notificationType"))));
+        NotificationPayload notif = fannedOut();
+        assertEquals("SCHEDULE", notif.data().get("notificationType"));
+        assertEquals("HANDOVER_SHIFT", notif.data().get("type"));
     }
 
     // ── process — status tracking ─────────────────────────────────────────────
 
     @Test
-    void process_successfulProcessing_savesProcessingThenProcessedStatus() {
+    void process_successfulProcessing_marksClaimedRowProcessed() {
         PortalWebhookEvent event = new PortalWebhookEvent(
                 PortalEventType.INVOICE_ISSUED, 10L, 1L, 20L,
                 "Invoice", Map.of("invoiceNumber", "INV-002"), LocalDateTime.now());
@@ -263,16 +318,13 @@ class WebhookIngestionServiceTest {
         when(webhookEventRepository.save(any(ReceivedWebhookEvent.class))).thenReturn(webhookRecord);
         when(userRepository.findById(1L)).thenReturn(Optional.of(customer));
 
-        webhookIngestionService.process(event);
+        process(event);
 
-        // First save: PROCESSING; second save: PROCESSED
+        // The row was queued and claimed upstream — processing saves it once, PROCESSED
         ArgumentCaptor<ReceivedWebhookEvent> captor = ArgumentCaptor.forClass(ReceivedWebhookEvent.class);
-        verify(webhookEventRepository, atLeast(2)).save(captor.capture());
-
-        List<ReceivedWebhookEvent> saves = captor.getAllValues();
-        // The last save should have PROCESSED status set on the record
-        ReceivedWebhookEvent lastSaved = saves.get(saves.size() - 1);
-        assertEquals(ReceivedWebhookEvent.STATUS_PROCESSED, lastSaved.getStatus());
+        verify(webhookEventRepository).save(captor.capture());
+        assertEquals(ReceivedWebhookEvent.STATUS_PROCESSED, captor.getValue().getStatus());
+        assertNotNull(captor.getValue().getProcessedAt());
     }
 
     @Test
@@ -286,67 +338,12 @@ class WebhookIngestionServiceTest {
         // Cause failure: user lookup throws
         when(userRepository.findById(1L)).thenThrow(new RuntimeException("DB error"));
 
-        webhookIngestionService.process(event);
+        process(event);
 
         ArgumentCaptor<ReceivedWebhookEvent> captor = ArgumentCaptor.forClass(ReceivedWebhookEvent.class);
-        verify(webhookEventRepository, atLeast(2)).save(captor.capture());
-
-        List<ReceivedWebhookEvent> saves = captor.getAllValues();
-        ReceivedWebhookEvent lastSaved = saves.get(saves.size() - 1);
-        assertEquals(ReceivedWebhookEvent.STATUS_FAILED, lastSaved.getStatus());
-        assertNotNull(lastSaved.getErrorMessage());
-    }
-
-    // ── retryFailedEvents ─────────────────────────────────────────────────────
-
-    @Test
-    void retryFailedEvents_retriesFailedEventsUpTo3Times() throws Exception {
-        // Build a serialized event payload
-        PortalWebhookEvent event = new PortalWebhookEvent(
-                PortalEventType.PHASE_UPDATED, 10L, 1L, 5L,
-                "Phase update", Map.of("phaseName", "Foundation"), LocalDateTime.now());
-        String payload = objectMapper.writeValueAsString(event);
-
-        ReceivedWebhookEvent failedRecord = new ReceivedWebhookEvent();
-        failedRecord.setEventType("PHASE_UPDATED");
-        failedRecord.setStatus(ReceivedWebhookEvent.STATUS_FAILED);
-        failedRecord.setPayload(payload);
-        failedRecord.setAttemptCount(0);
-
-        when(webhookEventRepository.findByStatus(ReceivedWebhookEvent.STATUS_FAILED))
-                .thenReturn(List.of(failedRecord));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(customer));
-        when(webhookEventRepository.save(any(ReceivedWebhookEvent.class))).thenAnswer(inv -> inv.getArgument(0));
-
-        webhookIngestionService.retryFailedEvents();
-
-        // Attempt count incremented and status set to PROCESSED on success
-        assertEquals(1, failedRecord.getAttemptCount());
-        assertEquals(ReceivedWebhookEvent.STATUS_PROCESSED, failedRecord.getStatus());
-    }
-
-    @Test
-    void retryFailedEvents_abandonsEventsExceeding3Attempts() throws Exception {
-        PortalWebhookEvent event = new PortalWebhookEvent(
-                PortalEventType.PHASE_UPDATED, 10L, 1L, 5L,
-                "Phase update", Map.of("phaseName", "Foundation"), LocalDateTime.now());
-        String payload = objectMapper.writeValueAsString(event);
-
-        ReceivedWebhookEvent exhaustedRecord = new ReceivedWebhookEvent();
-        exhaustedRecord.setEventType("PHASE_UPDATED");
-        exhaustedRecord.setStatus(ReceivedWebhookEvent.STATUS_FAILED);
-        exhaustedRecord.setPayload(payload);
-        exhaustedRecord.setAttemptCount(3); // already at max
-        exhaustedRecord.setErrorMessage("Previous error");
-
-        when(webhookEventRepository.findByStatus(ReceivedWebhookEvent.STATUS_FAILED))
-                .thenReturn(List.of(exhaustedRecord));
-        when(webhookEventRepository.save(any(ReceivedWebhookEvent.class))).thenAnswer(inv -> inv.getArgument(0));
-
-        webhookIngestionService.retryFailedEvents();
-
-        // Should not attempt to process — error message should be prefixed with [ABANDONED]
-        assertTrue(exhaustedRecord.getErrorMessage().startsWith("[ABANDONED"));
-        verify(notificationRepository, never()).save(any());
+        verify(webhookEventRepository).save(captor.capture());
+        assertEquals(ReceivedWebhookEvent.STATUS_FAILED, captor.getValue().getStatus());
+        assertNotNull(captor.getValue().getErrorMessage());
+        verify(retryScheduler).scheduleRetry(captor.getValue());
     }
 }
@@ -0,0 +1,144 @@
+package com.wd.custapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.wd.custapi.dto.PortalEventType;
+import com.wd.custapi.dto.PortalWebhookEvent;
+import com.wd.custapi.model.ReceivedWebhookEvent;
+import com.wd.custapi.repository.ReceivedWebhookEventRepository;
+import com.wd.custapi.repository.ReceivedWebhookEventRepository.QueueStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link WebhookQueue}: PENDING inserts, batch claiming and dispatch
+ * to the worker pool, backlog sampling for backpressure, and the metrics it feeds.
+ * The transaction manager is a mock, so claim transactions run inline.
+ */
+@ExtendWith(MockitoExtension.class)
+class WebhookQueueTest {
+
+    @Mock private ReceivedWebhookEventRepository eventRepository;
+    @Mock private WebhookIngestionService ingestionService;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WebhookQueue queue;
+
+    private WebhookQueue newQueue(boolean enabled, long maxBacklog) {
+        queue = new WebhookQueue(eventRepository, ingestionService,
+                new ObjectMapper().registerModule(new JavaTimeModule()), transactionManager, meterRegistry,
+                enabled, 2, 20, 50, maxBacklog, Duration.ofMinutes(5));
+        return queue;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (queue != null) queue.shutdown();
+    }
+
+    private void stubStats(long pending) {
+        QueueStats stats = mock(QueueStats.class);
+        when(stats.getPending()).thenReturn(pending);
+        when(stats.getOldestReceivedAt()).thenReturn(pending > 0 ? LocalDateTime.now().minusSeconds(90) : null);
+        when(eventRepository.findQueueStats()).thenReturn(stats);
+    }
+
+    private static ReceivedWebhookEvent pending(String payload) {
+        ReceivedWebhookEvent e = new ReceivedWebhookEvent();
+        e.setEventType("INVOICE_ISSUED");
+        e.setStatus(ReceivedWebhookEvent.STATUS_PENDING);
+        e.setPayload(payload);
+        e.setReceivedAt(LocalDateTime.now().minusSeconds(2));
+        return e;
+    }
+
+    @Test
+    void enqueue_persistsPendingRowWithSerialisedEvent() {
+        newQueue(true, 100);
+        when(eventRepository.save(any(ReceivedWebhookEvent.class))).thenAnswer(inv -> inv.getArgument(0));
+        PortalWebhookEvent event = new PortalWebhookEvent(PortalEventType.INVOICE_ISSUED, 42L, null, 7L,
+                "Invoice issued", Map.of("invoiceNumber", "INV-1"), LocalDateTime.of(2026, 5, 1, 9, 0));
+
+        ReceivedWebhookEvent saved = queue.enqueue(event);
+
+        assertThat(saved.getStatus()).isEqualTo(ReceivedWebhookEvent.STATUS_PENDING);
+        assertThat(saved.getEventType()).isEqualTo("INVOICE_ISSUED");
+        assertThat(saved.getPayload()).contains("INV-1");
+        assertThat(meterRegistry.get("webhook.queue.events").tag("outcome", "accepted").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void poll_claimsBatch_marksProcessing_andDispatchesToWorkers() {
+        newQueue(true, 100);
+        stubStats(2);
+        ReceivedWebhookEvent first = pending("{}");
+        ReceivedWebhookEvent second = pending("{}");
+        when(eventRepository.lockPendingBatch(20)).thenReturn(List.of(first, second));
+        when(eventRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(ingestionService.processQueued(any())).thenReturn(true);
+
+        queue.poll();
+
+        assertThat(first.getStatus()).isEqualTo(ReceivedWebhookEvent.STATUS_PROCESSING);
+        assertThat(first.getClaimedAt()).isNotNull();
+        verify(ingestionService, timeout(2000)).processQueued(first);
+        verify(ingestionService, timeout(2000)).processQueued(second);
+        verify(eventRepository, times(1)).lockPendingBatch(anyInt()); // short batch → queue drained
+    }
+
+    @Test
+    void poll_backlogAtThreshold_isBacklogged() {
+        newQueue(true, 100);
+        stubStats(100);
+        when(eventRepository.lockPendingBatch(anyInt())).thenReturn(List.of());
+        when(eventRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        assertThat(queue.isBacklogged()).isFalse();
+        queue.poll();
+
+        assertThat(queue.isBacklogged()).isTrue();
+        assertThat(meterRegistry.get("webhook.queue.backlog").gauge().value()).isEqualTo(100.0);
+        assertThat(meterRegistry.get("webhook.queue.oldest.age").gauge().value()).isGreaterThanOrEqualTo(90.0);
+    }
+
+    @Test
+    void poll_workersDisabled_samplesBacklogWithoutClaiming() {
+        newQueue(false, 100);
+        stubStats(150);
+
+        queue.poll();
+
+        assertThat(queue.isBacklogged()).isTrue();
+        verify(eventRepository, never()).lockPendingBatch(anyInt());
+    }
+
+    @Test
+    void releaseStaleClaims_usesClaimTimeout() {
+        newQueue(true, 100);
+        when(eventRepository.releaseStaleClaims(any())).thenReturn(3);
+
+        queue.releaseStaleClaims();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(eventRepository).releaseStaleClaims(cutoff.capture());
+        assertThat(cutoff.getValue()).isBefore(LocalDateTime.now().minusMinutes(4));
+    }
+}
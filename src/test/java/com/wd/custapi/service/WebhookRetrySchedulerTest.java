@@ -0,0 +1,134 @@
+package com.wd.custapi.service;
+
+import com.wd.custapi.model.ReceivedWebhookEvent;
+import com.wd.custapi.repository.ReceivedWebhookEventRepository;
+import com.wd.custapi.repository.ReceivedWebhookEventRepository.TypeCount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link WebhookRetryScheduler}: backoff with jitter, the
+ * dead-letter cut-off, bounded requeueing under the per-type cap, and replay.
+ * The transaction manager is a mock, so transactions run inline.
+ */
+@ExtendWith(MockitoExtension.class)
+class WebhookRetrySchedulerTest {
+
+    @Mock private ReceivedWebhookEventRepository eventRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WebhookRetryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new WebhookRetryScheduler(eventRepository, transactionManager, meterRegistry,
+                true, 4, Duration.ofSeconds(30), Duration.ofMinutes(10), 100, 2);
+    }
+
+    private static ReceivedWebhookEvent failed(String type, int attempts) {
+        ReceivedWebhookEvent e = new ReceivedWebhookEvent();
+        e.setEventType(type);
+        e.setStatus(ReceivedWebhookEvent.STATUS_FAILED);
+        e.setErrorMessage("portal unreachable");
+        e.setAttemptCount(attempts);
+        return e;
+    }
+
+    private static TypeCount active(String type, long count) {
+        TypeCount c = mock(TypeCount.class);
+        when(c.getEventType()).thenReturn(type);
+        when(c.getActive()).thenReturn(count);
+        return c;
+    }
+
+    @Test
+    void scheduleRetry_firstFailure_dueWithinJitteredInitialBackoff() {
+        ReceivedWebhookEvent e = failed("INVOICE_ISSUED", 0);
+        LocalDateTime before = LocalDateTime.now();
+
+        scheduler.scheduleRetry(e);
+
+        assertThat(e.getAttemptCount()).isEqualTo(1);
+        assertThat(e.getStatus()).isEqualTo(ReceivedWebhookEvent.STATUS_FAILED);
+        assertThat(e.getNextAttemptAt())
+                .isAfterOrEqualTo(before.plusSeconds(15))
+                .isBeforeOrEqualTo(LocalDateTime.now().plusSeconds(30));
+    }
+
+    @Test
+    void backoff_doublesPerAttempt_andIsCappedAtMax() {
+        for (int i = 0; i < 20; i++) {
+            assertThat(scheduler.backoff(3)).isBetween(Duration.ofSeconds(60), Duration.ofSeconds(120));
+            assertThat(scheduler.backoff(40)).isBetween(Duration.ofMinutes(5), Duration.ofMinutes(10));
+        }
+    }
+
+    @Test
+    void scheduleRetry_lastAttempt_deadLettersEvent() {
+        ReceivedWebhookEvent e = failed("INVOICE_ISSUED", 3);
+
+        scheduler.scheduleRetry(e);
+
+        assertThat(e.getStatus()).isEqualTo(ReceivedWebhookEvent.STATUS_DEAD);
+        assertThat(e.getNextAttemptAt()).isNull();
+        assertThat(meterRegistry.get("webhook.retry.events").tag("result", "dead").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void requeueBatch_returnsDueRowsToQueue_withinPerTypeCap() {
+        ReceivedWebhookEvent invoice1 = failed("INVOICE_ISSUED", 1);
+        ReceivedWebhookEvent invoice2 = failed("INVOICE_ISSUED", 1);
+        ReceivedWebhookEvent phase = failed("PHASE_UPDATED", 2);
+        when(eventRepository.lockDueRetries(any(LocalDateTime.class), eq(2), eq(100)))
+                .thenReturn(List.of(invoice1, invoice2, phase));
+        // one INVOICE_ISSUED retry already running; cap is 2
+        List<TypeCount> running = List.of(active("INVOICE_ISSUED", 1));
+        when(eventRepository.countActiveRetriesByType()).thenReturn(running);
+
+        int requeued = scheduler.requeueBatch();
+
+        assertThat(requeued).isEqualTo(2);
+        assertThat(invoice1.getStatus()).isEqualTo(ReceivedWebhookEvent.STATUS_PENDING);
+        assertThat(invoice2.getStatus()).isEqualTo(ReceivedWebhookEvent.STATUS_FAILED);
+        assertThat(phase.getStatus()).isEqualTo(ReceivedWebhookEvent.STATUS_PENDING);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReceivedWebhookEvent>> saved = ArgumentCaptor.forClass(List.class);
+        verify(eventRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).containsExactly(invoice1, phase);
+    }
+
+    @Test
+    void requeueBatch_nothingDue_touchesNothing() {
+        when(eventRepository.lockDueRetries(any(LocalDateTime.class), anyInt(), anyInt())).thenReturn(List.of());
+
+        assertThat(scheduler.requeueBatch()).isZero();
+        verify(eventRepository, never()).countActiveRetriesByType();
+        verify(eventRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void replay_singleIdOrAll() {
+        when(eventRepository.replayDeadLetter(7L)).thenReturn(1);
+        when(eventRepository.replayAllDeadLetters()).thenReturn(12);
+
+        assertThat(scheduler.replay(7L)).isEqualTo(1);
+        assertThat(scheduler.replay(null)).isEqualTo(12);
+    }
+}
@@ -0,0 +1,37 @@
+package com.wd.custapi.testsupport;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Runs the Flyway migrations after a given version on top of the schema
+ * Hibernate built for {@link TestcontainersPostgresBase}, for tests of what only
+ * the migrations define (triggers, functions, tables without an entity).
+ *
+ * <p>The history is dropped first and every migration is applied again: another
+ * Spring context may have re-created the entity tables, and their triggers,
+ * since the last run. Migrations after {@code afterVersion} must therefore be
+ * re-runnable, which the recent ones are ({@code IF NOT EXISTS},
+ * {@code CREATE OR REPLACE}, {@code DROP TRIGGER IF EXISTS}).
+ */
+public final class FlywayMigrations {
+
+    private static final String HISTORY_TABLE = "flyway_test_history";
+
+    private FlywayMigrations() {
+    }
+
+    public static void applyAfter(DataSource dataSource, String afterVersion) {
+        new JdbcTemplate(dataSource).execute("DROP TABLE IF EXISTS " + HISTORY_TABLE);
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .table(HISTORY_TABLE)
+                .baselineOnMigrate(true)
+                .baselineVersion(afterVersion)
+                .load()
+                .migrate();
+    }
+}
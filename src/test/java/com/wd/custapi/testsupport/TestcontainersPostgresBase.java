@@ -49,6 +49,12 @@ public abstract class TestcontainersPostgresBase {
         // uses Flyway against the real shared DB.)
         registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
         registry.add("spring.flyway.enabled", () -> "false");
+        registry.add("app.timeline.job-enabled", () -> "false");
+        registry.add("app.webhooks.queue.enabled", () -> "false");
+        registry.add("app.webhooks.retry.enabled", () -> "false");
+        registry.add("app.push.outbox.enabled", () -> "false");
+        registry.add("app.payments.reminders.enabled", () -> "false");
+        registry.add("app.stream.cross-node", () -> "false");
         registry.add("jwt.secret", () -> "test-secret-do-not-use-in-prod-0123456789abcdef0123456789abcdef");
         registry.add("jwt.access-token-expiration", () -> "3600000");
         registry.add("jwt.refresh-token-expiration", () -> "604800000");
@@ -56,5 +62,11 @@ public abstract class TestcontainersPostgresBase {
         registry.add("jwt.aud.enforce", () -> "false");
         // Disable rate limiting to prevent 429 in tests.
         registry.add("app.rate-limiting.enabled", () -> "false");
+        registry.add("app.throttle.enabled", () -> "false");
+        // The Spring context (and its caches) is shared by every test class, and
+        // classes reuse seed emails with different roles — disable access caching.
+        registry.add("app.project-access.cache-ttl", () -> "0s");
+        registry.add("app.auth.principal-cache-ttl", () -> "0s");
+        registry.add("app.storage.ownership-cache-ttl", () -> "0s");
     }
 }
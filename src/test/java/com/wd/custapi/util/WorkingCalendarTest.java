@@ -0,0 +1,76 @@
+package com.wd.custapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link WorkingCalendar}: holidays inside the span, dates before and
+ * after it, adding working days across holidays, and a cross-check of the
+ * constant-time answers against a day-by-day count.
+ */
+class WorkingCalendarTest {
+
+    // Thu 2026-01-01, Mon 2026-01-26, Sat 2026-08-15, Sun 2026-10-04 (ignored: already off)
+    private static final List<LocalDate> HOLIDAYS = List.of(
+            LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 26),
+            LocalDate.of(2026, 8, 15), LocalDate.of(2026, 10, 4));
+
+    private final WorkingCalendar calendar = new WorkingCalendar(HOLIDAYS);
+
+    @Test
+    void workingDaysBetween_excludesHolidaysAndSundays() {
+        // Mon 2026-01-26 -> Mon 2026-02-02: Tue..Sat = 5 (Mon is a holiday, Sun off)
+        assertThat(calendar.workingDaysBetween(LocalDate.of(2026, 1, 26), LocalDate.of(2026, 2, 2)))
+                .isEqualTo(5);
+        assertThat(calendar.workingDaysBetween(LocalDate.of(2026, 2, 2), LocalDate.of(2026, 1, 26)))
+                .isEqualTo(-5);
+        assertThat(calendar.holidayCount()).isEqualTo(3);
+    }
+
+    @Test
+    void workingDaysBetween_acrossTheSpan_countsEachHolidayOnce() {
+        LocalDate before = LocalDate.of(2025, 6, 2);
+        LocalDate after = LocalDate.of(2027, 6, 7);
+        assertThat(calendar.workingDaysBetween(before, after))
+                .isEqualTo(WorkingCalendar.SUNDAYS_ONLY.workingDaysBetween(before, after) - 3);
+    }
+
+    @Test
+    void addWorkingDays_skipsHolidays() {
+        // Sat 2026-01-24 + 1 -> Tue 2026-01-27 (Sun off, Mon holiday)
+        assertThat(calendar.addWorkingDays(LocalDate.of(2026, 1, 24), 1)).isEqualTo(LocalDate.of(2026, 1, 27));
+        assertThat(calendar.addWorkingDays(LocalDate.of(2026, 1, 27), -1)).isEqualTo(LocalDate.of(2026, 1, 24));
+        // Wed 2025-12-31 + 1 -> Fri 2026-01-02, starting before the span
+        assertThat(calendar.addWorkingDays(LocalDate.of(2025, 12, 31), 1)).isEqualTo(LocalDate.of(2026, 1, 2));
+        assertThat(calendar.isWorkingDay(LocalDate.of(2026, 8, 15))).isFalse();
+    }
+
+    @Test
+    void matchesDayByDayCount() {
+        Set<LocalDate> off = Set.copyOf(HOLIDAYS);
+        LocalDate origin = LocalDate.of(2025, 12, 1);
+        for (int span = 0; span < 500; span += 7) {
+            for (int shift = 0; shift < 7; shift++) {
+                LocalDate start = origin.plusDays(shift);
+                LocalDate end = start.plusDays(span);
+                int expected = 0;
+                for (LocalDate d = start; d.isBefore(end); d = d.plusDays(1)) {
+                    if (d.getDayOfWeek() != DayOfWeek.SUNDAY && !off.contains(d)) expected++;
+                }
+                assertThat(calendar.workingDaysBetween(start, end)).as("%s..%s", start, end).isEqualTo(expected);
+                if (expected > 0) {
+                    LocalDate added = calendar.addWorkingDays(start, expected);
+                    assertThat(calendar.isWorkingDay(added)).isTrue();
+                    assertThat(calendar.workingDaysBetween(start.plusDays(1), added.plusDays(1)))
+                            .as("%s + %d = %s", start, expected, added).isEqualTo(expected);
+                }
+            }
+        }
+    }
+}
@@ -7,10 +7,8 @@ import java.time.LocalDate;
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
- * Tests for the minimal Mon-Sat working-day calculator used by the customer
- * expected-handover endpoint. The customer-API does NOT consult the holiday
- * calendar (portal-API owns that table) — accuracy trade-off documented in
- * the calculator's Javadoc.
+ * Tests for the minimal Mon-Sat working-day calculator (no holidays). The
+ * holiday-aware engine behind it is covered by {@link WorkingCalendarTest}.
  */
 class WorkingDayCalculatorTest {
 
@@ -49,6 +47,15 @@ class WorkingDayCalculatorTest {
                 .isEqualTo(6);
     }
 
+    @Test
+    void addWorkingDays_skipsSundays() {
+        // 2026-05-09 (Sat) + 1 -> Mon 2026-05-11; Mon 2026-05-11 - 1 -> Sat 2026-05-09
+        assertThat(WorkingDayCalculator.addWorkingDays(LocalDate.of(2026, 5, 9), 1))
+                .isEqualTo(LocalDate.of(2026, 5, 11));
+        assertThat(WorkingDayCalculator.addWorkingDays(LocalDate.of(2026, 5, 11), -1))
+                .isEqualTo(LocalDate.of(2026, 5, 9));
+    }
+
     @Test
     void workingDaysBetween_handlesNullsGracefully() {
         assertThat(WorkingDayCalculator.workingDaysBetween(null, LocalDate.of(2026, 5, 5))).isZero();